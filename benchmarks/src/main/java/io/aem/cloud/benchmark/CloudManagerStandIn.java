@@ -0,0 +1,166 @@
+package io.aem.cloud.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.aem.cloud.DaemonThreads;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local stand-in for the Cloud Manager log download: {@code /api/program/{programId}/environment/{envId}/logs/
+ * download?date=...} answers with a signed URL valid for an hour, and that URL serves the day's
+ * {@link GrowingArchive} with {@code Range}, {@code ETag}/{@code If-None-Match} and {@code 416} like the real
+ * storage does. Every program, environment, service and log gets the same archive. Any non-empty
+ * {@code Authorization} is accepted.
+ * <p>
+ * Run it on its own to try the tool offline:
+ * {@code java -cp benchmarks.jar io.aem.cloud.benchmark.CloudManagerStandIn [port] [lines per second]}.
+ */
+public class CloudManagerStandIn implements AutoCloseable {
+
+    private static final String DOWNLOAD = "/api/program/";
+    private static final String ARCHIVE = "/archive/";
+    private static final long URL_VALIDITY_SECONDS = 3600;
+
+    private final GrowingArchive archive;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private CloudManagerStandIn(GrowingArchive archive, HttpServer server, ExecutorService executor) {
+        this.archive = archive;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * @param port 0 for any free port.
+     */
+    public static CloudManagerStandIn start(int port, int linesPerSecond) throws IOException {
+        final GrowingArchive archive = new GrowingArchive(linesPerSecond);
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                0);
+        final ExecutorService executor = Executors.newCachedThreadPool(DaemonThreads.numbered("stand-in-http"));
+        final CloudManagerStandIn standIn = new CloudManagerStandIn(archive, server, executor);
+        server.createContext(DOWNLOAD, standIn::download);
+        server.createContext(ARCHIVE, standIn::archive);
+        server.setExecutor(executor);
+        server.start();
+        archive.start();
+        return standIn;
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return number of lines appended so far.
+     */
+    public long appended() {
+        return archive.appended();
+    }
+
+    @Override
+    public void close() {
+        archive.close();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8099;
+        final int rate = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final CloudManagerStandIn standIn = start(port, rate);
+        System.out.println("Serving an error log growing by " + rate + " lines/s on " + standIn.baseUrl() + "\n" +
+                "Tail it with: java -jar aem-cloud-logging.jar --base-url " + standIn.baseUrl() +
+                " --access-token local -p 1 -e 2 -s author -log aemerror -pmin 1");
+        Thread.currentThread().join();
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        try {
+            final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || authorization.isEmpty()) {
+                respond(exchange, 401, "{\"title\":\"Unauthorized\"}");
+                return;
+            }
+            final String date = queryParameter(exchange, "date");
+            if (!exchange.getRequestURI().getPath().endsWith("/logs/download") || date == null
+                    || archive.day(date) == null) {
+                respond(exchange, 404, "{\"title\":\"Not Found\"}");
+                return;
+            }
+            final long expires = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + URL_VALIDITY_SECONDS;
+            respond(exchange, 200, "{\"redirect\":\"" + baseUrl() + ARCHIVE + date + "?Expires=" + expires + "\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void archive(HttpExchange exchange) throws IOException {
+        try {
+            final GrowingArchive.Day day = archive.day(exchange.getRequestURI().getPath()
+                    .substring(ARCHIVE.length()));
+            if (day == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final GrowingArchive.Snapshot snapshot = day.snapshot();
+            final String etag = "\"" + snapshot.length + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            int from = 0;
+            if (range != null && range.startsWith("bytes=")) {
+                final String spec = range.substring("bytes=".length());
+                from = spec.startsWith("-")
+                        ? Math.max(0, snapshot.length - Integer.parseInt(spec.substring(1)))
+                        : Integer.parseInt(spec.substring(0, spec.indexOf('-')));
+                if (from >= snapshot.length) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + snapshot.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + from + "-" + (snapshot.length - 1) + "/" + snapshot.length);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/gzip");
+            exchange.sendResponseHeaders(range != null ? 206 : 200, snapshot.length - from);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(snapshot.data, from, snapshot.length - from);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        final String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return parameter.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+}
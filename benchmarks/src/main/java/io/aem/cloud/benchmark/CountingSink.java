@@ -0,0 +1,28 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.output.LineSink;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * End of the chain in the benchmarks, consuming what it gets so the JIT can't drop the work.
+ */
+class CountingSink implements LineSink {
+
+    private final Blackhole blackhole;
+    long lines;
+
+    CountingSink(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) {
+        lines++;
+        blackhole.consume(len);
+    }
+
+    @Override
+    public void flush() {
+        blackhole.consume(lines);
+    }
+}
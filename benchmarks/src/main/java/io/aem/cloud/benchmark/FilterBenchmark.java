@@ -0,0 +1,79 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.filter.LineFilter;
+import io.aem.cloud.model.FilterSettings;
+import io.aem.cloud.output.FilteringSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The line filter with the typical kinds of rules: a level, a logger, one literal, a long exclusion list that
+ * goes through the single Aho-Corasick pass, and a regular expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    private static final int EXCLUSIONS = 50;
+
+    @Param({"level", "logger", "include", "excludes", "regex"})
+    public String rules;
+
+    private FilterRules filterRules;
+
+    @Setup(Level.Trial)
+    public void compile() {
+        final FilterSettings.FilterSettingsBuilder settings = FilterSettings.builder();
+        switch (rules) {
+            case "level":
+                settings.minLevel("WARN");
+                break;
+            case "logger":
+                settings.logger("com.example");
+                break;
+            case "include":
+                settings.include("Slow query");
+                break;
+            case "excludes":
+                for (int i = 0; i < EXCLUSIONS; i++) {
+                    settings.exclude("/content/example/us/en/products/item-" + i + ".");
+                }
+                break;
+            default:
+                settings.include("/item-\\d+7\\.html/");
+                break;
+        }
+        filterRules = new FilterRules(settings.build());
+    }
+
+    @Benchmark
+    public long filter(LogInput input, Throughput throughput, Blackhole blackhole) throws IOException {
+        final CountingSink sink = new CountingSink(blackhole);
+        final FilteringSink filtering = new FilteringSink(new LineFilter(filterRules), sink);
+        for (int i = 0; i < input.lines; i++) {
+            filtering.line(input.text, input.starts[i], input.starts[i + 1] - input.starts[i] - 1);
+        }
+        filtering.flush();
+        throughput.add(input);
+        return sink.lines;
+    }
+}
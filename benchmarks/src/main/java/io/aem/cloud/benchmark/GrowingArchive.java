@@ -0,0 +1,119 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.DaemonThreads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Daily error log archives that grow at a fixed line rate, like the ones Cloud Manager serves: every 10 ms the
+ * lines due are appended as one more gzip member to the archive of the current day, so at midnight UTC a new
+ * archive starts and the previous one stays as it was. Every line carries its sequence number and the
+ * {@link System#nanoTime()} it was appended at, for measuring how long it takes to come out of the tail.
+ */
+class GrowingArchive implements AutoCloseable {
+
+    private static final long TICK_MILLIS = 10;
+    private static final DateTimeFormatter TIME = DateTimeFormatter
+            .ofPattern("dd.MM.yyyy HH:mm:ss.SSS", Locale.ROOT).withZone(ZoneOffset.UTC);
+
+    private final int linesPerSecond;
+    private final Map<String, Day> days = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService appender = Executors.newSingleThreadScheduledExecutor(
+            DaemonThreads.named("archive-appender"));
+    private final long startNanos = System.nanoTime();
+    private long appended;
+
+    GrowingArchive(int linesPerSecond) {
+        this.linesPerSecond = linesPerSecond;
+    }
+
+    void start() {
+        appender.scheduleAtFixedRate(this::append, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the archive of the day, null if nothing was logged that day.
+     */
+    Day day(String date) {
+        return days.get(date);
+    }
+
+    long appended() {
+        return appended;
+    }
+
+    @Override
+    public void close() {
+        appender.shutdownNow();
+    }
+
+    private void append() {
+        final long due = (System.nanoTime() - startNanos) * linesPerSecond / 1_000_000_000L;
+        if (due <= appended) {
+            return;
+        }
+        final StringBuilder text = new StringBuilder((int) (due - appended) * 128);
+        final String time = TIME.format(Instant.now());
+        while (appended < due) {
+            text.append(time).append(" [cm-p1-e2-aem-author-local] *INFO* [load-generator] ")
+                    .append("com.example.Load line=").append(++appended)
+                    .append(" appended=").append(System.nanoTime()).append('\n');
+        }
+        final ByteArrayOutputStream member = new ByteArrayOutputStream(text.length() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+            gzip.write(text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        days.computeIfAbsent(LocalDate.now(ZoneOffset.UTC).toString(), date -> new Day()).append(member.toByteArray());
+    }
+
+    /**
+     * One day's archive. Bytes are only ever appended, so a reader may use the array it got for the length it got
+     * while later appends move on to a larger copy.
+     */
+    static class Day {
+        private byte[] data = new byte[1024 * 1024];
+        private int length;
+
+        synchronized void append(byte[] member) {
+            if (length + member.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + member.length));
+            }
+            System.arraycopy(member, 0, data, length, member.length);
+            length += member.length;
+        }
+
+        /**
+         * @return the bytes so far, valid up to {@link Snapshot#length}.
+         */
+        synchronized Snapshot snapshot() {
+            return new Snapshot(data, length);
+        }
+    }
+
+    static class Snapshot {
+        final byte[] data;
+        final int length;
+
+        Snapshot(byte[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
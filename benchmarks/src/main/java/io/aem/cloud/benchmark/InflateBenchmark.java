@@ -0,0 +1,89 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.processor.IncrementalGzipInflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Inflating a day's archive at once, as the tool did before incremental inflation, against feeding it to the
+ * long-lived inflater in poll-sized pieces, as the tail does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InflateBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Compressed bytes per poll fed to the incremental inflater.
+     */
+    @Param("65536")
+    public int pollBytes;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    @Benchmark
+    public long fullInflate(LogInput input, Throughput throughput) throws IOException {
+        long total = 0;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(input.archive), BUFFER_SIZE)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                total += read;
+            }
+        }
+        throughput.add(input);
+        return total;
+    }
+
+    @Benchmark
+    public long incrementalInflate(LogInput input, Throughput throughput, Blackhole blackhole) throws IOException {
+        final BlackholeOutputStream out = new BlackholeOutputStream(blackhole);
+        try (IncrementalGzipInflater inflater = new IncrementalGzipInflater()) {
+            for (int from = 0; from < input.archive.length; from += pollBytes) {
+                inflater.inflate(input.archive, from, Math.min(pollBytes, input.archive.length - from), out);
+            }
+        }
+        throughput.add(input);
+        return out.bytes;
+    }
+
+    static class BlackholeOutputStream extends OutputStream {
+        private final Blackhole blackhole;
+        long bytes;
+
+        BlackholeOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            blackhole.consume(b);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.output.JsonSink;
+import io.aem.cloud.output.LineSplittingOutputStream;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+import io.aem.cloud.processor.LineReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting the inflated text into lines, the way the file tail reads its window and the way the in-memory and
+ * multi-target tails split the inflater's output, then parsing the lines into fields and rendering them as JSON.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineBenchmark {
+
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    private final LineReader lineReader = new LineReader();
+    private final LogRecord record = new LogRecord();
+
+    @Benchmark
+    public long lineReader(LogInput input, Throughput throughput, Blackhole blackhole) throws IOException {
+        final CountingSink sink = new CountingSink(blackhole);
+        final ByteBuffer text = ByteBuffer.wrap(input.text);
+        lineReader.readLines((buffer, position) -> {
+            if (position >= text.limit()) {
+                return -1;
+            }
+            final int length = (int) Math.min(buffer.remaining(), text.limit() - position);
+            buffer.put(text.duplicate().position((int) position).limit((int) position + length));
+            return length;
+        }, 0, sink);
+        throughput.add(input);
+        return sink.lines;
+    }
+
+    @Benchmark
+    public long lineSplitting(LogInput input, Throughput throughput, Blackhole blackhole) throws IOException {
+        final CountingSink sink = new CountingSink(blackhole);
+        final LineSplittingOutputStream lines = new LineSplittingOutputStream(sink);
+        for (int from = 0; from < input.text.length; from += WRITE_SIZE) {
+            lines.write(input.text, from, Math.min(WRITE_SIZE, input.text.length - from));
+        }
+        throughput.add(input);
+        return sink.lines;
+    }
+
+    @Benchmark
+    public long parse(LogInput input, Throughput throughput) {
+        final LogParser parser = new LogParser(input.format);
+        long parsed = 0;
+        for (int i = 0; i < input.lines; i++) {
+            if (parser.parse(input.text, input.starts[i], input.starts[i + 1] - input.starts[i] - 1, record)) {
+                parsed++;
+            }
+        }
+        throughput.add(input);
+        return parsed;
+    }
+
+    @Benchmark
+    public long json(LogInput input, Throughput throughput, Blackhole blackhole) throws IOException {
+        final CountingSink sink = new CountingSink(blackhole);
+        final JsonSink json = new JsonSink(sink, input.format, null);
+        for (int i = 0; i < input.lines; i++) {
+            json.line(input.text, input.starts[i], input.starts[i + 1] - input.starts[i] - 1);
+        }
+        json.flush();
+        throughput.add(input);
+        return sink.lines;
+    }
+}
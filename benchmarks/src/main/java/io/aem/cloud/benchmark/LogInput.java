@@ -0,0 +1,62 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.parser.LogFormat;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * The synthetic log every benchmark works on, as text, as a gzip archive and as line boundaries, generated once
+ * per trial. Change it with {@code -p format=ACCESS -p sizeMb=64 -p stackTraceRatio=0.2}.
+ */
+@State(Scope.Benchmark)
+public class LogInput {
+
+    @Param({"ERROR", "REQUEST", "ACCESS"})
+    public LogFormat format;
+
+    @Param("16")
+    public int sizeMb;
+
+    @Param("0.05")
+    public double stackTraceRatio;
+
+    /**
+     * Text per gzip member, 0 for a single member.
+     */
+    @Param("0")
+    public int memberKb;
+
+    public byte[] text;
+    public byte[] archive;
+    /**
+     * Start of every line, followed by the text length, so line {@code i} spans
+     * {@code starts[i]} to {@code starts[i + 1] - 1} without its line break.
+     */
+    public int[] starts;
+    public int lines;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        text = SyntheticLogs.generate(format, sizeMb * 1024 * 1024, stackTraceRatio, 42);
+        archive = SyntheticLogs.gzip(text, memberKb * 1024);
+        starts = new int[1024];
+        for (int i = 0; i < text.length; i++) {
+            if (i == 0 || text[i - 1] == '\n') {
+                if (lines + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[lines++] = i;
+            }
+        }
+        starts[lines] = text.length;
+    }
+
+    public double megabytes() {
+        return text.length / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,82 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.output.AsyncSink;
+import io.aem.cloud.output.ConsoleSink;
+import io.aem.cloud.output.LineSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output throughput into a stream that discards everything, so only the sink's own work is measured: the UTF-8
+ * console writing the bytes as they are, a console in another charset transcoding them, and the UTF-8 console
+ * behind the queue of an async sink, as the tool writes it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkBenchmark {
+
+    private static final int LINES_PER_FLUSH = 1000;
+
+    @Param({"utf8", "transcoding", "async"})
+    public String sink;
+
+    private LineSink output;
+    private AsyncSink async;
+
+    @Setup(Level.Trial)
+    public void open() {
+        switch (sink) {
+            case "utf8":
+                output = new ConsoleSink(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+                break;
+            case "transcoding":
+                output = new ConsoleSink(OutputStream.nullOutputStream(), StandardCharsets.ISO_8859_1);
+                break;
+            default:
+                async = AsyncSink.start("benchmark",
+                        new ConsoleSink(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 256,
+                        AsyncSink.Overflow.BLOCK);
+                output = async;
+                break;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        if (async != null) {
+            async.close();
+        }
+    }
+
+    @Benchmark
+    public void write(LogInput input, Throughput throughput) throws IOException {
+        for (int i = 0; i < input.lines; i++) {
+            output.line(input.text, input.starts[i], input.starts[i + 1] - input.starts[i] - 1);
+            if (i % LINES_PER_FLUSH == LINES_PER_FLUSH - 1) {
+                output.flush();
+            }
+        }
+        output.flush();
+        throughput.add(input);
+    }
+}
@@ -0,0 +1,167 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.parser.LogFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates AEM-like {@code error.log}, {@code request.log} and {@code access.log} content, the same for the same
+ * seed. Error logs get stack traces of 10 to 40 frames after the given share of their lines.
+ */
+public final class SyntheticLogs {
+
+    private static final DateTimeFormatter ERROR_TIME = DateTimeFormatter
+            .ofPattern("dd.MM.yyyy HH:mm:ss.SSS", Locale.ROOT).withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter HTTP_TIME = DateTimeFormatter
+            .ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.ROOT).withZone(ZoneOffset.UTC);
+    private static final long START = Instant.parse("2024-04-22T00:00:00Z").toEpochMilli();
+    private static final String POD = "cm-p12345-e67890-aem-publish-5f8d9c7b4-x2kq9";
+
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] LOGGERS = {
+            "org.apache.sling.engine.impl.SlingRequestProcessorImpl",
+            "com.day.cq.wcm.core.impl.PageManagerImpl",
+            "org.apache.jackrabbit.oak.plugins.index.IndexUpdate",
+            "com.adobe.granite.replication.core.impl.ReplicationServiceImpl",
+            "org.apache.sling.distribution.journal.impl.publisher.DistributionPublisher",
+            "com.example.core.servlets.SearchServlet",
+            "com.example.core.models.impl.TeaserModelImpl",
+    };
+    private static final String[] MESSAGES = {
+            "Service [org.apache.sling.event.jobs.JobManager] ServiceEvent REGISTERED",
+            "Traversed 10000 nodes with filter Filter(query=select [jcr:path] from [nt:base])",
+            "Page /content/example/us/en/products/item-%d has been modified",
+            "Unable to resolve resource /content/dam/example/images/hero-%d.jpg",
+            "Processing distribution package dstrpck-%d took 132 ms",
+            "Slow query: 2311 ms for /jcr:root/content/example//*[@sling:resourceType='example/components/teaser']",
+            "Background indexing completed for async lane fulltext-async, %d documents",
+    };
+    private static final String[] EXCEPTIONS = {
+            "java.lang.NullPointerException: Cannot invoke \"String.length()\" because \"title\" is null",
+            "javax.jcr.PathNotFoundException: /content/example/us/en/missing-%d",
+            "org.apache.sling.api.resource.PersistenceException: Unable to commit changes to session.",
+    };
+    private static final String[] FRAMES = {
+            "com.example.core.models.impl.TeaserModelImpl.init(TeaserModelImpl.java:%d)",
+            "org.apache.sling.models.impl.ModelAdapterFactory.invokePostConstruct(ModelAdapterFactory.java:%d)",
+            "org.apache.sling.engine.impl.filter.AbstractSlingFilterChain.doFilter(AbstractSlingFilterChain.java:%d)",
+            "com.day.cq.wcm.core.impl.WCMComponentFilter.doFilter(WCMComponentFilter.java:%d)",
+            "org.eclipse.jetty.server.handler.HandlerWrapper.handle(HandlerWrapper.java:%d)",
+            "java.base/java.lang.Thread.run(Thread.java:%d)",
+    };
+    private static final String[] PATHS = {
+            "/content/example/us/en.html", "/content/example/us/en/products/item-%d.html",
+            "/content/dam/example/images/hero-%d.jpg", "/etc.clientlibs/example/clientlibs/site.min.js",
+            "/libs/granite/csrf/token.json", "/bin/example/search.json?q=item%d",
+    };
+    private static final String[] TYPES = {"text/html", "image/jpeg", "application/javascript", "application/json"};
+    private static final int[] STATUSES = {200, 200, 200, 200, 200, 200, 304, 302, 404, 500};
+
+    private SyntheticLogs() {
+    }
+
+    /**
+     * @param bytes           about how much text to generate, the last line may end a little after.
+     * @param stackTraceRatio share of error log lines followed by a stack trace, ignored for the other formats.
+     */
+    public static byte[] generate(LogFormat format, int bytes, double stackTraceRatio, long seed) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final StringBuilder text = new StringBuilder(bytes + 4096);
+        long time = START;
+        long request = 0;
+        while (text.length() < bytes) {
+            time += random.nextInt(50);
+            final int number = random.nextInt(100_000);
+            switch (format) {
+                case ERROR:
+                    final String level = LEVELS[random.nextInt(LEVELS.length)];
+                    text.append(ERROR_TIME.format(Instant.ofEpochMilli(time))).append(" [").append(POD)
+                            .append("] *").append(level).append("* [qtp1284837442-").append(random.nextInt(300))
+                            .append("] ").append(LOGGERS[random.nextInt(LOGGERS.length)]).append(' ')
+                            .append(String.format(Locale.ROOT, MESSAGES[random.nextInt(MESSAGES.length)], number))
+                            .append('\n');
+                    if (random.nextDouble() < stackTraceRatio) {
+                        stackTrace(text, random, number);
+                    }
+                    break;
+                case REQUEST:
+                    final String path = String.format(Locale.ROOT, PATHS[random.nextInt(PATHS.length)], number);
+                    request++;
+                    text.append(HTTP_TIME.format(Instant.ofEpochMilli(time))).append(" [").append(request)
+                            .append("] [").append(POD).append("] -> GET ").append(path).append(" HTTP/1.1\n");
+                    text.append(HTTP_TIME.format(Instant.ofEpochMilli(time + 40))).append(" [").append(request)
+                            .append("] [").append(POD).append("] <- ")
+                            .append(STATUSES[random.nextInt(STATUSES.length)]).append(' ')
+                            .append(TYPES[random.nextInt(TYPES.length)]).append(' ').append(random.nextInt(2000))
+                            .append("ms\n");
+                    break;
+                default:
+                    text.append("10.").append(random.nextInt(256)).append('.').append(random.nextInt(256))
+                            .append('.').append(random.nextInt(256)).append(" - - ")
+                            .append(HTTP_TIME.format(Instant.ofEpochMilli(time))).append(" \"GET ")
+                            .append(String.format(Locale.ROOT, PATHS[random.nextInt(PATHS.length)], number))
+                            .append(" HTTP/1.1\" ").append(STATUSES[random.nextInt(STATUSES.length)]).append(' ')
+                            .append(random.nextInt(200_000))
+                            .append(" \"https://www.example.com/\" \"Mozilla/5.0 (Windows NT 10.0; Win64; x64) ")
+                            .append("AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36\"\n");
+                    break;
+            }
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compresses the text like Cloud Manager serves it, as one gzip member or as members of about
+     * {@code memberBytes} of text each when it's positive.
+     */
+    public static byte[] gzip(byte[] text, int memberBytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(text.length / 8);
+        final int step = memberBytes > 0 ? memberBytes : text.length;
+        try {
+            for (int from = 0; from < text.length; from += step) {
+                try (GZIPOutputStream member = new GZIPOutputStream(new NonClosingOutputStream(out), 64 * 1024)) {
+                    member.write(text, from, Math.min(step, text.length - from));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void stackTrace(StringBuilder text, SplittableRandom random, int number) {
+        text.append(String.format(Locale.ROOT, EXCEPTIONS[random.nextInt(EXCEPTIONS.length)], number)).append('\n');
+        final int frames = 10 + random.nextInt(31);
+        for (int i = 0; i < frames; i++) {
+            text.append("\tat ").append(String.format(Locale.ROOT, FRAMES[random.nextInt(FRAMES.length)],
+                    20 + random.nextInt(500))).append('\n');
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            // The members share the stream.
+        }
+    }
+}
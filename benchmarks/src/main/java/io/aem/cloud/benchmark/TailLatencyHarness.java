@@ -0,0 +1,184 @@
+package io.aem.cloud.benchmark;
+
+import io.aem.cloud.api.ApiBuilder;
+import io.aem.cloud.api.TokenManager;
+import io.aem.cloud.model.Credentials;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.processor.LogDownloader;
+import io.aem.cloud.processor.LogTailor;
+import io.aem.cloud.processor.LogWindow;
+import io.aem.cloud.processor.PollScheduler;
+import io.aem.cloud.stats.LatencyHistogram;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * End-to-end tail latency against the {@link CloudManagerStandIn}: for each line rate, the real downloader and
+ * tailor follow a growing archive over HTTP, and every line is timed from the moment it was appended to the archive
+ * until it reaches the sink. Reports the latency percentiles, the CPU time and allocations of both threads, and the
+ * peak heap, after a warmup that isn't counted.
+ * <p>
+ * {@code java -cp benchmarks.jar io.aem.cloud.benchmark.TailLatencyHarness [--rates 1000,10000,100000]
+ * [--seconds 30] [--warmup 5] [--poll-ms 250]}
+ */
+public class TailLatencyHarness {
+
+    private static final long WINDOW_BYTES = FileUtils.ONE_MB * 64;
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> rates = List.of(1_000, 10_000, 100_000);
+        int seconds = 30;
+        int warmup = 5;
+        long pollMillis = 250;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--rates":
+                    rates = new ArrayList<>();
+                    for (String rate : args[i + 1].split(",")) {
+                        rates.add(Integer.parseInt(rate.trim()));
+                    }
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--poll-ms":
+                    pollMillis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        System.out.printf("%10s %10s %8s %8s %8s %8s %10s %12s %10s%n", "lines/s", "measured", "p50 ms", "p90 ms",
+                "p99 ms", "max ms", "cpu %", "alloc MB/s", "heap MB");
+        for (int rate : rates) {
+            System.out.println(run(rate, seconds, warmup, pollMillis));
+            System.gc();
+        }
+    }
+
+    private static String run(int rate, int seconds, int warmup, long pollMillis) throws Exception {
+        final File tempDir = Files.createTempDirectory("aem_logs_harness").toFile();
+        final LatencySink sink = new LatencySink(System.nanoTime() + warmup * 1_000_000_000L);
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        try (CloudManagerStandIn standIn = CloudManagerStandIn.start(0, rate);
+             LogWindow window = new LogWindow(new File(tempDir, "aem.log"), WINDOW_BYTES)) {
+            final ApiBuilder apiBuilder = ApiBuilder.create(Credentials.builder().orgId("").clientId("").build(),
+                    TokenManager.fixed("local"), standIn.baseUrl());
+            final PollSettings pollSettings = PollSettings.builder()
+                    .minDelayMillis(pollMillis).maxDelayMillis(pollMillis * 4).backoff(2).build();
+            final Thread downloader = new Thread(new LogDownloader(
+                    apiBuilder.logApi(tempDir, "author", "2", "1", "aemerror"), tempDir, window, 0,
+                    new PollScheduler(pollSettings), null), "harness-downloader");
+            final Thread tailor = new Thread(new LogTailor(tempDir, window, 0, sink), "harness-tailor");
+            downloader.setDaemon(true);
+            tailor.setDaemon(true);
+            downloader.start();
+            tailor.start();
+
+            Thread.sleep(warmup * 1000L);
+            final long cpuStart = cpuTime(threads, downloader, tailor);
+            final long allocatedStart = allocatedBytes(threads, downloader, tailor);
+            final long start = System.nanoTime();
+            long peakHeap = 0;
+            while (System.nanoTime() - start < seconds * 1_000_000_000L) {
+                peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+                Thread.sleep(100);
+            }
+            final double elapsed = (System.nanoTime() - start) / 1e9;
+            final long cpu = cpuTime(threads, downloader, tailor) - cpuStart;
+            final long allocated = allocatedBytes(threads, downloader, tailor) - allocatedStart;
+            downloader.interrupt();
+            tailor.interrupt();
+            downloader.join(5_000);
+            tailor.join(5_000);
+
+            final LatencyHistogram latencies = sink.snapshot();
+            return String.format("%10d %10d %8d %8d %8d %8d %10.1f %12.1f %10.1f", rate, latencies.count(),
+                    latencies.percentile(50), latencies.percentile(90), latencies.percentile(99), sink.max(),
+                    cpu / 1e7 / elapsed, allocated / (double) FileUtils.ONE_MB / elapsed,
+                    peakHeap / (double) FileUtils.ONE_MB);
+        } finally {
+            FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    private static long cpuTime(ThreadMXBean threads, Thread... measured) {
+        long total = 0;
+        for (Thread thread : measured) {
+            total += Math.max(0, threads.getThreadCpuTime(thread.getId()));
+        }
+        return total;
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads, Thread... measured) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (Thread thread : measured) {
+            total += Math.max(0, ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(thread.getId()));
+        }
+        return total;
+    }
+
+    /**
+     * Records how long ago each line was appended, read from its trailing {@code appended=<nanoTime>}.
+     */
+    private static class LatencySink implements LineSink {
+        private final long measureFrom;
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long max;
+
+        LatencySink(long measureFrom) {
+            this.measureFrom = measureFrom;
+        }
+
+        @Override
+        public void line(byte[] buf, int off, int len) {
+            final long now = System.nanoTime();
+            if (now < measureFrom) {
+                return;
+            }
+            long appended = 0;
+            long scale = 1;
+            for (int i = off + len - 1; i >= off && buf[i] >= '0' && buf[i] <= '9'; i--) {
+                appended += (buf[i] - '0') * scale;
+                scale *= 10;
+            }
+            if (scale == 1) {
+                return;
+            }
+            final long millis = (now - appended) / 1_000_000;
+            synchronized (this) {
+                latencies.record(millis);
+                max = Math.max(max, millis);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        synchronized LatencyHistogram snapshot() {
+            final LatencyHistogram copy = new LatencyHistogram();
+            copy.add(latencies);
+            return copy;
+        }
+
+        synchronized long max() {
+            return max;
+        }
+    }
+}
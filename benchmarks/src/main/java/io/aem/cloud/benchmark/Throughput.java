@@ -0,0 +1,29 @@
+package io.aem.cloud.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Extra results of a benchmark, reported per second next to the ops/s: megabytes of log text and lines handled.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+
+    public double megabytes;
+    public long lines;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        megabytes = 0;
+        lines = 0;
+    }
+
+    void add(LogInput input) {
+        megabytes += input.megabytes();
+        lines += input.lines;
+    }
+}
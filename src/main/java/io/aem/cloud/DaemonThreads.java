@@ -0,0 +1,36 @@
+package io.aem.cloud;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads of the tool. They're all daemons, so none of them keeps the JVM running once the main
+ * thread is done or the user stops the tail.
+ */
+public final class DaemonThreads {
+
+    private DaemonThreads() {
+    }
+
+    public static Thread create(String name, Runnable task) {
+        final Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.setName(name);
+        return thread;
+    }
+
+    /**
+     * @return a factory of threads all named {@code name}, for single thread executors.
+     */
+    public static ThreadFactory named(String name) {
+        return task -> create(name, task);
+    }
+
+    /**
+     * @return a factory of threads named {@code prefix-1}, {@code prefix-2} and so on, for thread pools.
+     */
+    public static ThreadFactory numbered(String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return task -> create(prefix + "-" + count.incrementAndGet(), task);
+    }
+}
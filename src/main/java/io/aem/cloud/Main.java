@@ -1,12 +1,37 @@
 package io.aem.cloud;
 
+import com.sun.net.httpserver.HttpServer;
 import io.adobe.cloudmanager.IdentityManagementApiException;
 import io.aem.cloud.api.ApiBuilder;
 import io.aem.cloud.api.LogApi;
+import io.aem.cloud.api.TokenManager;
+import io.aem.cloud.daemon.TailDaemon;
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.history.HistoryDownload;
+import io.aem.cloud.metrics.MetricsMBean;
+import io.aem.cloud.metrics.MetricsReporter;
+import io.aem.cloud.metrics.MetricsServer;
 import io.aem.cloud.model.Credentials;
-import io.aem.cloud.model.JwtToken;
+import io.aem.cloud.model.FilterSettings;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.model.TransportSettings;
+import io.aem.cloud.multi.MultiTailor;
+import io.aem.cloud.output.AsyncSink;
+import io.aem.cloud.output.Destinations;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.OutputSettings;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.pipeline.StreamingPipeline;
+import io.aem.cloud.processor.CheckpointStore;
 import io.aem.cloud.processor.LogDownloader;
 import io.aem.cloud.processor.LogTailor;
+import io.aem.cloud.processor.LogWindow;
+import io.aem.cloud.processor.PollScheduler;
+import io.aem.cloud.stats.StatsReporter;
+import io.aem.cloud.stats.StatsSink;
+import io.aem.cloud.store.LogStore;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.FileUtils;
 
@@ -15,7 +40,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Main {
 
@@ -25,6 +54,10 @@ public class Main {
     public static final String PROP_CLIENT_SECRET = "clientSecret";
     public static final String PROP_PRIVATE_KEY_PATH = "privateKeyPath";
     public static final String TEMP_LOG_FILE_NAME = "aem-log.log";
+    private static final int DEFAULT_FAST_START_LINES = 100;
+    private static final int DEFAULT_HISTORY_PARALLELISM = 4;
+    private static final int DEFAULT_DAEMON_PORT = 9777;
+    private static final String[] SINGLE_TARGET_OPTIONS = {"e", "p", "log", "s"};
 
     public static void main(String[] args) throws IdentityManagementApiException, IOException, InterruptedException {
         CommandLine commandLine = parse(args);
@@ -36,20 +69,178 @@ public class Main {
         final String programId = commandLine.getOptionValue("p");
         final String serviceName = commandLine.getOptionValue("s");
         final String logName = commandLine.getOptionValue("log");
+        final int lines;
+        final long windowBytes;
+        try {
+            lines = Integer.parseInt(commandLine.getOptionValue("n", "0"));
+            if (lines < 0) {
+                throw new IllegalArgumentException("The number of lines can't be negative.");
+            }
+            windowBytes = Long.parseLong(commandLine.getOptionValue("w", "0")) * FileUtils.ONE_MB;
+            if (windowBytes < 0) {
+                throw new IllegalArgumentException("The window size can't be negative, 0 keeps everything.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid start options. " + e.getMessage());
+            return;
+        }
+        final boolean fastStart = commandLine.hasOption("fs");
+        final boolean inMemory = commandLine.hasOption("mem");
         if (path != null && !Files.exists(Paths.get(path))) {
             throw new FileNotFoundException("File at path \"" + path + "\"" + " not found.");
         }
-        CredentialsLoader credentialsLoader = new CredentialsLoader(path);
-        Credentials credentials = credentialsLoader.getCredentials();
+        if (path == null && !commandLine.hasOption("tok")) {
+            System.err.printf("Required option '%s' is missing. See the Description below:\n\t%s", "f",
+                    options().getOption("f").getDescription());
+            System.err.println("\n");
+            return;
+        }
+        final List<Target> targets = getTargets(commandLine);
+        final PollSettings pollSettings = getPollSettings(commandLine);
+        final TransportSettings transportSettings = getTransportSettings(commandLine);
+        if (targets == null || pollSettings == null || transportSettings == null) {
+            return;
+        }
+        final String format = commandLine.getOptionValue("fmt", "text");
+        if (!format.equals("text") && !format.equals("json")) {
+            System.err.println("Unknown output format \"" + format + "\", expected \"text\" or \"json\".");
+            return;
+        }
+        final Target singleTarget = Target.builder()
+                .programId(programId)
+                .envId(envId)
+                .service(serviceName)
+                .logName(logName)
+                .build();
+        if (commandLine.hasOption("ck") && (inMemory || !targets.isEmpty() || commandLine.hasOption("fr"))) {
+            System.err.println("--checkpoint only works when tailing a single log without --in-memory.");
+            return;
+        }
+        final LogStore store = getStore(commandLine);
+        if (commandLine.hasOption("ls") && store == null) {
+            return;
+        }
+        final boolean stats = commandLine.hasOption("st");
+        final long statsIntervalMillis;
+        final Destinations destinations;
+        final OutputSettings outputSettings;
+        try {
+            statsIntervalMillis = Long.parseLong(commandLine.getOptionValue("sti", "5")) * 1000;
+            if (statsIntervalMillis <= 0) {
+                throw new IllegalArgumentException("The stats interval must be positive.");
+            }
+            destinations = getDestinations(commandLine);
+            outputSettings = OutputSettings.builder()
+                    .filterRules(getFilterRules(commandLine))
+                    .json(format.equals("json"))
+                    .dedup(commandLine.hasOption("dd"))
+                    .dedupIntervalMillis(Long.parseLong(commandLine.getOptionValue("ddi", "60")) * 1000)
+                    .stats(stats)
+                    .store(store)
+                    .shipping(destinations.shipping())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid output options. " + e.getMessage());
+            return;
+        }
+        TimeRange history = null;
+        int parallelism = DEFAULT_HISTORY_PARALLELISM;
+        if (commandLine.hasOption("fr")) {
+            try {
+                history = TimeRange.parse(commandLine.getOptionValue("fr"), commandLine.getOptionValue("to"));
+                parallelism = Integer.parseInt(commandLine.getOptionValue("par",
+                        String.valueOf(DEFAULT_HISTORY_PARALLELISM)));
+                if (parallelism <= 0 || stats) {
+                    throw new IllegalArgumentException("The download needs a positive parallelism and can't " +
+                            "be combined with --stats.");
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid history options. " + e.getMessage());
+                return;
+            }
+        }
+        int daemonPort = -1;
+        if (commandLine.hasOption("dm")) {
+            try {
+                daemonPort = Integer.parseInt(commandLine.getOptionValue("dm", String.valueOf(DEFAULT_DAEMON_PORT)));
+                if (daemonPort < 0 || daemonPort > 65535 || stats || history != null || commandLine.hasOption("ck")) {
+                    throw new IllegalArgumentException("The daemon needs a valid port and can't be combined with " +
+                            "--stats, --from or --checkpoint.");
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid daemon options. " + e.getMessage());
+                return;
+            }
+        }
+        if (!startMetrics(commandLine)) {
+            return;
+        }
+        // With a given access token the properties only supply the API key and org ID headers, if at all.
+        Credentials credentials = path != null
+                ? new CredentialsLoader(path).getCredentials()
+                : Credentials.builder().orgId("").clientId("").build();
         if (credentials == null) {
             return;
         }
-        String token = JwtToken.token(credentials);
+        TokenManager tokenManager = commandLine.hasOption("tok")
+                ? TokenManager.fixed(commandLine.getOptionValue("tok"))
+                : TokenManager.create(credentials);
         File tempDirectory = createTempDirectory();
-        LogApi logApi = ApiBuilder.create(credentials, token)
-                .logApi(tempDirectory, serviceName, envId, programId, logName);
-        final Thread downloader = createDownloader(new LogDownloader(logApi, tempDirectory));
-        final Thread logTailor = createLogTailor(new LogTailor(tempDirectory));
+        ApiBuilder apiBuilder = ApiBuilder.create(credentials, tokenManager,
+                commandLine.getOptionValue("url", ApiBuilder.DEFAULT_BASE_URL), transportSettings);
+        if (store != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeStore(store)));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(destinations::close));
+        if (history != null) {
+            final List<Target> historyTargets = targets.isEmpty() ? List.of(singleTarget) : targets;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtils.deleteQuietly(tempDirectory)));
+            new HistoryDownload(apiBuilder, tempDirectory, historyTargets, history, parallelism,
+                    destinations.console(), outputSettings).run();
+            return;
+        }
+        if (daemonPort >= 0) {
+            final ScheduledExecutorService pollers = new TailDaemon(apiBuilder, tempDirectory,
+                    targets.isEmpty() ? List.of(singleTarget) : targets, daemonPort, pollSettings, outputSettings)
+                    .start();
+            Runtime.getRuntime().addShutdownHook(new Thread(pollers::shutdownNow));
+            addHooks(tempDirectory);
+            pollers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            return;
+        }
+        if (!targets.isEmpty()) {
+            final LineSink output = stats
+                    ? destinations.withFile(startStats(null, targets.size() + " targets", statsIntervalMillis))
+                    : destinations.console();
+            final ScheduledExecutorService pollers = new MultiTailor(apiBuilder, tempDirectory, targets, lines,
+                    output, pollSettings, outputSettings).start();
+            Runtime.getRuntime().addShutdownHook(new Thread(pollers::shutdownNow));
+            addHooks(tempDirectory);
+            pollers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            return;
+        }
+        LogApi logApi = apiBuilder.logApi(tempDirectory, serviceName, envId, programId, logName);
+        final LineSink output = stats
+                ? destinations.withFile(startStats(LogFormat.ofLogName(logName),
+                programId + "/" + envId + "/" + serviceName + "/" + logName, statsIntervalMillis))
+                : destinations.console();
+        final LineSink sink = outputSettings.tailed(singleTarget, outputSettings.sinkFor(output, logName, null));
+        if (inMemory) {
+            final List<Thread> stages = new StreamingPipeline(logApi, lines, sink, pollSettings).start();
+            addHooks(tempDirectory, stages.toArray(new Thread[0]));
+            for (Thread stage : stages) {
+                stage.join();
+            }
+            return;
+        }
+        final int initialLines = fastStart && lines <= 0 ? DEFAULT_FAST_START_LINES : lines;
+        final LogWindow window = new LogWindow(new File(tempDirectory, TEMP_LOG_FILE_NAME), windowBytes);
+        final CheckpointStore checkpoints = commandLine.hasOption("ck")
+                ? CheckpointStore.create(commandLine.getOptionValue("ck"), singleTarget)
+                : null;
+        final Thread downloader = DaemonThreads.create("log-downloader", new LogDownloader(logApi, tempDirectory, window,
+                fastStart ? initialLines : 0, new PollScheduler(pollSettings), checkpoints));
+        final Thread logTailor = DaemonThreads.create("log-tailor", new LogTailor(tempDirectory, window, initialLines, sink));
         addHooks(tempDirectory, downloader, logTailor);
         downloader.start();
         logTailor.start();
@@ -57,6 +248,206 @@ public class Main {
         logTailor.join();
     }
 
+    /**
+     * @return the outputs given with --output-file, --tcp, --rate-limit and --overflow.
+     */
+    private static Destinations getDestinations(CommandLine commandLine) {
+        final String overflow = commandLine.getOptionValue("ov", "block").toUpperCase(Locale.ROOT);
+        if (!overflow.equals("BLOCK") && !overflow.equals("DROP")) {
+            throw new IllegalArgumentException("Unknown overflow policy \"" + commandLine.getOptionValue("ov") +
+                    "\", expected \"block\" or \"drop\".");
+        }
+        final int rateLimit = Integer.parseInt(commandLine.getOptionValue("rl", "0"));
+        final long fileMaxBytes = Long.parseLong(commandLine.getOptionValue("os", "100")) * FileUtils.ONE_MB;
+        if (rateLimit < 0 || fileMaxBytes < 0) {
+            throw new IllegalArgumentException("The rate limit and the file size can't be negative.");
+        }
+        final String file = commandLine.getOptionValue("o");
+        return Destinations.builder()
+                .rateLimit(rateLimit)
+                .file(file == null ? null : new File(file))
+                .fileMaxBytes(fileMaxBytes)
+                .fileDaily(commandLine.hasOption("od"))
+                .tcp(commandLine.getOptionValue("tcp"))
+                .overflow(AsyncSink.Overflow.valueOf(overflow))
+                .build();
+    }
+
+    /**
+     * @return the local store given with --store, or null if there's none or it can't be opened.
+     */
+    private static LogStore getStore(CommandLine commandLine) {
+        if (!commandLine.hasOption("ls")) {
+            return null;
+        }
+        try {
+            return LogStore.open(commandLine.getOptionValue("ls"));
+        } catch (IOException e) {
+            System.err.println("\nERROR while opening the local log store." +
+                    "\n\tMessage: " + e);
+            return null;
+        }
+    }
+
+    private static void closeStore(LogStore store) {
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("\nERROR while closing the local log store." +
+                    "\n\tMessage: " + e);
+        }
+    }
+
+    /**
+     * Registers the metrics with JMX, and starts the endpoint and the summary if asked for.
+     *
+     * @return false if the options are invalid or the endpoint can't be started.
+     */
+    private static boolean startMetrics(CommandLine commandLine) {
+        try {
+            final int port = Integer.parseInt(commandLine.getOptionValue("mp", "-1"));
+            final long intervalMillis = Long.parseLong(commandLine.getOptionValue("mi", "0")) * 1000;
+            if (commandLine.hasOption("mp") && (port < 0 || port > 65535) || intervalMillis < 0) {
+                throw new IllegalArgumentException("The port must be valid and the interval can't be negative.");
+            }
+            MetricsMBean.register();
+            if (port >= 0) {
+                final HttpServer server = MetricsServer.start(port);
+                System.err.println("Metrics on http://" + server.getAddress().getHostString() + ":" +
+                        server.getAddress().getPort() + "/metrics");
+            }
+            if (intervalMillis > 0) {
+                new MetricsReporter(intervalMillis).start();
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid metrics options. " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("\nERROR while starting the metrics endpoint." +
+                    "\n\tMessage: " + e);
+        }
+        return false;
+    }
+
+    private static StatsSink startStats(LogFormat format, String title, long intervalMillis) {
+        final StatsSink statsSink = new StatsSink(format);
+        new StatsReporter(statsSink, title, intervalMillis).start();
+        return statsSink;
+    }
+
+    /**
+     * @return the targets given with --target and --targets-file, empty when a single target is given with
+     * -p/-e/-s/-log, or null if neither is complete.
+     */
+    private static List<Target> getTargets(CommandLine commandLine) {
+        final List<Target> targets = new ArrayList<>();
+        try {
+            final String[] values = commandLine.getOptionValues("t");
+            if (values != null) {
+                for (String value : values) {
+                    targets.add(Target.parse(value));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+        final String targetsFile = commandLine.getOptionValue("tf");
+        if (targetsFile != null) {
+            final List<Target> loaded = new TargetsLoader(targetsFile).getTargets();
+            if (loaded == null) {
+                return null;
+            }
+            targets.addAll(loaded);
+        }
+        if (!targets.isEmpty()) {
+            return targets;
+        }
+        boolean complete = true;
+        for (String option : SINGLE_TARGET_OPTIONS) {
+            if (!commandLine.hasOption(option)) {
+                System.err.printf("Required option '%s' is missing. See the Description below:\n\t%s", option,
+                        options().getOption(option).getDescription());
+                System.err.println("\n");
+                complete = false;
+            }
+        }
+        return complete ? targets : null;
+    }
+
+    /**
+     * @return the compiled filter, or null if nothing is filtered.
+     */
+    private static FilterRules getFilterRules(CommandLine commandLine) {
+        final FilterSettings.FilterSettingsBuilder settings = FilterSettings.builder()
+                .minLevel(commandLine.getOptionValue("lv"));
+        for (String include : getOptionValues(commandLine, "i")) {
+            settings.include(include);
+        }
+        for (String exclude : getOptionValues(commandLine, "x")) {
+            settings.exclude(exclude);
+        }
+        for (String logger : getOptionValues(commandLine, "lg")) {
+            settings.logger(logger);
+        }
+        for (String logger : getOptionValues(commandLine, "xl")) {
+            settings.excludedLogger(logger);
+        }
+        final FilterSettings filterSettings = settings.build();
+        return filterSettings.isEmpty() ? null : new FilterRules(filterSettings);
+    }
+
+    private static String[] getOptionValues(CommandLine commandLine, String option) {
+        final String[] values = commandLine.getOptionValues(option);
+        return values == null ? new String[0] : values;
+    }
+
+    private static PollSettings getPollSettings(CommandLine commandLine) {
+        final PollSettings defaults = PollSettings.builder().build();
+        try {
+            final PollSettings settings = PollSettings.builder()
+                    .minDelayMillis(getSeconds(commandLine, "pmin", defaults.getMinDelayMillis()))
+                    .maxDelayMillis(getSeconds(commandLine, "pmax", defaults.getMaxDelayMillis()))
+                    .backoff(Double.parseDouble(commandLine.getOptionValue("pb",
+                            String.valueOf(defaults.getBackoff()))))
+                    .build();
+            if (settings.getMinDelayMillis() <= 0 || settings.getMaxDelayMillis() < settings.getMinDelayMillis()
+                    || settings.getBackoff() < 1) {
+                throw new IllegalArgumentException("Poll delays must be positive with min <= max, the backoff " +
+                        "at least 1.");
+            }
+            return settings;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid poll settings. " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static TransportSettings getTransportSettings(CommandLine commandLine) {
+        final TransportSettings defaults = TransportSettings.builder().build();
+        try {
+            final TransportSettings settings = TransportSettings.builder()
+                    .connectTimeoutMillis(getSeconds(commandLine, "ct", defaults.getConnectTimeoutMillis()))
+                    .readTimeoutMillis(getSeconds(commandLine, "rt", defaults.getReadTimeoutMillis()))
+                    .retries(Integer.parseInt(commandLine.getOptionValue("ra",
+                            String.valueOf(defaults.getRetries()))))
+                    .build();
+            if (settings.getConnectTimeoutMillis() <= 0 || settings.getReadTimeoutMillis() <= 0
+                    || settings.getRetries() < 0) {
+                throw new IllegalArgumentException("Timeouts must be positive, the retries at least 0.");
+            }
+            return settings;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid connection settings. " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long getSeconds(CommandLine commandLine, String option, long defaultMillis) {
+        final String value = commandLine.getOptionValue(option);
+        return value == null ? defaultMillis : (long) (Double.parseDouble(value) * 1000);
+    }
+
     private static File createTempDirectory() throws IOException {
         File tempFile = Files.createTempDirectory("aem_logs").toFile();
         tempFile.setExecutable(true);
@@ -66,12 +457,34 @@ public class Main {
     }
 
     private static CommandLine parse(String[] args) {
+        final Options options = options();
+        try {
+            return new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            if (e instanceof MissingOptionException) {
+                List<?> missingOptions = ((MissingOptionException) e).getMissingOptions();
+                for (Object option : missingOptions) {
+                    final String optionName = (String) option;
+                    final Option op = options.getOption(optionName);
+                    System.err.printf("Required option '%s' is missing. See the Description below:\n\t%s", op.getOpt(),
+                            op.getDescription());
+                    System.err.println("\n");
+                }
+                return null;
+            }
+            System.err.println(e.getMessage());
+        }
+        return null;
+    }
+
+    private static Options options() {
         Options options = new Options();
         Option propertiesOption = Option.builder("f")
                 .longOpt("file")
                 .hasArg()
-                .required(true)
-                .desc("Path to .properties file which contains Adobe Credentials. \n" +
+                .required(false)
+                .desc("Path to .properties file which contains Adobe Credentials. Required unless " +
+                        "--access-token is given.\n" +
                         "\tRequired headers in properties file are: \"orgId\", \"technicalAccountId\", " +
                         "\"clientId\", \"clientSecret\", \"privateKeyPath\"" +
                         "\n\tUsage: -f path/to/file or --filePath path/to/file")
@@ -79,74 +492,376 @@ public class Main {
         Option envOption = Option.builder("e")
                 .longOpt("environmentId")
                 .hasArg()
-                .required(true)
+                .required(false)
                 .desc("Environment ID of AEMaaCS.\n" +
                         "\tUsage: -e <env_id> or --environmentId <env_id>.")
                 .build();
         Option programOption = Option.builder("p")
                 .longOpt("programId")
                 .hasArg()
-                .required(true)
+                .required(false)
                 .desc("Program ID.\n" +
                         "\tUsage: -p <program_id> or --programId <program_id>.")
                 .build();
         Option logNameOpt = Option.builder("log")
                 .longOpt("log")
                 .hasArg()
-                .required(true)
+                .required(false)
                 .desc("Log name to tail. For example \"aemerror\".\n" +
                         "\tUsage: -log <log-name>.")
                 .build();
         Option serviceNameOpt = Option.builder("s")
                 .longOpt("service")
                 .hasArg()
-                .required(true)
+                .required(false)
                 .desc("Service name. For example \"author\" or \"publish\".\n" +
                         "\tUsage: -s <service_name> or --service <service_name>.")
                 .build();
+        Option linesOpt = Option.builder("n")
+                .longOpt("lines")
+                .hasArg()
+                .required(false)
+                .desc("Number of lines to show when the tail starts. Defaults to the last 5 KB of the log, " +
+                        "or to the last " + DEFAULT_FAST_START_LINES + " lines with --fast-start.\n" +
+                        "\tUsage: -n <lines> or --lines <lines>.")
+                .build();
+        Option fastStartOpt = Option.builder("fs")
+                .longOpt("fast-start")
+                .required(false)
+                .desc("Start from the tail of today's archive instead of downloading and inflating all of it. " +
+                        "Falls back to the full archive if no restart point is found in the tail.\n" +
+                        "\tUsage: -fs or --fast-start.")
+                .build();
+        Option inMemoryOpt = Option.builder("mem")
+                .longOpt("in-memory")
+                .required(false)
+                .desc("Stream download, decompression and output through memory without writing the log to the " +
+                        "temp directory. Always starts from the beginning of today's archive, --fast-start is " +
+                        "ignored.\n" +
+                        "\tUsage: -mem or --in-memory.")
+                .build();
+        Option windowOpt = Option.builder("w")
+                .longOpt("window")
+                .hasArg()
+                .required(false)
+                .desc("Maximum size in MB of the decompressed log kept in the temp directory. Older lines are " +
+                        "dropped once the log grows past twice this size. Defaults to 0, which keeps all of it.\n" +
+                        "\tUsage: -w <megabytes> or --window <megabytes>.")
+                .build();
+        Option targetOpt = Option.builder("t")
+                .longOpt("target")
+                .hasArgs()
+                .required(false)
+                .desc("Log to tail, can be given several times to tail many logs at once. Replaces -p, -e, -s " +
+                        "and -log. Lines are prefixed with their target, --fast-start, --in-memory and --window " +
+                        "don't apply.\n" +
+                        "\tUsage: -t <program_id>:<env_id>:<service_name>:<log-name> or --target ...")
+                .build();
+        Option targetsFileOpt = Option.builder("tf")
+                .longOpt("targets-file")
+                .hasArg()
+                .required(false)
+                .desc("File with one target per line, in the same format as --target. Lines starting with # " +
+                        "are ignored.\n" +
+                        "\tUsage: -tf path/to/file or --targets-file path/to/file.")
+                .build();
+        Option pollMinOpt = Option.builder("pmin")
+                .longOpt("poll-min")
+                .hasArg()
+                .required(false)
+                .desc("Seconds between polls while the log keeps growing. Defaults to 2.\n" +
+                        "\tUsage: -pmin <seconds> or --poll-min <seconds>.")
+                .build();
+        Option pollMaxOpt = Option.builder("pmax")
+                .longOpt("poll-max")
+                .hasArg()
+                .required(false)
+                .desc("Longest wait between polls of an idle log. Defaults to 60.\n" +
+                        "\tUsage: -pmax <seconds> or --poll-max <seconds>.")
+                .build();
+        Option pollBackoffOpt = Option.builder("pb")
+                .longOpt("poll-backoff")
+                .hasArg()
+                .required(false)
+                .desc("Factor the wait grows by after every poll without new lines. Defaults to 2.\n" +
+                        "\tUsage: -pb <factor> or --poll-backoff <factor>.")
+                .build();
+        Option connectTimeoutOpt = Option.builder("ct")
+                .longOpt("connect-timeout")
+                .hasArg()
+                .required(false)
+                .desc("Seconds to wait for a connection to Cloud Manager or the log storage. Defaults to 10.\n" +
+                        "\tUsage: -ct <seconds> or --connect-timeout <seconds>.")
+                .build();
+        Option readTimeoutOpt = Option.builder("rt")
+                .longOpt("read-timeout")
+                .hasArg()
+                .required(false)
+                .desc("Seconds to wait for a response, or for more of a download, before trying again. " +
+                        "Defaults to 30.\n" +
+                        "\tUsage: -rt <seconds> or --read-timeout <seconds>.")
+                .build();
+        Option retriesOpt = Option.builder("ra")
+                .longOpt("retries")
+                .hasArg()
+                .required(false)
+                .desc("How often a failed request or broken download is retried before the poll is skipped. " +
+                        "Defaults to 4.\n" +
+                        "\tUsage: -ra <count> or --retries <count>.")
+                .build();
+        Option formatOpt = Option.builder("fmt")
+                .longOpt("format")
+                .hasArg()
+                .required(false)
+                .desc("Output format, \"text\" (default) prints the lines as they are, \"json\" prints one JSON " +
+                        "object per line with the parsed fields of error, request and access logs.\n" +
+                        "\tUsage: -fmt json or --format json.")
+                .build();
+        Option dedupOpt = Option.builder("dd")
+                .longOpt("dedup")
+                .required(false)
+                .desc("Show every distinct stack trace once. Repeats are counted and summed up periodically " +
+                        "instead of printed.\n" +
+                        "\tUsage: -dd or --dedup.")
+                .build();
+        Option statsOpt = Option.builder("st")
+                .longOpt("stats")
+                .required(false)
+                .desc("Show a live table instead of the lines: counts per minute by level and status, request " +
+                        "latency percentiles, top loggers with warnings or errors, top exceptions and the request " +
+                        "paths taking the most time.\n" +
+                        "\tUsage: -st or --stats.")
+                .build();
+        Option fromOpt = Option.builder("fr")
+                .longOpt("from")
+                .hasArg()
+                .required(false)
+                .desc("Download the past logs from this time (UTC) instead of tailing, yyyy-MM-dd or " +
+                        "yyyy-MM-ddTHH:mm[:ss]. The lines of all days and targets are printed in time order.\n" +
+                        "\tUsage: -fr <time> or --from <time>.")
+                .build();
+        Option toOpt = Option.builder("to")
+                .longOpt("to")
+                .hasArg()
+                .required(false)
+                .desc("End of the past logs downloaded with --from, a day is included up to its end. " +
+                        "Defaults to now.\n" +
+                        "\tUsage: -to <time> or --to <time>.")
+                .build();
+        Option parallelOpt = Option.builder("par")
+                .longOpt("parallel")
+                .hasArg()
+                .required(false)
+                .desc("Number of archives downloaded at the same time with --from. Defaults to 4.\n" +
+                        "\tUsage: -par <count> or --parallel <count>.")
+                .build();
+        Option storeOpt = Option.builder("ls")
+                .longOpt("store")
+                .hasArg()
+                .optionalArg(true)
+                .required(false)
+                .desc("Keep the tailed and downloaded logs in a local store, by default in " +
+                        "~/.aem-log-tailor/store. --from reads the time stored there and downloads the rest.\n" +
+                        "\tUsage: -ls [<dir>] or --store [<dir>].")
+                .build();
+        Option checkpointOpt = Option.builder("ck")
+                .longOpt("checkpoint")
+                .hasArg()
+                .optionalArg(true)
+                .required(false)
+                .desc("Save the progress of the tail after every poll, so a restarted tail continues right after " +
+                        "the last printed line. Defaults to a file per log in ~/.aem-log-tailor/checkpoints.\n" +
+                        "\tUsage: -ck [<file>] or --checkpoint [<file>].")
+                .build();
+        Option daemonOpt = Option.builder("dm")
+                .longOpt("daemon")
+                .hasArg()
+                .optionalArg(true)
+                .required(false)
+                .desc("Tail once and serve the lines to local subscribers as server-sent events on " +
+                        "http://127.0.0.1:<port>/tail, instead of printing them. Defaults to port " +
+                        DEFAULT_DAEMON_PORT + ".\n" +
+                        "\tUsage: -dm [<port>] or --daemon [<port>].")
+                .build();
+        Option outputFileOpt = Option.builder("o")
+                .longOpt("output-file")
+                .hasArg()
+                .required(false)
+                .desc("Also write the shown lines to this file, rotated by --output-size and --output-daily. The " +
+                        "last 5 rotated files are kept as <file>.1 to <file>.5.\n" +
+                        "\tUsage: -o <file> or --output-file <file>.")
+                .build();
+        Option outputSizeOpt = Option.builder("os")
+                .longOpt("output-size")
+                .hasArg()
+                .required(false)
+                .desc("Size in MB the --output-file is rotated at, 0 for no limit. Defaults to 100.\n" +
+                        "\tUsage: -os <MB> or --output-size <MB>.")
+                .build();
+        Option outputDailyOpt = Option.builder("od")
+                .longOpt("output-daily")
+                .required(false)
+                .desc("Also rotate the --output-file at midnight UTC.\n" +
+                        "\tUsage: -od or --output-daily.")
+                .build();
+        Option tcpOpt = Option.builder("tcp")
+                .longOpt("tcp")
+                .hasArg()
+                .required(false)
+                .desc("Also send the shown lines as NDJSON to a TCP receiver, like a local log shipper. Lines are " +
+                        "dropped while it's unreachable.\n" +
+                        "\tUsage: -tcp <host>:<port> or --tcp <host>:<port>.")
+                .build();
+        Option rateLimitOpt = Option.builder("rl")
+                .longOpt("rate-limit")
+                .hasArg()
+                .required(false)
+                .desc("Print at most this many lines per second on the console, the others are counted in a " +
+                        "\"lines suppressed\" line.\n" +
+                        "\tUsage: -rl <lines> or --rate-limit <lines>.")
+                .build();
+        Option overflowOpt = Option.builder("ov")
+                .longOpt("overflow")
+                .hasArg()
+                .required(false)
+                .desc("What an output does when it can't keep up and its queue is full: \"block\" waits for it, " +
+                        "\"drop\" drops the lines and counts them. Defaults to block.\n" +
+                        "\tUsage: -ov <block|drop> or --overflow <block|drop>.")
+                .build();
+        Option metricsPortOpt = Option.builder("mp")
+                .longOpt("metrics-port")
+                .hasArg()
+                .required(false)
+                .desc("Serve the metrics of the tail in the Prometheus text format on " +
+                        "http://127.0.0.1:<port>/metrics.\n" +
+                        "\tUsage: -mp <port> or --metrics-port <port>.")
+                .build();
+        Option metricsIntervalOpt = Option.builder("mi")
+                .longOpt("metrics-interval")
+                .hasArg()
+                .required(false)
+                .desc("Print a summary of the metrics of the tail on stderr every this many seconds.\n" +
+                        "\tUsage: -mi <seconds> or --metrics-interval <seconds>.")
+                .build();
+        Option baseUrlOpt = Option.builder("url")
+                .longOpt("base-url")
+                .hasArg()
+                .required(false)
+                .desc("Cloud Manager API to talk to, e.g. a local stand-in. Defaults to " +
+                        ApiBuilder.DEFAULT_BASE_URL + ".\n" +
+                        "\tUsage: -url <url> or --base-url <url>.")
+                .build();
+        Option accessTokenOpt = Option.builder("tok")
+                .longOpt("access-token")
+                .hasArg()
+                .required(false)
+                .desc("Use this access token instead of logging in to IMS with the credentials of --file.\n" +
+                        "\tUsage: -tok <token> or --access-token <token>.")
+                .build();
+        Option statsIntervalOpt = Option.builder("sti")
+                .longOpt("stats-interval")
+                .hasArg()
+                .required(false)
+                .desc("Seconds between the redraws of --stats. Defaults to 5.\n" +
+                        "\tUsage: -sti <seconds> or --stats-interval <seconds>.")
+                .build();
+        Option dedupIntervalOpt = Option.builder("ddi")
+                .longOpt("dedup-interval")
+                .hasArg()
+                .required(false)
+                .desc("Seconds between the \"seen N more times\" summaries of --dedup. Defaults to 60.\n" +
+                        "\tUsage: -ddi <seconds> or --dedup-interval <seconds>.")
+                .build();
+        Option levelOpt = Option.builder("lv")
+                .longOpt("level")
+                .hasArg()
+                .required(false)
+                .desc("Lowest log level to show: TRACE, DEBUG, INFO, WARN or ERROR. Stack traces follow the " +
+                        "line they belong to.\n" +
+                        "\tUsage: -lv <level> or --level <level>.")
+                .build();
+        Option includeOpt = Option.builder("i")
+                .longOpt("include")
+                .hasArgs()
+                .required(false)
+                .desc("Only show lines containing one of these patterns. Can be given several times, " +
+                        "/.../ marks a regular expression.\n" +
+                        "\tUsage: -i <text> or --include /<regex>/.")
+                .build();
+        Option excludeOpt = Option.builder("x")
+                .longOpt("exclude")
+                .hasArgs()
+                .required(false)
+                .desc("Hide lines containing any of these patterns. Can be given several times, " +
+                        "/.../ marks a regular expression.\n" +
+                        "\tUsage: -x <text> or --exclude /<regex>/.")
+                .build();
+        Option loggerOpt = Option.builder("lg")
+                .longOpt("logger")
+                .hasArgs()
+                .required(false)
+                .desc("Only show lines of loggers in these packages or classes. Can be given several times.\n" +
+                        "\tUsage: -lg com.example or --logger com.example.MyServlet.")
+                .build();
+        Option excludeLoggerOpt = Option.builder("xl")
+                .longOpt("exclude-logger")
+                .hasArgs()
+                .required(false)
+                .desc("Hide lines of loggers in these packages or classes. Can be given several times.\n" +
+                        "\tUsage: -xl org.apache.sling or --exclude-logger org.apache.sling.")
+                .build();
         options.addOption(propertiesOption);
         options.addOption(envOption);
         options.addOption(programOption);
         options.addOption(logNameOpt);
         options.addOption(serviceNameOpt);
-        try {
-            return new DefaultParser().parse(options, args);
-        } catch (ParseException e) {
-            if (e instanceof MissingOptionException) {
-                List<?> missingOptions = ((MissingOptionException) e).getMissingOptions();
-                for (Object option : missingOptions) {
-                    final String optionName = (String) option;
-                    final Option op = options.getOption(optionName);
-                    System.err.printf("Required option '%s' is missing. See the Description below:\n\t%s", op.getOpt(),
-                            op.getDescription());
-                    System.err.println("\n");
-                }
-                return null;
-            }
-            System.err.println(e.getMessage());
-        }
-        return null;
-    }
-
-    private static Thread createDownloader(Runnable task) {
-        final Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.setName("log-downloader");
-        return thread;
+        options.addOption(linesOpt);
+        options.addOption(fastStartOpt);
+        options.addOption(inMemoryOpt);
+        options.addOption(windowOpt);
+        options.addOption(targetOpt);
+        options.addOption(targetsFileOpt);
+        options.addOption(pollMinOpt);
+        options.addOption(pollMaxOpt);
+        options.addOption(pollBackoffOpt);
+        options.addOption(connectTimeoutOpt);
+        options.addOption(readTimeoutOpt);
+        options.addOption(retriesOpt);
+        options.addOption(formatOpt);
+        options.addOption(dedupOpt);
+        options.addOption(dedupIntervalOpt);
+        options.addOption(statsOpt);
+        options.addOption(fromOpt);
+        options.addOption(toOpt);
+        options.addOption(parallelOpt);
+        options.addOption(storeOpt);
+        options.addOption(checkpointOpt);
+        options.addOption(daemonOpt);
+        options.addOption(outputFileOpt);
+        options.addOption(outputSizeOpt);
+        options.addOption(outputDailyOpt);
+        options.addOption(tcpOpt);
+        options.addOption(rateLimitOpt);
+        options.addOption(overflowOpt);
+        options.addOption(metricsPortOpt);
+        options.addOption(metricsIntervalOpt);
+        options.addOption(baseUrlOpt);
+        options.addOption(accessTokenOpt);
+        options.addOption(statsIntervalOpt);
+        options.addOption(levelOpt);
+        options.addOption(includeOpt);
+        options.addOption(excludeOpt);
+        options.addOption(loggerOpt);
+        options.addOption(excludeLoggerOpt);
+        return options;
     }
 
-    private static Thread createLogTailor(Runnable task) {
-        final Thread thread = new Thread(task);
-        thread.setDaemon(true);
-        thread.setName("log-tailor");
-        return thread;
-    }
-
-    private static void addHooks(File tempDir, Thread downloader, Thread logTailor) {
+    private static void addHooks(File tempDir, Thread... threads) {
         Runtime runtime = Runtime.getRuntime();
 
-        runtime.addShutdownHook(new Thread(downloader::interrupt));
-        runtime.addShutdownHook(new Thread(logTailor::interrupt));
+        for (Thread thread : threads) {
+            runtime.addShutdownHook(new Thread(thread::interrupt));
+        }
         runtime.addShutdownHook(new Thread(() -> {
             System.out.println("\n\nShutdown signal received.");
             System.out.println("Cleaning up...");
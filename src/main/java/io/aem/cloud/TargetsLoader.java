@@ -0,0 +1,37 @@
+package io.aem.cloud;
+
+import io.aem.cloud.model.Target;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a targets file, one {@code <programId>:<envId>:<service>:<log>} per line. Blank lines and lines starting
+ * with {@code #} are skipped.
+ */
+@RequiredArgsConstructor
+public class TargetsLoader {
+    private final String path;
+
+    public List<Target> getTargets() {
+        final List<Target> targets = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    targets.add(Target.parse(line));
+                }
+            }
+            return targets;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error while loading the targets." +
+                    "\n\tMessage: " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -2,6 +2,8 @@ package io.aem.cloud.api;
 
 import io.adobe.cloudmanager.CloudManagerApi;
 import io.aem.cloud.model.Credentials;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TransportSettings;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
@@ -10,17 +12,36 @@ import java.io.File;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class ApiBuilder {
+    public static final String DEFAULT_BASE_URL = "https://cloudmanager.adobe.io";
+
     private final Credentials credentials;
-    private final String token;
+    private final TokenManager tokenManager;
+    private final String baseUrl;
+    private final HttpTransport transport;
+
+    public static ApiBuilder create(Credentials credentials, TokenManager tokenManager) {
+        return create(credentials, tokenManager, DEFAULT_BASE_URL);
+    }
+
+    /**
+     * @param baseUrl Cloud Manager API to talk to, e.g. a local stand-in for offline runs.
+     */
+    public static ApiBuilder create(Credentials credentials, TokenManager tokenManager, String baseUrl) {
+        return create(credentials, tokenManager, baseUrl, TransportSettings.builder().build());
+    }
 
-    public static ApiBuilder create(Credentials credentials, String token) {
-        return new ApiBuilder(credentials, token);
+    /**
+     * @param transportSettings timeouts and retries of the log downloads, whose connections all logs share.
+     */
+    public static ApiBuilder create(Credentials credentials, TokenManager tokenManager, String baseUrl,
+                                    TransportSettings transportSettings) {
+        return new ApiBuilder(credentials, tokenManager, baseUrl, HttpTransport.create(transportSettings));
     }
 
     public CloudManagerApi cloudManagerApi() {
         return CloudManagerApi.create(credentials.getOrgId(),
                 credentials.getClientId(),
-                token);
+                tokenManager.getToken());
     }
 
     public LogApi logApi(File tempDir,
@@ -28,13 +49,19 @@ public class ApiBuilder {
                          String envId,
                          String programId,
                          String logName) {
-        return LogApi.create(credentials.getClientId(),
-                token,
+        return LogApi.create(baseUrl,
+                credentials.getClientId(),
+                tokenManager,
                 credentials.getOrgId(),
                 service,
                 logName,
                 envId,
                 programId,
-                tempDir);
+                tempDir,
+                transport);
+    }
+
+    public LogApi logApi(File tempDir, Target target) {
+        return logApi(tempDir, target.getService(), target.getEnvId(), target.getProgramId(), target.getLogName());
     }
 }
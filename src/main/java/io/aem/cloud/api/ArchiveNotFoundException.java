@@ -0,0 +1,13 @@
+package io.aem.cloud.api;
+
+/**
+ * Cloud Manager has no archive for the requested day, e.g. right after midnight before anything was logged.
+ */
+class ArchiveNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    ArchiveNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package io.aem.cloud.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops calling a host after too many failures in a row. Once the rest is over, a single call is let through to
+ * probe it; its success closes the breaker, its failure starts another rest. The outage and the recovery are
+ * reported on stderr once each.
+ */
+class CircuitBreaker {
+
+    private final String host;
+    private final int threshold;
+    private final long openMillis;
+
+    private int failures;
+    private long openUntil;
+    private boolean probing;
+
+    CircuitBreaker(String host, int threshold, long openMillis) {
+        this.host = host;
+        this.threshold = threshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @throws TransportException if the host is resting, or another call probes it.
+     */
+    synchronized void acquire() throws TransportException {
+        if (failures < threshold) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now < openUntil || probing) {
+            throw new TransportException(host + " is unavailable, next try in " +
+                    TimeUnit.MILLISECONDS.toSeconds(Math.max(0, openUntil - now) + 999) + "s.");
+        }
+        probing = true;
+    }
+
+    synchronized void success() {
+        if (failures >= threshold) {
+            System.err.println("\nConnection to " + host + " restored.");
+        }
+        failures = 0;
+        probing = false;
+    }
+
+    /**
+     * Ends a call that neither succeeded nor failed, e.g. an interrupted one, without counting it.
+     */
+    synchronized void release() {
+        probing = false;
+    }
+
+    synchronized void failure(String reason) {
+        probing = false;
+        if (++failures < threshold) {
+            return;
+        }
+        if (failures == threshold) {
+            System.err.println("\n" + host + " is unavailable, retrying every " +
+                    TimeUnit.MILLISECONDS.toSeconds(openMillis) + "s." +
+                    "\n\tMessage: " + reason);
+        }
+        openUntil = System.currentTimeMillis() + openMillis;
+    }
+}
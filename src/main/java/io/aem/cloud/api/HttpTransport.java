@@ -0,0 +1,367 @@
+package io.aem.cloud.api;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.model.TransportSettings;
+
+import javax.net.ssl.SSLSession;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The one HTTP client of the tool, shared by all logs: connections are kept alive and pooled, and negotiated as
+ * HTTP/2 where the server supports it.
+ * <p>
+ * Calls that fail with an I/O error or a status worth retrying (408, 429, 500, 502, 503, 504) are retried with
+ * jittered exponential backoff, honoring {@code Retry-After}. Every host has a {@link CircuitBreaker}, so an outage
+ * costs one short failure per poll instead of a series of timeouts. Failures left after that are thrown as
+ * {@link TransportException}, any other response is returned to the caller as it is.
+ * <p>
+ * Response headers must arrive within the read timeout. Bodies opened with {@link #sendResumable} are also watched
+ * while being read: when the connection drops or stalls for the read timeout, the rest is requested again from the
+ * last received byte.
+ */
+public class HttpTransport {
+
+    private final HttpClient httpClient;
+    private final TransportSettings settings;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Set<ResumingInputStream> reading = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService watchdog;
+
+    private HttpTransport(HttpClient httpClient, TransportSettings settings) {
+        this.httpClient = httpClient;
+        this.settings = settings;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(DaemonThreads.named("http-watchdog"));
+        final long period = Math.max(100, settings.getReadTimeoutMillis() / 4);
+        watchdog.scheduleWithFixedDelay(this::abortStalled, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static HttpTransport create(TransportSettings settings) {
+        return new HttpTransport(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMillis()))
+                .build(), settings);
+    }
+
+    /**
+     * @return a request builder with the read timeout applied.
+     */
+    public HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(settings.getReadTimeoutMillis()));
+    }
+
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        final CircuitBreaker breaker = breakers.computeIfAbsent(request.uri().getHost(), host ->
+                new CircuitBreaker(host, settings.getBreakerThreshold(), settings.getBreakerOpenMillis()));
+        for (int attempt = 0; ; attempt++) {
+            breaker.acquire();
+            final HttpResponse<T> response;
+            try {
+                response = httpClient.send(request, bodyHandler);
+            } catch (InterruptedException | RuntimeException e) {
+                // Says nothing about the host, but a probe must not keep it closed for good.
+                breaker.release();
+                throw e;
+            } catch (IOException e) {
+                breaker.failure(e.toString());
+                if (attempt >= settings.getRetries()) {
+                    throw new TransportException("Failed to reach " + request.uri().getHost() + ".", e);
+                }
+                Thread.sleep(backoff(attempt, -1));
+                continue;
+            }
+            if (!isRetryable(response.statusCode())) {
+                breaker.success();
+                return response;
+            }
+            breaker.failure("Status code " + response.statusCode());
+            if (response.body() instanceof Closeable) {
+                ((Closeable) response.body()).close();
+            }
+            if (attempt >= settings.getRetries()) {
+                throw new TransportException(request.uri().getHost() + " answered with status code " +
+                        response.statusCode() + ".");
+            }
+            Thread.sleep(backoff(attempt, retryAfterMillis(response)));
+        }
+    }
+
+    /**
+     * Sends the request like {@link #send}. A 200 or 206 body is resumed with a range request from the last
+     * received byte, up to the end the first response announced, when the connection breaks or stalls. This only
+     * suits resources that don't change before that end, like appended archives.
+     *
+     * @param headers adds the headers of the first request, resumed requests only carry the range.
+     */
+    public HttpResponse<InputStream> sendResumable(URI uri, Consumer<HttpRequest.Builder> headers,
+                                                   HttpResponse.BodyHandler<InputStream> bodyHandler)
+            throws IOException, InterruptedException {
+        final HttpRequest.Builder builder = request(uri);
+        headers.accept(builder);
+        final HttpResponse<InputStream> response = send(builder.build(), bodyHandler);
+        final long start;
+        final long end;
+        if (response.statusCode() == 206) {
+            start = contentRangeStart(response);
+            end = contentRangeEnd(response);
+        } else if (response.statusCode() == 200) {
+            start = 0;
+            end = response.headers().firstValueAsLong("content-length").orElse(-1);
+        } else {
+            return response;
+        }
+        if (start < 0) {
+            return response;
+        }
+        final ResumingInputStream body = new ResumingInputStream(response.body(), start, end,
+                position -> resume(uri, position, end, bodyHandler));
+        return new ResumedResponse(response, body);
+    }
+
+    private InputStream resume(URI uri, long position, long end, HttpResponse.BodyHandler<InputStream> bodyHandler)
+            throws IOException, InterruptedException {
+        final HttpResponse<InputStream> response = send(request(uri)
+                .header("Range", "bytes=" + position + "-" + (end >= 0 ? String.valueOf(end - 1) : ""))
+                .build(), bodyHandler);
+        if (response.statusCode() != 206 || contentRangeStart(response) != position) {
+            response.body().close();
+            throw new TransportException("Couldn't resume the download at byte " + position +
+                    ", status code " + response.statusCode() + ".");
+        }
+        return response.body();
+    }
+
+    /**
+     * Aborts the reads that waited longer than the read timeout, so they resume on a new connection.
+     */
+    private void abortStalled() {
+        final long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.getReadTimeoutMillis());
+        for (ResumingInputStream stream : reading) {
+            stream.abortIfWaitingSince(deadline);
+        }
+    }
+
+    private long backoff(int attempt, long retryAfterMillis) {
+        final long ceiling = Math.min(settings.getRetryMaxMillis(),
+                settings.getRetryBaseMillis() << Math.min(attempt, 20));
+        final long jittered = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        return Math.min(settings.getRetryMaxMillis(), Math.max(jittered, retryAfterMillis));
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode == 500 || statusCode == 502
+                || statusCode == 503 || statusCode == 504;
+    }
+
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("retry-after")
+                    .map(seconds -> TimeUnit.SECONDS.toMillis(Long.parseLong(seconds.trim())))
+                    .orElse(-1L);
+        } catch (NumberFormatException e) {
+            // An HTTP date, the backoff is good enough then.
+            return -1;
+        }
+    }
+
+    // "Content-Range: bytes <start>-<end>/<total>"
+    private static long contentRangeStart(HttpResponse<?> response) {
+        return response.headers().firstValue("content-range")
+                .map(range -> parseLong(range, "bytes ".length(), range.indexOf('-')))
+                .orElse(-1L);
+    }
+
+    private static long contentRangeEnd(HttpResponse<?> response) {
+        return response.headers().firstValue("content-range")
+                .map(range -> {
+                    final long last = parseLong(range, range.indexOf('-') + 1, range.indexOf('/'));
+                    return last < 0 ? -1 : last + 1;
+                })
+                .orElse(-1L);
+    }
+
+    private static long parseLong(String text, int from, int to) {
+        if (from < 0 || to <= from) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(text.substring(from, to));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads a body on, over as many responses as it takes.
+     */
+    private class ResumingInputStream extends InputStream {
+
+        private final long end;
+        private final Resumer resumer;
+        private long position;
+        private int resumes;
+        private volatile InputStream body;
+        private volatile long waitingSince;
+        private volatile boolean aborted;
+        private boolean closed;
+
+        ResumingInputStream(InputStream body, long start, long end, Resumer resumer) {
+            this.body = body;
+            this.position = start;
+            this.end = end;
+            this.resumer = resumer;
+            reading.add(this);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (closed) {
+                    throw new IOException("closed");
+                }
+                if (len == 0 || end >= 0 && position >= end) {
+                    return len == 0 ? 0 : -1;
+                }
+                IOException failure;
+                waitingSince = System.nanoTime();
+                try {
+                    final int read = body.read(b, off, len);
+                    if (read >= 0) {
+                        position += read;
+                        return read;
+                    }
+                    if (!aborted && (end < 0 || position >= end)) {
+                        return -1;
+                    }
+                    failure = new IOException("The body ended at byte " + position + " of " + end + ".");
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    waitingSince = 0;
+                }
+                resume(failure);
+            }
+        }
+
+        private void resume(IOException failure) throws IOException {
+            if (closed) {
+                throw failure;
+            }
+            if (++resumes > settings.getRetries()) {
+                throw new TransportException("The download broke off at byte " + position + ".", failure);
+            }
+            closeQuietly(body);
+            aborted = false;
+            try {
+                body = resumer.resume(position);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransportException("Interrupted while resuming the download.", e);
+            }
+        }
+
+        void abortIfWaitingSince(long deadline) {
+            final long since = waitingSince;
+            if (since != 0 && since < deadline) {
+                aborted = true;
+                closeQuietly(body);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            reading.remove(this);
+            body.close();
+        }
+
+        private void closeQuietly(InputStream stream) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                // The connection is given up anyway.
+            }
+        }
+    }
+
+    /**
+     * The first response with the resuming body.
+     */
+    private static class ResumedResponse implements HttpResponse<InputStream> {
+
+        private final HttpResponse<InputStream> response;
+        private final InputStream body;
+
+        ResumedResponse(HttpResponse<InputStream> response, InputStream body) {
+            this.response = response;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return response.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public InputStream body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
+    private interface Resumer {
+        InputStream resume(long position) throws IOException, InterruptedException;
+    }
+}
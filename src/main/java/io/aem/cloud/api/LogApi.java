@@ -2,6 +2,11 @@ package io.aem.cloud.api;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.adobe.cloudmanager.IdentityManagementApiException;
+import io.aem.cloud.metrics.MeteredInputStream;
+import io.aem.cloud.metrics.Metrics;
+import io.aem.cloud.model.ArchiveStream;
+import io.aem.cloud.model.LogArchive;
 import lombok.AccessLevel;
 import lombok.Cleanup;
 import lombok.RequiredArgsConstructor;
@@ -10,57 +15,408 @@ import org.apache.commons.lang3.StringUtils;
 
 import javax.ws.rs.core.UriBuilder;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Set;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class LogApi {
 
-    private static final String BASE_URL = "https://cloudmanager.adobe.io";
     private static final String DOWNLOAD_URL = "/api/program/{programId}/environment/{envId}/logs/download";
 
-    private static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+    private static final DateTimeFormatter ARCHIVE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final ObjectMapper mapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newBuilder().build();
-    private final static Set<Long> cache = new CopyOnWriteArraySet<>();
+    private static final long REDIRECT_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
 
+    private final String baseUrl;
     private final String clientId;
-    private final String accessToken;
+    private final TokenManager tokenManager;
     private final String orgId;
     private final String service;
     private final String logName;
     private final String envId;
     private final String programId;
     private final File tempDir;
+    private final HttpTransport transport;
 
-    static LogApi create(String clientId,
-                         String accessToken,
+    private String lastArchiveDate;
+    private long archiveOffset;
+    private String etag;
+    private String lastModified;
+    private String redirectUrl;
+    private String redirectDate;
+    private long redirectExpiresAt;
+    // A download of the whole archive broke off, the local copy is incomplete and has to start over.
+    private boolean restartPending;
+
+    static LogApi create(String baseUrl,
+                         String clientId,
+                         TokenManager tokenManager,
                          String orgId,
                          String service, String logName,
                          String envId,
                          String programId,
-                         File tempDir) {
-        return new LogApi(clientId, accessToken, orgId, service, logName, envId, programId,
-                tempDir);
+                         File tempDir,
+                         HttpTransport transport) {
+        return new LogApi(baseUrl, clientId, tokenManager, orgId, service, logName, envId, programId,
+                tempDir, transport);
+    }
+
+    /**
+     * Appends what's new in the archive to the local copy. When the download fails halfway, the bytes received so
+     * far stay appended and the next call continues after them.
+     */
+    public LogArchive downloadLog() throws IOException, InterruptedException {
+        final File archiveFile = getOrCreateLogArchiveFile();
+        if (restartPending) {
+            discardArchive();
+        }
+        final long knownLength = archiveOffset + archiveFile.length();
+        @Cleanup ArchiveStream archive = openArchive(knownLength);
+        final InputStream inputStream = archive.getBody();
+        if (!archive.isRotated() && !restartPending && archive.getOffset() == knownLength) {
+            return appendRange(inputStream, archiveFile, archive.getArchiveDate());
+        }
+        // The archive is downloaded again from the start, either it's a new one or the range was ignored.
+        final boolean restarted = archive.isRotated() || archiveOffset > 0 || restartPending;
+        archiveOffset = 0;
+        restartPending = true;
+        FileUtils.copyToFile(inputStream, archiveFile);
+        restartPending = false;
+        return fullArchive(archiveFile, knownLength, restarted, archive.getArchiveDate());
     }
 
-    public File downloadLog() throws IOException, InterruptedException {
-        final HttpRequest redirectRequest = getRedirectRequest();
+    /**
+     * Opens the current archive after the first {@code knownLength} bytes. The returned stream starts at
+     * {@link ArchiveStream#getOffset()}, which is {@code knownLength} unless the server ignored the range or the
+     * archive was rotated, then it's 0. The body is empty when nothing was appended.
+     * <p>
+     * The range request carries the validators of the previous response, so an unchanged archive costs a 304
+     * without a body.
+     * <p>
+     * After midnight the previous day's archive stays current until a poll finds nothing more appended to it, so
+     * its last lines aren't lost. Only then the stream switches to the new day's archive, marked as rotated. If
+     * that archive doesn't exist yet, the poll comes back empty and the switch is tried again next time.
+     */
+    public ArchiveStream openArchive(long knownLength) throws IOException, InterruptedException {
+        final String today = currentArchiveDate();
+        if (lastArchiveDate != null && !lastArchiveDate.equals(today)) {
+            if (knownLength > 0) {
+                final ArchiveStream rest = openRange(lastArchiveDate, knownLength, true);
+                if (rest != null) {
+                    return rest;
+                }
+            }
+            return switchArchive(today, knownLength);
+        }
+        lastArchiveDate = today;
+        if (knownLength == 0) {
+            return openFull(today, false);
+        }
+        final ArchiveStream range = openRange(today, knownLength, false);
+        return range != null ? range : unchanged(today, knownLength);
+    }
 
-        HttpResponse<String> redirectResponse = httpClient.send(redirectRequest,
+    /**
+     * @param draining the archive belongs to a day that's over, nothing but appended bytes are of interest.
+     * @return the bytes appended after {@code knownLength}, or null if there are none.
+     */
+    private ArchiveStream openRange(String archiveDate, long knownLength, boolean draining)
+            throws IOException, InterruptedException {
+        HttpResponse<InputStream> logResponse = sendToArchive(archiveDate, rangeRequest -> {
+            rangeRequest.header("Range", "bytes=" + knownLength + "-");
+            if (etag != null) {
+                rangeRequest.header("If-None-Match", etag);
+            } else if (lastModified != null) {
+                rangeRequest.header("If-Modified-Since", lastModified);
+            }
+        });
+        switch (logResponse.statusCode()) {
+            case 304:
+                logResponse.body().close();
+                return null;
+            case 206:
+                if (getRangeStart(logResponse) != knownLength) {
+                    logResponse.body().close();
+                    return draining ? null : openFull(archiveDate, false);
+                }
+                return ArchiveStream.builder()
+                        .archiveDate(archiveDate)
+                        .offset(knownLength)
+                        .body(keepValidators(logResponse))
+                        .build();
+            case 416:
+                logResponse.body().close();
+                long remoteLength = getRangeTotal(logResponse);
+                if (remoteLength >= 0 && remoteLength < knownLength && !draining) {
+                    return openFull(archiveDate, true);
+                }
+                return null;
+            case 200:
+                if (draining) {
+                    logResponse.body().close();
+                    return null;
+                }
+                // Range was ignored, the body is the whole archive.
+                return ArchiveStream.builder()
+                        .archiveDate(archiveDate)
+                        .body(keepValidators(logResponse))
+                        .build();
+            default:
+                logResponse.body().close();
+                throw downloadFailed(logResponse);
+        }
+    }
+
+    /**
+     * Moves on to the new day's archive, unless it isn't there yet.
+     */
+    private ArchiveStream switchArchive(String today, long knownLength) throws IOException, InterruptedException {
+        final HttpResponse<InputStream> logResponse;
+        try {
+            logResponse = sendToArchive(today, fullRequest -> {
+            });
+        } catch (ArchiveNotFoundException e) {
+            return unchanged(lastArchiveDate, knownLength);
+        }
+        if (logResponse.statusCode() == 404) {
+            logResponse.body().close();
+            return unchanged(lastArchiveDate, knownLength);
+        }
+        if (logResponse.statusCode() != 200) {
+            logResponse.body().close();
+            throw downloadFailed(logResponse);
+        }
+        lastArchiveDate = today;
+        return ArchiveStream.builder()
+                .archiveDate(today)
+                .rotated(true)
+                .body(keepValidators(logResponse))
+                .build();
+    }
+
+    private ArchiveStream unchanged(String archiveDate, long knownLength) {
+        return ArchiveStream.builder()
+                .archiveDate(archiveDate)
+                .offset(knownLength)
+                .body(InputStream.nullInputStream())
+                .build();
+    }
+
+    private ArchiveStream openFull(String archiveDate, boolean rotated) throws IOException, InterruptedException {
+        HttpResponse<InputStream> logResponse = sendToArchive(archiveDate, fullRequest -> {
+        });
+        if (logResponse.statusCode() != 200) {
+            logResponse.body().close();
+            throw downloadFailed(logResponse);
+        }
+        return ArchiveStream.builder()
+                .archiveDate(archiveDate)
+                .rotated(rotated)
+                .body(keepValidators(logResponse))
+                .build();
+    }
+
+    /**
+     * Opens the whole archive of the given day, for downloads of past logs.
+     */
+    public ArchiveStream openDay(LocalDate date) throws IOException, InterruptedException {
+        return openFull(date.format(ARCHIVE_DATE), false);
+    }
+
+    /**
+     * Downloads only the last {@code tailBytes} of today's archive. Following {@link #downloadLog()} calls append
+     * to it, {@link LogArchive#getOffset()} tells where in the remote archive the local copy starts.
+     */
+    public LogArchive downloadTail(long tailBytes) throws IOException, InterruptedException {
+        return downloadRange(currentArchiveDate(), "bytes=-" + tailBytes);
+    }
+
+    /**
+     * Downloads the archive of the day from the remote offset on, like {@link #downloadTail(long)}, and makes it
+     * the current archive. The local copy starts earlier if the server ignored the range, and is empty if the
+     * archive is shorter than the offset.
+     */
+    public LogArchive downloadFrom(String archiveDate, long offset) throws IOException, InterruptedException {
+        return downloadRange(archiveDate, "bytes=" + offset + "-");
+    }
+
+    /**
+     * @return the archive date polls currently ask for. Cloud Manager starts a new archive at midnight UTC.
+     */
+    public static String currentArchiveDate() {
+        return LocalDate.now(ZoneOffset.UTC).format(ARCHIVE_DATE);
+    }
+
+    private LogArchive downloadRange(String archiveDate, String range) throws IOException, InterruptedException {
+        final File archiveFile = getOrCreateLogArchiveFile();
+        lastArchiveDate = archiveDate;
+
+        HttpResponse<InputStream> logResponse = sendToArchive(archiveDate,
+                rangeRequest -> rangeRequest.header("Range", range));
+        @Cleanup InputStream inputStream = logResponse.body();
+        switch (logResponse.statusCode()) {
+            case 206:
+            case 200:
+                archiveOffset = logResponse.statusCode() == 206 ? Math.max(0, getRangeStart(logResponse)) : 0;
+                FileUtils.copyToFile(keepValidators(logResponse), archiveFile);
+                return LogArchive.builder()
+                        .file(archiveFile)
+                        .archiveDate(archiveDate)
+                        .offset(archiveOffset)
+                        .length(archiveOffset + archiveFile.length())
+                        .newBytes(archiveFile.length())
+                        .build();
+            case 416:
+                // Nothing logged yet today, or less than asked for.
+                archiveOffset = 0;
+                Files.write(archiveFile.toPath(), new byte[0]);
+                return LogArchive.builder()
+                        .file(archiveFile)
+                        .archiveDate(archiveDate)
+                        .build();
+            default:
+                throw downloadFailed(logResponse);
+        }
+    }
+
+    /**
+     * Forgets the local archive, so the next {@link #downloadLog()} fetches the whole archive again.
+     */
+    public void discardArchive() throws IOException {
+        archiveOffset = 0;
+        Files.write(getOrCreateLogArchiveFile().toPath(), new byte[0]);
+    }
+
+    /**
+     * Sends a request to the archive's signed URL. A URL reused from an earlier poll may have been revoked before
+     * its stated expiry, in that case a fresh one is requested and the request sent once more.
+     */
+    private HttpResponse<InputStream> sendToArchive(String archiveDate, Consumer<HttpRequest.Builder> request)
+            throws IOException, InterruptedException {
+        final boolean reused = hasRedirectUrl(archiveDate);
+        HttpResponse<InputStream> logResponse = send(getRedirectUrl(archiveDate), request);
+        if (reused && (logResponse.statusCode() == 401 || logResponse.statusCode() == 403)) {
+            logResponse.body().close();
+            redirectUrl = null;
+            logResponse = send(getRedirectUrl(archiveDate), request);
+        }
+        return logResponse;
+    }
+
+    private HttpResponse<InputStream> send(String url, Consumer<HttpRequest.Builder> request)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final HttpResponse<InputStream> response = transport.sendResumable(URI.create(url), request,
+                responseInfo -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream(),
+                        MeteredInputStream::new));
+        Metrics.ARCHIVE_RESPONSE.recordSince(start);
+        return response;
+    }
+
+    /**
+     * Takes on the validators of the response once its body was read to the end. Until then there are none: after
+     * a body cut short, the old or the new ones would turn the request for the missing rest into a 304.
+     *
+     * @return the body to read.
+     */
+    private InputStream keepValidators(HttpResponse<InputStream> logResponse) {
+        etag = null;
+        lastModified = null;
+        final String responseEtag = logResponse.headers().firstValue("etag").orElse(null);
+        final String responseLastModified = logResponse.headers().firstValue("last-modified").orElse(null);
+        return new FilterInputStream(logResponse.body()) {
+            @Override
+            public int read() throws IOException {
+                return ended(super.read());
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return ended(super.read(b, off, len));
+            }
+
+            private int ended(int read) {
+                if (read < 0) {
+                    etag = responseEtag;
+                    lastModified = responseLastModified;
+                }
+                return read;
+            }
+        };
+    }
+
+    private RuntimeException downloadFailed(HttpResponse<?> logResponse) {
+        return new RuntimeException("Failed to tail the logs." +
+                "\n\t Error message: Failed to obtain log data from remote server." + "\n\t" +
+                "Status code: \t" + logResponse.statusCode());
+    }
+
+    private LogArchive appendRange(InputStream inputStream, File archiveFile, String archiveDate)
+            throws IOException {
+        @Cleanup OutputStream outputStream = new FileOutputStream(archiveFile, true);
+        long appended = inputStream.transferTo(outputStream);
+        outputStream.flush();
+        return LogArchive.builder()
+                .file(archiveFile)
+                .archiveDate(archiveDate)
+                .offset(archiveOffset)
+                .length(archiveOffset + archiveFile.length())
+                .newBytes(appended)
+                .build();
+    }
+
+    private LogArchive fullArchive(File archiveFile, long previousLength, boolean rotated, String archiveDate) {
+        final long length = archiveFile.length();
+        return LogArchive.builder()
+                .file(archiveFile)
+                .archiveDate(archiveDate)
+                .length(length)
+                .newBytes(rotated || length < previousLength ? length : length - previousLength)
+                .rotated(rotated || length < previousLength)
+                .build();
+    }
+
+    private boolean hasRedirectUrl(String archiveDate) {
+        return redirectUrl != null && archiveDate.equals(redirectDate)
+                && System.currentTimeMillis() < redirectExpiresAt - REDIRECT_MARGIN_MILLIS;
+    }
+
+    /**
+     * The signed URL is reused until shortly before it expires, so most polls skip the Cloud Manager round-trip.
+     */
+    private String getRedirectUrl(String archiveDate) throws IOException, InterruptedException {
+        if (hasRedirectUrl(archiveDate)) {
+            return redirectUrl;
+        }
+        final long start = System.nanoTime();
+        HttpResponse<String> redirectResponse = transport.send(getRedirectRequest(archiveDate),
                 HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (redirectResponse.statusCode() == 401) {
+            // The token was revoked or expired earlier than announced.
+            refreshToken(redirectResponse.request().headers().firstValue("Authorization").orElse(null));
+            redirectResponse = transport.send(getRedirectRequest(archiveDate),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        }
+        Metrics.REDIRECT.recordSince(start);
+        if (redirectResponse.statusCode() == 404) {
+            throw new ArchiveNotFoundException("Failed to tail the logs." +
+                    "\n\t No log archive for " + archiveDate + ".");
+        }
         if (redirectResponse.statusCode() != 200) {
             throw new RuntimeException("Failed to tail the logs." +
                     "\n\t Error response with code: " + redirectResponse.statusCode() + "\n\t" +
@@ -73,18 +429,25 @@ public class LogApi {
                     "\n\t Error response with code: " + redirectResponse.statusCode() + "\n\t" +
                     "Body: \t" + redirectResponse.body());
         }
-        HttpResponse<InputStream> logResponse = httpClient.send(HttpRequest.newBuilder(URI.create(redirectUrl))
-                .build(), HttpResponse.BodyHandlers.ofInputStream());
-        if (logResponse.statusCode() != 200) {
+        this.redirectUrl = redirectUrl;
+        this.redirectDate = archiveDate;
+        this.redirectExpiresAt = SignedUrls.expiresAt(redirectUrl, System.currentTimeMillis());
+        return redirectUrl;
+    }
+
+    /**
+     * When several logs get a 401 for the same token, only the first one exchanges a new token.
+     */
+    private void refreshToken(String rejected) {
+        try {
+            tokenManager.refreshIfCurrent(rejected);
+        } catch (IdentityManagementApiException e) {
             throw new RuntimeException("Failed to tail the logs." +
-                    "\n\t Error message: Failed to obtain log data from remote server." + "\n\t" +
-                    "Body: \t" + redirectResponse.body());
+                    "\n\t Error message: Failed to refresh the access token: " + e.getMessage());
         }
-        return getOrCreateLogArchiveFile(logResponse);
     }
 
-    private File getOrCreateLogArchiveFile(HttpResponse<InputStream> logResponse) throws IOException {
-        @Cleanup InputStream inputStream = logResponse.body();
+    private File getOrCreateLogArchiveFile() throws IOException {
         final String archivePath = tempDir.getPath().concat("/aemlog.log.gz");
         Path archiveAsPath = Paths.get(archivePath);
         File archiveFile;
@@ -96,19 +459,24 @@ public class LogApi {
         } else {
             archiveFile = archiveAsPath.toFile();
         }
-
-        long contentLength = getContentLength(logResponse);
-        if (!cache.contains(contentLength)) {
-            FileUtils.copyToFile(inputStream, archiveFile);
-        }
-        cache.add(contentLength);
         return archiveFile;
     }
 
-    private long getContentLength(HttpResponse<InputStream> logResponse) {
-        return logResponse.headers().firstValue("content-length")
+    // "Content-Range: bytes <start>-<end>/<total>" on 206, "Content-Range: bytes */<total>" on 416.
+    private long getRangeStart(HttpResponse<?> logResponse) {
+        return logResponse.headers().firstValue("content-range")
+                .map(range -> StringUtils.substringBetween(range, "bytes ", "-"))
+                .filter(StringUtils::isNumeric)
+                .map(Long::parseLong)
+                .orElse(-1L);
+    }
+
+    private long getRangeTotal(HttpResponse<?> logResponse) {
+        return logResponse.headers().firstValue("content-range")
+                .map(range -> StringUtils.substringAfterLast(range, "/"))
+                .filter(StringUtils::isNumeric)
                 .map(Long::parseLong)
-                .orElse(0L);
+                .orElse(-1L);
     }
 
     private String getRedirectUrlFromJson(String json) throws JsonProcessingException {
@@ -120,22 +488,22 @@ public class LogApi {
                 .asText(StringUtils.EMPTY);
     }
 
-    private HttpRequest getRedirectRequest() {
-        return HttpRequest.newBuilder(getURI())
+    private HttpRequest getRedirectRequest(String archiveDate) {
+        return transport.request(getURI(archiveDate))
                 .GET()
                 .header("x-gw-ims-org-id", orgId)
-                .header("Authorization", accessToken)
+                .header("Authorization", tokenManager.getToken())
                 .header("x-api-key", clientId)
                 .header("Accept", "application/json")
                 .build();
     }
 
-    private URI getURI() {
-        return UriBuilder.fromUri(URI.create(BASE_URL))
+    private URI getURI(String archiveDate) {
+        return UriBuilder.fromUri(URI.create(baseUrl))
                 .path(DOWNLOAD_URL)
                 .queryParam("service", service)
                 .queryParam("name", logName)
-                .queryParam("date", sdf.format(new Date()))
+                .queryParam("date", archiveDate)
                 .build(programId, envId);
     }
 }
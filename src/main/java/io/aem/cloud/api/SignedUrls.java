@@ -0,0 +1,69 @@
+package io.aem.cloud.api;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the expiry out of the pre-signed archive URLs Cloud Manager redirects to. Azure SAS ({@code se}), AWS
+ * SigV4 ({@code X-Amz-Date} plus {@code X-Amz-Expires}) and CloudFront style {@code Expires} are understood.
+ */
+final class SignedUrls {
+
+    private static final long UNKNOWN_VALIDITY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private SignedUrls() {
+    }
+
+    /**
+     * @return when the URL stops working, or a minute from {@code now} if it doesn't say.
+     */
+    static long expiresAt(String url, long now) {
+        final Map<String, String> query = query(url);
+        try {
+            if (query.containsKey("se")) {
+                return Instant.parse(query.get("se")).toEpochMilli();
+            }
+            if (query.containsKey("X-Amz-Date") && query.containsKey("X-Amz-Expires")) {
+                return LocalDateTime.parse(query.get("X-Amz-Date"), AMZ_DATE).toInstant(ZoneOffset.UTC).toEpochMilli()
+                        + TimeUnit.SECONDS.toMillis(Long.parseLong(query.get("X-Amz-Expires")));
+            }
+            if (query.containsKey("Expires")) {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(query.get("Expires")));
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            // Fall through to the short default.
+        }
+        return now + UNKNOWN_VALIDITY_MILLIS;
+    }
+
+    private static Map<String, String> query(String url) {
+        final Map<String, String> query = new HashMap<>();
+        final String rawQuery;
+        try {
+            rawQuery = URI.create(url).getRawQuery();
+        } catch (IllegalArgumentException e) {
+            return query;
+        }
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            final int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,217 @@
+package io.aem.cloud.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.adobe.cloudmanager.IdentityManagementApiException;
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.model.Credentials;
+import io.aem.cloud.model.JwtToken;
+import lombok.Cleanup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out the IMS access token and keeps it valid for as long as the tool runs.
+ * <p>
+ * The token is cached with its expiry in the user's home, readable by the owner only, so a restart within the
+ * validity window doesn't talk to IMS at all. A daemon thread exchanges a new token a few minutes before the
+ * current one expires.
+ */
+public class TokenManager {
+
+    private static final String CACHE_DIR = ".aem-log-tailor";
+    private static final String PROP_ACCESS_TOKEN = "accessToken";
+    private static final String PROP_EXPIRES_AT = "expiresAt";
+    private static final long REFRESH_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long RETRY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_VALIDITY_MILLIS = TimeUnit.HOURS.toMillis(12);
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Credentials credentials;
+    private final File cacheFile;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(
+            DaemonThreads.named("token-refresher"));
+    private volatile String token;
+    private volatile long expiresAt;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private TokenManager(Credentials credentials, File cacheFile) {
+        this.credentials = credentials;
+        this.cacheFile = cacheFile;
+    }
+
+    public static TokenManager create(Credentials credentials) throws IdentityManagementApiException {
+        final File cacheDir = new File(System.getProperty("user.home"), CACHE_DIR);
+        final TokenManager tokenManager = new TokenManager(credentials,
+                new File(cacheDir, "token-" + cacheKey(credentials) + ".properties"));
+        if (!tokenManager.loadCached()) {
+            tokenManager.refresh();
+        } else {
+            tokenManager.scheduleRefresh(tokenManager.expiresAt - REFRESH_MARGIN_MILLIS);
+        }
+        return tokenManager;
+    }
+
+    /**
+     * Hands out the given token as it is, without IMS or cache, e.g. for a local stand-in of Cloud Manager. A
+     * rejected token stays rejected.
+     */
+    public static TokenManager fixed(String token) {
+        final TokenManager tokenManager = new TokenManager(null, null);
+        tokenManager.token = token;
+        tokenManager.expiresAt = Long.MAX_VALUE;
+        return tokenManager;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Exchanges a new token after the API rejected the given one, unless another caller already replaced it.
+     */
+    public synchronized void refreshIfCurrent(String rejected) throws IdentityManagementApiException {
+        if (rejected != null && !rejected.equals(token)) {
+            return;
+        }
+        refresh();
+    }
+
+    /**
+     * Exchanges a new token right away. The refresh planned for the old token is replaced by one for the new.
+     */
+    public synchronized void refresh() throws IdentityManagementApiException {
+        if (credentials == null) {
+            return;
+        }
+        final String refreshed = JwtToken.token(credentials);
+        expiresAt = expiresAt(refreshed);
+        token = refreshed;
+        store();
+        scheduleRefresh(expiresAt - REFRESH_MARGIN_MILLIS);
+    }
+
+    private synchronized void scheduleRefresh(long at) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        scheduledRefresh = refresher.schedule(() -> {
+            try {
+                refresh();
+            } catch (IdentityManagementApiException | RuntimeException e) {
+                System.err.println("\nERROR while refreshing the access token, retrying in a minute." +
+                        "\n\tMessage: " + e);
+                scheduleRefresh(System.currentTimeMillis() + RETRY_MILLIS);
+            }
+        }, Math.max(0, at - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private boolean loadCached() {
+        if (!cacheFile.isFile()) {
+            return false;
+        }
+        try {
+            @Cleanup InputStream inputStream = new FileInputStream(cacheFile);
+            final Properties properties = new Properties();
+            properties.load(inputStream);
+            final String cached = properties.getProperty(PROP_ACCESS_TOKEN);
+            final long cachedExpiry = Long.parseLong(properties.getProperty(PROP_EXPIRES_AT, "0"));
+            if (cached == null || cachedExpiry - REFRESH_MARGIN_MILLIS <= System.currentTimeMillis()) {
+                return false;
+            }
+            token = cached;
+            expiresAt = cachedExpiry;
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the cache next to its final place and moves it over, so a crash never leaves half a token behind.
+     */
+    private void store() {
+        try {
+            final Path dir = Files.createDirectories(cacheFile.getParentFile().toPath());
+            restrict(dir, "rwx------");
+            final Path temp = Files.createTempFile(dir, "token", ".tmp");
+            restrict(temp, "rw-------");
+            final Properties properties = new Properties();
+            properties.setProperty(PROP_ACCESS_TOKEN, token);
+            properties.setProperty(PROP_EXPIRES_AT, String.valueOf(expiresAt));
+            try (OutputStream outputStream = new FileOutputStream(temp.toFile())) {
+                properties.store(outputStream, null);
+            }
+            Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The cache only saves time on the next start.
+            System.err.println("\nCouldn't cache the access token: " + e.getMessage());
+        }
+    }
+
+    private static void restrict(Path path, String permissions) throws IOException {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString(permissions));
+        } catch (UnsupportedOperationException e) {
+            final File file = path.toFile();
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+    }
+
+    /**
+     * IMS access tokens are JWTs carrying {@code created_at} and {@code expires_in} in milliseconds.
+     */
+    private static long expiresAt(String token) {
+        final long fallback = System.currentTimeMillis() + DEFAULT_VALIDITY_MILLIS;
+        final String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return fallback;
+        }
+        try {
+            final JsonNode payload = mapper.readTree(new String(Base64.getUrlDecoder().decode(parts[1]),
+                    StandardCharsets.UTF_8));
+            final long createdAt = payload.path("created_at").asLong(0);
+            final long expiresIn = payload.path("expires_in").asLong(0);
+            return createdAt > 0 && expiresIn > 0 ? createdAt + expiresIn : fallback;
+        } catch (IOException | IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    private static String cacheKey(Credentials credentials) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest((credentials.getOrgId() + ":" +
+                    credentials.getTechnicalAccountId() + ":" + credentials.getClientId())
+                    .getBytes(StandardCharsets.UTF_8));
+            final StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                key.append(String.format("%02x", digest[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.aem.cloud.api;
+
+import java.io.IOException;
+
+/**
+ * A call that failed for a reason expected to go away, after its retries were used up or while its host is given
+ * a rest. Polling loops skip the poll and try again later instead of stopping.
+ */
+public class TransportException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    TransportException(String message) {
+        super(message);
+    }
+
+    TransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,78 @@
+package io.aem.cloud.daemon;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The last chunks of lines of one target, shared by all subscribers. The single producer never waits: it
+ * overwrites the oldest slot, and a subscriber whose cursor fell that far behind finds its chunk gone and skips
+ * ahead. Subscribers only read, each keeps its own cursor (the sequence number of the next chunk).
+ */
+public class ChunkRing {
+
+    private final AtomicReferenceArray<Chunk> slots;
+    private final int mask;
+    private volatile long head;
+
+    /**
+     * @param capacity number of chunks kept, rounded up to a power of two.
+     */
+    public ChunkRing(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return sequence number of the next chunk to be published.
+     */
+    public long head() {
+        return head;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Publishes a copy of the lines, each ending with a line break, and wakes the waiting subscribers.
+     */
+    public void publish(byte[] data, int length) {
+        final long sequence = head;
+        final byte[] copy = new byte[length];
+        System.arraycopy(data, 0, copy, 0, length);
+        slots.set((int) sequence & mask, new Chunk(sequence, copy));
+        head = sequence + 1;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return the chunk, or null if it was already overwritten.
+     */
+    public Chunk get(long sequence) {
+        final Chunk chunk = slots.get((int) sequence & mask);
+        return chunk != null && chunk.getSequence() == sequence ? chunk : null;
+    }
+
+    /**
+     * Waits until a chunk after the cursor is published or the timeout passes.
+     */
+    public void await(long cursor, long timeoutMillis) throws InterruptedException {
+        synchronized (this) {
+            if (head <= cursor) {
+                wait(timeoutMillis);
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Chunk {
+        private final long sequence;
+        private final byte[] data;
+    }
+}
@@ -0,0 +1,45 @@
+package io.aem.cloud.daemon;
+
+import io.aem.cloud.output.LineSink;
+
+import java.util.Arrays;
+
+/**
+ * Collects the lines of one poll into a chunk and publishes it to the ring on flush, or earlier once the chunk
+ * is large.
+ */
+public class RingSink implements LineSink {
+
+    private static final int MAX_CHUNK = 64 * 1024;
+
+    private final ChunkRing ring;
+    private byte[] buffer = new byte[MAX_CHUNK];
+    private int length;
+
+    public RingSink(ChunkRing ring) {
+        this.ring = ring;
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) {
+        if (length + len + 1 > buffer.length) {
+            if (length > 0) {
+                flush();
+            }
+            if (len + 1 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, len + 1);
+            }
+        }
+        System.arraycopy(buf, off, buffer, length, len);
+        length += len;
+        buffer[length++] = '\n';
+    }
+
+    @Override
+    public void flush() {
+        if (length > 0) {
+            ring.publish(buffer, length);
+            length = 0;
+        }
+    }
+}
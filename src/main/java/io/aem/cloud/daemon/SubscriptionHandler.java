@@ -0,0 +1,150 @@
+package io.aem.cloud.daemon;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.filter.LineFilter;
+import io.aem.cloud.model.FilterSettings;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the lines of one target to one subscriber as server-sent events, one {@code data:} event per line:
+ * {@code GET /tail?target=<programId>:<envId>:<service>:<log>&level=WARN&include=...&exclude=...}. The filter
+ * parameters work like the command line options and can be repeated.
+ * <p>
+ * Each subscriber runs on its own thread and reads the shared ring at its own pace. A subscriber too slow to
+ * keep up loses the chunks that were overwritten and gets a {@code dropped} event telling how many.
+ */
+@RequiredArgsConstructor
+class SubscriptionHandler implements HttpHandler {
+
+    private static final long KEEP_ALIVE_MILLIS = 15_000;
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, ChunkRing> rings;
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            final Map<String, List<String>> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            final ChunkRing ring = ring(query);
+            if (ring == null) {
+                respond(exchange, 404, "Unknown target, tailed are: " + String.join(", ", rings.keySet()) + "\n");
+                return;
+            }
+            final LineFilter filter;
+            try {
+                filter = filter(query);
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            stream(ring, filter, new BufferedOutputStream(exchange.getResponseBody()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // The subscriber went away.
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stream(ChunkRing ring, LineFilter filter, OutputStream out)
+            throws IOException, InterruptedException {
+        long cursor = ring.head();
+        while (!Thread.currentThread().isInterrupted()) {
+            if (cursor == ring.head()) {
+                ring.await(cursor, KEEP_ALIVE_MILLIS);
+                if (cursor == ring.head()) {
+                    out.write(KEEP_ALIVE);
+                    out.flush();
+                    continue;
+                }
+            }
+            final ChunkRing.Chunk chunk = ring.get(cursor);
+            if (chunk == null) {
+                // Overwritten while this subscriber was busy, continue with the oldest chunk still there.
+                final long next = Math.max(cursor + 1, ring.head() - ring.capacity() + 1);
+                out.write(("event: dropped\ndata: " + (next - cursor) + " chunks skipped, the subscriber is too " +
+                        "slow\n\n").getBytes(StandardCharsets.US_ASCII));
+                cursor = next;
+                continue;
+            }
+            writeLines(chunk.getData(), filter, out);
+            out.flush();
+            cursor++;
+        }
+    }
+
+    private static void writeLines(byte[] data, LineFilter filter, OutputStream out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != '\n') {
+                continue;
+            }
+            if (filter == null || filter.accept(data, start, i - start)) {
+                out.write(DATA);
+                out.write(data, start, i - start);
+                out.write('\n');
+                out.write('\n');
+            }
+            start = i + 1;
+        }
+    }
+
+    private ChunkRing ring(Map<String, List<String>> query) {
+        final List<String> target = query.get("target");
+        if (target == null) {
+            return rings.size() == 1 ? rings.values().iterator().next() : null;
+        }
+        return rings.get(target.get(0));
+    }
+
+    private static LineFilter filter(Map<String, List<String>> query) {
+        final FilterSettings settings = FilterSettings.builder()
+                .minLevel(query.getOrDefault("level", List.of()).stream().findFirst().orElse(null))
+                .includes(query.getOrDefault("include", List.of()))
+                .excludes(query.getOrDefault("exclude", List.of()))
+                .loggers(query.getOrDefault("logger", List.of()))
+                .excludedLoggers(query.getOrDefault("exclude-logger", List.of()))
+                .build();
+        return settings.isEmpty() ? null : new LineFilter(new FilterRules(settings));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        final byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, List<String>> parseQuery(String query) {
+        final Map<String, List<String>> parameters = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            final int equals = pair.indexOf('=');
+            final String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals),
+                    StandardCharsets.UTF_8);
+            final String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1),
+                    StandardCharsets.UTF_8);
+            parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,85 @@
+package io.aem.cloud.daemon;
+
+import com.sun.net.httpserver.HttpServer;
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.api.ApiBuilder;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.multi.TargetPoller;
+import io.aem.cloud.output.OutputSettings;
+import io.aem.cloud.processor.PollScheduler;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Tails the targets once and shares their lines with any number of local subscribers: every target is polled
+ * like in {@link io.aem.cloud.multi.MultiTailor}, but its lines go to a {@link ChunkRing} instead of the console,
+ * and an HTTP server on the loopback interface streams them to whoever connects. Adding a subscriber costs a
+ * thread and a cursor, not a login, a download and a decompression.
+ */
+@RequiredArgsConstructor
+public class TailDaemon {
+
+    private static final int MAX_POLLER_THREADS = 4;
+    private static final int RING_CHUNKS = 1024;
+
+    private final ApiBuilder apiBuilder;
+    private final File tempDir;
+    private final List<Target> targets;
+    private final int port;
+    private final PollSettings pollSettings;
+    private final OutputSettings outputSettings;
+
+    /**
+     * Starts the pollers and the server.
+     *
+     * @return the pollers' executor, shutting it down stops the tail.
+     */
+    public ScheduledExecutorService start() throws IOException {
+        final Map<String, ChunkRing> rings = new LinkedHashMap<>();
+        final ScheduledThreadPoolExecutor pollers = new ScheduledThreadPoolExecutor(
+                Math.min(targets.size(), MAX_POLLER_THREADS), DaemonThreads.numbered("log-poller"));
+        for (Target target : targets) {
+            final ChunkRing ring = new ChunkRing(RING_CHUNKS);
+            rings.put(key(target), ring);
+            pollers.execute(new TargetPoller(target, apiBuilder.logApi(tempDir, target), 0,
+                    outputSettings.tailed(target, new RingSink(ring)), pollers, new PollScheduler(pollSettings)));
+        }
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                0);
+        final ExecutorService subscribers = Executors.newCachedThreadPool(DaemonThreads.numbered("log-subscriber"));
+        server.createContext("/tail", new SubscriptionHandler(rings));
+        server.createContext("/targets", exchange -> {
+            final byte[] body = (String.join("\n", rings.keySet()) + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(subscribers);
+        server.start();
+        System.out.println("Serving " + targets.size() + " target(s) on http://" +
+                server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/tail");
+        return pollers;
+    }
+
+    /**
+     * @return the target as written on the command line, which is how subscribers pick it.
+     */
+    private static String key(Target target) {
+        return target.getProgramId() + ":" + target.getEnvId() + ":" + target.getService() + ":" +
+                target.getLogName();
+    }
+}
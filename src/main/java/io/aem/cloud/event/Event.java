@@ -0,0 +1,69 @@
+package io.aem.cloud.event;
+
+import io.aem.cloud.output.LineSink;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The lines of one log event: the line carrying the timestamp and level, followed by its continuation lines
+ * (stack traces, multi-line messages). Lines are copied into one reused buffer.
+ * <p>
+ * An event holds at most {@link #MAX_LINES} lines and about {@link #MAX_BYTES} bytes, so a log whose lines can't
+ * be told apart doesn't pile up in memory. Users complete a full event and go on as if a new one started.
+ */
+public class Event {
+
+    public static final int MAX_LINES = 1000;
+    public static final int MAX_BYTES = 256 * 1024;
+
+    private byte[] data = new byte[4096];
+    private int[] lineEnds = new int[16];
+    @Getter
+    private int lineCount;
+    private int length;
+
+    public void add(byte[] buf, int off, int len) {
+        if (length + len > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + len));
+        }
+        if (lineCount == lineEnds.length) {
+            lineEnds = Arrays.copyOf(lineEnds, lineEnds.length * 2);
+        }
+        System.arraycopy(buf, off, data, length, len);
+        length += len;
+        lineEnds[lineCount++] = length;
+    }
+
+    public void clear() {
+        lineCount = 0;
+        length = 0;
+    }
+
+    public boolean isEmpty() {
+        return lineCount == 0;
+    }
+
+    public boolean isFull() {
+        return lineCount >= MAX_LINES || length >= MAX_BYTES;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public int lineStart(int line) {
+        return line == 0 ? 0 : lineEnds[line - 1];
+    }
+
+    public int lineLength(int line) {
+        return lineEnds[line] - lineStart(line);
+    }
+
+    public void writeTo(LineSink sink) throws IOException {
+        for (int line = 0; line < lineCount; line++) {
+            sink.line(data, lineStart(line), lineLength(line));
+        }
+    }
+}
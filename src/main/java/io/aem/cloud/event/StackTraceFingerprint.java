@@ -0,0 +1,140 @@
+package io.aem.cloud.event;
+
+/**
+ * A stable 64 bit hash of an exception: its class and its top frames, with line numbers left out so the
+ * fingerprint survives a redeployment that only moved code around. Messages are ignored, they usually carry
+ * request specific values.
+ */
+public final class StackTraceFingerprint {
+
+    public static final long NONE = 0;
+
+    private static final int TOP_FRAMES = 5;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StackTraceFingerprint() {
+    }
+
+    /**
+     * @return the fingerprint, or {@link #NONE} if the event has no stack trace.
+     */
+    public static long of(Event event) {
+        final byte[] data = event.data();
+        int exceptionLine = -1;
+        int frames = 0;
+        long hash = FNV_OFFSET;
+        for (int line = 1; line < event.getLineCount() && frames < TOP_FRAMES; line++) {
+            int start = skipWhitespace(data, event.lineStart(line), event.lineStart(line) + event.lineLength(line));
+            int end = event.lineStart(line) + event.lineLength(line);
+            if (isElision(data, start, end)) {
+                continue;
+            }
+            if (isFrame(data, start, end)) {
+                if (exceptionLine < 0) {
+                    continue;
+                }
+                hash = hashFrame(hash, data, start + 3, end);
+                frames++;
+            } else if (exceptionLine < 0) {
+                exceptionLine = line;
+                hash = hash(hash, data, start, exceptionClassEnd(data, start, end));
+            }
+        }
+        if (exceptionLine < 0 || frames == 0) {
+            return NONE;
+        }
+        return hash == NONE ? 1 : hash;
+    }
+
+    /**
+     * @return offset and length of the exception class name in the event, packed as {@code start << 32 | length},
+     * or -1 without a stack trace.
+     */
+    public static long exceptionClass(Event event) {
+        final byte[] data = event.data();
+        for (int line = 1; line < event.getLineCount(); line++) {
+            int end = event.lineStart(line) + event.lineLength(line);
+            int start = skipWhitespace(data, event.lineStart(line), end);
+            if (!isFrame(data, start, end) && !isElision(data, start, end)) {
+                return ((long) start << 32) | (exceptionClassEnd(data, start, end) - start);
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isFrame(byte[] data, int start, int end) {
+        return end - start > 3 && data[start] == 'a' && data[start + 1] == 't' && data[start + 2] == ' ';
+    }
+
+    /**
+     * "... 42 more"
+     */
+    private static boolean isElision(byte[] data, int start, int end) {
+        return end - start >= 3 && data[start] == '.' && data[start + 1] == '.' && data[start + 2] == '.';
+    }
+
+    /**
+     * "java.lang.IllegalStateException: message" or "Caused by: ..." up to the message.
+     */
+    private static int exceptionClassEnd(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == ':' && (i + 1 == end || data[i + 1] == ' ') && !startsWithCausedBy(data, start, i)) {
+                return i;
+            }
+            if (data[i] == ' ' && !startsWithCausedBy(data, start, i)) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean startsWithCausedBy(byte[] data, int start, int position) {
+        final String causedBy = "Caused by:";
+        if (position - start > causedBy.length()) {
+            return false;
+        }
+        for (int i = start; i < position; i++) {
+            if (data[i] != causedBy.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * "com.acme.Foo.bar(Foo.java:42)" is hashed as "com.acme.Foo.bar(Foo.java)".
+     */
+    private static long hashFrame(long hash, byte[] data, int start, int end) {
+        boolean lineNumber = false;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            if (b == '(') {
+                lineNumber = false;
+            } else if (b == ':') {
+                lineNumber = true;
+                continue;
+            } else if (b == ')') {
+                lineNumber = false;
+            }
+            if (!lineNumber) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ '\n') * FNV_PRIME;
+    }
+
+    private static long hash(long hash, byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ (data[i] & 0xff)) * FNV_PRIME;
+        }
+        return (hash ^ '\n') * FNV_PRIME;
+    }
+
+    private static int skipWhitespace(byte[] data, int start, int end) {
+        while (start < end && (data[start] == ' ' || data[start] == '\t')) {
+            start++;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,126 @@
+package io.aem.cloud.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Finds any number of literal byte patterns in one pass over a line. The automaton is compiled into a dense
+ * transition table, so matching costs one table lookup per byte no matter how many patterns there are.
+ */
+public class AhoCorasick {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final int[][] matches;
+    /**
+     * All transitions in one array, states are stored as their offset {@code state << 8}.
+     */
+    private final int[] table;
+
+    public AhoCorasick(List<String> patterns) {
+        final List<int[]> states = new ArrayList<>();
+        final List<int[]> outputs = new ArrayList<>();
+        states.add(newState());
+        outputs.add(NO_MATCHES);
+        for (int id = 0; id < patterns.size(); id++) {
+            int state = 0;
+            for (byte b : patterns.get(id).getBytes(StandardCharsets.UTF_8)) {
+                int next = states.get(state)[b & 0xff];
+                if (next < 0) {
+                    next = states.size();
+                    states.get(state)[b & 0xff] = next;
+                    states.add(newState());
+                    outputs.add(NO_MATCHES);
+                }
+                state = next;
+            }
+            outputs.set(state, append(outputs.get(state), id));
+        }
+        final int[][] transitions = states.toArray(new int[0][]);
+        matches = outputs.toArray(new int[0][]);
+        link(transitions);
+        table = new int[transitions.length << 8];
+        for (int state = 0; state < transitions.length; state++) {
+            for (int b = 0; b < 256; b++) {
+                table[(state << 8) | b] = transitions[state][b] << 8;
+            }
+        }
+    }
+
+    /**
+     * Calls the listener for every pattern occurring in the bytes, stopping early when it returns false.
+     */
+    public void match(byte[] buf, int off, int len, MatchListener listener) {
+        final int[] table = this.table;
+        int state = 0;
+        for (int i = off, end = off + len; i < end; i++) {
+            state = table[state | (buf[i] & 0xff)];
+            final int[] found = matches[state >>> 8];
+            if (found.length == 0) {
+                continue;
+            }
+            for (int pattern : found) {
+                if (!listener.matched(pattern)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface MatchListener {
+        /**
+         * @return false to stop matching.
+         */
+        boolean matched(int pattern);
+    }
+
+    /**
+     * Turns the trie into a DFA: missing transitions follow the failure links, and every state reports the
+     * patterns of the states its failure chain reaches.
+     */
+    private void link(int[][] transitions) {
+        final int[] failure = new int[transitions.length];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int b = 0; b < 256; b++) {
+            int next = transitions[0][b];
+            if (next < 0) {
+                transitions[0][b] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (int b = 0; b < 256; b++) {
+                int next = transitions[state][b];
+                if (next < 0) {
+                    transitions[state][b] = transitions[failure[state]][b];
+                } else {
+                    failure[next] = transitions[failure[state]][b];
+                    for (int pattern : matches[failure[next]]) {
+                        matches[next] = append(matches[next], pattern);
+                    }
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    private static int[] newState() {
+        final int[] state = new int[256];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] append(int[] patterns, int pattern) {
+        final int[] appended = Arrays.copyOf(patterns, patterns.length + 1);
+        appended[patterns.length] = pattern;
+        return appended;
+    }
+}
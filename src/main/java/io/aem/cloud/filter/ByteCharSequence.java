@@ -0,0 +1,44 @@
+package io.aem.cloud.filter;
+
+/**
+ * A reusable view of raw line bytes as characters, one char per byte, so regular expressions can run without
+ * decoding the line into a String. ASCII patterns match exactly, a non-ASCII character is seen as the bytes of
+ * its UTF-8 encoding.
+ */
+class ByteCharSequence implements CharSequence {
+
+    private byte[] buf;
+    private int off;
+    private int len;
+
+    ByteCharSequence wrap(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.off = off;
+        this.len = len;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buf[off + index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new ByteCharSequence().wrap(buf, off + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        final char[] chars = new char[len];
+        for (int i = 0; i < len; i++) {
+            chars[i] = charAt(i);
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,72 @@
+package io.aem.cloud.filter;
+
+import io.aem.cloud.model.FilterSettings;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The compiled, immutable part of a filter. It can be shared by the {@link LineFilter}s of several targets.
+ */
+@Getter
+public class FilterRules {
+
+    static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+
+    private final int minLevel;
+    private final int includeLiterals;
+    /**
+     * The literal include patterns as UTF-8 bytes, for stores that can tell a pattern isn't in a segment.
+     */
+    private final List<byte[]> includeLiteralBytes = new ArrayList<>();
+    private final AhoCorasick literals;
+    private final List<Pattern> includeRegexes = new ArrayList<>();
+    private final List<Pattern> excludeRegexes = new ArrayList<>();
+    private final LoggerPrefixes loggers;
+    private final LoggerPrefixes excludedLoggers;
+    private final boolean includes;
+
+    public FilterRules(FilterSettings settings) {
+        this.minLevel = levelRank(settings.getMinLevel());
+        final List<String> literalPatterns = new ArrayList<>();
+        split(settings.getIncludes(), literalPatterns, includeRegexes);
+        this.includeLiterals = literalPatterns.size();
+        for (String literal : literalPatterns) {
+            includeLiteralBytes.add(literal.getBytes(StandardCharsets.UTF_8));
+        }
+        split(settings.getExcludes(), literalPatterns, excludeRegexes);
+        this.literals = literalPatterns.isEmpty() ? null : new AhoCorasick(literalPatterns);
+        this.includes = !settings.getIncludes().isEmpty();
+        this.loggers = new LoggerPrefixes(settings.getLoggers());
+        this.excludedLoggers = new LoggerPrefixes(settings.getExcludedLoggers());
+    }
+
+    private static int levelRank(String level) {
+        if (level == null) {
+            return -1;
+        }
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equalsIgnoreCase(level)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown log level \"" + level + "\", expected one of " +
+                String.join(", ", LEVELS) + ".");
+    }
+
+    private static void split(List<String> patterns, List<String> literals, List<Pattern> regexes) {
+        for (String pattern : patterns) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Empty filter pattern.");
+            }
+            if (pattern.length() > 2 && pattern.startsWith("/") && pattern.endsWith("/")) {
+                regexes.add(Pattern.compile(pattern.substring(1, pattern.length() - 1)));
+            } else {
+                literals.add(pattern);
+            }
+        }
+    }
+}
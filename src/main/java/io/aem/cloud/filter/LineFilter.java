@@ -0,0 +1,171 @@
+package io.aem.cloud.filter;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides on raw line bytes whether a line is kept, before anything is decoded.
+ * <p>
+ * Lines of AEM's error log carry a level marker such as {@code *ERROR*}, followed by the thread in brackets and
+ * the logger. Once such markers were seen, lines without one (stack traces, multi-line messages) share the fate
+ * of the line that started their event. Logs without levels are filtered line by line.
+ * <p>
+ * All literal patterns are found in a single Aho-Corasick pass. Regular expressions only run when the literals
+ * didn't already decide: an excluded literal skips them all, an included literal skips the include regexes.
+ * A filter keeps per-stream state, each tailed log needs its own.
+ */
+public class LineFilter implements AhoCorasick.MatchListener {
+
+    private static final int HEADER_BYTES = 128;
+
+    private final FilterRules rules;
+    private final Matcher[] includeMatchers;
+    private final Matcher[] excludeMatchers;
+    private final ByteCharSequence chars = new ByteCharSequence();
+    private boolean sawLevels;
+    private boolean eventKept = true;
+    private boolean includeMatched;
+    private boolean excludeMatched;
+    private int level;
+    private int markerEnd;
+
+    public LineFilter(FilterRules rules) {
+        this.rules = rules;
+        this.includeMatchers = matchers(rules.getIncludeRegexes());
+        this.excludeMatchers = matchers(rules.getExcludeRegexes());
+    }
+
+    public boolean accept(byte[] buf, int off, int len) {
+        if (findLevel(buf, off, len)) {
+            sawLevels = true;
+            eventKept = evaluate(buf, off, len);
+            return eventKept;
+        }
+        return sawLevels ? eventKept : evaluate(buf, off, len);
+    }
+
+    @Override
+    public boolean matched(int pattern) {
+        if (pattern >= rules.getIncludeLiterals()) {
+            excludeMatched = true;
+            return false;
+        }
+        includeMatched = true;
+        return true;
+    }
+
+    private boolean evaluate(byte[] buf, int off, int len) {
+        if (level >= 0 && level < rules.getMinLevel()) {
+            return false;
+        }
+        if (!acceptLogger(buf, off, len)) {
+            return false;
+        }
+        includeMatched = false;
+        excludeMatched = false;
+        if (rules.getLiterals() != null) {
+            rules.getLiterals().match(buf, off, len, this);
+        }
+        if (excludeMatched || find(excludeMatchers, buf, off, len)) {
+            return false;
+        }
+        return !rules.isIncludes() || includeMatched || find(includeMatchers, buf, off, len);
+    }
+
+    private boolean acceptLogger(byte[] buf, int off, int len) {
+        final LoggerPrefixes loggers = rules.getLoggers();
+        final LoggerPrefixes excludedLoggers = rules.getExcludedLoggers();
+        if (loggers.isEmpty() && excludedLoggers.isEmpty()) {
+            return true;
+        }
+        // "*LEVEL* [thread name] logger message"
+        final int end = off + len;
+        int start = markerEnd < 0 ? end : markerEnd;
+        if (start + 1 < end && buf[start] == ' ' && buf[start + 1] == '[') {
+            start += 2;
+            while (start + 1 < end && !(buf[start] == ']' && buf[start + 1] == ' ')) {
+                start++;
+            }
+            start += 2;
+        } else {
+            start = end;
+        }
+        int loggerEnd = start;
+        while (loggerEnd < end && buf[loggerEnd] != ' ') {
+            loggerEnd++;
+        }
+        if (loggerEnd == start) {
+            return loggers.isEmpty();
+        }
+        if (excludedLoggers.matches(buf, start, loggerEnd - start)) {
+            return false;
+        }
+        return loggers.isEmpty() || loggers.matches(buf, start, loggerEnd - start);
+    }
+
+    /**
+     * Looks for a {@code *LEVEL*} marker near the start of the line.
+     */
+    private boolean findLevel(byte[] buf, int off, int len) {
+        level = -1;
+        markerEnd = -1;
+        final int end = off + Math.min(len, HEADER_BYTES);
+        for (int i = off; i < end; i++) {
+            if (buf[i] != '*') {
+                continue;
+            }
+            int close = i + 1;
+            while (close < end && buf[close] >= 'A' && buf[close] <= 'Z') {
+                close++;
+            }
+            if (close < end && buf[close] == '*' && close > i + 1) {
+                int rank = rank(buf, i + 1, close - i - 1);
+                if (rank >= 0) {
+                    level = rank;
+                    markerEnd = close + 1;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int rank(byte[] buf, int off, int len) {
+        for (int rank = 0; rank < FilterRules.LEVELS.length; rank++) {
+            String level = FilterRules.LEVELS[rank];
+            if (level.length() != len) {
+                continue;
+            }
+            int i = 0;
+            while (i < len && buf[off + i] == level.charAt(i)) {
+                i++;
+            }
+            if (i == len) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+
+    private boolean find(Matcher[] matchers, byte[] buf, int off, int len) {
+        if (matchers.length == 0) {
+            return false;
+        }
+        chars.wrap(buf, off, len);
+        for (Matcher matcher : matchers) {
+            if (matcher.reset(chars).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Matcher[] matchers(List<Pattern> patterns) {
+        final Matcher[] matchers = new Matcher[patterns.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = patterns.get(i).matcher("");
+        }
+        return matchers;
+    }
+}
@@ -0,0 +1,48 @@
+package io.aem.cloud.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logger name prefixes on package boundaries: {@code com.foo} covers {@code com.foo} and {@code com.foo.Bar},
+ * but not {@code com.foobar}. A lookup walks the logger name once, however many prefixes there are.
+ */
+class LoggerPrefixes {
+
+    private final Node root = new Node();
+
+    LoggerPrefixes(List<String> prefixes) {
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (byte b : prefix.getBytes(StandardCharsets.UTF_8)) {
+                node = node.children.computeIfAbsent(b, key -> new Node());
+            }
+            node.terminal = true;
+        }
+    }
+
+    boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    boolean matches(byte[] buf, int off, int len) {
+        Node node = root;
+        for (int i = off, end = off + len; i < end; i++) {
+            if (buf[i] == '.' && node.terminal) {
+                return true;
+            }
+            node = node.children.get(buf[i]);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    private static class Node {
+        private final Map<Byte, Node> children = new HashMap<>();
+        private boolean terminal;
+    }
+}
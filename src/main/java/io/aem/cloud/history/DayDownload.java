@@ -0,0 +1,105 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.api.LogApi;
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.filter.LineFilter;
+import io.aem.cloud.model.ArchiveStream;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.ConsoleSink;
+import io.aem.cloud.output.FilteringSink;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.LineSplittingOutputStream;
+import io.aem.cloud.output.TeeSink;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.processor.IncrementalGzipInflater;
+import io.aem.cloud.store.LogStore;
+import io.aem.cloud.store.StoreCoverage;
+import io.aem.cloud.store.StoreWriter;
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Callable;
+
+/**
+ * Downloads one day's archive of one target and inflates it while it arrives, keeping only the lines within the
+ * time range and the filter. The result is a plain text file, in the order the lines were logged.
+ * <p>
+ * With a store, the lines of the time it covers are left out, they're read from the store instead. The download
+ * stops once it's past the last of the missing time. What it reads goes into the store unfiltered, and a day
+ * that's over and read to its end is covered up to midnight.
+ */
+@RequiredArgsConstructor
+class DayDownload implements Callable<File> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final LogApi logApi;
+    private final Target target;
+    private final LocalDate day;
+    private final TimeRange range;
+    private final StoreCoverage stored;
+    private final FilterRules filterRules;
+    private final LogStore store;
+    private final File file;
+
+    @Override
+    public File call() throws Exception {
+        @Cleanup ArchiveStream archive = logApi.openDay(day);
+        @Cleanup FileOutputStream out = new FileOutputStream(file);
+        final TimeWindowSink window = new TimeWindowSink(range, stored, LogFormat.ofLogName(target.getLogName()),
+                filtering(filterRules, new ConsoleSink(out, StandardCharsets.UTF_8)));
+        LineSink sink = window;
+        final StoreWriter storeWriter = store == null ? null : store.downloadDay(target, day);
+        if (storeWriter != null) {
+            sink = new TeeSink(storeWriter, sink);
+        }
+        final LineSplittingOutputStream lines = new LineSplittingOutputStream(sink);
+        @Cleanup IncrementalGzipInflater inflater = new IncrementalGzipInflater();
+        final InputStream body = archive.getBody();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final long dayStart = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        final long until = stored.lastMissing(Math.max(range.getFromMillis(), dayStart),
+                Math.min(range.getToMillis(), dayStart + 86_400_000L - 1));
+        int read = 0;
+        while (window.getLastTimestamp() <= until && (read = body.read(buffer)) > 0) {
+            inflater.inflate(buffer, 0, read, lines);
+        }
+        // A download stopped early leaves out the rest of its last line, it's past the missing time.
+        final boolean ended = read <= 0;
+        if (ended) {
+            lines.endLine();
+        }
+        sink.flush();
+        if (storeWriter != null) {
+            if (ended && day.isBefore(LocalDate.now(ZoneOffset.UTC))) {
+                store.complete(storeWriter);
+            } else {
+                store.release(storeWriter);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * @return the sink keeping only the lines of the day within the range and the filter.
+     */
+    static LineSink filtered(Target target, LocalDate day, TimeRange range, FilterRules filterRules,
+                             LineSink sink) {
+        sink = filtering(filterRules, sink);
+        if (!range.coversDay(day)) {
+            sink = new TimeWindowSink(range, LogFormat.ofLogName(target.getLogName()), sink);
+        }
+        return sink;
+    }
+
+    private static LineSink filtering(FilterRules filterRules, LineSink sink) {
+        return filterRules == null ? sink : new FilteringSink(new LineFilter(filterRules), sink);
+    }
+}
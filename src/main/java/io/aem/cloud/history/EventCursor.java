@@ -0,0 +1,156 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.event.Event;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a downloaded log one event at a time: a line with a timestamp and the lines without one that follow it,
+ * like a stack trace. Events are merged by timestamp, their lines stay together.
+ * <p>
+ * Events are cut at the size of an {@link Event}, so memory stays flat whatever the log. A line without a
+ * timestamp and without an event to join, like every line of a log in an unknown format, is an event by itself
+ * with the timestamp of the event before it.
+ */
+class EventCursor implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private final File file;
+    private final InputStream in;
+    private final LineSink sink;
+    @Getter
+    private final int order;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private byte[] line = new byte[1024];
+    private int lineLength;
+    private boolean hasLine;
+    private long lineTimestamp = Long.MIN_VALUE;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    private byte[] event = new byte[1024];
+    private int eventLength;
+    private int[] lineEnds = new int[16];
+    private int lines;
+    @Getter
+    private long timestamp;
+
+    EventCursor(File file, LogFormat format, LineSink sink, int order) throws IOException {
+        this.file = file;
+        this.in = new FileInputStream(file);
+        this.sink = sink;
+        this.order = order;
+        this.parser = new LogParser(format);
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return false at the end of the file.
+     */
+    boolean advance() throws IOException {
+        eventLength = 0;
+        lines = 0;
+        if (!hasLine && !readLine()) {
+            return false;
+        }
+        final boolean started = lineTimestamp != Long.MIN_VALUE;
+        timestamp = started ? lineTimestamp : lastTimestamp;
+        lastTimestamp = timestamp;
+        do {
+            append();
+        } while (started && lines < Event.MAX_LINES && eventLength < Event.MAX_BYTES
+                && readLine() && lineTimestamp == Long.MIN_VALUE);
+        // A line left over starts the next event, it was only read to find the end of this one.
+        return true;
+    }
+
+    /**
+     * Writes the lines of the current event to the sink of its log.
+     */
+    void emit() throws IOException {
+        int start = 0;
+        for (int i = 0; i < lines; i++) {
+            sink.line(event, start, lineEnds[i] - start);
+            start = lineEnds[i];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void append() {
+        if (eventLength + lineLength > event.length) {
+            event = Arrays.copyOf(event, Math.max(event.length * 2, eventLength + lineLength));
+        }
+        if (lines == lineEnds.length) {
+            lineEnds = Arrays.copyOf(lineEnds, lines * 2);
+        }
+        System.arraycopy(line, 0, event, eventLength, lineLength);
+        eventLength += lineLength;
+        lineEnds[lines++] = eventLength;
+        hasLine = false;
+    }
+
+    /**
+     * Reads the next line and its timestamp, {@link Long#MIN_VALUE} when it has none.
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        while (true) {
+            if (position == limit) {
+                if (eof || (limit = in.read(buffer)) <= 0) {
+                    eof = true;
+                    limit = 0;
+                    position = 0;
+                    if (lineLength == 0) {
+                        hasLine = false;
+                        return false;
+                    }
+                    break;
+                }
+                position = 0;
+            }
+            int newLine = position;
+            while (newLine < limit && buffer[newLine] != '\n') {
+                newLine++;
+            }
+            appendLine(position, newLine - position);
+            position = newLine < limit ? newLine + 1 : newLine;
+            if (newLine < limit) {
+                break;
+            }
+        }
+        hasLine = true;
+        final long parsed = parser.parse(line, 0, lineLength, record) ? record.epochMillis() : -1;
+        lineTimestamp = parsed < 0 ? Long.MIN_VALUE : parsed;
+        return true;
+    }
+
+    private void appendLine(int from, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(buffer, from, line, lineLength, length);
+        lineLength += length;
+    }
+}
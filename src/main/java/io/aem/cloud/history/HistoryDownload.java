@@ -0,0 +1,147 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.api.ApiBuilder;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.OutputSettings;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.store.LogStore;
+import io.aem.cloud.store.StoreCoverage;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the logs of past days for one or more targets and prints them as one time-ordered output. Every
+ * archive (one per target and day) is fetched and inflated on a bounded pool, so a week of logs takes about as
+ * long as the largest day. The per-archive files are then merged by timestamp, keeping the lines of an event
+ * together.
+ * <p>
+ * With a local store, the time a day's store covers is read from it, and the archive is only downloaded for the
+ * rest. Both parts of the day are merged like the logs of two targets.
+ */
+@RequiredArgsConstructor
+public class HistoryDownload {
+
+    private final ApiBuilder apiBuilder;
+    private final File tempDir;
+    private final List<Target> targets;
+    private final TimeRange range;
+    private final int parallelism;
+    private final LineSink output;
+    private final OutputSettings outputSettings;
+
+    public void run() throws IOException, InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                DaemonThreads.numbered("history-download"));
+        final LogStore store = outputSettings.getStore();
+        final List<Part> parts = new ArrayList<>();
+        try {
+            for (int t = 0; t < targets.size(); t++) {
+                final Target target = targets.get(t);
+                for (LocalDate day : range.days()) {
+                    final StoreCoverage stored = store == null ? StoreCoverage.NONE : store.coverage(target, day);
+                    final long dayStart = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                    final long from = Math.max(range.getFromMillis(), dayStart);
+                    final long to = Math.min(range.getToMillis(), dayStart + 86_400_000L - 1);
+                    if (stored.overlaps(from, to)) {
+                        parts.add(new Part(t, day, executor.submit(new StoredDay(store, target, day, range,
+                                outputSettings.getFilterRules(),
+                                new File(tempDir, "history-" + t + "-" + day + "-stored.log")))));
+                    }
+                    if (stored.lastMissing(from, to) >= 0) {
+                        parts.add(new Part(t, day, executor.submit(new DayDownload(apiBuilder.logApi(tempDir,
+                                target), target, day, range, stored, outputSettings.getFilterRules(), store,
+                                new File(tempDir, "history-" + t + "-" + day + ".log")))));
+                    }
+                }
+            }
+            merge(parts);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void merge(List<Part> parts) throws IOException, InterruptedException {
+        // The lines were filtered and stored while downloading, what's left is formatting. The days are complete, so
+        // the last event ends with them.
+        final OutputSettings formatting = outputSettings.toBuilder().filterRules(null).store(null)
+                .eventIdleMillis(0).build();
+        final PriorityQueue<EventCursor> cursors = new PriorityQueue<>(Comparator
+                .comparingLong(EventCursor::getTimestamp)
+                .thenComparingInt(EventCursor::getOrder));
+        final List<LineSink> sinks = new ArrayList<>();
+        for (Target target : targets) {
+            sinks.add(formatting.sinkFor(output, target.getLogName(), targets.size() > 1 ? target.label() : null));
+        }
+        for (int i = 0; i < parts.size(); i++) {
+            final Part part = parts.get(i);
+            final Target target = targets.get(part.target);
+            final File file = download(part.file, target, part.day);
+            if (file == null) {
+                continue;
+            }
+            final EventCursor cursor = new EventCursor(file, LogFormat.ofLogName(target.getLogName()),
+                    sinks.get(part.target), i);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            } else {
+                close(cursor);
+            }
+        }
+        while (!cursors.isEmpty()) {
+            final EventCursor cursor = cursors.poll();
+            cursor.emit();
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            } else {
+                close(cursor);
+            }
+        }
+        for (LineSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    /**
+     * @return the downloaded file, or null if the day couldn't be downloaded.
+     */
+    private File download(Future<File> download, Target target, LocalDate day) throws InterruptedException {
+        try {
+            return download.get();
+        } catch (ExecutionException e) {
+            System.err.println("Skipping the logs of " + target.label() + " on " + day + "." +
+                    "\n\tMessage: " + e.getCause());
+            return null;
+        }
+    }
+
+    private void close(EventCursor cursor) throws IOException {
+        cursor.close();
+        FileUtils.deleteQuietly(cursor.getFile());
+    }
+
+    /**
+     * The file of one day of one target, or of the part of the day that's stored.
+     */
+    @RequiredArgsConstructor
+    private static class Part {
+        private final int target;
+        private final LocalDate day;
+        private final Future<File> file;
+    }
+}
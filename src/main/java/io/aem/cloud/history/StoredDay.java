@@ -0,0 +1,37 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.ConsoleSink;
+import io.aem.cloud.store.LogStore;
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+
+/**
+ * Reads one day of one target from the local store, into the same kind of file a {@link DayDownload} leaves.
+ */
+@RequiredArgsConstructor
+class StoredDay implements Callable<File> {
+
+    private final LogStore store;
+    private final Target target;
+    private final LocalDate day;
+    private final TimeRange range;
+    private final FilterRules filterRules;
+    private final File file;
+
+    @Override
+    public File call() throws Exception {
+        @Cleanup FileOutputStream out = new FileOutputStream(file);
+        store.read(target, day, range, filterRules, DayDownload.filtered(target, day, range, filterRules,
+                new ConsoleSink(out, StandardCharsets.UTF_8)));
+        return file;
+    }
+}
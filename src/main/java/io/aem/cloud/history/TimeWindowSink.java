@@ -0,0 +1,68 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+import io.aem.cloud.store.StoreCoverage;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Passes on only the lines logged within the range, leaving out the ones of the time that's skipped. Lines without
+ * a timestamp, like stack traces, follow the line they belong to.
+ */
+public class TimeWindowSink implements LineSink {
+
+    private final TimeRange range;
+    private final StoreCoverage skipped;
+    private final LineSink delegate;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private boolean inRange;
+    /**
+     * Timestamp of the last line that had one, -1 before.
+     */
+    @Getter
+    private long lastTimestamp = -1;
+
+    public TimeWindowSink(TimeRange range, LogFormat expected, LineSink delegate) {
+        this(range, StoreCoverage.NONE, expected, delegate);
+    }
+
+    /**
+     * @param skipped time whose lines are left out, because they're taken from somewhere else.
+     */
+    public TimeWindowSink(TimeRange range, StoreCoverage skipped, LogFormat expected, LineSink delegate) {
+        this.range = range;
+        this.skipped = skipped;
+        this.delegate = delegate;
+        this.parser = new LogParser(expected);
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        if (parser.parse(buf, off, len, record)) {
+            final long timestamp = record.epochMillis();
+            if (timestamp >= 0) {
+                lastTimestamp = timestamp;
+            }
+            inRange = timestamp < 0 || range.contains(timestamp) && !skipped.contains(timestamp);
+        }
+        if (inRange) {
+            delegate.line(buf, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
@@ -0,0 +1,39 @@
+package io.aem.cloud.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total that only grows, like bytes or lines. Updated from any thread without contention.
+ */
+public class Counter extends Metric {
+
+    private final LongAdder total = new LongAdder();
+
+    public Counter(String name, String help) {
+        super(name, help);
+    }
+
+    public void add(long amount) {
+        total.add(amount);
+    }
+
+    public long get() {
+        return total.sum();
+    }
+
+    @Override
+    public String getType() {
+        return "counter";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder out) {
+        sample(out, getName(), "", get());
+    }
+
+    @Override
+    public Map<String, Double> values() {
+        return Map.of(getName(), (double) get());
+    }
+}
@@ -0,0 +1,36 @@
+package io.aem.cloud.metrics;
+
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Value read when it's exported, NaN while unknown.
+ */
+public class Gauge extends Metric {
+
+    private final DoubleSupplier value;
+
+    public Gauge(String name, String help, DoubleSupplier value) {
+        super(name, help);
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public String getType() {
+        return "gauge";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder out) {
+        sample(out, getName(), "", get());
+    }
+
+    @Override
+    public Map<String, Double> values() {
+        return Map.of(getName(), get());
+    }
+}
@@ -0,0 +1,52 @@
+package io.aem.cloud.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes of a response body and the time spent waiting for them, recorded once the body is closed.
+ */
+public class MeteredInputStream extends FilterInputStream {
+
+    private long waitedNanos;
+    private long bytes;
+    private boolean closed;
+
+    public MeteredInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final long start = System.nanoTime();
+        final int read = super.read();
+        waited(start, read < 0 ? 0 : 1);
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final long start = System.nanoTime();
+        final int read = super.read(b, off, len);
+        waited(start, Math.max(0, read));
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (bytes > 0) {
+                Metrics.ARCHIVE_BODY.record(waitedNanos);
+            }
+        }
+        super.close();
+    }
+
+    private void waited(long start, int read) {
+        waitedNanos += System.nanoTime() - start;
+        bytes += read;
+        Metrics.DOWNLOADED_BYTES.add(read);
+    }
+}
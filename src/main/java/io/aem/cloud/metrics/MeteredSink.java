@@ -0,0 +1,60 @@
+package io.aem.cloud.metrics;
+
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+
+import java.io.IOException;
+
+/**
+ * Counts the lines a tail reads and notes the timestamp of the newest one for the lag. Only the last line that
+ * may carry a timestamp is kept, and parsed once per flush.
+ */
+public class MeteredSink implements LineSink {
+
+    private final LineSink delegate;
+    private final LogParser parser = new LogParser(null);
+    private final LogRecord record = new LogRecord();
+    private byte[] last = new byte[256];
+    private int lastLength = -1;
+    private long lines;
+
+    public MeteredSink(LineSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        lines++;
+        // All three log formats start with a digit, stack traces and wrapped messages rarely do.
+        if (len > 0 && buf[off] >= '0' && buf[off] <= '9') {
+            if (last.length < len) {
+                last = new byte[Math.max(len, last.length * 2)];
+            }
+            System.arraycopy(buf, off, last, 0, len);
+            lastLength = len;
+        }
+        delegate.line(buf, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (lines > 0) {
+            Metrics.LINES.add(lines);
+            lines = 0;
+        }
+        if (lastLength >= 0 && parser.parse(last, 0, lastLength, record)) {
+            final long timestamp = record.epochMillis();
+            if (timestamp > 0) {
+                Metrics.lineAt(timestamp);
+            }
+        }
+        lastLength = -1;
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
@@ -0,0 +1,42 @@
+package io.aem.cloud.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * A named measurement of the tail, exported in the Prometheus text format and as JMX attributes.
+ */
+@Getter
+@RequiredArgsConstructor
+public abstract class Metric {
+
+    private final String name;
+    private final String help;
+
+    /**
+     * @return Prometheus type: counter, gauge or histogram.
+     */
+    public abstract String getType();
+
+    /**
+     * Appends the samples, without the HELP and TYPE lines.
+     */
+    public abstract void writeSamples(StringBuilder out);
+
+    /**
+     * @return current values by attribute name.
+     */
+    public abstract Map<String, Double> values();
+
+    static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
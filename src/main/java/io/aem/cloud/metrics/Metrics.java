@@ -0,0 +1,84 @@
+package io.aem.cloud.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The measurements of the tail, shared by every part of the pipeline and all tailed logs: how long each HTTP
+ * phase of a poll takes, how many bytes are downloaded and how many of them are new, how fast the archive is
+ * inflated, how many lines are read and how far behind the newest one is.
+ */
+public final class Metrics {
+
+    private static final List<Metric> ALL = new ArrayList<>();
+    private static final AtomicLong newestLine = new AtomicLong(-1);
+    private static volatile long pendingBytes;
+
+    public static final Timer POLL = register(new Timer("aem_tail_poll_seconds",
+            "Duration of a whole poll, from the request for the archive to the inflated bytes on disk."));
+    public static final Timer REDIRECT = register(new Timer("aem_tail_redirect_seconds",
+            "Duration of the Cloud Manager request for the signed archive URL."));
+    public static final Timer ARCHIVE_RESPONSE = register(new Timer("aem_tail_archive_response_seconds",
+            "Time from the request to the signed URL until its response headers."));
+    public static final Timer ARCHIVE_BODY = register(new Timer("aem_tail_archive_body_seconds",
+            "Time spent waiting for the bytes of an archive response body."));
+    public static final Timer INFLATE = register(new Timer("aem_tail_inflate_seconds",
+            "Time spent inflating the downloaded bytes and writing them to the local log."));
+    public static final Timer RESYNC = register(new Timer("aem_tail_resync_seconds",
+            "Time spent looking for a restart point in the tail of an archive, for --fast-start or a resume."));
+    public static final Counter DOWNLOADED_BYTES = register(new Counter("aem_tail_downloaded_bytes_total",
+            "Compressed bytes received from the archive URLs."));
+    public static final Counter NEW_BYTES = register(new Counter("aem_tail_new_bytes_total",
+            "Compressed bytes received that weren't known yet."));
+    public static final Counter INFLATED_BYTES = register(new Counter("aem_tail_inflated_bytes_total",
+            "Decompressed bytes written to the local log."));
+    public static final Counter LINES = register(new Counter("aem_tail_lines_total",
+            "Lines read by the tail, before filtering."));
+    public static final Gauge PENDING_BYTES = register(new Gauge("aem_tail_pending_bytes",
+            "Decompressed bytes waiting to be read by the tail when it last woke up.", () -> pendingBytes));
+    public static final Gauge LAG = register(new Gauge("aem_tail_lag_seconds",
+            "Wall clock minus the timestamp of the newest line read.", Metrics::lagSeconds));
+
+    private Metrics() {
+    }
+
+    public static List<Metric> all() {
+        return Collections.unmodifiableList(ALL);
+    }
+
+    public static void setPendingBytes(long bytes) {
+        pendingBytes = bytes;
+    }
+
+    /**
+     * Notes the timestamp of a line read, the lag is measured from the newest one of any log.
+     */
+    public static void lineAt(long epochMillis) {
+        newestLine.accumulateAndGet(epochMillis, Math::max);
+    }
+
+    /**
+     * @return all metrics in the Prometheus text format.
+     */
+    public static String prometheus() {
+        final StringBuilder out = new StringBuilder();
+        for (Metric metric : ALL) {
+            out.append("# HELP ").append(metric.getName()).append(' ').append(metric.getHelp()).append('\n');
+            out.append("# TYPE ").append(metric.getName()).append(' ').append(metric.getType()).append('\n');
+            metric.writeSamples(out);
+        }
+        return out.toString();
+    }
+
+    private static double lagSeconds() {
+        final long newest = newestLine.get();
+        return newest < 0 ? Double.NaN : (System.currentTimeMillis() - newest) / 1000.0;
+    }
+
+    private static <T extends Metric> T register(T metric) {
+        ALL.add(metric);
+        return metric;
+    }
+}
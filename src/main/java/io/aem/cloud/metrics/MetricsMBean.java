@@ -0,0 +1,90 @@
+package io.aem.cloud.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows every value of {@link Metrics} as a read-only attribute of {@code io.aem.cloud:type=Metrics}, for
+ * JConsole, VisualVM or any other JMX client.
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    private static final String OBJECT_NAME = "io.aem.cloud:type=Metrics";
+
+    /**
+     * Registers the bean with the platform MBean server, once.
+     */
+    public static void register() {
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("\nERROR while registering the metrics with JMX." +
+                    "\n\tMessage: " + e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        for (Metric metric : Metrics.all()) {
+            final Double value = metric.values().get(attribute);
+            if (value != null) {
+                return value;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        final AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // Unknown attributes are left out.
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Metric metric : Metrics.all()) {
+            for (Map.Entry<String, Double> value : metric.values().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(value.getKey(), Double.class.getName(), metric.getHelp(),
+                        true, false, false));
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "Metrics of the AEM log tail",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
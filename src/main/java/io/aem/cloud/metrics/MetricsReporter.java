@@ -0,0 +1,68 @@
+package io.aem.cloud.metrics;
+
+import io.aem.cloud.DaemonThreads;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints a summary of {@link Metrics} on stderr at a fixed interval: latency per poll phase, download and inflate
+ * throughput, lines per second and lag, rates taken over the last interval.
+ */
+@RequiredArgsConstructor
+public class MetricsReporter implements Runnable {
+
+    private final long intervalMillis;
+    private long lastNanos = System.nanoTime();
+    private long lastDownloaded;
+    private long lastNew;
+    private long lastLines;
+
+    public ScheduledExecutorService start() {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                DaemonThreads.named("metrics-reporter"));
+        executor.scheduleAtFixedRate(this, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    @Override
+    public void run() {
+        final long now = System.nanoTime();
+        final double seconds = Math.max(1e-3, (now - lastNanos) / 1e9);
+        final long downloaded = Metrics.DOWNLOADED_BYTES.get();
+        final long fresh = Metrics.NEW_BYTES.get();
+        final long lines = Metrics.LINES.get();
+        final double inflateSeconds = Metrics.INFLATE.sumSeconds();
+        System.err.println(String.format(Locale.ROOT,
+                "[metrics] polls %d | p50/p99 s: poll %s, redirect %s, response %s, body %s, inflate %s%n" +
+                        "[metrics] downloaded %s/s (new %s/s) | inflate %s | %.0f lines/s | pending %s | lag %s",
+                Metrics.POLL.count(), percentiles(Metrics.POLL), percentiles(Metrics.REDIRECT),
+                percentiles(Metrics.ARCHIVE_RESPONSE), percentiles(Metrics.ARCHIVE_BODY),
+                percentiles(Metrics.INFLATE),
+                bytes((downloaded - lastDownloaded) / seconds), bytes((fresh - lastNew) / seconds),
+                inflateSeconds > 0 ? bytes(Metrics.INFLATED_BYTES.get() / inflateSeconds) + "/s" : "-",
+                (lines - lastLines) / seconds, bytes(Metrics.PENDING_BYTES.get()),
+                Double.isNaN(Metrics.LAG.get()) ? "-" : String.format(Locale.ROOT, "%.1fs", Metrics.LAG.get())));
+        lastNanos = now;
+        lastDownloaded = downloaded;
+        lastNew = fresh;
+        lastLines = lines;
+    }
+
+    private static String percentiles(Timer timer) {
+        return timer.count() == 0 ? "-" : timer.percentile(50) + "/" + timer.percentile(99);
+    }
+
+    private static String bytes(double bytes) {
+        if (bytes >= 1 << 20) {
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1 << 20));
+        }
+        if (bytes >= 1 << 10) {
+            return String.format(Locale.ROOT, "%.1f KB", bytes / (1 << 10));
+        }
+        return String.format(Locale.ROOT, "%.0f B", bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package io.aem.cloud.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves {@link Metrics} in the Prometheus text format on {@code http://127.0.0.1:<port>/metrics}.
+ */
+public class MetricsServer {
+
+    private MetricsServer() {
+    }
+
+    public static HttpServer start(int port) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                0);
+        server.createContext("/metrics", exchange -> {
+            final byte[] body = Metrics.prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        // The JDK's default executor runs the handler on the server's own thread, which is all a scrape needs.
+        server.start();
+        return server;
+    }
+}
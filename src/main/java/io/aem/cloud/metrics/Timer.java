@@ -0,0 +1,96 @@
+package io.aem.cloud.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in seconds with fixed buckets from 5 ms to a minute, enough to tell a slow phase from
+ * a fast one. Recording is lock free, percentiles are the upper bound of the bucket they fall in.
+ */
+public class Timer extends Metric {
+
+    private static final double[] BOUNDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    public Timer(String name, String help) {
+        super(name, help);
+    }
+
+    public void record(long nanos) {
+        final double seconds = nanos / 1e9;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && seconds > BOUNDS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time passed since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * @return upper bound in seconds of the bucket holding the percentile, NaN when nothing was recorded.
+     */
+    public double percentile(double percentile) {
+        final long total = count();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return BOUNDS[i];
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String getType() {
+        return "histogram";
+    }
+
+    @Override
+    public void writeSamples(StringBuilder out) {
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            cumulative += buckets.get(i);
+            sample(out, getName() + "_bucket", "{le=\"" + BOUNDS[i] + "\"}", cumulative);
+        }
+        cumulative += buckets.get(BOUNDS.length);
+        sample(out, getName() + "_bucket", "{le=\"+Inf\"}", cumulative);
+        sample(out, getName() + "_sum", "", sumSeconds());
+        sample(out, getName() + "_count", "", cumulative);
+    }
+
+    @Override
+    public Map<String, Double> values() {
+        final Map<String, Double> values = new LinkedHashMap<>();
+        values.put(getName() + "_count", (double) count());
+        values.put(getName() + "_sum", sumSeconds());
+        values.put(getName() + "_p50", percentile(50));
+        values.put(getName() + "_p99", percentile(99));
+        return values;
+    }
+}
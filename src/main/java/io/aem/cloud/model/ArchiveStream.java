@@ -0,0 +1,29 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+@Builder
+@Getter
+@ToString
+public class ArchiveStream implements Closeable {
+    /**
+     * Day of the archive the bytes come from, {@code yyyy-MM-dd}.
+     */
+    private String archiveDate;
+    private long offset;
+    private boolean rotated;
+    private InputStream body;
+
+    @Override
+    public void close() throws IOException {
+        if (body != null) {
+            body.close();
+        }
+    }
+}
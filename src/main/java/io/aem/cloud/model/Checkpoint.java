@@ -0,0 +1,42 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * How far a tail got in the remote archive of a day, enough to continue after a restart without printing a line
+ * twice or skipping one.
+ * <p>
+ * Output positions count decompressed bytes in the inflater's own terms, only their differences matter.
+ */
+@Builder
+@Getter
+@ToString(exclude = "anchor")
+public class Checkpoint {
+    /**
+     * Day of the archive, {@code yyyy-MM-dd}.
+     */
+    private String archiveDate;
+    /**
+     * Remote offset of the gzip member holding the next line to print, -1 if unknown.
+     */
+    private long memberOffset;
+    /**
+     * Output position where that member's data starts.
+     */
+    private long memberOutput;
+    /**
+     * Remote offset up to which the archive was inflated.
+     */
+    private long inputOffset;
+    /**
+     * Output position right after the last printed line.
+     */
+    private long emittedOutput;
+    /**
+     * The last printed bytes, to find the place again when the archive has to be joined at another restart
+     * point.
+     */
+    private byte[] anchor;
+}
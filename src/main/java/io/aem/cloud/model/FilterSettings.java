@@ -0,0 +1,32 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * What to keep of the tailed log. Patterns written as {@code /regex/} are regular expressions, anything else is
+ * matched literally.
+ */
+@Builder
+@Getter
+@ToString
+public class FilterSettings {
+    private String minLevel;
+    @Singular
+    private List<String> includes;
+    @Singular
+    private List<String> excludes;
+    @Singular
+    private List<String> loggers;
+    @Singular
+    private List<String> excludedLoggers;
+
+    public boolean isEmpty() {
+        return minLevel == null && includes.isEmpty() && excludes.isEmpty() && loggers.isEmpty()
+                && excludedLoggers.isEmpty();
+    }
+}
@@ -0,0 +1,22 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.File;
+
+@Builder
+@Getter
+@ToString
+public class LogArchive {
+    /**
+     * Day of the archive the bytes come from, {@code yyyy-MM-dd}.
+     */
+    private String archiveDate;
+    private File file;
+    private long offset;
+    private long length;
+    private long newBytes;
+    private boolean rotated;
+}
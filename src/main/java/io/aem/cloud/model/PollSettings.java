@@ -0,0 +1,21 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Bounds of the adaptive polling: the delay drops to {@code minDelayMillis} as soon as a poll finds new bytes
+ * and grows by {@code backoff} after every idle poll, up to {@code maxDelayMillis}.
+ */
+@Builder
+@Getter
+@ToString
+public class PollSettings {
+    @Builder.Default
+    private long minDelayMillis = 2_000;
+    @Builder.Default
+    private long maxDelayMillis = 60_000;
+    @Builder.Default
+    private double backoff = 2;
+}
@@ -0,0 +1,39 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * One log to tail, written as {@code <programId>:<envId>:<service>:<log>} on the command line and in targets files.
+ */
+@Builder
+@Getter
+@ToString
+public class Target {
+    private String programId;
+    private String envId;
+    private String service;
+    private String logName;
+
+    public static Target parse(String value) {
+        final String[] parts = value.trim().split(":");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid target \"" + value + "\", expected " +
+                    "<programId>:<envId>:<service>:<log>.");
+        }
+        return Target.builder()
+                .programId(parts[0])
+                .envId(parts[1])
+                .service(parts[2])
+                .logName(parts[3])
+                .build();
+    }
+
+    /**
+     * @return prefix of the target's lines in the merged output.
+     */
+    public String label() {
+        return programId + "/" + envId + "/" + service + "/" + logName;
+    }
+}
@@ -0,0 +1,81 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Period of past logs to download, both ends included, in UTC like the logs of AEM as a Cloud Service.
+ */
+@Builder
+@Getter
+@ToString
+public class TimeRange {
+    private long fromMillis;
+    private long toMillis;
+
+    /**
+     * @param from {@code yyyy-MM-dd} or {@code yyyy-MM-ddTHH:mm[:ss]}, a day starts at midnight.
+     * @param to   same formats, a day ends at its last millisecond. Null for now.
+     */
+    public static TimeRange parse(String from, String to) {
+        final long fromMillis = parseTime(from, false);
+        final long toMillis = to == null ? System.currentTimeMillis() : parseTime(to, true);
+        if (toMillis < fromMillis) {
+            throw new IllegalArgumentException("The end of the range \"" + to + "\" is before its start \""
+                    + from + "\".");
+        }
+        return TimeRange.builder()
+                .fromMillis(fromMillis)
+                .toMillis(toMillis)
+                .build();
+    }
+
+    public boolean contains(long epochMillis) {
+        return epochMillis >= fromMillis && epochMillis <= toMillis;
+    }
+
+    public boolean coversDay(LocalDate day) {
+        final long start = day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return fromMillis <= start && toMillis >= start + 86_400_000L - 1;
+    }
+
+    /**
+     * @return the days whose archives hold the range, oldest first.
+     */
+    public List<LocalDate> days() {
+        final List<LocalDate> days = new ArrayList<>();
+        final LocalDate last = day(toMillis);
+        for (LocalDate day = day(fromMillis); !day.isAfter(last); day = day.plusDays(1)) {
+            days.add(day);
+        }
+        return days;
+    }
+
+    private static LocalDate day(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private static long parseTime(String value, boolean endOfDay) {
+        try {
+            if (value.length() == "yyyy-MM-dd".length()) {
+                final LocalDate date = LocalDate.parse(value);
+                return endOfDay
+                        ? date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() - 1
+                        : date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+            return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time \"" + value + "\", expected yyyy-MM-dd or " +
+                    "yyyy-MM-ddTHH:mm[:ss].");
+        }
+    }
+}
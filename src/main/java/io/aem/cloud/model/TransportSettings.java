@@ -0,0 +1,31 @@
+package io.aem.cloud.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Timeouts and retries of the HTTP calls. A failed call is retried up to {@code retries} times after a random
+ * delay of up to {@code retryBaseMillis} doubled per attempt, capped at {@code retryMaxMillis}. After
+ * {@code breakerThreshold} failures in a row a host is given {@code breakerOpenMillis} of rest before it's tried
+ * again.
+ */
+@Builder
+@Getter
+@ToString
+public class TransportSettings {
+    @Builder.Default
+    private long connectTimeoutMillis = 10_000;
+    @Builder.Default
+    private long readTimeoutMillis = 30_000;
+    @Builder.Default
+    private int retries = 4;
+    @Builder.Default
+    private long retryBaseMillis = 500;
+    @Builder.Default
+    private long retryMaxMillis = 30_000;
+    @Builder.Default
+    private int breakerThreshold = 5;
+    @Builder.Default
+    private long breakerOpenMillis = 30_000;
+}
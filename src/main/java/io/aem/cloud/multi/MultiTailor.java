@@ -0,0 +1,49 @@
+package io.aem.cloud.multi;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.api.ApiBuilder;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.OutputSettings;
+import io.aem.cloud.output.SynchronizedSink;
+import io.aem.cloud.processor.PollScheduler;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Tails several targets from one JVM: one token and one HTTP client for all of them, polls scheduled on a small
+ * shared pool with an adaptive delay per target, and a single merged output where every line is prefixed with its
+ * target (or carries it as a field in JSON).
+ */
+@RequiredArgsConstructor
+public class MultiTailor {
+
+    private static final int MAX_POLLER_THREADS = 4;
+
+    private final ApiBuilder apiBuilder;
+    private final File tempDir;
+    private final List<Target> targets;
+    private final int initialLines;
+    private final LineSink sink;
+    private final PollSettings pollSettings;
+    private final OutputSettings outputSettings;
+
+    public ScheduledExecutorService start() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                Math.min(targets.size(), MAX_POLLER_THREADS), DaemonThreads.numbered("log-poller"));
+        final LineSink merged = new SynchronizedSink(sink);
+        for (Target target : targets) {
+            final LineSink targetSink = outputSettings.tailed(target,
+                    outputSettings.sinkFor(merged, target.getLogName(), target.label()));
+            final TargetPoller poller = new TargetPoller(target, apiBuilder.logApi(tempDir, target), initialLines,
+                    targetSink, executor, new PollScheduler(pollSettings));
+            executor.execute(poller);
+        }
+        return executor;
+    }
+}
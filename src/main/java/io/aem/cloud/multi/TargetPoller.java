@@ -0,0 +1,125 @@
+package io.aem.cloud.multi;
+
+import io.aem.cloud.api.LogApi;
+import io.aem.cloud.api.TransportException;
+import io.aem.cloud.metrics.Metrics;
+import io.aem.cloud.model.ArchiveStream;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.output.LastLinesSink;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.LineSplittingOutputStream;
+import io.aem.cloud.processor.IncrementalGzipInflater;
+import io.aem.cloud.processor.PollScheduler;
+import lombok.Cleanup;
+
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+
+/**
+ * Polls the archive of one target once per run and writes the new lines to the target's sink. Everything is
+ * inflated in memory, so a target costs a few buffers instead of two threads and two files. After each poll the
+ * poller schedules itself again, sooner when the log is busy. A failing poll only delays or stops its own target.
+ */
+public class TargetPoller implements Runnable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Target target;
+    private final LogApi logApi;
+    private final LineSink sink;
+    private final LastLinesSink initialLines;
+    private final LineSplittingOutputStream lines;
+    private final ScheduledExecutorService executor;
+    private final PollScheduler scheduler;
+    private final IncrementalGzipInflater inflater = new IncrementalGzipInflater();
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long knownLength;
+    private boolean started;
+
+    public TargetPoller(Target target, LogApi logApi, int initialLines, LineSink sink,
+                        ScheduledExecutorService executor, PollScheduler scheduler) {
+        this.target = target;
+        this.logApi = logApi;
+        this.sink = sink;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.initialLines = new LastLinesSink(initialLines);
+        this.lines = new LineSplittingOutputStream(this.initialLines);
+    }
+
+    @Override
+    public void run() {
+        boolean changed;
+        try {
+            changed = poll();
+        } catch (TransportException e) {
+            // The outage was reported, the next poll continues after the bytes inflated so far.
+            changed = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ZipException e) {
+            // The inflater can't go on from where the data broke, only this target stops.
+            System.err.println("\nERROR while inflating the logs of " + target.label() + ", no longer tailing it." +
+                    "\n\tMessage: " + e);
+            return;
+        } catch (Exception e) {
+            // Only this target backs off, the others keep being polled. Nothing was inflated past what the
+            // failed poll read, so the next one continues from there.
+            final long delayMillis = scheduler.nextDelay(false);
+            System.err.println("\nERROR while getting the logs of " + target.label() + " from AEMaaCS, retrying in " +
+                    TimeUnit.MILLISECONDS.toSeconds(delayMillis) + " s.\n\tMessage: " + e);
+            schedule(delayMillis);
+            return;
+        }
+        schedule(scheduler.nextDelay(changed));
+    }
+
+    private void schedule(long delayMillis) {
+        try {
+            if (!executor.isShutdown()) {
+                executor.schedule(this, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down.
+        }
+    }
+
+    /**
+     * @return whether new bytes were found.
+     */
+    private boolean poll() throws Exception {
+        final long start = System.nanoTime();
+        @Cleanup ArchiveStream archive = logApi.openArchive(knownLength);
+        if (archive.isRotated()) {
+            lines.endLine();
+            inflater.reset();
+            knownLength = 0;
+        }
+        final long previousLength = knownLength;
+        final InputStream body = archive.getBody();
+        // When the range was ignored the body repeats what was already inflated.
+        long skip = knownLength - archive.getOffset();
+        int read;
+        while ((read = body.read(buffer)) > 0) {
+            int from = (int) Math.min(read, skip);
+            skip -= from;
+            if (from < read) {
+                inflater.inflate(buffer, from, read - from, lines);
+                knownLength += read - from;
+            }
+        }
+        if (!started) {
+            started = true;
+            initialLines.replay(sink);
+            lines.setSink(sink);
+        }
+        sink.flush();
+        Metrics.NEW_BYTES.add(knownLength - previousLength);
+        Metrics.POLL.recordSince(start);
+        return archive.isRotated() || knownLength > previousLength;
+    }
+}
@@ -0,0 +1,231 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.DaemonThreads;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the writing of lines to a thread of its own, so a slow destination doesn't hold up the tail. Lines are
+ * collected into batches of up to 64 KB, handed over through a bounded queue on flush or once a batch is full,
+ * and the writer flushes the destination only after draining the queue, so bursts are written in large blocks.
+ * <p>
+ * When the queue is full, {@link Overflow#BLOCK} waits for the writer, like a synchronous sink but with the
+ * queue to absorb bursts, while {@link Overflow#DROP} discards the batch, counts its lines and reports them on
+ * stderr, so the tail keeps its pace whatever the destination does.
+ * <p>
+ * {@link #whenWritten} actions run on the writer thread once it flushed every batch handed over before them, so a
+ * tail only counts lines as shown once they were. Dropped batches don't hold them up.
+ * <p>
+ * Several tails may write to the same instance.
+ */
+public class AsyncSink implements LineSink, Closeable {
+
+    public enum Overflow {
+        BLOCK, DROP
+    }
+
+    private static final int BATCH_SIZE = 64 * 1024;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final Batch END = new Batch(null, 0, 0, Long.MAX_VALUE);
+
+    private final String name;
+    private final LineSink delegate;
+    private final Overflow overflow;
+    private final BlockingQueue<Batch> queue;
+    private final Thread writer;
+    private byte[] buffer = new byte[BATCH_SIZE];
+    private int length;
+    private int lines;
+    private long dropped;
+    private long handedOver;
+    /**
+     * Sequence number of the last batch the writer flushed.
+     */
+    private volatile long written;
+    private final Queue<Written> actions = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private AsyncSink(String name, LineSink delegate, int capacity, Overflow overflow) {
+        this.name = name;
+        this.delegate = delegate;
+        this.overflow = overflow;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = DaemonThreads.create("output-" + name, this::write);
+    }
+
+    /**
+     * @param name     destination, named in the writer thread and the messages.
+     * @param capacity number of batches the queue holds.
+     */
+    public static AsyncSink start(String name, LineSink delegate, int capacity, Overflow overflow) {
+        final AsyncSink sink = new AsyncSink(name, delegate, capacity, overflow);
+        sink.writer.start();
+        return sink;
+    }
+
+    @Override
+    public synchronized void line(byte[] buf, int off, int len) throws IOException {
+        if (length + len + 1 > buffer.length) {
+            if (length > 0) {
+                handOver();
+            }
+            if (len + 1 > buffer.length) {
+                buffer = new byte[len + 1];
+            }
+        }
+        System.arraycopy(buf, off, buffer, length, len);
+        length += len;
+        buffer[length++] = '\n';
+        lines++;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (length > 0) {
+            handOver();
+        }
+    }
+
+    @Override
+    public synchronized void whenWritten(Runnable action) throws IOException {
+        if (length > 0) {
+            handOver();
+        }
+        actions.add(new Written(handedOver, action));
+        runWritten();
+    }
+
+    /**
+     * Hands over what's left and waits a few seconds for the writer to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            flush();
+            reportDropped();
+            closed = true;
+        }
+        try {
+            if (queue.offer(END, CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                writer.join(CLOSE_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handOver() throws IOException {
+        final Batch batch = new Batch(Arrays.copyOf(buffer, length), length, lines, handedOver + 1);
+        if (buffer.length > BATCH_SIZE) {
+            buffer = new byte[BATCH_SIZE];
+        }
+        length = 0;
+        lines = 0;
+        if (closed) {
+            return;
+        }
+        if (overflow == Overflow.BLOCK) {
+            try {
+                queue.put(batch);
+                handedOver++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the " + name + " output.", e);
+            }
+        } else if (!queue.offer(batch)) {
+            dropped += batch.lines;
+        } else {
+            handedOver++;
+            reportDropped();
+        }
+    }
+
+    /**
+     * Runs the actions of the batches written so far, in order, from whichever thread gets here first.
+     */
+    private void runWritten() {
+        synchronized (actions) {
+            Written next;
+            while ((next = actions.peek()) != null && next.batch <= written) {
+                actions.remove();
+                next.action.run();
+            }
+        }
+    }
+
+    private void reportDropped() {
+        if (dropped > 0) {
+            System.err.println("*** " + dropped + " lines dropped, the " + name + " output can't keep up.");
+            dropped = 0;
+        }
+    }
+
+    private void write() {
+        try {
+            long last = 0;
+            while (true) {
+                Batch batch = queue.take();
+                do {
+                    if (batch == END) {
+                        delegate.flush();
+                        written = END.sequence;
+                        runWritten();
+                        return;
+                    }
+                    int start = 0;
+                    for (int i = 0; i < batch.length; i++) {
+                        if (batch.data[i] == '\n') {
+                            delegate.line(batch.data, start, i - start);
+                            start = i + 1;
+                        }
+                    }
+                    last = batch.sequence;
+                    batch = queue.poll();
+                } while (batch != null);
+                delegate.flush();
+                written = last;
+                runWritten();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("\nERROR while writing the logs to the " + name + " output." +
+                    "\n\tMessage: " + e);
+            System.exit(1);
+        }
+    }
+
+    private static class Batch {
+        private final byte[] data;
+        private final int length;
+        private final int lines;
+        private final long sequence;
+
+        Batch(byte[] data, int length, int lines, long sequence) {
+            this.data = data;
+            this.length = length;
+            this.lines = lines;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Written {
+        private final long batch;
+        private final Runnable action;
+
+        Written(long batch, Runnable action) {
+            this.batch = batch;
+            this.action = action;
+        }
+    }
+}
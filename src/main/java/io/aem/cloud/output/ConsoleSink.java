@@ -0,0 +1,92 @@
+package io.aem.cloud.output;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes lines to stdout through one large buffer that's only flushed on request. A UTF-8 console gets the bytes
+ * as they are, any other console charset gets them transcoded with reused coders.
+ */
+public class ConsoleSink implements LineSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+    private CharBuffer chars;
+    private ByteBuffer bytes;
+
+    public ConsoleSink() {
+        this(new FileOutputStream(FileDescriptor.out), consoleCharset());
+    }
+
+    public ConsoleSink(OutputStream out, Charset charset) {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            this.decoder = null;
+            this.encoder = null;
+        } else {
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        if (decoder == null) {
+            out.write(buf, off, len);
+        } else {
+            transcode(buf, off, len);
+        }
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void transcode(byte[] buf, int off, int len) throws IOException {
+        if (chars == null || chars.capacity() < len) {
+            chars = CharBuffer.allocate(Math.max(len, 1024));
+        }
+        int maxBytes = (int) Math.ceil(len * (double) encoder.maxBytesPerChar());
+        if (bytes == null || bytes.capacity() < maxBytes) {
+            bytes = ByteBuffer.allocate(Math.max(maxBytes, 1024));
+        }
+        chars.clear();
+        bytes.clear();
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(buf, off, len), chars, true);
+        decoder.flush(chars);
+        chars.flip();
+        encoder.reset();
+        encoder.encode(chars, bytes, true);
+        encoder.flush(bytes);
+        out.write(bytes.array(), 0, bytes.position());
+    }
+
+    private static Charset consoleCharset() {
+        String encoding = System.getProperty("sun.stdout.encoding");
+        try {
+            return encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+}
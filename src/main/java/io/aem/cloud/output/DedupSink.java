@@ -0,0 +1,218 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.event.Event;
+import io.aem.cloud.event.StackTraceFingerprint;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembles lines into events and shows every distinct stack trace only once. Repeats of an exception already
+ * shown are counted instead, and a "seen N more times" line per exception is written every
+ * {@code summaryIntervalMillis}. Events without a stack trace pass through.
+ * <p>
+ * Fingerprints are kept in an LRU of {@code maxFingerprints} entries, so memory stays flat however long the tail
+ * runs; an exception evicted from it is simply shown in full again.
+ * <p>
+ * An event is complete once the next one starts. A poll may end in the middle of a stack trace, so the last event
+ * is kept over the flush at the end of a poll and only completed when no line was added to it for
+ * {@code idleMillis}, {@link #IDLE_MILLIS} by default. With 0 every flush completes it, for input that ends there.
+ * <p>
+ * A line that neither starts an event nor has one to join passes through as it is, like every line of a log in
+ * an unknown format. A full {@link Event} is completed early; the rest of it passes through, or is dropped with
+ * the event if that was a repeat.
+ * <p>
+ * The lines of a held event aren't written yet, so {@link #whenWritten} waits for the event to be completed and
+ * flushed before passing the action on.
+ */
+public class DedupSink implements LineSink, Closeable {
+
+    private static final int MAX_SUMMARY_NAME = 200;
+    static final long IDLE_MILLIS = 5_000;
+    private static final ScheduledExecutorService IDLE_CHECKS = Executors.newSingleThreadScheduledExecutor(
+            DaemonThreads.named("dedup-idle-check"));
+
+    private final LineSink delegate;
+    private final long summaryIntervalMillis;
+    private final long idleMillis;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private final Event event = new Event();
+    private final Map<Long, Seen> seen;
+    private final List<Seen> repeated = new ArrayList<>();
+    private long lastSummary = System.currentTimeMillis();
+    private long lastLine;
+    private boolean suppressed;
+    private final List<Runnable> waiting = new ArrayList<>();
+    private final List<Runnable> completed = new ArrayList<>();
+    private final ScheduledFuture<?> idleCheck;
+
+    public DedupSink(LineSink delegate, LogFormat expected, int maxFingerprints, long summaryIntervalMillis,
+                     long idleMillis) {
+        this.delegate = delegate;
+        this.summaryIntervalMillis = summaryIntervalMillis;
+        this.idleMillis = idleMillis;
+        this.parser = new LogParser(expected);
+        this.seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Seen> eldest) {
+                return size() > maxFingerprints;
+            }
+        };
+        idleCheck = idleMillis > 0
+                ? IDLE_CHECKS.scheduleWithFixedDelay(this::completeIdleEvent, 1, 1, TimeUnit.SECONDS)
+                : null;
+    }
+
+    @Override
+    public synchronized void line(byte[] buf, int off, int len) throws IOException {
+        if (parser.parse(buf, off, len, record)) {
+            completeEvent();
+        } else if (event.isEmpty()) {
+            if (!suppressed) {
+                delegate.line(buf, off, len);
+            }
+            return;
+        }
+        event.add(buf, off, len);
+        lastLine = System.currentTimeMillis();
+        if (event.isFull()) {
+            completeEvent();
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        final long now = System.currentTimeMillis();
+        if (now - lastLine >= idleMillis) {
+            completeEvent();
+        }
+        if (now - lastSummary >= summaryIntervalMillis) {
+            writeSummary(now - lastSummary);
+            lastSummary = now;
+        }
+        delegate.flush();
+        passOnWritten();
+    }
+
+    @Override
+    public synchronized void whenWritten(Runnable action) throws IOException {
+        if (!event.isEmpty()) {
+            waiting.add(action);
+        } else if (!completed.isEmpty()) {
+            completed.add(action);
+        } else {
+            delegate.whenWritten(action);
+        }
+    }
+
+    /**
+     * Stops the idle check and writes the last event.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (idleCheck != null) {
+            idleCheck.cancel(false);
+        }
+        completeEvent();
+        delegate.flush();
+        passOnWritten();
+    }
+
+    /**
+     * Completes the last event once nothing was added to it for a while, which the tail doesn't notice by itself
+     * when the log goes quiet.
+     */
+    private synchronized void completeIdleEvent() {
+        if (event.isEmpty() || System.currentTimeMillis() - lastLine < idleMillis) {
+            return;
+        }
+        try {
+            completeEvent();
+            delegate.flush();
+            passOnWritten();
+        } catch (IOException e) {
+            System.err.println("\nERROR while writing the log lines." +
+                    "\n\tMessage: " + e);
+            System.exit(1);
+        }
+    }
+
+    private void completeEvent() throws IOException {
+        if (event.isEmpty()) {
+            return;
+        }
+        final long fingerprint = StackTraceFingerprint.of(event);
+        suppressed = false;
+        if (fingerprint == StackTraceFingerprint.NONE) {
+            event.writeTo(delegate);
+        } else {
+            Seen entry = seen.get(fingerprint);
+            if (entry == null) {
+                seen.put(fingerprint, new Seen(fingerprint, exceptionName()));
+                event.writeTo(delegate);
+            } else {
+                suppressed = true;
+                if (entry.repeats++ == 0) {
+                    repeated.add(entry);
+                }
+            }
+        }
+        event.clear();
+        completed.addAll(waiting);
+        waiting.clear();
+    }
+
+    /**
+     * Passes on the actions whose event was completed, once its lines were flushed.
+     */
+    private void passOnWritten() throws IOException {
+        for (Runnable action : completed) {
+            delegate.whenWritten(action);
+        }
+        completed.clear();
+    }
+
+    private byte[] exceptionName() {
+        final long exceptionClass = StackTraceFingerprint.exceptionClass(event);
+        final int start = (int) (exceptionClass >>> 32);
+        final int length = (int) Math.min(exceptionClass & 0xffffffffL, MAX_SUMMARY_NAME);
+        return Arrays.copyOfRange(event.data(), start, start + length);
+    }
+
+    private void writeSummary(long intervalMillis) throws IOException {
+        for (Seen entry : repeated) {
+            final byte[] line = ("*** seen " + entry.repeats + " more times in the last " + intervalMillis / 1000
+                    + "s: " + new String(entry.name, StandardCharsets.UTF_8)
+                    + " [" + Long.toHexString(entry.fingerprint) + "]").getBytes(StandardCharsets.UTF_8);
+            delegate.line(line, 0, line.length);
+            entry.repeats = 0;
+        }
+        repeated.clear();
+    }
+
+    private static class Seen {
+        private final long fingerprint;
+        private final byte[] name;
+        private long repeats;
+
+        private Seen(long fingerprint, byte[] name) {
+            this.fingerprint = fingerprint;
+            this.name = name;
+        }
+    }
+}
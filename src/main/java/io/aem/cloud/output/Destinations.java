@@ -0,0 +1,94 @@
+package io.aem.cloud.output;
+
+import lombok.Builder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the shown lines go: the console, optionally rate limited, a rotating file and a TCP receiver of NDJSON.
+ * Each destination is written by an {@link AsyncSink} of its own, so a slow one only ever fills its own queue.
+ */
+public class Destinations implements Closeable {
+
+    private static final int QUEUE_BATCHES = 256;
+    private static final int KEPT_FILES = 5;
+
+    private final int rateLimit;
+    private final File file;
+    private final long fileMaxBytes;
+    private final boolean fileDaily;
+    private final String tcp;
+    private final AsyncSink.Overflow overflow;
+    private final List<AsyncSink> started = new ArrayList<>();
+    private LineSink shipping;
+
+    /**
+     * @param rateLimit most lines per second printed on the console, 0 for no limit.
+     * @param file      file the lines are also written to, null for none.
+     * @param tcp       {@code <host>:<port>} the lines are sent to as NDJSON, null for none.
+     * @param overflow  what a destination does when its queue is full, {@link AsyncSink.Overflow#BLOCK} if null.
+     */
+    @Builder
+    private Destinations(int rateLimit, File file, long fileMaxBytes, boolean fileDaily, String tcp,
+                         AsyncSink.Overflow overflow) {
+        this.rateLimit = rateLimit;
+        this.file = file;
+        this.fileMaxBytes = fileMaxBytes;
+        this.fileDaily = fileDaily;
+        this.tcp = tcp;
+        this.overflow = overflow == null ? AsyncSink.Overflow.BLOCK : overflow;
+    }
+
+    /**
+     * @return the console, and the file if there's one.
+     */
+    public LineSink console() throws IOException {
+        final LineSink console = start("console", new ConsoleSink());
+        return withFile(rateLimit > 0 ? new RateLimitedSink(console, rateLimit) : console);
+    }
+
+    /**
+     * @return the output, and the file if there's one.
+     */
+    public LineSink withFile(LineSink output) throws IOException {
+        if (file == null) {
+            return output;
+        }
+        return new TeeSink(output, start("file", new RotatingFileSink(file, fileMaxBytes, fileDaily, KEPT_FILES)));
+    }
+
+    /**
+     * @return the NDJSON receiver, null if there's none.
+     */
+    public synchronized LineSink shipping() {
+        if (tcp != null && shipping == null) {
+            shipping = start("tcp", TcpSink.parse(tcp));
+        }
+        return shipping;
+    }
+
+    /**
+     * Writes what's still queued, waiting a few seconds at most per destination.
+     */
+    @Override
+    public synchronized void close() {
+        for (AsyncSink sink : started) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                System.err.println("\nERROR while closing an output." +
+                        "\n\tMessage: " + e);
+            }
+        }
+    }
+
+    private synchronized AsyncSink start(String name, LineSink sink) {
+        final AsyncSink async = AsyncSink.start(name, sink, QUEUE_BATCHES, overflow);
+        started.add(async);
+        return async;
+    }
+}
@@ -0,0 +1,33 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.filter.LineFilter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+
+/**
+ * Passes on only the lines the filter keeps.
+ */
+@RequiredArgsConstructor
+public class FilteringSink implements LineSink {
+
+    private final LineFilter filter;
+    private final LineSink delegate;
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        if (filter.accept(buf, off, len)) {
+            delegate.line(buf, off, len);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
@@ -0,0 +1,214 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.parser.LogField;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Turns every line into one JSON object with the parsed fields, so the output is NDJSON. Lines in none of the
+ * known formats, like stack trace lines, only get a {@code message}. The JSON is assembled straight from the
+ * line bytes into a reused buffer. Bytes that aren't valid UTF-8 become U+FFFD, so the output always parses.
+ */
+public class JsonSink implements LineSink {
+
+    private static final LogField[] FIELDS = LogField.values();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REPLACEMENT = {(byte) 0xef, (byte) 0xbf, (byte) 0xbd};
+
+    private final LineSink delegate;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private final byte[] target;
+    private final byte[][] formatNames = new byte[LogFormat.values().length][];
+    private final byte[][] fieldNames = new byte[FIELDS.length][];
+    private byte[] json = new byte[1024];
+    private int length;
+
+    /**
+     * @param expected format of the log, null to detect it per line.
+     * @param target   value of a {@code target} field added to every object, null for none.
+     */
+    public JsonSink(LineSink delegate, LogFormat expected, String target) {
+        this.delegate = delegate;
+        this.parser = new LogParser(expected);
+        this.target = target == null ? null : target.getBytes(StandardCharsets.UTF_8);
+        for (LogFormat format : LogFormat.values()) {
+            formatNames[format.ordinal()] = format.name().toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+        }
+        for (LogField field : FIELDS) {
+            fieldNames[field.ordinal()] = ("\"" + field.getJsonName() + "\":").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        length = 0;
+        append('{');
+        if (target != null) {
+            appendAscii("\"target\":");
+            appendString(target, 0, target.length);
+            append(',');
+        }
+        if (parser.parse(buf, off, len, record)) {
+            appendAscii("\"format\":");
+            final byte[] format = formatNames[record.getFormat().ordinal()];
+            appendString(format, 0, format.length);
+            for (LogField field : FIELDS) {
+                if (record.has(field)) {
+                    append(',');
+                    appendField(field);
+                }
+            }
+        } else {
+            appendAscii("\"message\":");
+            appendString(buf, off, len);
+        }
+        append('}');
+        delegate.line(json, 0, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+
+    private void appendField(LogField field) {
+        final byte[] name = fieldNames[field.ordinal()];
+        ensure(name.length);
+        System.arraycopy(name, 0, json, length, name.length);
+        length += name.length;
+        if (field.isNumeric() && record.number(field) >= 0) {
+            // JSON numbers have no leading zeros.
+            int start = record.start(field);
+            int digits = record.length(field);
+            while (digits > 1 && record.getBuffer()[start] == '0') {
+                start++;
+                digits--;
+            }
+            appendBytes(record.getBuffer(), start, digits);
+        } else {
+            appendString(record.getBuffer(), record.start(field), record.length(field));
+        }
+    }
+
+    private void appendString(byte[] buf, int off, int len) {
+        // Escaping at most grows every byte to 6.
+        ensure(len * 6 + 2);
+        json[length++] = '"';
+        for (int i = off, end = off + len; i < end; i++) {
+            byte b = buf[i];
+            if (b < 0) {
+                final int sequence = utf8Length(buf, i, end);
+                if (sequence == 0) {
+                    System.arraycopy(REPLACEMENT, 0, json, length, REPLACEMENT.length);
+                    length += REPLACEMENT.length;
+                } else {
+                    System.arraycopy(buf, i, json, length, sequence);
+                    length += sequence;
+                    i += sequence - 1;
+                }
+            } else if (b == '"' || b == '\\') {
+                json[length++] = '\\';
+                json[length++] = b;
+            } else if (b >= 0 && b < 0x20) {
+                json[length++] = '\\';
+                switch (b) {
+                    case '\t':
+                        json[length++] = 't';
+                        break;
+                    case '\n':
+                        json[length++] = 'n';
+                        break;
+                    case '\r':
+                        json[length++] = 'r';
+                        break;
+                    default:
+                        json[length++] = 'u';
+                        json[length++] = '0';
+                        json[length++] = '0';
+                        json[length++] = HEX[b >> 4];
+                        json[length++] = HEX[b & 0xf];
+                        break;
+                }
+            } else {
+                json[length++] = b;
+            }
+        }
+        json[length++] = '"';
+    }
+
+    /**
+     * @return length of the well-formed UTF-8 sequence starting with the non-ASCII byte at {@code i}, 0 if it
+     * isn't one (stray continuation byte, truncated or overlong sequence, surrogate or beyond U+10FFFF).
+     */
+    private static int utf8Length(byte[] buf, int i, int end) {
+        final int lead = buf[i] & 0xff;
+        final int length;
+        int min = 0x80;
+        int max = 0xbf;
+        if (lead >= 0xc2 && lead <= 0xdf) {
+            length = 2;
+        } else if (lead >= 0xe0 && lead <= 0xef) {
+            length = 3;
+            if (lead == 0xe0) {
+                min = 0xa0;
+            } else if (lead == 0xed) {
+                max = 0x9f;
+            }
+        } else if (lead >= 0xf0 && lead <= 0xf4) {
+            length = 4;
+            if (lead == 0xf0) {
+                min = 0x90;
+            } else if (lead == 0xf4) {
+                max = 0x8f;
+            }
+        } else {
+            return 0;
+        }
+        if (i + length > end) {
+            return 0;
+        }
+        for (int j = 1; j < length; j++) {
+            final int next = buf[i + j] & 0xff;
+            if (next < (j == 1 ? min : 0x80) || next > (j == 1 ? max : 0xbf)) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    private void appendBytes(byte[] buf, int off, int len) {
+        ensure(len);
+        System.arraycopy(buf, off, json, length, len);
+        length += len;
+    }
+
+    private void appendAscii(String text) {
+        ensure(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            json[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private void append(char c) {
+        ensure(1);
+        json[length++] = (byte) c;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > json.length) {
+            json = Arrays.copyOf(json, Math.max(json.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.aem.cloud.output;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Keeps only the last {@code lines} lines written to it, or the last 5 KB of whole lines when not set, so the
+ * backlog a tail starts with can be picked once the first poll is over.
+ */
+@RequiredArgsConstructor
+public class LastLinesSink implements LineSink {
+
+    private static final long INITIAL_BYTES = FileUtils.ONE_KB * 5;
+
+    private final int lines;
+    private final Deque<byte[]> kept = new ArrayDeque<>();
+    private long keptBytes;
+
+    @Override
+    public void line(byte[] buf, int off, int len) {
+        kept.addLast(Arrays.copyOfRange(buf, off, off + len));
+        keptBytes += len + 1;
+        while (kept.size() > 1 && (lines > 0 ? kept.size() > lines : keptBytes > INITIAL_BYTES)) {
+            keptBytes -= kept.removeFirst().length + 1;
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is written before replay.
+    }
+
+    /**
+     * Writes the kept lines to the sink and forgets them.
+     */
+    public void replay(LineSink sink) throws IOException {
+        for (byte[] line : kept) {
+            sink.line(line, 0, line.length);
+        }
+        kept.clear();
+        keptBytes = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package io.aem.cloud.output;
+
+import java.io.IOException;
+
+/**
+ * Destination of tailed log lines. Lines are UTF-8 bytes without the line terminator. Sinks may buffer, nothing is
+ * guaranteed to be visible before {@link #flush()}.
+ */
+public interface LineSink {
+
+    void line(byte[] buf, int off, int len) throws IOException;
+
+    void flush() throws IOException;
+
+    /**
+     * Runs the action once the lines passed before the last {@link #flush()} reached the destination. A sink
+     * writing on a thread of its own runs it from there, once it flushed them; a wrapping sink passes it on.
+     */
+    default void whenWritten(Runnable action) throws IOException {
+        action.run();
+    }
+}
@@ -0,0 +1,73 @@
+package io.aem.cloud.output;
+
+import lombok.Setter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Cuts the bytes written to it into lines for a {@link LineSink}. An unfinished line is kept until the rest of it
+ * is written, or until {@link #endLine()} is called.
+ */
+public class LineSplittingOutputStream extends OutputStream {
+
+    @Setter
+    private LineSink sink;
+    private byte[] partial = new byte[1024];
+    private int partialLength;
+
+    public LineSplittingOutputStream(LineSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException {
+        final int end = off + len;
+        int lineStart = off;
+        for (int i = off; i < end; i++) {
+            if (buf[i] != '\n') {
+                continue;
+            }
+            if (partialLength > 0) {
+                appendPartial(buf, lineStart, i - lineStart);
+                emit(partial, 0, partialLength);
+                partialLength = 0;
+            } else {
+                emit(buf, lineStart, i - lineStart);
+            }
+            lineStart = i + 1;
+        }
+        appendPartial(buf, lineStart, end - lineStart);
+    }
+
+    /**
+     * Hands over the unfinished line as it is, the stream it belonged to won't continue.
+     */
+    public void endLine() throws IOException {
+        if (partialLength > 0) {
+            emit(partial, 0, partialLength);
+            partialLength = 0;
+        }
+    }
+
+    private void emit(byte[] buf, int off, int len) throws IOException {
+        if (len > 0 && buf[off + len - 1] == '\r') {
+            len--;
+        }
+        sink.line(buf, off, len);
+    }
+
+    private void appendPartial(byte[] buf, int off, int len) {
+        if (partialLength + len > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + len));
+        }
+        System.arraycopy(buf, off, partial, partialLength, len);
+        partialLength += len;
+    }
+}
@@ -0,0 +1,83 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.filter.LineFilter;
+import io.aem.cloud.metrics.MeteredSink;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.store.LogStore;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * How tailed lines are processed before they reach the console, shared by all tailed logs.
+ */
+@Builder(toBuilder = true)
+@Getter
+@ToString
+public class OutputSettings {
+    private static final int MAX_FINGERPRINTS = 10_000;
+
+    /**
+     * Compiled filter, null to keep every line.
+     */
+    private FilterRules filterRules;
+    private boolean json;
+    private boolean dedup;
+    @Builder.Default
+    private long dedupIntervalMillis = 60_000;
+    /**
+     * How long dedup waits for more lines of an unfinished event, 0 when the input ends at every flush.
+     */
+    @Builder.Default
+    private long eventIdleMillis = DedupSink.IDLE_MILLIS;
+    /**
+     * Lines are aggregated by a stats sink instead of being printed, so they're only filtered.
+     */
+    private boolean stats;
+    /**
+     * Local store every tailed line is kept in, null to keep nothing.
+     */
+    private LogStore store;
+    /**
+     * Destination every shown line is also sent to as NDJSON, whatever the output format, null for none.
+     */
+    private LineSink shipping;
+
+    /**
+     * Builds the sinks one log's lines go through: filter, then dedup, then formatting. In stats mode the output
+     * gets the filtered lines as they are. The shipping destination gets the lines as JSON next to the output.
+     *
+     * @param label target shown with every line when several logs share the output, null for a single log.
+     */
+    public LineSink sinkFor(LineSink output, String logName, String label) {
+        final LogFormat format = LogFormat.ofLogName(logName);
+        LineSink sink;
+        if (stats) {
+            sink = output;
+        } else if (json) {
+            sink = new JsonSink(shipping == null ? output : new TeeSink(output, shipping), format, label);
+        } else {
+            sink = label == null ? output : new PrefixedSink(output, label);
+        }
+        if (shipping != null && (stats || !json)) {
+            sink = new TeeSink(sink, new JsonSink(shipping, format, label));
+        }
+        if (dedup && !stats) {
+            sink = new DedupSink(sink, format, MAX_FINGERPRINTS, dedupIntervalMillis, eventIdleMillis);
+        }
+        if (filterRules != null) {
+            sink = new FilteringSink(new LineFilter(filterRules), sink);
+        }
+        return sink;
+    }
+
+    /**
+     * Puts the metrics and the store in front of the sink of a tailed target, so they get every line before the
+     * filter.
+     */
+    public LineSink tailed(Target target, LineSink sink) {
+        return new MeteredSink(store == null ? sink : store.sink(target, sink));
+    }
+}
@@ -0,0 +1,40 @@
+package io.aem.cloud.output;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Puts a fixed prefix in front of every line, telling the targets apart in a merged output.
+ */
+public class PrefixedSink implements LineSink {
+
+    private final LineSink delegate;
+    private final byte[] prefix;
+    private byte[] line;
+
+    public PrefixedSink(LineSink delegate, String prefix) {
+        this.delegate = delegate;
+        this.prefix = ("[" + prefix + "] ").getBytes(StandardCharsets.UTF_8);
+        this.line = Arrays.copyOf(this.prefix, this.prefix.length + 256);
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        if (prefix.length + len > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, prefix.length + len));
+        }
+        System.arraycopy(buf, off, line, prefix.length, len);
+        delegate.line(line, 0, prefix.length + len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
@@ -0,0 +1,60 @@
+package io.aem.cloud.output;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Passes at most {@code maxLinesPerSecond} lines per second. The lines over the limit are counted, and a
+ * "N lines suppressed" line is written once the second is over, so a burst can't flood the console while the
+ * reader still learns how much was skipped.
+ */
+public class RateLimitedSink implements LineSink {
+
+    private final LineSink delegate;
+    private final int maxLinesPerSecond;
+    private long second;
+    private int passed;
+    private long suppressed;
+
+    public RateLimitedSink(LineSink delegate, int maxLinesPerSecond) {
+        this.delegate = delegate;
+        this.maxLinesPerSecond = maxLinesPerSecond;
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        nextSecond();
+        if (passed < maxLinesPerSecond) {
+            passed++;
+            delegate.line(buf, off, len);
+        } else {
+            suppressed++;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        nextSecond();
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+
+    private void nextSecond() throws IOException {
+        final long now = System.currentTimeMillis() / 1000;
+        if (now == second) {
+            return;
+        }
+        second = now;
+        passed = 0;
+        if (suppressed > 0) {
+            final byte[] summary = ("*** " + suppressed + " lines suppressed, more than " + maxLinesPerSecond +
+                    " per second").getBytes(StandardCharsets.UTF_8);
+            delegate.line(summary, 0, summary.length);
+            suppressed = 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.aem.cloud.output;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Appends lines to a file that's rotated once it would grow past {@code maxBytes}, and at midnight UTC when
+ * {@code daily} is set: {@code file} becomes {@code file.1}, {@code file.1} becomes {@code file.2} and so on,
+ * and the oldest of the {@code keep} rotated files is deleted.
+ */
+public class RotatingFileSink implements LineSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private final File file;
+    private final long maxBytes;
+    private final boolean daily;
+    private final int keep;
+    private OutputStream out;
+    private long size;
+    private long nextMidnight;
+
+    /**
+     * @param maxBytes size the file is rotated at, 0 for no limit.
+     */
+    public RotatingFileSink(File file, long maxBytes, boolean daily, int keep) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.daily = daily;
+        this.keep = keep;
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        open();
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        if (size > 0 && (maxBytes > 0 && size + len + 1 > maxBytes
+                || daily && System.currentTimeMillis() >= nextMidnight)) {
+            rotate();
+        }
+        out.write(buf, off, len);
+        out.write('\n');
+        size += len + 1;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void open() throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE);
+        size = file.length();
+        nextMidnight = (LocalDate.now(ZoneOffset.UTC).toEpochDay() + 1) * DAY_MILLIS;
+    }
+
+    private void rotate() throws IOException {
+        out.close();
+        Files.deleteIfExists(rotated(keep).toPath());
+        for (int i = keep - 1; i >= 1; i--) {
+            final File older = rotated(i);
+            if (older.exists()) {
+                Files.move(older.toPath(), rotated(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (keep > 0) {
+            Files.move(file.toPath(), rotated(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(file.toPath());
+        }
+        open();
+    }
+
+    private File rotated(int number) {
+        return new File(file.getPath() + "." + number);
+    }
+}
@@ -0,0 +1,29 @@
+package io.aem.cloud.output;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+
+/**
+ * Lets several tails write to one sink. The lock is taken per line, so lines never interleave mid-line.
+ */
+@RequiredArgsConstructor
+public class SynchronizedSink implements LineSink {
+
+    private final LineSink delegate;
+
+    @Override
+    public synchronized void line(byte[] buf, int off, int len) throws IOException {
+        delegate.line(buf, off, len);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public synchronized void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
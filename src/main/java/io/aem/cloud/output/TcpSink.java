@@ -0,0 +1,116 @@
+package io.aem.cloud.output;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Sends lines over a TCP connection, one per {@code \n}, as expected by the NDJSON inputs of log shippers. The
+ * tail doesn't depend on the receiver: while it's unreachable the lines are dropped and counted, and the
+ * connection is retried every few seconds. Lines still buffered when a connection breaks are lost.
+ */
+public class TcpSink implements LineSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    private static final long RETRY_MILLIS = 5000;
+
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private OutputStream out;
+    private long nextAttempt;
+    private long dropped;
+    private boolean reported;
+
+    public TcpSink(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * @param value {@code <host>:<port>}.
+     */
+    public static TcpSink parse(String value) {
+        final int colon = value.lastIndexOf(':');
+        try {
+            final int port = Integer.parseInt(value.substring(colon + 1));
+            if (colon <= 0 || port <= 0 || port > 65535) {
+                throw new NumberFormatException();
+            }
+            return new TcpSink(value.substring(0, colon), port);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid address \"" + value + "\", expected <host>:<port>.");
+        }
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) {
+        if (out == null && !connect()) {
+            dropped++;
+            return;
+        }
+        try {
+            out.write(buf, off, len);
+            out.write('\n');
+        } catch (IOException e) {
+            disconnect(e);
+            dropped++;
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            disconnect(e);
+        }
+    }
+
+    private boolean connect() {
+        final long now = System.currentTimeMillis();
+        if (now < nextAttempt) {
+            return false;
+        }
+        try {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            if (dropped > 0) {
+                System.err.println("*** Connected to " + host + ":" + port + " again, " + dropped +
+                        " lines were dropped meanwhile.");
+            }
+            dropped = 0;
+            reported = false;
+            return true;
+        } catch (IOException e) {
+            disconnect(e);
+            return false;
+        }
+    }
+
+    private void disconnect(IOException cause) {
+        if (!reported) {
+            System.err.println("\nERROR while sending the logs to " + host + ":" + port + ", lines are dropped " +
+                    "until it's reachable again." +
+                    "\n\tMessage: " + cause);
+            reported = true;
+        }
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Already broken.
+        }
+        socket = null;
+        out = null;
+        nextAttempt = System.currentTimeMillis() + RETRY_MILLIS;
+    }
+}
@@ -0,0 +1,43 @@
+package io.aem.cloud.output;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes every line to two sinks.
+ */
+@RequiredArgsConstructor
+public class TeeSink implements LineSink {
+
+    private final LineSink first;
+    private final LineSink second;
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        first.line(buf, off, len);
+        second.line(buf, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        first.flush();
+        second.flush();
+    }
+
+    /**
+     * Runs the action once both sinks wrote their lines.
+     */
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        final AtomicInteger pending = new AtomicInteger(2);
+        final Runnable both = () -> {
+            if (pending.decrementAndGet() == 0) {
+                action.run();
+            }
+        };
+        first.whenWritten(both);
+        second.whenWritten(both);
+    }
+}
@@ -0,0 +1,36 @@
+package io.aem.cloud.parser;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Fields a {@link LogRecord} can hold, with their name in the JSON output.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum LogField {
+    TIMESTAMP("timestamp", false),
+    HOST("host", false),
+    USER("user", false),
+    POD("pod", false),
+    REQUEST_ID("requestId", true),
+    LEVEL("level", false),
+    THREAD("thread", false),
+    LOGGER("logger", false),
+    METHOD("method", false),
+    PATH("path", false),
+    PROTOCOL("protocol", false),
+    STATUS("status", true),
+    CONTENT_TYPE("contentType", false),
+    SIZE("size", true),
+    DURATION("durationMs", true),
+    REFERER("referer", false),
+    USER_AGENT("userAgent", false),
+    MESSAGE("message", false);
+
+    private final String jsonName;
+    /**
+     * Written as a JSON number when the value is all digits.
+     */
+    private final boolean numeric;
+}
@@ -0,0 +1,41 @@
+package io.aem.cloud.parser;
+
+/**
+ * The log formats of AEM as a Cloud Service.
+ */
+public enum LogFormat {
+    /**
+     * {@code aemerror}: {@code 29.04.2024 21:50:13.398 [pod] *INFO* [thread] logger message}, the pod is missing
+     * in logs of local AEM instances.
+     */
+    ERROR,
+    /**
+     * {@code aemrequest}: {@code 29/Apr/2024:23:14:21 +0000 [17] [pod] -> GET /path HTTP/1.1} for requests and
+     * {@code ... [17] [pod] <- 200 text/html 111ms} for their responses.
+     */
+    REQUEST,
+    /**
+     * {@code aemaccess}: {@code host - user 30/Apr/2024:17:37:14 +0000 "GET /path HTTP/1.1" 200 1141 "referer"
+     * "user agent"}.
+     */
+    ACCESS;
+
+    /**
+     * @return the format of a Cloud Manager log name, or null if it has to be detected per line.
+     */
+    public static LogFormat ofLogName(String logName) {
+        if (logName == null) {
+            return null;
+        }
+        switch (logName) {
+            case "aemerror":
+                return ERROR;
+            case "aemrequest":
+                return REQUEST;
+            case "aemaccess":
+                return ACCESS;
+            default:
+                return null;
+        }
+    }
+}
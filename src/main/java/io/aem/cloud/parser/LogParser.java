@@ -0,0 +1,236 @@
+package io.aem.cloud.parser;
+
+/**
+ * Splits AEM log lines into {@link LogRecord} fields by walking the bytes once, without regular expressions or
+ * allocations. The expected format is tried first, the others after it, so a parser also copes with a log of
+ * unknown format.
+ */
+public class LogParser {
+
+    private static final int ERROR_TIMESTAMP = "29.04.2024 21:50:13.398".length();
+    private static final int HTTP_TIMESTAMP = "29/Apr/2024:23:14:21 +0000".length();
+
+    private final LogFormat[] order;
+    private byte[] buf;
+    private int end;
+
+    /**
+     * @param expected format to try first, null if unknown.
+     */
+    public LogParser(LogFormat expected) {
+        final LogFormat[] formats = LogFormat.values();
+        order = new LogFormat[formats.length];
+        int i = 0;
+        if (expected != null) {
+            order[i++] = expected;
+        }
+        for (LogFormat format : formats) {
+            if (format != expected) {
+                order[i++] = format;
+            }
+        }
+    }
+
+    /**
+     * @return false if the line is in none of the formats, e.g. a stack trace line.
+     */
+    public boolean parse(byte[] buf, int off, int len, LogRecord record) {
+        this.buf = buf;
+        this.end = off + len;
+        for (LogFormat format : order) {
+            record.reset(buf);
+            if (parse(format, off, record)) {
+                record.setFormat(format);
+                return true;
+            }
+        }
+        record.reset(buf);
+        return false;
+    }
+
+    private boolean parse(LogFormat format, int pos, LogRecord record) {
+        switch (format) {
+            case ERROR:
+                return parseError(pos, record);
+            case REQUEST:
+                return parseRequest(pos, record);
+            default:
+                return parseAccess(pos, record);
+        }
+    }
+
+    private boolean parseError(int pos, LogRecord record) {
+        if (pos + ERROR_TIMESTAMP >= end || buf[pos + 2] != '.' || buf[pos + 5] != '.' || buf[pos + 10] != ' '
+                || buf[pos + 13] != ':' || buf[pos + ERROR_TIMESTAMP] != ' ') {
+            return false;
+        }
+        record.set(LogField.TIMESTAMP, pos, pos + ERROR_TIMESTAMP);
+        pos += ERROR_TIMESTAMP + 1;
+        if (pos < end && buf[pos] == '[') {
+            int close = indexOf(']', pos + 1);
+            if (close < 0) {
+                return false;
+            }
+            record.set(LogField.POD, pos + 1, close);
+            pos = close + 2;
+        }
+        if (pos >= end || buf[pos] != '*') {
+            return false;
+        }
+        int star = indexOf('*', pos + 1);
+        if (star < 0) {
+            return false;
+        }
+        record.set(LogField.LEVEL, pos + 1, star);
+        pos = star + 2;
+        if (pos < end && buf[pos] == '[') {
+            // Thread names may contain spaces and brackets, the name ends at the first "] ".
+            int close = pos + 1;
+            while (close + 1 < end && !(buf[close] == ']' && buf[close + 1] == ' ')) {
+                close++;
+            }
+            if (close + 1 >= end) {
+                close = end - 1;
+                if (buf[close] != ']') {
+                    return false;
+                }
+            }
+            record.set(LogField.THREAD, pos + 1, close);
+            pos = close + 2;
+        }
+        int loggerEnd = tokenEnd(pos);
+        record.set(LogField.LOGGER, Math.min(pos, end), loggerEnd);
+        record.set(LogField.MESSAGE, Math.min(loggerEnd + 1, end), end);
+        return true;
+    }
+
+    private boolean parseRequest(int pos, LogRecord record) {
+        if (!isHttpTimestamp(pos)) {
+            return false;
+        }
+        record.set(LogField.TIMESTAMP, pos, pos + HTTP_TIMESTAMP);
+        pos += HTTP_TIMESTAMP + 1;
+        if (pos >= end || buf[pos] != '[') {
+            return false;
+        }
+        int close = indexOf(']', pos + 1);
+        if (close < 0) {
+            return false;
+        }
+        record.set(LogField.REQUEST_ID, pos + 1, close);
+        pos = close + 2;
+        if (pos < end && buf[pos] == '[') {
+            close = indexOf(']', pos + 1);
+            if (close < 0) {
+                return false;
+            }
+            record.set(LogField.POD, pos + 1, close);
+            pos = close + 2;
+        }
+        if (pos + 2 > end || pos + 2 < end && buf[pos + 2] != ' ') {
+            return false;
+        }
+        final boolean request = buf[pos] == '-' && buf[pos + 1] == '>';
+        final boolean response = buf[pos] == '<' && buf[pos + 1] == '-';
+        if (!request && !response) {
+            return false;
+        }
+        pos += 3;
+        int first = tokenEnd(pos);
+        int second = tokenEnd(first + 1);
+        if (request) {
+            record.set(LogField.METHOD, Math.min(pos, end), first);
+            record.set(LogField.PATH, Math.min(first + 1, end), second);
+            record.set(LogField.PROTOCOL, Math.min(second + 1, end), end);
+        } else {
+            record.set(LogField.STATUS, Math.min(pos, end), first);
+            record.set(LogField.CONTENT_TYPE, Math.min(first + 1, end), second);
+            int durationStart = Math.min(second + 1, end);
+            int durationEnd = tokenEnd(durationStart);
+            if (durationEnd - durationStart > 2 && buf[durationEnd - 2] == 'm' && buf[durationEnd - 1] == 's') {
+                durationEnd -= 2;
+            }
+            record.set(LogField.DURATION, durationStart, durationEnd);
+        }
+        return true;
+    }
+
+    private boolean parseAccess(int pos, LogRecord record) {
+        int hostEnd = tokenEnd(pos);
+        int identEnd = tokenEnd(hostEnd + 1);
+        int userEnd = tokenEnd(identEnd + 1);
+        int timestamp = userEnd + 1;
+        final boolean bracketed = timestamp < end && buf[timestamp] == '[';
+        if (bracketed) {
+            timestamp++;
+        }
+        if (hostEnd == pos || !isHttpTimestamp(timestamp)) {
+            return false;
+        }
+        record.set(LogField.HOST, pos, hostEnd);
+        record.set(LogField.USER, identEnd + 1, userEnd);
+        record.set(LogField.TIMESTAMP, timestamp, timestamp + HTTP_TIMESTAMP);
+        pos = skipSpaces(timestamp + HTTP_TIMESTAMP + (bracketed ? 1 : 0));
+        if (pos >= end || buf[pos] != '"') {
+            return true;
+        }
+        int quote = indexOf('"', pos + 1);
+        if (quote < 0) {
+            return false;
+        }
+        int methodEnd = Math.min(tokenEnd(pos + 1), quote);
+        int pathEnd = methodEnd < quote ? Math.min(tokenEnd(methodEnd + 1), quote) : quote;
+        record.set(LogField.METHOD, pos + 1, methodEnd);
+        record.set(LogField.PATH, Math.min(methodEnd + 1, quote), pathEnd);
+        record.set(LogField.PROTOCOL, Math.min(pathEnd + 1, quote), quote);
+        pos = skipSpaces(quote + 1);
+        int statusEnd = tokenEnd(pos);
+        record.set(LogField.STATUS, pos, statusEnd);
+        pos = skipSpaces(statusEnd);
+        int sizeEnd = tokenEnd(pos);
+        record.set(LogField.SIZE, pos, sizeEnd);
+        pos = quoted(skipSpaces(sizeEnd), LogField.REFERER, record);
+        quoted(skipSpaces(pos), LogField.USER_AGENT, record);
+        return true;
+    }
+
+    private int quoted(int pos, LogField field, LogRecord record) {
+        if (pos >= end || buf[pos] != '"') {
+            return end;
+        }
+        int quote = indexOf('"', pos + 1);
+        if (quote < 0) {
+            return end;
+        }
+        record.set(field, pos + 1, quote);
+        return quote + 1;
+    }
+
+    private boolean isHttpTimestamp(int pos) {
+        return pos + HTTP_TIMESTAMP <= end && buf[pos + 2] == '/' && buf[pos + 6] == '/' && buf[pos + 11] == ':'
+                && buf[pos + 20] == ' ';
+    }
+
+    private int tokenEnd(int pos) {
+        while (pos < end && buf[pos] != ' ') {
+            pos++;
+        }
+        return Math.min(pos, end);
+    }
+
+    private int skipSpaces(int pos) {
+        while (pos < end && buf[pos] == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < end; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
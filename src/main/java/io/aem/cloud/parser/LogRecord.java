@@ -0,0 +1,182 @@
+package io.aem.cloud.parser;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * One parsed line, as offset/length slices over the caller's line buffer. A record is reused for every line,
+ * nothing is copied or allocated while parsing, the slices are only valid until the buffer changes.
+ */
+public class LogRecord {
+
+    private static final LogField[] FIELDS = LogField.values();
+    private static final byte[][] LEVELS = {
+            "TRACE".getBytes(StandardCharsets.US_ASCII),
+            "DEBUG".getBytes(StandardCharsets.US_ASCII),
+            "INFO".getBytes(StandardCharsets.US_ASCII),
+            "WARN".getBytes(StandardCharsets.US_ASCII),
+            "ERROR".getBytes(StandardCharsets.US_ASCII)
+    };
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    private final int[] starts = new int[FIELDS.length];
+    private final int[] lengths = new int[FIELDS.length];
+    @Getter
+    private byte[] buffer;
+    @Getter
+    private LogFormat format;
+
+    void reset(byte[] buffer) {
+        this.buffer = buffer;
+        this.format = null;
+        Arrays.fill(starts, -1);
+    }
+
+    void set(LogField field, int start, int end) {
+        starts[field.ordinal()] = start;
+        lengths[field.ordinal()] = end - start;
+    }
+
+    void setFormat(LogFormat format) {
+        this.format = format;
+    }
+
+    public boolean has(LogField field) {
+        return starts[field.ordinal()] >= 0;
+    }
+
+    public int start(LogField field) {
+        return starts[field.ordinal()];
+    }
+
+    public int length(LogField field) {
+        return lengths[field.ordinal()];
+    }
+
+    /**
+     * @return the field as a number, or -1 if it's missing or not all digits.
+     */
+    public long number(LogField field) {
+        if (!has(field) || length(field) == 0 || length(field) > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start(field), end = i + length(field); i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    public boolean equals(LogField field, byte[] value) {
+        if (!has(field) || length(field) != value.length) {
+            return false;
+        }
+        return Arrays.equals(buffer, start(field), start(field) + length(field), value, 0, value.length);
+    }
+
+    /**
+     * @return 0 for TRACE up to 4 for ERROR, -1 without a known level.
+     */
+    public int levelRank() {
+        for (int rank = 0; rank < LEVELS.length; rank++) {
+            if (equals(LogField.LEVEL, LEVELS[rank])) {
+                return rank;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the timestamp in milliseconds since the epoch, or -1 without a valid one. Error log timestamps
+     * carry no zone and are read as UTC, which is what AEM as a Cloud Service logs in.
+     */
+    public long epochMillis() {
+        if (!has(LogField.TIMESTAMP)) {
+            return -1;
+        }
+        final int at = start(LogField.TIMESTAMP);
+        final int day;
+        final int month;
+        final int year;
+        final int hour;
+        final int minute;
+        final int second;
+        int millis = 0;
+        int offsetMinutes = 0;
+        if (format == LogFormat.ERROR) {
+            // 29.04.2024 21:50:13.398
+            day = digits(at, 2);
+            month = digits(at + 3, 2);
+            year = digits(at + 6, 4);
+            hour = digits(at + 11, 2);
+            minute = digits(at + 14, 2);
+            second = digits(at + 17, 2);
+            millis = digits(at + 20, 3);
+        } else {
+            // 29/Apr/2024:23:14:21 +0000
+            day = digits(at, 2);
+            month = month(at + 3);
+            year = digits(at + 7, 4);
+            hour = digits(at + 12, 2);
+            minute = digits(at + 15, 2);
+            second = digits(at + 18, 2);
+            final int offset = digits(at + 22, 4);
+            if (offset < 0) {
+                return -1;
+            }
+            offsetMinutes = (offset / 100 * 60 + offset % 100) * (buffer[at + 21] == '-' ? -1 : 1);
+        }
+        if ((day | month | year | hour | minute | second | millis) < 0 || month < 1 || month > 12) {
+            return -1;
+        }
+        final long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second) * 1000 + millis;
+    }
+
+    /**
+     * Decodes the field, allocating a String. Meant for the rare consumer that needs one.
+     */
+    public String text(LogField field) {
+        return has(field) ? new String(buffer, start(field), length(field), StandardCharsets.UTF_8) : null;
+    }
+
+    private int digits(int at, int count) {
+        int value = 0;
+        for (int i = at; i < at + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private int month(int at) {
+        for (int i = 0; i < MONTHS.length(); i += 3) {
+            if (buffer[at] == MONTHS.charAt(i) && buffer[at + 1] == MONTHS.charAt(i + 1)
+                    && buffer[at + 2] == MONTHS.charAt(i + 2)) {
+                return i / 3 + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, without going through java.time objects.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,36 @@
+package io.aem.cloud.pipeline;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Unit of work passed between pipeline stages: a piece of data, or a marker that is passed on in order with it.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Chunk {
+
+    public enum Type {
+        DATA,
+        /**
+         * Everything the current poll downloaded was handed over.
+         */
+        POLL_END,
+        /**
+         * The archive was rotated, the data that follows starts a new archive.
+         */
+        RESET
+    }
+
+    public static final Chunk POLL_END = new Chunk(Type.POLL_END, new byte[0], 0);
+    public static final Chunk RESET = new Chunk(Type.RESET, new byte[0], 0);
+
+    private final Type type;
+    private final byte[] data;
+    private final int length;
+
+    public static Chunk data(byte[] data, int length) {
+        return new Chunk(Type.DATA, data, length);
+    }
+}
@@ -0,0 +1,56 @@
+package io.aem.cloud.pipeline;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Collects written bytes into chunks of a fixed size and hands every full chunk to the next stage.
+ */
+@RequiredArgsConstructor
+class ChunkOutputStream extends OutputStream {
+
+    private final SpscRingBuffer<Chunk> out;
+    private final int chunkSize;
+    private byte[] buffer;
+    private int length;
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (buffer == null) {
+                buffer = new byte[chunkSize];
+            }
+            int n = Math.min(len, buffer.length - length);
+            System.arraycopy(b, off, buffer, length, n);
+            length += n;
+            off += n;
+            len -= n;
+            if (length == buffer.length) {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (length == 0) {
+            return;
+        }
+        try {
+            out.put(Chunk.data(buffer, length));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        buffer = null;
+        length = 0;
+    }
+}
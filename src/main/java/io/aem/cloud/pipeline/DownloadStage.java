@@ -0,0 +1,76 @@
+package io.aem.cloud.pipeline;
+
+import io.aem.cloud.api.LogApi;
+import io.aem.cloud.api.TransportException;
+import io.aem.cloud.model.ArchiveStream;
+import io.aem.cloud.processor.PollScheduler;
+import lombok.Cleanup;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Polls the archive and hands the newly appended compressed bytes to the inflate stage, never touching the disk.
+ */
+public class DownloadStage extends PipelineStage {
+
+    private final LogApi logApi;
+    private final SpscRingBuffer<Chunk> out;
+    private final int chunkSize;
+    private final PollScheduler scheduler;
+    private long knownLength;
+
+    public DownloadStage(LogApi logApi, SpscRingBuffer<Chunk> out, int chunkSize, PollScheduler scheduler) {
+        super("getting the logs from AEMaaCS");
+        this.logApi = logApi;
+        this.out = out;
+        this.chunkSize = chunkSize;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    protected void step() throws IOException, InterruptedException {
+        final long previousLength = knownLength;
+        boolean changed;
+        try {
+            changed = download();
+        } catch (TransportException e) {
+            // The outage was reported, the next poll continues after the bytes handed over so far.
+            changed = knownLength > previousLength;
+        }
+        out.put(Chunk.POLL_END);
+        scheduler.sleep(changed);
+    }
+
+    /**
+     * @return whether new bytes were found.
+     */
+    private boolean download() throws IOException, InterruptedException {
+        @Cleanup ArchiveStream archive = logApi.openArchive(knownLength);
+        if (archive.isRotated()) {
+            knownLength = 0;
+            out.put(Chunk.RESET);
+        }
+        final long previousLength = knownLength;
+        final InputStream body = archive.getBody();
+        // When the range was ignored the body repeats what was already handed over.
+        long skip = knownLength - archive.getOffset();
+        while (true) {
+            byte[] buffer = new byte[chunkSize];
+            int read = body.readNBytes(buffer, 0, buffer.length);
+            if (read <= 0) {
+                break;
+            }
+            int from = (int) Math.min(read, skip);
+            skip -= from;
+            if (from < read) {
+                if (from > 0) {
+                    System.arraycopy(buffer, from, buffer, 0, read - from);
+                }
+                out.put(Chunk.data(buffer, read - from));
+                knownLength += read - from;
+            }
+        }
+        return archive.isRotated() || knownLength > previousLength;
+    }
+}
@@ -0,0 +1,42 @@
+package io.aem.cloud.pipeline;
+
+import io.aem.cloud.processor.IncrementalGzipInflater;
+
+import java.io.IOException;
+
+/**
+ * Inflates compressed chunks as they arrive, keeping the inflater state across polls.
+ */
+public class InflateStage extends PipelineStage {
+
+    private final SpscRingBuffer<Chunk> in;
+    private final SpscRingBuffer<Chunk> out;
+    private final ChunkOutputStream inflated;
+    private final IncrementalGzipInflater inflater = new IncrementalGzipInflater();
+
+    public InflateStage(SpscRingBuffer<Chunk> in, SpscRingBuffer<Chunk> out, int chunkSize) {
+        super("decompressing the logs");
+        this.in = in;
+        this.out = out;
+        this.inflated = new ChunkOutputStream(out, chunkSize);
+    }
+
+    @Override
+    protected void step() throws IOException, InterruptedException {
+        Chunk chunk = in.take();
+        switch (chunk.getType()) {
+            case DATA:
+                inflater.inflate(chunk.getData(), 0, chunk.getLength(), inflated);
+                break;
+            case RESET:
+                inflated.flush();
+                inflater.reset();
+                out.put(chunk);
+                break;
+            default:
+                inflated.flush();
+                out.put(chunk);
+                break;
+        }
+    }
+}
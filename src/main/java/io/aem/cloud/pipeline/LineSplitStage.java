@@ -0,0 +1,152 @@
+package io.aem.cloud.pipeline;
+
+import org.apache.commons.io.FileUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Cuts the decompressed stream at line ends so later stages only see whole lines.
+ * <p>
+ * Until the first poll is over only the last {@code initialLines} lines (or the last 5 KB when not set) are kept,
+ * that's what the tail starts with. Older chunks are dropped as soon as they're not needed anymore, so the
+ * backlog of a whole day never sits in memory.
+ */
+public class LineSplitStage extends PipelineStage {
+
+    private static final long INITIAL_BYTES = FileUtils.ONE_KB * 5;
+
+    private final SpscRingBuffer<Chunk> in;
+    private final SpscRingBuffer<Chunk> out;
+    private final int initialLines;
+    private final Deque<Chunk> backlog = new ArrayDeque<>();
+    private long backlogLines;
+    private long backlogBytes;
+    private boolean started;
+    private byte[] partial = new byte[0];
+    private int partialLength;
+
+    public LineSplitStage(SpscRingBuffer<Chunk> in, SpscRingBuffer<Chunk> out, int initialLines) {
+        super("splitting the log lines");
+        this.in = in;
+        this.out = out;
+        this.initialLines = initialLines;
+    }
+
+    @Override
+    protected void step() throws InterruptedException {
+        Chunk chunk = in.take();
+        switch (chunk.getType()) {
+            case DATA:
+                split(chunk);
+                break;
+            case RESET:
+                if (partialLength > 0) {
+                    appendPartial(new byte[]{'\n'}, 0, 1);
+                    emit(Chunk.data(Arrays.copyOf(partial, partialLength), partialLength));
+                    partialLength = 0;
+                }
+                out.put(chunk);
+                break;
+            default:
+                if (!started) {
+                    started = true;
+                    emitBacklog();
+                }
+                out.put(chunk);
+                break;
+        }
+    }
+
+    private void split(Chunk chunk) throws InterruptedException {
+        final byte[] data = chunk.getData();
+        final int length = chunk.getLength();
+        int lastNewLine = length - 1;
+        while (lastNewLine >= 0 && data[lastNewLine] != '\n') {
+            lastNewLine--;
+        }
+        if (lastNewLine < 0) {
+            appendPartial(data, 0, length);
+            return;
+        }
+        final int lines = lastNewLine + 1;
+        byte[] whole = new byte[partialLength + lines];
+        System.arraycopy(partial, 0, whole, 0, partialLength);
+        System.arraycopy(data, 0, whole, partialLength, lines);
+        partialLength = 0;
+        appendPartial(data, lines, length - lines);
+        emit(Chunk.data(whole, whole.length));
+    }
+
+    private void emit(Chunk lines) throws InterruptedException {
+        if (started) {
+            out.put(lines);
+            return;
+        }
+        backlog.addLast(lines);
+        backlogLines += countLines(lines);
+        backlogBytes += lines.getLength();
+        while (backlog.size() > 1) {
+            Chunk oldest = backlog.peekFirst();
+            long remainingLines = backlogLines - countLines(oldest);
+            long remainingBytes = backlogBytes - oldest.getLength();
+            if (initialLines > 0 ? remainingLines < initialLines : remainingBytes < INITIAL_BYTES) {
+                break;
+            }
+            backlog.removeFirst();
+            backlogLines = remainingLines;
+            backlogBytes = remainingBytes;
+        }
+    }
+
+    private void emitBacklog() throws InterruptedException {
+        final byte[] data = new byte[(int) backlogBytes];
+        int length = 0;
+        for (Chunk chunk : backlog) {
+            System.arraycopy(chunk.getData(), 0, data, length, chunk.getLength());
+            length += chunk.getLength();
+        }
+        backlog.clear();
+        int start = initialLines > 0 ? startOfLastLines(data) : (int) Math.max(0, length - INITIAL_BYTES);
+        if (initialLines <= 0 && start > 0) {
+            // Start the byte window at the next whole line.
+            while (start < length && data[start - 1] != '\n') {
+                start++;
+            }
+        }
+        if (start < length) {
+            out.put(Chunk.data(Arrays.copyOfRange(data, start, length), length - start));
+        }
+    }
+
+    private int startOfLastLines(byte[] data) {
+        int newLines = 0;
+        // Every backlog chunk ends with a newline, the one ending the last line doesn't count.
+        for (int i = data.length - 2; i >= 0; i--) {
+            if (data[i] == '\n' && ++newLines == initialLines) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void appendPartial(byte[] data, int off, int len) {
+        if (partialLength + len > partial.length) {
+            partial = Arrays.copyOf(partial, Math.max(partial.length * 2, partialLength + len));
+        }
+        System.arraycopy(data, off, partial, partialLength, len);
+        partialLength += len;
+    }
+
+    private static long countLines(Chunk chunk) {
+        long lines = 0;
+        byte[] data = chunk.getData();
+        for (int i = 0; i < chunk.getLength(); i++) {
+            if (data[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,39 @@
+package io.aem.cloud.pipeline;
+
+import io.aem.cloud.output.LineSink;
+
+import java.io.IOException;
+
+/**
+ * Writes whole lines to the sink, flushing only when it caught up with the stages before it.
+ */
+public class OutputStage extends PipelineStage {
+
+    private final SpscRingBuffer<Chunk> in;
+    private final LineSink sink;
+
+    public OutputStage(SpscRingBuffer<Chunk> in, LineSink sink) {
+        super("tailing the log");
+        this.in = in;
+        this.sink = sink;
+    }
+
+    @Override
+    protected void step() throws IOException, InterruptedException {
+        Chunk chunk = in.take();
+        if (chunk.getType() == Chunk.Type.DATA) {
+            final byte[] data = chunk.getData();
+            int lineStart = 0;
+            for (int i = 0; i < chunk.getLength(); i++) {
+                if (data[i] == '\n') {
+                    int lineEnd = i > lineStart && data[i - 1] == '\r' ? i - 1 : i;
+                    sink.line(data, lineStart, lineEnd - lineStart);
+                    lineStart = i + 1;
+                }
+            }
+        }
+        if (in.size() == 0) {
+            sink.flush();
+        }
+    }
+}
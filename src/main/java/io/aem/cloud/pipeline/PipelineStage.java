@@ -0,0 +1,32 @@
+package io.aem.cloud.pipeline;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A pipeline stage running on its own thread until interrupted. Like the file based processors, any failure
+ * stops the tool.
+ */
+@RequiredArgsConstructor
+public abstract class PipelineStage implements Runnable {
+
+    private final String description;
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                step();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else {
+                System.err.println("\nERROR while " + description + "." +
+                        "\n\tMessage: " + e);
+                System.exit(1);
+            }
+        }
+    }
+
+    protected abstract void step() throws Exception;
+}
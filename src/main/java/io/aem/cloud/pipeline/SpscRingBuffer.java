@@ -0,0 +1,92 @@
+package io.aem.cloud.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded lock-free handoff between exactly one producer thread and one consumer thread.
+ * <p>
+ * {@link #put(Object)} and {@link #take()} give backpressure: a full buffer makes the producer wait, an empty
+ * one the consumer. Waiting spins briefly, then yields, then parks with a growing timeout, so an idle tail costs
+ * next to nothing while a busy one never touches a lock.
+ */
+public class SpscRingBuffer<T> {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Object[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public SpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.buffer = new Object[size];
+        this.mask = size - 1;
+    }
+
+    public boolean offer(T item) {
+        final long currentTail = tail.get();
+        if (currentTail - head.get() == buffer.length) {
+            return false;
+        }
+        buffer[(int) currentTail & mask] = item;
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        final long currentHead = head.get();
+        if (currentHead == tail.get()) {
+            return null;
+        }
+        final int index = (int) currentHead & mask;
+        T item = (T) buffer[index];
+        buffer[index] = null;
+        head.lazySet(currentHead + 1);
+        return item;
+    }
+
+    public void put(T item) throws InterruptedException {
+        int idle = 0;
+        while (!offer(item)) {
+            idle = backOff(idle);
+        }
+    }
+
+    public T take() throws InterruptedException {
+        T item;
+        int idle = 0;
+        while ((item = poll()) == null) {
+            idle = backOff(idle);
+        }
+        return item;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    private static int backOff(int idle) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << Math.min(idle - YIELD_TRIES, 10)));
+        }
+        return idle + 1;
+    }
+}
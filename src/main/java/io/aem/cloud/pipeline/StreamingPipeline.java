@@ -0,0 +1,41 @@
+package io.aem.cloud.pipeline;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.api.LogApi;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.processor.PollScheduler;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diskless variant of the downloader/tailor pair: download, inflate, line split and output each run on their own
+ * thread, connected by bounded {@link SpscRingBuffer}s. Nothing is written to the temp directory.
+ */
+@RequiredArgsConstructor
+public class StreamingPipeline {
+
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final LogApi logApi;
+    private final int initialLines;
+    private final LineSink sink;
+    private final PollSettings pollSettings;
+
+    public List<Thread> start() {
+        final SpscRingBuffer<Chunk> compressed = new SpscRingBuffer<>(QUEUE_CAPACITY);
+        final SpscRingBuffer<Chunk> inflated = new SpscRingBuffer<>(QUEUE_CAPACITY);
+        final SpscRingBuffer<Chunk> lines = new SpscRingBuffer<>(QUEUE_CAPACITY);
+        final List<Thread> threads = new ArrayList<>();
+        threads.add(DaemonThreads.create("log-downloader", new DownloadStage(logApi, compressed, CHUNK_SIZE,
+                new PollScheduler(pollSettings))));
+        threads.add(DaemonThreads.create("log-inflater", new InflateStage(compressed, inflated, CHUNK_SIZE)));
+        threads.add(DaemonThreads.create("log-splitter", new LineSplitStage(inflated, lines, initialLines)));
+        threads.add(DaemonThreads.create("log-tailor", new OutputStage(lines, sink)));
+        threads.forEach(Thread::start);
+        return threads;
+    }
+}
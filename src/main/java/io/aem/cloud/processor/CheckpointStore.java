@@ -0,0 +1,89 @@
+package io.aem.cloud.processor;
+
+import io.aem.cloud.model.Checkpoint;
+import io.aem.cloud.model.Target;
+import lombok.Cleanup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Properties;
+
+/**
+ * Keeps the {@link Checkpoint} of a tail in a properties file. Every save goes to a synced temp file that is
+ * then moved over the old one, so after a crash the file holds either the previous checkpoint or the new one.
+ */
+public class CheckpointStore {
+
+    private static final String PROP_ARCHIVE_DATE = "archiveDate";
+    private static final String PROP_MEMBER_OFFSET = "memberOffset";
+    private static final String PROP_MEMBER_OUTPUT = "memberOutput";
+    private static final String PROP_INPUT_OFFSET = "inputOffset";
+    private static final String PROP_EMITTED_OUTPUT = "emittedOutput";
+    private static final String PROP_ANCHOR = "anchor";
+
+    private final File file;
+
+    public CheckpointStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @param path checkpoint file, null for one per target in {@code ~/.aem-log-tailor/checkpoints}.
+     */
+    public static CheckpointStore create(String path, Target target) {
+        return new CheckpointStore(path != null
+                ? new File(path)
+                : Paths.get(System.getProperty("user.home"), ".aem-log-tailor", "checkpoints",
+                target.label().replace('/', '-') + ".properties").toFile());
+    }
+
+    /**
+     * @return the saved checkpoint, or null if there is none or it can't be read.
+     */
+    public Checkpoint load() {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            @Cleanup InputStream inputStream = new FileInputStream(file);
+            final Properties properties = new Properties();
+            properties.load(inputStream);
+            return Checkpoint.builder()
+                    .archiveDate(properties.getProperty(PROP_ARCHIVE_DATE))
+                    .memberOffset(Long.parseLong(properties.getProperty(PROP_MEMBER_OFFSET)))
+                    .memberOutput(Long.parseLong(properties.getProperty(PROP_MEMBER_OUTPUT)))
+                    .inputOffset(Long.parseLong(properties.getProperty(PROP_INPUT_OFFSET)))
+                    .emittedOutput(Long.parseLong(properties.getProperty(PROP_EMITTED_OUTPUT)))
+                    .anchor(Base64.getDecoder().decode(properties.getProperty(PROP_ANCHOR, "")))
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("\nIgnoring the unreadable checkpoint " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(Checkpoint checkpoint) throws IOException {
+        final Path dir = Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        final Path temp = Files.createTempFile(dir, "checkpoint", ".tmp");
+        final Properties properties = new Properties();
+        properties.setProperty(PROP_ARCHIVE_DATE, checkpoint.getArchiveDate());
+        properties.setProperty(PROP_MEMBER_OFFSET, String.valueOf(checkpoint.getMemberOffset()));
+        properties.setProperty(PROP_MEMBER_OUTPUT, String.valueOf(checkpoint.getMemberOutput()));
+        properties.setProperty(PROP_INPUT_OFFSET, String.valueOf(checkpoint.getInputOffset()));
+        properties.setProperty(PROP_EMITTED_OUTPUT, String.valueOf(checkpoint.getEmittedOutput()));
+        properties.setProperty(PROP_ANCHOR, Base64.getEncoder().encodeToString(checkpoint.getAnchor()));
+        try (FileOutputStream outputStream = new FileOutputStream(temp.toFile())) {
+            properties.store(outputStream, null);
+            outputStream.getFD().sync();
+        }
+        Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,284 @@
+package io.aem.cloud.processor;
+
+import io.aem.cloud.metrics.Metrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Finds a place to start inflating in an archive that only holds the tail of a gzip stream.
+ * <p>
+ * A gzip member header is preferred since it gives clean output. Otherwise every bit offset is tried as a
+ * deflate block header: cheap header checks first, then a speculative inflation of a few KB with a zeroed
+ * window that has to produce plausible log text. Lines touched by the unknown history (zero bytes) are dropped,
+ * as is the first, partial line.
+ * <p>
+ * Repetitive logs copy most bytes, newlines included, from earlier text. Once a real block boundary decodes
+ * without errors but yields no clean line, later boundaries won't do better as the unknown history keeps being
+ * copied forward, so the scan gives up and the caller falls back to inflating the whole archive.
+ * <p>
+ * Fixed Huffman blocks can start at about every fourth bit offset, so the scan is cut off after
+ * {@link #TIME_BUDGET_MILLIS}: past that, downloading and inflating the whole archive is cheaper.
+ */
+@RequiredArgsConstructor
+public class DeflateResync {
+
+    private static final int WINDOW_SIZE = 32 * 1024;
+    private static final int SCAN_LIMIT = 128 * 1024;
+    private static final int PROBE_INPUT = 4 * 1024;
+    private static final int PROBE_OUTPUT = 16 * 1024;
+    private static final int MIN_PROBE_OUTPUT = 1024;
+    static final long TIME_BUDGET_MILLIS = 1000;
+
+    private final int lines;
+    /**
+     * Why the last {@link #resync} found no restart point, null if it found one.
+     */
+    @Getter
+    private String fallbackReason;
+    /**
+     * Duration of the last {@link #resync}.
+     */
+    @Getter
+    private long elapsedMillis;
+    private long deadline;
+
+    /**
+     * Inflates the archive from the first usable restart point and writes the last complete lines to the output.
+     *
+     * @return an inflater positioned at the end of the archive, or {@code null} if no restart point was found.
+     */
+    public IncrementalGzipInflater resync(File archive, OutputStream out) throws IOException {
+        if (lines <= 0) {
+            fallbackReason = "no lines asked for";
+            return null;
+        }
+        final long start = System.nanoTime();
+        deadline = start + TimeUnit.MILLISECONDS.toNanos(TIME_BUDGET_MILLIS);
+        fallbackReason = "no restart point in the last " + archive.length() / 1024 + " KB";
+        final byte[] data = Files.readAllBytes(archive.toPath());
+        IncrementalGzipInflater inflater = resyncOnMember(archive, data, out);
+        if (inflater == null && !outOfTime()) {
+            inflater = resyncOnBlock(archive, data, out);
+        }
+        if (inflater != null) {
+            fallbackReason = null;
+        }
+        Metrics.RESYNC.recordSince(start);
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return inflater;
+    }
+
+    /**
+     * @return whether the time budget is used up, noting it as the reason to fall back.
+     */
+    private boolean outOfTime() {
+        if (System.nanoTime() - deadline < 0) {
+            return false;
+        }
+        fallbackReason = "no restart point within " + TIME_BUDGET_MILLIS + " ms";
+        return true;
+    }
+
+    private IncrementalGzipInflater resyncOnMember(File archive, byte[] data, OutputStream out) throws IOException {
+        for (int i = 0; i + 10 < data.length; i++) {
+            if ((data[i] & 0xff) == 0x1f && (data[i + 1] & 0xff) == 0x8b && data[i + 2] == 8
+                    && (data[i + 3] & 0xe0) == 0) {
+                if (outOfTime()) {
+                    return null;
+                }
+                IncrementalGzipInflater inflater = IncrementalGzipInflater.atMember(i);
+                byte[] text = inflateTail(archive, inflater);
+                int start = text == null ? -1 : cleanStart(text);
+                if (start >= 0) {
+                    out.write(text, start, text.length - start);
+                    return inflater;
+                }
+                inflater.close();
+            }
+        }
+        return null;
+    }
+
+    private IncrementalGzipInflater resyncOnBlock(File archive, byte[] data, OutputStream out) throws IOException {
+        final int scanBytes = Math.min(data.length - 2, SCAN_LIMIT);
+        if (scanBytes <= 0) {
+            return null;
+        }
+        final byte[][] shifted = new byte[8][];
+        for (int bit = 0; bit < 8; bit++) {
+            shifted[bit] = shift(data, bit);
+        }
+        final byte[] dictionary = new byte[WINDOW_SIZE];
+        final byte[] probe = new byte[PROBE_OUTPUT];
+        final Inflater inflater = new Inflater(true);
+        try {
+            for (int pos = 0; pos < scanBytes; pos++) {
+                if ((pos & 0xff) == 0 && outOfTime()) {
+                    return null;
+                }
+                for (int bit = 0; bit < 8; bit++) {
+                    byte[] stream = shifted[bit];
+                    if (!plausibleBlockHeader(stream, pos)) {
+                        continue;
+                    }
+                    inflater.reset();
+                    inflater.setDictionary(dictionary);
+                    inflater.setInput(stream, pos, Math.min(PROBE_INPUT, stream.length - pos));
+                    if (!looksLikeText(probe, probe(inflater, probe))) {
+                        continue;
+                    }
+                    IncrementalGzipInflater candidate = IncrementalGzipInflater.atBlock(pos, bit, data[pos]);
+                    byte[] text = inflateTail(archive, candidate);
+                    if (text == null) {
+                        candidate.close();
+                        continue;
+                    }
+                    int start = cleanStart(text);
+                    if (start < 0) {
+                        candidate.close();
+                        fallbackReason = "the restart point decoded no clean line";
+                        return null;
+                    }
+                    out.write(text, start, text.length - start);
+                    return candidate;
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return null;
+    }
+
+    private byte[] inflateTail(File archive, IncrementalGzipInflater inflater) {
+        final ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try {
+            inflater.inflate(archive, inflated);
+        } catch (IOException e) {
+            return null;
+        }
+        final byte[] text = inflated.toByteArray();
+        return looksLikeText(text, text.length) ? text : null;
+    }
+
+    /**
+     * @return offset of the first of the last clean, complete lines, or -1 if there is no clean line at all.
+     * Whatever follows the last newline is an unfinished line the next poll completes, it's always kept.
+     */
+    private int cleanStart(byte[] text) {
+        int lastNewLine = text.length - 1;
+        while (lastNewLine >= 0 && text[lastNewLine] != '\n') {
+            lastNewLine--;
+        }
+        int start = lastNewLine + 1;
+        int lineEnd = start;
+        int kept = 0;
+        for (int i = lastNewLine - 1; i >= 0 && kept < lines; i--) {
+            if (text[i] != '\n') {
+                continue;
+            }
+            if (!isClean(text, i + 1, lineEnd)) {
+                break;
+            }
+            start = i + 1;
+            lineEnd = start;
+            kept++;
+        }
+        return kept == 0 ? -1 : start;
+    }
+
+    private static boolean isClean(byte[] text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int probe(Inflater inflater, byte[] probe) {
+        int produced = 0;
+        try {
+            while (produced < probe.length && !inflater.finished()) {
+                int inflated = inflater.inflate(probe, produced, probe.length - produced);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                produced += inflated;
+            }
+        } catch (DataFormatException | IllegalArgumentException e) {
+            return 0;
+        }
+        return produced;
+    }
+
+    /**
+     * Rejects bit positions that can't start a deflate block: reserved block type, stored blocks with a bad
+     * length check, dynamic blocks declaring more literal/length or distance codes than deflate defines.
+     */
+    private static boolean plausibleBlockHeader(byte[] stream, int pos) {
+        int header = stream[pos] & 0xff;
+        int type = (header >>> 1) & 3;
+        switch (type) {
+            case 0:
+                if (pos + 5 > stream.length) {
+                    return false;
+                }
+                int len = (stream[pos + 1] & 0xff) | ((stream[pos + 2] & 0xff) << 8);
+                int nlen = (stream[pos + 3] & 0xff) | ((stream[pos + 4] & 0xff) << 8);
+                return len == (~nlen & 0xffff);
+            case 1:
+                return true;
+            case 2:
+                if (pos + 2 > stream.length) {
+                    return false;
+                }
+                int bits = header | ((stream[pos + 1] & 0xff) << 8);
+                int hlit = (bits >>> 3) & 0x1f;
+                int hdist = (bits >>> 8) & 0x1f;
+                return hlit <= 29 && hdist <= 29;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Zero bytes stand for history before the restart point. Repetitive logs copy most of their bytes from that
+     * history, so only the bytes that did decode are checked, and there have to be enough of them.
+     */
+    private static boolean looksLikeText(byte[] text, int length) {
+        if (length < MIN_PROBE_OUTPUT) {
+            return false;
+        }
+        int known = 0;
+        for (int i = 0; i < length; i++) {
+            int b = text[i] & 0xff;
+            if (b != 0 && b < 0x20 && b != '\t' && b != '\n' && b != '\r' || b == 0x7f) {
+                return false;
+            }
+            if (b != 0) {
+                known++;
+            }
+        }
+        return known * 100 >= length;
+    }
+
+    private static byte[] shift(byte[] data, int bit) {
+        if (bit == 0) {
+            return data;
+        }
+        byte[] shifted = new byte[data.length - 1];
+        for (int i = 0; i < shifted.length; i++) {
+            shifted[i] = (byte) (((data[i] & 0xff) >>> bit) | ((data[i + 1] & 0xff) << (8 - bit)));
+        }
+        return shifted;
+    }
+}
@@ -0,0 +1,390 @@
+package io.aem.cloud.processor;
+
+import lombok.Cleanup;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a growing gzip archive a piece at a time. The {@link Inflater} state, the compressed input
+ * position and the decompressed output position survive between calls, so every call only reads the bytes
+ * appended to the archive since the previous one. A deflate block cut in the middle is fine, the inflater
+ * keeps the partial block and continues once the rest arrives. Concatenated gzip members are supported.
+ * <p>
+ * The input can come from the archive file or straight from memory, see {@link #inflate(byte[], int, int,
+ * OutputStream)}; either way it has to be the archive bytes following {@link #getInputPosition()}.
+ * <p>
+ * The inflater can also be started in the middle of an archive, either at a gzip member header or at a
+ * deflate block boundary that isn't byte aligned (see {@link DeflateResync}). In the latter case the input is
+ * bit-shifted on the fly until the member ends, back references into the unknown history resolve to zero
+ * bytes, and the member trailer isn't verified.
+ * <p>
+ * The start of the current member is tracked, inflating again from there reproduces the output exactly, which
+ * makes it a restart point for checkpoints.
+ */
+public class IncrementalGzipInflater implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int TRAILER_SIZE = 8;
+    private static final int WINDOW_SIZE = 32 * 1024;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private enum State {HEADER, BODY, TRAILER, SEEK_MEMBER}
+
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private final CRC32 crc = new CRC32();
+    private Inflater inflater = new Inflater(true);
+    private byte[] shifted;
+
+    private State state = State.HEADER;
+    private byte[] pending = new byte[64];
+    private int pendingLength;
+    private long memberSize;
+    private long written;
+
+    private boolean resyncing;
+    private int shift;
+    private int carry;
+    private long memberSearchFrom;
+
+    @Getter
+    private long inputPosition;
+    @Getter
+    private long outputPosition;
+    /**
+     * Input position of the current member's header, -1 while inside a member joined midway.
+     */
+    @Getter
+    private long memberInputPosition = -1;
+    /**
+     * Output position where the current member's data starts.
+     */
+    @Getter
+    private long memberOutputPosition;
+
+    /**
+     * Inflates everything appended to the archive file since the last call and writes it to the output.
+     *
+     * @return number of decompressed bytes written.
+     */
+    public long inflate(File archive, OutputStream out) throws IOException {
+        @Cleanup RandomAccessFile file = new RandomAccessFile(archive, "r");
+        if (file.length() < inputPosition) {
+            throw new ZipException("Archive shrank from " + inputPosition + " to " + file.length() + " bytes.");
+        }
+        file.seek(inputPosition);
+        long total = 0;
+        int read;
+        while ((read = file.read(input)) > 0) {
+            total += inflate(input, 0, read, out);
+        }
+        return total;
+    }
+
+    /**
+     * Inflates the next {@code len} archive bytes and writes the decompressed data to the output.
+     *
+     * @return number of decompressed bytes written.
+     */
+    public long inflate(byte[] buf, int off, int len, OutputStream out) throws IOException {
+        final int end = off + len;
+        long position = inputPosition;
+        inputPosition += len;
+        written = 0;
+        while (off < end) {
+            int used;
+            switch (state) {
+                case HEADER:
+                    if (pendingLength == 0) {
+                        markMember(position);
+                    }
+                    used = readHeader(buf, off, end - off);
+                    break;
+                case BODY:
+                    used = shift == 0
+                            ? inflateBody(buf, off, end - off, position, out)
+                            : inflateShifted(buf, off, end - off, position, out);
+                    break;
+                case TRAILER:
+                    used = readTrailer(buf, off, end - off);
+                    break;
+                default:
+                    used = seekMember(buf, off, end - off, position);
+                    break;
+            }
+            off += used;
+            position += used;
+        }
+        outputPosition += written;
+        return written;
+    }
+
+    /**
+     * Starts inflating at a gzip member header found at the given archive offset.
+     */
+    static IncrementalGzipInflater atMember(long position) {
+        return atMember(position, 0);
+    }
+
+    /**
+     * Starts inflating at a gzip member header, counting the output from {@code outputPosition} on.
+     */
+    public static IncrementalGzipInflater atMember(long position, long outputPosition) {
+        IncrementalGzipInflater gzipInflater = new IncrementalGzipInflater();
+        gzipInflater.inputPosition = position;
+        gzipInflater.outputPosition = outputPosition;
+        return gzipInflater;
+    }
+
+    /**
+     * Starts inflating at a deflate block header beginning at the given bit of the byte at {@code position}.
+     */
+    static IncrementalGzipInflater atBlock(long position, int bitOffset, int firstByte) {
+        IncrementalGzipInflater gzipInflater = new IncrementalGzipInflater();
+        gzipInflater.inflater.setDictionary(new byte[WINDOW_SIZE]);
+        gzipInflater.state = State.BODY;
+        gzipInflater.resyncing = true;
+        if (bitOffset == 0) {
+            gzipInflater.inputPosition = position;
+        } else {
+            gzipInflater.inputPosition = position + 1;
+            gzipInflater.shift = bitOffset;
+            gzipInflater.carry = firstByte & 0xff;
+        }
+        return gzipInflater;
+    }
+
+    public void reset() {
+        inflater.end();
+        inflater = new Inflater(true);
+        crc.reset();
+        state = State.HEADER;
+        pendingLength = 0;
+        memberSize = 0;
+        resyncing = false;
+        shift = 0;
+        inputPosition = 0;
+        outputPosition = 0;
+        memberInputPosition = -1;
+        memberOutputPosition = 0;
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    private int readHeader(byte[] buf, int off, int len) throws ZipException {
+        appendPending(buf, off, len);
+        int headerLength = headerLength(pending, pendingLength);
+        if (headerLength < 0) {
+            return len;
+        }
+        // Whatever followed the header in the pending buffer belongs to the body.
+        int overshoot = pendingLength - headerLength;
+        pendingLength = 0;
+        state = State.BODY;
+        return len - overshoot;
+    }
+
+    private int inflateBody(byte[] buf, int off, int len, long position, OutputStream out) throws IOException {
+        inflater.setInput(buf, off, len);
+        drain(out);
+        if (!inflater.finished()) {
+            // Everything was handed to the inflater, it keeps whatever it couldn't decode yet.
+            return len;
+        }
+        int used = len - inflater.getRemaining();
+        if (resyncing) {
+            memberEnded(position + used);
+        } else {
+            state = State.TRAILER;
+        }
+        return used;
+    }
+
+    private int inflateShifted(byte[] buf, int off, int len, long position, OutputStream out) throws IOException {
+        if (shifted == null) {
+            shifted = new byte[BUFFER_SIZE];
+        }
+        int used = 0;
+        while (used < len) {
+            int n = Math.min(shifted.length, len - used);
+            for (int i = 0; i < n; i++) {
+                int next = buf[off + used + i] & 0xff;
+                shifted[i] = (byte) ((carry >>> shift) | (next << (8 - shift)));
+                carry = next;
+            }
+            inflater.setInput(shifted, 0, n);
+            drain(out);
+            if (inflater.finished()) {
+                // The last block ended in the shifted byte built from the archive byte at this position, so the
+                // trailer starts right after it or one byte later.
+                int consumed = n - inflater.getRemaining();
+                long lastByte = position + used + consumed - 1;
+                memberEnded(lastByte);
+                return used + consumed;
+            }
+            used += n;
+        }
+        return used;
+    }
+
+    private void memberEnded(long trailerPosition) {
+        // The trailer of a member joined midway can't be verified, so go and find the next header.
+        memberSearchFrom = trailerPosition + TRAILER_SIZE;
+        resyncing = false;
+        shift = 0;
+        pendingLength = 0;
+        state = State.SEEK_MEMBER;
+    }
+
+    /**
+     * After a resynchronized member the trailer position is only known to within one byte, the next member
+     * header settles it.
+     */
+    private int seekMember(byte[] buf, int off, int len, long position) throws ZipException {
+        if (position < memberSearchFrom) {
+            return (int) Math.min(len, memberSearchFrom - position);
+        }
+        int used = Math.min(len, 4 - pendingLength);
+        appendPending(buf, off, used);
+        if (pendingLength >= 3 && isMagic(pending, 0)) {
+            markMember(position + used - pendingLength);
+            startMember();
+        } else if (pendingLength == 4 && isMagic(pending, 1)) {
+            System.arraycopy(pending, 1, pending, 0, 3);
+            pendingLength = 3;
+            markMember(position + used - pendingLength);
+            startMember();
+        } else if (pendingLength == 4) {
+            throw new ZipException("No gzip member found after resynchronized member at archive offset "
+                    + memberSearchFrom + ".");
+        }
+        return used;
+    }
+
+    private void markMember(long position) {
+        memberInputPosition = position;
+        memberOutputPosition = outputPosition + written;
+    }
+
+    private void startMember() {
+        crc.reset();
+        memberSize = 0;
+        inflater.reset();
+        state = State.HEADER;
+    }
+
+    private int readTrailer(byte[] buf, int off, int len) throws ZipException {
+        int used = Math.min(TRAILER_SIZE - pendingLength, len);
+        appendPending(buf, off, used);
+        if (pendingLength == TRAILER_SIZE) {
+            checkTrailer();
+            pendingLength = 0;
+            state = State.HEADER;
+        }
+        return used;
+    }
+
+    private void drain(OutputStream out) throws IOException {
+        try {
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(output);
+                if (inflated == 0) {
+                    if (inflater.needsInput() || inflater.needsDictionary()) {
+                        break;
+                    }
+                    continue;
+                }
+                crc.update(output, 0, inflated);
+                memberSize += inflated;
+                out.write(output, 0, inflated);
+                written += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid deflate data before archive offset " + inputPosition + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private void checkTrailer() throws ZipException {
+        long expectedCrc = readIntLE(pending, 0);
+        long expectedSize = readIntLE(pending, 4);
+        if (expectedCrc != crc.getValue() || expectedSize != (memberSize & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer before archive offset " + inputPosition + ".");
+        }
+        startMember();
+    }
+
+    private void appendPending(byte[] buf, int off, int len) {
+        if (pendingLength + len > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + len));
+        }
+        System.arraycopy(buf, off, pending, pendingLength, len);
+        pendingLength += len;
+    }
+
+    private static boolean isMagic(byte[] buf, int off) {
+        return ((buf[off] & 0xff) | ((buf[off + 1] & 0xff) << 8)) == GZIP_MAGIC && buf[off + 2] == 8;
+    }
+
+    /**
+     * @return full length of the gzip member header in the buffer, or -1 if more bytes are needed.
+     */
+    private static int headerLength(byte[] buf, int len) throws ZipException {
+        if (len < 10) {
+            return -1;
+        }
+        if (!isMagic(buf, 0)) {
+            throw new ZipException("Not in GZIP format.");
+        }
+        int flags = buf[3] & 0xff;
+        int pos = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (len < pos + 2) {
+                return -1;
+            }
+            pos += 2 + ((buf[pos] & 0xff) | ((buf[pos + 1] & 0xff) << 8));
+        }
+        if ((flags & FNAME) != 0) {
+            pos = skipZeroTerminated(buf, pos, len);
+        }
+        if ((flags & FCOMMENT) != 0 && pos >= 0) {
+            pos = skipZeroTerminated(buf, pos, len);
+        }
+        if ((flags & FHCRC) != 0 && pos >= 0) {
+            pos += 2;
+        }
+        return pos < 0 || pos > len ? -1 : pos;
+    }
+
+    private static int skipZeroTerminated(byte[] buf, int pos, int len) {
+        for (int i = pos; i < len; i++) {
+            if (buf[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long readIntLE(byte[] buf, int off) {
+        return (buf[off] & 0xffL)
+                | ((buf[off + 1] & 0xffL) << 8)
+                | ((buf[off + 2] & 0xffL) << 16)
+                | ((buf[off + 3] & 0xffL) << 24);
+    }
+}
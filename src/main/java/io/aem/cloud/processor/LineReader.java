@@ -0,0 +1,68 @@
+package io.aem.cloud.processor;
+
+import io.aem.cloud.output.LineSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads lines from a file in large blocks and hands them to a {@link LineSink} as byte slices of one
+ * reused buffer, no per line allocation or syscall. A line is only read once its newline was written, an
+ * unfinished last line is left for the next call.
+ */
+public class LineReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Positional read like {@link FileChannel#read(ByteBuffer, long)}, returning -1 or 0 at the end.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        int read(ByteBuffer buffer, long position) throws IOException;
+    }
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+
+    /**
+     * @return position after the last complete line that was read.
+     */
+    public long readLines(FileChannel channel, long position, LineSink sink) throws IOException {
+        return readLines(channel::read, position, sink);
+    }
+
+    /**
+     * @return position after the last complete line that was read.
+     */
+    public long readLines(BlockSource source, long position, LineSink sink) throws IOException {
+        int length = 0;
+        while (true) {
+            byteBuffer.clear().position(length);
+            int read = source.read(byteBuffer, position + length);
+            if (read <= 0) {
+                return position;
+            }
+            length += read;
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    int lineEnd = i > lineStart && buffer[i - 1] == '\r' ? i - 1 : i;
+                    sink.line(buffer, lineStart, lineEnd - lineStart);
+                    lineStart = i + 1;
+                }
+            }
+            position += lineStart;
+            length -= lineStart;
+            if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+            } else if (length == buffer.length) {
+                // A single line longer than the buffer.
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                byteBuffer = ByteBuffer.wrap(buffer);
+            }
+        }
+    }
+}
@@ -1,38 +1,76 @@
 package io.aem.cloud.processor;
 
-import io.aem.cloud.Main;
 import io.aem.cloud.api.LogApi;
+import io.aem.cloud.api.TransportException;
+import io.aem.cloud.metrics.Metrics;
+import io.aem.cloud.model.Checkpoint;
+import io.aem.cloud.model.LogArchive;
 import lombok.Cleanup;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FileUtils;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPInputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
 
 @RequiredArgsConstructor
 public class LogDownloader implements Runnable {
 
+    private static final long FAST_START_BYTES = FileUtils.ONE_KB * 512;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_REPLAY_BYTES = FileUtils.ONE_MB * 4;
+    private static final long RESYNC_MARGIN = FileUtils.ONE_KB * 256;
+    private static final int ANCHOR_SIZE = 1024;
+
     private final LogApi logApi;
     private final File tempDir;
+    private final LogWindow window;
+    private final int fastStartLines;
+    private final PollScheduler scheduler;
+    /**
+     * Where the tail's progress is saved after every poll, null to start from scratch every time.
+     */
+    private final CheckpointStore checkpoints;
+    private IncrementalGzipInflater inflater = new IncrementalGzipInflater();
+    private String archiveDate;
+    private long archiveOffset;
+    // Window position minus inflater output position, the same for all bytes appended since the last reset.
+    private long outputDelta;
+    private long checkpointed = -1;
 
     @Override
     public void run() {
-        long lastArchiveSize = 0;
+        boolean firstPoll = true;
         while (!Thread.currentThread().isInterrupted()) {
             try {
-                File file = logApi.downloadLog();
-                if (lastArchiveSize == 0 || lastArchiveSize < file.length()) {
-                    decompress(file);
+                if (firstPoll && (resume() || fastStartLines > 0 && fastStart())) {
+                    firstPoll = false;
+                    checkpoint();
+                    scheduler.sleep(true);
+                    continue;
+                }
+                firstPoll = false;
+                final long pollStart = System.nanoTime();
+                LogArchive archive = logApi.downloadLog();
+                Metrics.NEW_BYTES.add(archive.getNewBytes());
+                archiveDate = archive.getArchiveDate();
+                archiveOffset = archive.getOffset();
+                if (archive.isRotated()) {
+                    inflater.reset();
+                    window.reset();
+                }
+                if (archive.getNewBytes() > 0) {
+                    decompress(archive.getFile());
                 }
-                lastArchiveSize = file.length();
-                TimeUnit.SECONDS.sleep(10);
+                Metrics.POLL.recordSince(pollStart);
+                checkpoint();
+                scheduler.sleep(archive.getNewBytes() > 0);
             } catch (Exception e) {
                 if (e instanceof InterruptedException) {
                     Thread.currentThread().interrupt();
+                } else if (e instanceof TransportException) {
+                    // The outage was reported, the bytes received so far are kept and the next poll goes on.
+                    retryLater();
                 } else {
                     System.err.println("\nERROR while getting the logs from AEMaaCS." +
                             "\n\tMessage: " + e);
@@ -43,46 +81,212 @@ public class LogDownloader implements Runnable {
 
     }
 
-    private File decompress(File archiveLog) throws IOException, InterruptedException {
-        File actualLogFile = getOrCreateActualLogFile(archiveLog);
-        long uncompressedSizeOfGZip = getUncompressedSizeOfGZip(archiveLog);
-        if (uncompressedSizeOfGZip > actualLogFile.length()) {
-            @Cleanup InputStream archiveData = new GZIPInputStream(new FileInputStream(archiveLog));
-            archiveData.skip(actualLogFile.length());
-            @Cleanup OutputStream outputStream = Files.newOutputStream(actualLogFile.toPath(),
-                    StandardOpenOption.APPEND);
-            archiveData.transferTo(outputStream);
-            outputStream.flush();
-            synchronized (tempDir) {
-                tempDir.notify();
-                tempDir.wait();
+    private void retryLater() {
+        try {
+            scheduler.sleep(false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Fetches only the tail of the archive and starts inflating from a restart point inside it.
+     *
+     * @return false if there was no usable restart point, the archive then has to be inflated from the start.
+     */
+    private boolean fastStart() throws IOException, InterruptedException {
+        LogArchive tail = logApi.downloadTail(FAST_START_BYTES);
+        archiveDate = tail.getArchiveDate();
+        archiveOffset = tail.getOffset();
+        if (tail.getOffset() == 0) {
+            if (tail.getNewBytes() > 0) {
+                decompress(tail.getFile());
             }
+            return true;
+        }
+        window.reset();
+        @Cleanup OutputStream outputStream = new BufferedOutputStream(window.appender(), BUFFER_SIZE);
+        final DeflateResync resync = new DeflateResync(fastStartLines);
+        IncrementalGzipInflater resynced = resync.resync(tail.getFile(), outputStream);
+        outputStream.flush();
+        if (resynced == null) {
+            System.err.println("\nCouldn't start from the tail of the log archive after " +
+                    resync.getElapsedMillis() + " ms, downloading the whole archive." +
+                    "\n\tReason: " + resync.getFallbackReason());
+            logApi.discardArchive();
+            return false;
         }
-        return actualLogFile;
+        inflater.close();
+        inflater = resynced;
+        outputDelta = window.end() - inflater.getOutputPosition();
+        window.compact();
+        notifyTailor();
+        return true;
     }
 
-    private File getOrCreateActualLogFile(File archiveLog) throws IOException {
-        String actualLogFilePath = tempDir.getPath().concat("/".concat(Main.TEMP_LOG_FILE_NAME));
-        File actualLogFile;
-        Path actualLogAsPath = Paths.get(actualLogFilePath);
-        if (Files.notExists(actualLogAsPath)) {
-            actualLogFile = Files.createFile(actualLogAsPath).toFile();
-            archiveLog.setReadable(true);
-            archiveLog.setWritable(true);
-            archiveLog.setExecutable(true);
+    /**
+     * Continues from the saved checkpoint of the current archive. The member holding the next line is inflated again
+     * if it's close enough, the lines up to the checkpoint dropped. Otherwise the archive is joined at a restart
+     * point shortly before the checkpoint and the last printed line looked up in the output. Either way only a
+     * bounded part of the archive is downloaded.
+     *
+     * @return false if there is no usable checkpoint.
+     */
+    private boolean resume() throws IOException, InterruptedException {
+        final Checkpoint checkpoint = checkpoints == null ? null : checkpoints.load();
+        if (checkpoint == null || !isRecent(checkpoint.getArchiveDate())) {
+            return false;
+        }
+        final boolean exact = checkpoint.getMemberOffset() >= 0
+                && checkpoint.getInputOffset() - checkpoint.getMemberOffset() <= MAX_REPLAY_BYTES;
+        final long from = exact
+                ? checkpoint.getMemberOffset()
+                : Math.max(0, checkpoint.getInputOffset() - RESYNC_MARGIN);
+        archiveDate = checkpoint.getArchiveDate();
+        final LogArchive archive = logApi.downloadFrom(archiveDate, from);
+        archiveOffset = archive.getOffset();
+        if (archive.getLength() < checkpoint.getInputOffset()) {
+            // Shorter than what was already inflated, so it's not the same archive anymore.
+            logApi.discardArchive();
+            return false;
+        }
+        window.reset();
+        @Cleanup OutputStream outputStream = new BufferedOutputStream(window.appender(), BUFFER_SIZE);
+        if (exact) {
+            inflater.close();
+            inflater = IncrementalGzipInflater.atMember(from - archiveOffset, checkpoint.getMemberOutput());
+            inflater.inflate(archive.getFile(), new SkippingOutputStream(outputStream,
+                    checkpoint.getEmittedOutput() - checkpoint.getMemberOutput()));
         } else {
-            actualLogFile = actualLogAsPath.toFile();
+            final ByteArrayOutputStream text = new ByteArrayOutputStream();
+            final DeflateResync resync = new DeflateResync(Integer.MAX_VALUE);
+            final IncrementalGzipInflater resynced = resync.resync(archive.getFile(), text);
+            if (resynced == null) {
+                System.err.println("\nCouldn't rejoin the log archive at the checkpoint after " +
+                        resync.getElapsedMillis() + " ms, starting over." +
+                        "\n\tReason: " + resync.getFallbackReason());
+                logApi.discardArchive();
+                return false;
+            }
+            inflater.close();
+            inflater = resynced;
+            final byte[] bytes = text.toByteArray();
+            int start = indexOf(bytes, checkpoint.getAnchor());
+            if (start < 0) {
+                System.err.println("\nThe last printed line wasn't found again, " +
+                        "some lines may be missing or repeated.");
+                start = 0;
+            }
+            outputStream.write(bytes, start, bytes.length - start);
+        }
+        outputStream.flush();
+        outputDelta = window.end() - inflater.getOutputPosition();
+        window.setResumeAt(window.getBase());
+        window.compact();
+        notifyTailor();
+        return true;
+    }
+
+    /**
+     * Saves how far the tailor got, once it printed something new.
+     */
+    private void checkpoint() throws IOException {
+        final long emitted = window.getEmitted();
+        if (checkpoints == null || emitted <= 0 || emitted == checkpointed || emitted < window.getBase()) {
+            return;
+        }
+        final long emittedOutput = emitted - outputDelta;
+        final boolean memberKnown = inflater.getMemberInputPosition() >= 0
+                && inflater.getMemberOutputPosition() <= emittedOutput;
+        final long anchorStart = Math.max(window.getBase(), emitted - ANCHOR_SIZE);
+        final ByteBuffer anchor = ByteBuffer.allocate((int) (emitted - anchorStart));
+        while (anchor.hasRemaining() && window.read(anchor, anchorStart + anchor.position()) > 0) {
+            // keep reading until the anchor is complete
+        }
+        checkpoints.save(Checkpoint.builder()
+                .archiveDate(archiveDate)
+                .memberOffset(memberKnown ? archiveOffset + inflater.getMemberInputPosition() : -1)
+                .memberOutput(inflater.getMemberOutputPosition())
+                .inputOffset(archiveOffset + inflater.getInputPosition())
+                .emittedOutput(emittedOutput)
+                .anchor(anchor.array())
+                .build());
+        checkpointed = emitted;
+    }
+
+    private void decompress(File archiveLog) throws IOException, InterruptedException {
+        @Cleanup OutputStream outputStream = new BufferedOutputStream(window.appender(), BUFFER_SIZE);
+        final long start = System.nanoTime();
+        long inflated = inflater.inflate(archiveLog, outputStream);
+        outputStream.flush();
+        Metrics.INFLATE.recordSince(start);
+        Metrics.INFLATED_BYTES.add(inflated);
+        outputDelta = window.end() - inflater.getOutputPosition();
+        if (inflated > 0) {
+            window.compact();
+            notifyTailor();
         }
-        return actualLogFile;
     }
 
-    private long getUncompressedSizeOfGZip(File archive) throws IOException {
-        @Cleanup RandomAccessFile tempFile = new RandomAccessFile(archive, "r");
-        tempFile.seek(tempFile.length() - 4);
-        long b4 = tempFile.read();
-        long b3 = tempFile.read();
-        long b2 = tempFile.read();
-        long b1 = tempFile.read();
-        return (b1 << 24) | (b2 << 16) + (b3 << 8) + b4;
+    private void notifyTailor() throws InterruptedException {
+        synchronized (tempDir) {
+            tempDir.notify();
+            tempDir.wait();
+        }
+    }
+
+    /**
+     * A checkpoint of yesterday's archive is still worth resuming, its last lines are read before the tail moves
+     * on to today's archive.
+     */
+    private static boolean isRecent(String archiveDate) {
+        final String today = LogApi.currentArchiveDate();
+        final String yesterday = LocalDate.parse(today).minusDays(1).toString();
+        return today.equals(archiveDate) || yesterday.equals(archiveDate);
+    }
+
+    /**
+     * @return the position right after the first occurrence of the anchor, or -1 if it's missing or empty.
+     */
+    private static int indexOf(byte[] text, byte[] anchor) {
+        if (anchor.length == 0) {
+            return -1;
+        }
+        outer:
+        for (int i = 0; i + anchor.length <= text.length; i++) {
+            for (int j = 0; j < anchor.length; j++) {
+                if (text[i + j] != anchor[j]) {
+                    continue outer;
+                }
+            }
+            return i + anchor.length;
+        }
+        return -1;
+    }
+
+    /**
+     * Drops the first bytes written to it, those were printed before the restart.
+     */
+    private static class SkippingOutputStream extends FilterOutputStream {
+        private long skip;
+
+        SkippingOutputStream(OutputStream out, long skip) {
+            super(out);
+            this.skip = skip;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final int skipped = (int) Math.min(skip, len);
+            skip -= skipped;
+            if (skipped < len) {
+                out.write(b, off + skipped, len - skipped);
+            }
+        }
     }
 }
@@ -1,52 +1,70 @@
 package io.aem.cloud.processor;
 
-import io.aem.cloud.Main;
+import io.aem.cloud.metrics.Metrics;
+import io.aem.cloud.output.LineSink;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.ArrayUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 
 @RequiredArgsConstructor
 public class LogTailor implements Runnable {
 
+    private static final long MAX_MAPPING = FileUtils.ONE_MB * 64;
+
     private final File tempDir;
+    private final LogWindow window;
+    private final int initialLines;
+    private final LineSink sink;
+    private final LineReader lineReader = new LineReader();
+
+    private MappedByteBuffer mapped;
+    private long mappedFrom;
+    private long mappedTo;
+    private long mappedGeneration = -1;
 
     @Override
     public void run() {
-        long lastKnowPointer = 0;
+        long lastKnowPointer = -1;
+        long epoch = window.getEpoch();
         System.out.println();
         try {
             while (!Thread.currentThread().isInterrupted()) {
                 synchronized (tempDir) {
                     tempDir.wait();
                 }
-                final File logFile = getLogFile(tempDir);
-                if (logFile == null) {
-                    synchronized (tempDir) {
-                        tempDir.notify();
-                    }
-                    continue;
+                if (window.getEpoch() != epoch) {
+                    // The archive was rotated and the local log started over.
+                    epoch = window.getEpoch();
+                    lastKnowPointer = lastKnowPointer < 0 ? -1 : 0;
+                }
+                final long end = window.end();
+                if (lastKnowPointer < 0 && end > 0) {
+                    lastKnowPointer = initialPosition(end);
                 }
-                long fileLength = logFile.length();
-                if (fileLength > lastKnowPointer) {
-                    RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
-                    raf.seek(lastKnowPointer == 0 ? fileLength - FileUtils.ONE_KB * 5 : lastKnowPointer);
-                    String line;
-                    while ((line = raf.readLine()) != null) {
-                        System.out.println(line);
+                Metrics.setPendingBytes(lastKnowPointer < 0 ? 0 : end - lastKnowPointer);
+                while (lastKnowPointer >= 0 && lastKnowPointer < end) {
+                    long next = lineReader.readLines(this::readMapped, lastKnowPointer, sink);
+                    if (next == lastKnowPointer) {
+                        break;
                     }
-                    lastKnowPointer = raf.getFilePointer();
-                    IOUtils.closeQuietly(raf);
+                    lastKnowPointer = next;
+                }
+                sink.flush();
+                if (lastKnowPointer >= 0) {
+                    // Printed isn't shown yet, the checkpoint only moves on once the output wrote the lines.
+                    final long printed = lastKnowPointer;
+                    final long printedEpoch = epoch;
+                    sink.whenWritten(() -> window.setEmitted(printed, printedEpoch));
                 }
                 synchronized (tempDir) {
                     tempDir.notify();
                 }
             }
-        } catch (InterruptedException | IOException e) {
+        } catch (InterruptedException | IOException | RuntimeException e) {
             if (e instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
             } else {
@@ -57,11 +75,53 @@ public class LogTailor implements Runnable {
         }
     }
 
-    private File getLogFile(File tempDir) {
-        final File[] files = tempDir.listFiles((dir, name) -> name.equals(Main.TEMP_LOG_FILE_NAME));
-        if (ArrayUtils.isEmpty(files)) {
-            return null;
+    /**
+     * Copies from a mapping of the log, which is only redone once reading passes its end, the file grew past it
+     * or the window was compacted.
+     */
+    private int readMapped(ByteBuffer buffer, long position) throws IOException {
+        if (mapped == null || mappedGeneration != window.getGeneration()
+                || position < mappedFrom || position >= mappedTo) {
+            final long end = window.end();
+            if (position >= end) {
+                return -1;
+            }
+            mappedGeneration = window.getGeneration();
+            mappedFrom = position;
+            mappedTo = Math.min(end, position + MAX_MAPPING);
+            mapped = window.map(mappedFrom, mappedTo);
+        }
+        final int length = (int) Math.min(buffer.remaining(), mappedTo - position);
+        final int from = (int) (position - mappedFrom);
+        buffer.put(mapped.duplicate().position(from).limit(from + length));
+        return length;
+    }
+
+    private long initialPosition(long fileLength) throws IOException {
+        if (window.getResumeAt() >= 0) {
+            return window.getResumeAt();
+        }
+        final long start = Math.max(window.getBase(), fileLength - FileUtils.ONE_KB * 5);
+        if (initialLines <= 0) {
+            return start;
+        }
+        // Walk back from the end until enough line breaks were seen, ignoring the one ending the last line.
+        final byte[] buffer = new byte[(int) FileUtils.ONE_KB * 8];
+        long position = fileLength;
+        int newLines = 0;
+        while (position > window.getBase()) {
+            int length = (int) Math.min(buffer.length, position - window.getBase());
+            position -= length;
+            ByteBuffer block = ByteBuffer.wrap(buffer, 0, length);
+            while (block.hasRemaining() && window.read(block, position + block.position()) > 0) {
+                // keep reading until the block is full
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (buffer[i] == '\n' && position + i != fileLength - 1 && ++newLines == initialLines) {
+                    return position + i + 1;
+                }
+            }
         }
-        return files[0];
+        return window.getBase();
     }
 }
@@ -0,0 +1,163 @@
+package io.aem.cloud.processor;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The decompressed log in the temp directory, shared by {@link LogDownloader} (writing) and {@link LogTailor}
+ * (reading) through one channel that stays open for the whole session.
+ * <p>
+ * Positions are logical: they count every byte written since the last {@link #reset()}, so they stay valid when
+ * the rolling window drops the start of the file. With a window size set, the file is compacted to its last
+ * {@code maxBytes} once it grows past twice that, so disk use stays bounded no matter how long the tail runs.
+ * Bytes the tailor hasn't printed yet are never dropped, a poll bigger than the window only waits for the tailor.
+ * Compaction and reset only happen while the tailor waits for the downloader, and both bump the generation so
+ * the tailor knows to drop its mapping.
+ */
+public class LogWindow implements Closeable {
+
+    private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long maxBytes;
+
+    @Getter
+    private volatile long base;
+    @Getter
+    private volatile long generation;
+    @Getter
+    private volatile long epoch;
+    /**
+     * Position right after the last line the tailor printed and the output wrote.
+     */
+    @Getter
+    @Setter
+    private volatile long emitted;
+    /**
+     * Position the tailor starts at instead of showing the last lines, -1 if it doesn't resume anything.
+     */
+    @Getter
+    @Setter
+    private volatile long resumeAt = -1;
+
+    public LogWindow(File file, long maxBytes) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return logical position right after the last written byte.
+     */
+    public long end() throws IOException {
+        return base + channel.size();
+    }
+
+    /**
+     * Moves the emitted position on, unless the window was reset since the tailor printed up to it. The output may
+     * write the lines a while after they were printed.
+     */
+    public synchronized void setEmitted(long emitted, long epoch) {
+        if (this.epoch == epoch && emitted > this.emitted) {
+            this.emitted = emitted;
+        }
+    }
+
+    /**
+     * Drops everything, the following data starts a new log.
+     */
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        base = 0;
+        emitted = 0;
+        resumeAt = -1;
+        generation++;
+        epoch++;
+    }
+
+    public OutputStream appender() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                long position = channel.size();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        };
+    }
+
+    /**
+     * Maps the bytes between the logical positions, the caller makes sure they're still part of the window.
+     */
+    public MappedByteBuffer map(long from, long to) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from - base, to - from);
+    }
+
+    public int read(ByteBuffer buffer, long position) throws IOException {
+        return channel.read(buffer, position - base);
+    }
+
+    /**
+     * Keeps only the last {@code maxBytes} (starting at a line) once the file grew past twice the window size, or
+     * more if the tailor hasn't got that far yet.
+     */
+    public synchronized void compact() throws IOException {
+        final long size = channel.size();
+        if (maxBytes <= 0 || size <= maxBytes * 2) {
+            return;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long from = Math.min(lineStartAfter(size - maxBytes, buffer), emitted - base);
+        if (from <= 0) {
+            return;
+        }
+        long to = 0;
+        while (from < size) {
+            buffer.clear();
+            int read = channel.read(buffer, from);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                to += channel.write(buffer, to);
+            }
+            from += read;
+        }
+        base += size - to;
+        channel.truncate(to);
+        generation++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long lineStartAfter(long position, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer, position - 1);
+        for (int i = 0; i < read; i++) {
+            if (buffer.get(i) == '\n') {
+                return position + i;
+            }
+        }
+        return position;
+    }
+}
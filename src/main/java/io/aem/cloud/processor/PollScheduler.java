@@ -0,0 +1,37 @@
+package io.aem.cloud.processor;
+
+import io.aem.cloud.model.PollSettings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delay between two polls of one archive. A busy log is polled at the minimum delay, a quiet one backs off
+ * exponentially so idle environments cost next to nothing.
+ */
+public class PollScheduler {
+
+    private final PollSettings settings;
+    private long delayMillis;
+
+    public PollScheduler(PollSettings settings) {
+        this.settings = settings;
+        this.delayMillis = settings.getMinDelayMillis();
+    }
+
+    /**
+     * @param changed whether the last poll found new bytes.
+     * @return milliseconds to wait before the next poll.
+     */
+    public long nextDelay(boolean changed) {
+        if (changed) {
+            delayMillis = settings.getMinDelayMillis();
+        } else {
+            delayMillis = Math.min(settings.getMaxDelayMillis(), (long) (delayMillis * settings.getBackoff()));
+        }
+        return delayMillis;
+    }
+
+    public void sleep(boolean changed) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(nextDelay(changed));
+    }
+}
@@ -0,0 +1,136 @@
+package io.aem.cloud.stats;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Approximate top-N of byte string keys with the Space-Saving algorithm: {@code capacity} counters, and a new key
+ * takes over the smallest counter once all are taken. Any key with a weight above total / capacity is
+ * guaranteed to be tracked, its weight is overestimated by at most the {@link #error(int)} of its slot. Memory
+ * is fixed, whatever the number of distinct keys.
+ */
+public class HeavyHitters {
+
+    private static final int MAX_KEY_LENGTH = 160;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] hashes;
+    private final long[] weights;
+    private final long[] errors;
+    private final long[] hits;
+    private final long[] maxima;
+    private final byte[][] keys;
+    private final int[] keyLengths;
+    private final LongIntHashMap index;
+    private int size;
+
+    public HeavyHitters(int capacity) {
+        hashes = new long[capacity];
+        weights = new long[capacity];
+        errors = new long[capacity];
+        hits = new long[capacity];
+        maxima = new long[capacity];
+        keys = new byte[capacity][];
+        keyLengths = new int[capacity];
+        index = new LongIntHashMap(capacity);
+    }
+
+    public void offer(byte[] buf, int off, int len, long weight) {
+        len = Math.min(len, MAX_KEY_LENGTH);
+        final long hash = hash(buf, off, len);
+        int slot = index.get(hash);
+        if (slot == LongIntHashMap.MISSING) {
+            if (size < hashes.length) {
+                slot = size++;
+                weights[slot] = 0;
+                errors[slot] = 0;
+            } else {
+                slot = smallest();
+                index.remove(hashes[slot]);
+                errors[slot] = weights[slot];
+            }
+            hashes[slot] = hash;
+            hits[slot] = 0;
+            maxima[slot] = 0;
+            if (keys[slot] == null) {
+                keys[slot] = new byte[MAX_KEY_LENGTH];
+            }
+            System.arraycopy(buf, off, keys[slot], 0, len);
+            keyLengths[slot] = len;
+            index.put(hash, slot);
+        }
+        weights[slot] += weight;
+        hits[slot]++;
+        maxima[slot] = Math.max(maxima[slot], weight);
+    }
+
+    /**
+     * Takes a {@code 1 / divisor} share off every weight, error and hit count, rounding up so small counts reach 0
+     * too. The order of the keys and their average weight stay as they were.
+     */
+    public void decay(int divisor) {
+        for (int i = 0; i < size; i++) {
+            weights[i] -= (weights[i] + divisor - 1) / divisor;
+            errors[i] -= (errors[i] + divisor - 1) / divisor;
+            hits[i] -= (hits[i] + divisor - 1) / divisor;
+        }
+    }
+
+    /**
+     * @return slots of the {@code n} heaviest keys, heaviest first.
+     */
+    public int[] top(int n) {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(weights[b], weights[a]));
+        final int[] top = new int[Math.min(n, size)];
+        for (int i = 0; i < top.length; i++) {
+            top[i] = slots[i];
+        }
+        return top;
+    }
+
+    public String key(int slot) {
+        return new String(keys[slot], 0, keyLengths[slot], StandardCharsets.UTF_8);
+    }
+
+    public long weight(int slot) {
+        return weights[slot];
+    }
+
+    public long error(int slot) {
+        return errors[slot];
+    }
+
+    /**
+     * @return offers since the key took its slot, less what {@link #decay(int)} took off.
+     */
+    public long hits(int slot) {
+        return hits[slot];
+    }
+
+    public long max(int slot) {
+        return maxima[slot];
+    }
+
+    private int smallest() {
+        int smallest = 0;
+        for (int i = 1; i < size; i++) {
+            if (weights[i] < weights[smallest]) {
+                smallest = i;
+            }
+        }
+        return smallest;
+    }
+
+    static long hash(byte[] buf, int off, int len) {
+        long hash = FNV_OFFSET;
+        for (int i = off, end = off + len; i < end; i++) {
+            hash = (hash ^ (buf[i] & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
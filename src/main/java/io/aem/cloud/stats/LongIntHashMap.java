@@ -0,0 +1,88 @@
+package io.aem.cloud.stats;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from long keys to int values without boxing. Capacity is fixed, callers keep the number
+ * of entries below it. Removal uses backward shifting, so there are no tombstones to clean up.
+ */
+class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private final long[] keys;
+    private final int[] values;
+    private final boolean[] used;
+    private final int mask;
+    private int size;
+
+    LongIntHashMap(int maxEntries) {
+        int capacity = Integer.highestOneBit(Math.max(4, maxEntries * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    int get(long key) {
+        for (int i = index(key); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        int i = index(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    void remove(long key) {
+        int i = index(key);
+        while (used[i] && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (!used[i]) {
+            return;
+        }
+        used[i] = false;
+        size--;
+        // Move later entries of the same probe run into the gap.
+        for (int next = (i + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = index(keys[next]);
+            boolean between = i <= next ? i < home && home <= next : i < home || home <= next;
+            if (!between) {
+                keys[i] = keys[next];
+                values[i] = values[next];
+                used[i] = true;
+                used[next] = false;
+                i = next;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int index(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,40 @@
+package io.aem.cloud.stats;
+
+import io.aem.cloud.DaemonThreads;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redraws the {@link StatsSink} table on the console at a fixed interval.
+ */
+@RequiredArgsConstructor
+public class StatsReporter implements Runnable {
+
+    private static final String CLEAR_SCREEN = "\033[H\033[2J";
+    private static final int ROWS = 5;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final StatsSink stats;
+    private final String title;
+    private final long intervalMillis;
+
+    public ScheduledExecutorService start() {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                DaemonThreads.named("stats-reporter"));
+        executor.scheduleAtFixedRate(this, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    @Override
+    public void run() {
+        final String summary = stats.summary(ROWS);
+        System.out.print(CLEAR_SCREEN + title + "  (updated " + LocalTime.now().format(TIME) + ", lines per minute)"
+                + System.lineSeparator() + System.lineSeparator() + summary);
+        System.out.flush();
+    }
+}
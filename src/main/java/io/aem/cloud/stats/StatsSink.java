@@ -0,0 +1,260 @@
+package io.aem.cloud.stats;
+
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogField;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Aggregates the tailed lines instead of printing them: per minute counts of levels and status classes with a
+ * latency histogram, plus top-N loggers with warnings or errors, exceptions and the request paths taking the
+ * most time. Everything lives in fixed-size arrays and sketches, memory doesn't grow with the number of
+ * distinct loggers, paths or requests.
+ * <p>
+ * The top-N counts fade by a tenth every minute, so they follow the last {@value #WINDOW_MINUTES} minutes or so
+ * instead of piling up since the start. Requests are matched to their responses by pod and request id, the ids
+ * of different pods overlap.
+ * <p>
+ * Minutes are the ones the lines arrived in. Calls are synchronized, the console report is rendered from
+ * another thread.
+ */
+public class StatsSink implements LineSink {
+
+    static final int WINDOW_MINUTES = 10;
+    private static final int TOP_N = 10;
+    private static final int SKETCH_CAPACITY = 128;
+    private static final int OPEN_REQUESTS = 4096;
+    private static final int MAX_PATH_LENGTH = 160;
+    private static final int WARN = 3;
+    private static final String[] LEVEL_NAMES = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+    private static final String FADING = ", fading by a tenth a minute";
+    private static final DateTimeFormatter MINUTE = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private final Minute[] minutes = new Minute[WINDOW_MINUTES];
+    private final HeavyHitters loggers = new HeavyHitters(SKETCH_CAPACITY);
+    private final HeavyHitters exceptions = new HeavyHitters(SKETCH_CAPACITY);
+    private final HeavyHitters slowPaths = new HeavyHitters(SKETCH_CAPACITY);
+    // Paths of requests waiting for their response line, in a ring indexed through the pod and request id.
+    // A slot taken over by a newer request only drops the index entry still pointing at it.
+    private final LongIntHashMap openRequests = new LongIntHashMap(OPEN_REQUESTS);
+    private final long[] openIds = new long[OPEN_REQUESTS];
+    private final byte[][] openPaths = new byte[OPEN_REQUESTS][MAX_PATH_LENGTH];
+    private final int[] openPathLengths = new int[OPEN_REQUESTS];
+    private int nextOpen;
+    private boolean expectException;
+    private long fadedMinute = -1;
+
+    public StatsSink(LogFormat expected) {
+        this.parser = new LogParser(expected);
+        for (int i = 0; i < WINDOW_MINUTES; i++) {
+            minutes[i] = new Minute();
+        }
+    }
+
+    @Override
+    public synchronized void line(byte[] buf, int off, int len) {
+        if (!parser.parse(buf, off, len, record)) {
+            if (expectException) {
+                countException(buf, off, len);
+            }
+            return;
+        }
+        expectException = false;
+        final long now = System.currentTimeMillis() / 60_000;
+        fadeTo(now);
+        final Minute minute = minute(now);
+        switch (record.getFormat()) {
+            case ERROR:
+                int level = record.levelRank();
+                if (level >= 0) {
+                    minute.levels[level]++;
+                }
+                if (level >= WARN) {
+                    loggers.offer(buf, record.start(LogField.LOGGER), record.length(LogField.LOGGER), 1);
+                    expectException = true;
+                }
+                break;
+            case REQUEST:
+                if (record.has(LogField.METHOD)) {
+                    openRequest(requestKey());
+                } else {
+                    closeRequest(minute, requestKey());
+                }
+                break;
+            default:
+                minute.requests++;
+                countStatus(minute);
+                break;
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing is printed per line, see StatsReporter.
+    }
+
+    /**
+     * @return the report table for the last {@code rows} minutes.
+     */
+    public synchronized String summary(int rows) {
+        final long now = System.currentTimeMillis() / 60_000;
+        fadeTo(now);
+        final StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%-6s %7s %7s %7s %7s %7s %6s %6s %6s %6s %7s %7s %7s%n", "minute",
+                "ERROR", "WARN", "INFO", "DEBUG", "reqs", "2xx", "3xx", "4xx", "5xx", "p50 ms", "p95 ms", "p99 ms"));
+        for (long m = now - Math.min(rows, WINDOW_MINUTES) + 1; m <= now; m++) {
+            final Minute minute = minutes[(int) (m % WINDOW_MINUTES)];
+            final boolean current = minute.minute == m;
+            out.append(String.format(Locale.ROOT, "%-6s %7d %7d %7d %7d %7d %6d %6d %6d %6d %7s %7s %7s%n",
+                    MINUTE.format(Instant.ofEpochMilli(m * 60_000).atZone(ZoneId.systemDefault())),
+                    current ? minute.levels[4] : 0, current ? minute.levels[3] : 0,
+                    current ? minute.levels[2] : 0, current ? minute.levels[1] : 0,
+                    current ? minute.requests : 0,
+                    current ? minute.statuses[2] : 0, current ? minute.statuses[3] : 0,
+                    current ? minute.statuses[4] : 0, current ? minute.statuses[5] : 0,
+                    current ? millis(minute.latency.percentile(50)) : "-",
+                    current ? millis(minute.latency.percentile(95)) : "-",
+                    current ? millis(minute.latency.percentile(99)) : "-"));
+        }
+        appendTop(out, "Top loggers with " + LEVEL_NAMES[WARN] + "/" + LEVEL_NAMES[4] + " lines" + FADING, loggers,
+                false);
+        appendTop(out, "Top exceptions" + FADING, exceptions, false);
+        appendTop(out, "Request paths taking the most time" + FADING + " (total ms, count, avg ms, max ms)", slowPaths,
+                true);
+        return out.toString();
+    }
+
+    private void appendTop(StringBuilder out, String title, HeavyHitters sketch, boolean timed) {
+        out.append(System.lineSeparator()).append(title).append(System.lineSeparator());
+        for (int slot : sketch.top(TOP_N)) {
+            if (timed) {
+                out.append(String.format(Locale.ROOT, "%10d %7d %7d %7d  %s%n", sketch.weight(slot),
+                        sketch.hits(slot), sketch.weight(slot) / Math.max(1, sketch.hits(slot)), sketch.max(slot),
+                        sketch.key(slot)));
+            } else {
+                out.append(String.format(Locale.ROOT, "%10d%s  %s%n", sketch.weight(slot),
+                        sketch.error(slot) > 0 ? "~" : " ", sketch.key(slot)));
+            }
+        }
+    }
+
+    private void countException(byte[] buf, int off, int len) {
+        final int end = off + len;
+        int start = off;
+        while (start < end && (buf[start] == ' ' || buf[start] == '\t')) {
+            start++;
+        }
+        if (end - start >= 3 && (buf[start] == 'a' && buf[start + 1] == 't' && buf[start + 2] == ' '
+                || buf[start] == '.' && buf[start + 1] == '.' && buf[start + 2] == '.')) {
+            return;
+        }
+        int nameEnd = start;
+        while (nameEnd < end && buf[nameEnd] != ':' && buf[nameEnd] != ' ') {
+            nameEnd++;
+        }
+        if (nameEnd > start) {
+            exceptions.offer(buf, start, nameEnd - start, 1);
+        }
+        expectException = false;
+    }
+
+    /**
+     * @return the request id mixed with the pod the request ran on, -1 without an id.
+     */
+    private long requestKey() {
+        final long id = record.number(LogField.REQUEST_ID);
+        if (id < 0 || !record.has(LogField.POD)) {
+            return id;
+        }
+        final long pod = HeavyHitters.hash(record.getBuffer(), record.start(LogField.POD), record.length(LogField.POD));
+        return (pod * 31 + id) & Long.MAX_VALUE;
+    }
+
+    private void openRequest(long id) {
+        if (id < 0) {
+            return;
+        }
+        final int slot = nextOpen;
+        nextOpen = (nextOpen + 1) % OPEN_REQUESTS;
+        if (openPathLengths[slot] > 0 && openRequests.get(openIds[slot]) == slot) {
+            openRequests.remove(openIds[slot]);
+        }
+        final int length = Math.min(record.length(LogField.PATH), MAX_PATH_LENGTH);
+        System.arraycopy(record.getBuffer(), record.start(LogField.PATH), openPaths[slot], 0, length);
+        openPathLengths[slot] = Math.max(length, 1);
+        openIds[slot] = id;
+        openRequests.put(id, slot);
+    }
+
+    private void closeRequest(Minute minute, long id) {
+        minute.requests++;
+        countStatus(minute);
+        final long duration = record.number(LogField.DURATION);
+        if (duration < 0) {
+            return;
+        }
+        minute.latency.record(duration);
+        final int slot = id < 0 ? LongIntHashMap.MISSING : openRequests.get(id);
+        if (slot != LongIntHashMap.MISSING) {
+            slowPaths.offer(openPaths[slot], 0, openPathLengths[slot], duration);
+            openRequests.remove(id);
+            openPathLengths[slot] = 0;
+        }
+    }
+
+    private void countStatus(Minute minute) {
+        final long status = record.number(LogField.STATUS);
+        if (status >= 100 && status < 600) {
+            minute.statuses[(int) (status / 100)]++;
+        }
+    }
+
+    private void fadeTo(long epochMinute) {
+        if (fadedMinute >= 0) {
+            // Ten minutes of fading take about two thirds off, an hour leaves nothing worth showing.
+            for (long m = fadedMinute; m < Math.min(epochMinute, fadedMinute + 60); m++) {
+                loggers.decay(WINDOW_MINUTES);
+                exceptions.decay(WINDOW_MINUTES);
+                slowPaths.decay(WINDOW_MINUTES);
+            }
+        }
+        fadedMinute = epochMinute;
+    }
+
+    private Minute minute(long epochMinute) {
+        final Minute minute = minutes[(int) (epochMinute % WINDOW_MINUTES)];
+        if (minute.minute != epochMinute) {
+            minute.reset(epochMinute);
+        }
+        return minute;
+    }
+
+    private static String millis(long value) {
+        return value < 0 ? "-" : String.valueOf(value);
+    }
+
+    private static class Minute {
+        private long minute = -1;
+        private final long[] levels = new long[LEVEL_NAMES.length];
+        private final long[] statuses = new long[6];
+        private long requests;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private void reset(long epochMinute) {
+            minute = epochMinute;
+            Arrays.fill(levels, 0);
+            Arrays.fill(statuses, 0);
+            requests = 0;
+            latency.clear();
+        }
+    }
+}
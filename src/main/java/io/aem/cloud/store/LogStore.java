@@ -0,0 +1,223 @@
+package io.aem.cloud.store;
+
+import io.aem.cloud.filter.FilterRules;
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.output.LineSplittingOutputStream;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.processor.IncrementalGzipInflater;
+import lombok.Cleanup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps downloaded logs on disk across sessions, one directory per program, environment, service, log and UTC
+ * day: {@code <root>/<programId>/<envId>/<service>/<log>/<yyyy-MM-dd>/}. A day is a series of gzip segments
+ * written by {@link StoreWriter}, each with a sparse time index and a trigram bloom filter, so a query for a
+ * time window or a pattern only inflates the blocks that can hold matching lines.
+ * <p>
+ * Whatever was stored of a day, by a tail or a download, is answered from the store for the span of time it
+ * covers, see {@link StoreCoverage}. Only the rest has to be downloaded, and only the lines the store doesn't hold
+ * are added to it.
+ */
+public class LogStore implements Closeable {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File root;
+    private final List<StoreWriter> writers = new ArrayList<>();
+
+    private LogStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * @param dir root of the store, null for {@code ~/.aem-log-tailor/store}.
+     */
+    public static LogStore open(String dir) throws IOException {
+        final File root = dir != null
+                ? new File(dir)
+                : Paths.get(System.getProperty("user.home"), ".aem-log-tailor", "store").toFile();
+        Files.createDirectories(root.toPath());
+        return new LogStore(root);
+    }
+
+    /**
+     * @return a sink that stores the target's lines and passes them on.
+     */
+    public LineSink sink(Target target, LineSink delegate) {
+        return new StoreSink(this, target, delegate);
+    }
+
+    /**
+     * @return the spans of the day the store holds every line of, from the indexes of its segments.
+     */
+    public StoreCoverage coverage(Target target, LocalDate day) {
+        final File dir = dayDir(target, day);
+        final List<long[]> spans = new ArrayList<>();
+        for (int segment = 1, count = segmentCount(dir); segment <= count; segment++) {
+            final SegmentIndex index = SegmentIndex.read(indexFile(dir, segment));
+            if (index != null && index.getCoveredFrom() >= 0) {
+                spans.add(new long[]{index.getCoveredFrom(), index.getCoveredTo()});
+            }
+        }
+        return StoreCoverage.of(spans.toArray(new long[0][]));
+    }
+
+    /**
+     * @return a writer adding the lines the day doesn't cover yet, in segments after the ones already stored.
+     */
+    public StoreWriter appendDay(Target target, LocalDate day) {
+        return register(new StoreWriter(dayDir(target, day), day, LogFormat.ofLogName(target.getLogName()),
+                coverage(target, day)));
+    }
+
+    /**
+     * @return a writer for a download of the day from the start of its archive, covering the day from midnight.
+     */
+    public StoreWriter downloadDay(Target target, LocalDate day) {
+        final StoreWriter writer = appendDay(target, day);
+        writer.coverFrom(startOf(day));
+        return writer;
+    }
+
+    /**
+     * Closes the writer of a day it saw to the end, the day is covered up to midnight.
+     */
+    public void complete(StoreWriter writer) throws IOException {
+        writer.coverTo(startOf(writer.getDay()) + DAY_MILLIS - 1);
+        release(writer);
+    }
+
+    /**
+     * Closes the writer, sealing its last segment.
+     */
+    public void release(StoreWriter writer) throws IOException {
+        writer.close();
+        synchronized (writers) {
+            writers.remove(writer);
+        }
+    }
+
+    /**
+     * Writes the stored lines of the day within the range to the sink, skipping segments that are outside the
+     * range or can't contain any of the filter's literal include patterns, and segments without an index, which
+     * aren't covered. The lines come in time order. The sink still has to apply the range and the filter to the
+     * lines of the blocks that are read.
+     */
+    public void read(Target target, LocalDate day, TimeRange range, FilterRules filterRules, LineSink sink)
+            throws IOException {
+        final File dir = dayDir(target, day);
+        final LineSplittingOutputStream lines = new LineSplittingOutputStream(sink);
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        // Segments don't overlap in time, in the order of their first lines they make the day.
+        final List<SegmentIndex> indexes = new ArrayList<>();
+        final List<File> files = new ArrayList<>();
+        for (int segment = 1, count = segmentCount(dir); segment <= count; segment++) {
+            final SegmentIndex index = SegmentIndex.read(indexFile(dir, segment));
+            if (index == null
+                    || index.getMaxTimestamp() >= 0 && index.getMaxTimestamp() < range.getFromMillis()
+                    || index.getMinTimestamp() > range.getToMillis()
+                    || !mayContain(index, filterRules)) {
+                continue;
+            }
+            int at = indexes.size();
+            while (at > 0 && indexes.get(at - 1).getMinTimestamp() > index.getMinTimestamp()) {
+                at--;
+            }
+            indexes.add(at, index);
+            files.add(at, segmentFile(dir, segment));
+        }
+        for (int i = 0; i < indexes.size(); i++) {
+            final SegmentIndex index = indexes.get(i);
+            final File file = files.get(i);
+            final int firstBlock = index.firstBlockFor(range.getFromMillis());
+            final int endBlock = index.endBlockFor(range.getToMillis());
+            if (endBlock <= firstBlock) {
+                continue;
+            }
+            final long from = index.getBlockOffsets()[firstBlock];
+            final long to = endBlock < index.getBlocks() ? index.getBlockOffsets()[endBlock] : file.length();
+            @Cleanup RandomAccessFile in = new RandomAccessFile(file, "r");
+            @Cleanup IncrementalGzipInflater inflater = new IncrementalGzipInflater();
+            in.seek(from);
+            long remaining = to - from;
+            int read;
+            while (remaining > 0 && (read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                inflater.inflate(buffer, 0, read, lines);
+                remaining -= read;
+            }
+            lines.endLine();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Seals the segments of all writers still open.
+     */
+    @Override
+    public void close() throws IOException {
+        final List<StoreWriter> open;
+        synchronized (writers) {
+            open = new ArrayList<>(writers);
+            writers.clear();
+        }
+        for (StoreWriter writer : open) {
+            writer.close();
+        }
+    }
+
+    static int segmentCount(File dir) {
+        int count = 0;
+        while (segmentFile(dir, count + 1).isFile()) {
+            count++;
+        }
+        return count;
+    }
+
+    static File segmentFile(File dir, int segment) {
+        return new File(dir, String.format("segment-%06d.log.gz", segment));
+    }
+
+    static File indexFile(File dir, int segment) {
+        return new File(dir, String.format("segment-%06d.idx", segment));
+    }
+
+    private static boolean mayContain(SegmentIndex index, FilterRules filterRules) {
+        if (filterRules == null || !filterRules.isIncludes() || !filterRules.getIncludeRegexes().isEmpty()) {
+            return true;
+        }
+        for (byte[] literal : filterRules.getIncludeLiteralBytes()) {
+            if (index.getBloom().mayContain(literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long startOf(LocalDate day) {
+        return day.toEpochDay() * DAY_MILLIS;
+    }
+
+    private StoreWriter register(StoreWriter writer) {
+        synchronized (writers) {
+            writers.add(writer);
+        }
+        return writer;
+    }
+
+    private File dayDir(Target target, LocalDate day) {
+        return Paths.get(root.getPath(), target.getProgramId(), target.getEnvId(), target.getService(),
+                target.getLogName(), day.toString()).toFile();
+    }
+}
@@ -0,0 +1,140 @@
+package io.aem.cloud.store;
+
+import lombok.Cleanup;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * The sparse index written next to a sealed segment: the first timestamp and the compressed offset of every
+ * block (one gzip member each), the time span of the whole segment and its {@link TrigramBloom}. It also keeps the
+ * span of time the writer of the segment saw every line of, which can start before the segment's first line: that's
+ * what the day's {@link StoreCoverage} is made of.
+ */
+@Getter
+class SegmentIndex {
+
+    private static final int MAGIC = 0x414c5349;
+    private static final int VERSION = 2;
+
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final long coveredFrom;
+    private final long coveredTo;
+    private final long[] blockTimestamps;
+    private final long[] blockOffsets;
+    private final int blocks;
+    private final TrigramBloom bloom;
+
+    SegmentIndex(long minTimestamp, long maxTimestamp, long coveredFrom, long coveredTo, long[] blockTimestamps,
+                 long[] blockOffsets, int blocks, TrigramBloom bloom) {
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.coveredFrom = coveredFrom;
+        this.coveredTo = coveredTo;
+        this.blockTimestamps = blockTimestamps;
+        this.blockOffsets = blockOffsets;
+        this.blocks = blocks;
+        this.bloom = bloom;
+    }
+
+    /**
+     * @return index of the last block starting at or before the time, 0 if all start later.
+     */
+    int firstBlockFor(long fromMillis) {
+        int found = 0;
+        for (int i = 0; i < blocks; i++) {
+            if (blockTimestamps[i] >= 0 && blockTimestamps[i] > fromMillis) {
+                break;
+            }
+            found = i;
+        }
+        return found;
+    }
+
+    /**
+     * @return index of the first block starting after the time, {@code blocks} if none does.
+     */
+    int endBlockFor(long toMillis) {
+        for (int i = 0; i < blocks; i++) {
+            if (blockTimestamps[i] > toMillis) {
+                return i;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Writes the index through a temp file and a rename, so a crash leaves either no index or a complete one.
+     */
+    void write(File file) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(minTimestamp);
+            out.writeLong(maxTimestamp);
+            out.writeLong(coveredFrom);
+            out.writeLong(coveredTo);
+            out.writeInt(blocks);
+            for (int i = 0; i < blocks; i++) {
+                out.writeLong(blockTimestamps[i]);
+                out.writeLong(blockOffsets[i]);
+            }
+            final long[] words = bloom.words();
+            out.writeInt(words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the index, or null if it's missing or unreadable.
+     */
+    static SegmentIndex read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            @Cleanup DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            final long minTimestamp = in.readLong();
+            final long maxTimestamp = in.readLong();
+            final long coveredFrom = in.readLong();
+            final long coveredTo = in.readLong();
+            final int blocks = in.readInt();
+            final long[] timestamps = new long[blocks];
+            final long[] offsets = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                timestamps[i] = in.readLong();
+                offsets[i] = in.readLong();
+            }
+            final long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+            return new SegmentIndex(minTimestamp, maxTimestamp, coveredFrom, coveredTo, timestamps, offsets, blocks,
+                    new TrigramBloom(words));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static long[] grow(long[] values, int size) {
+        return size < values.length ? values : Arrays.copyOf(values, values.length * 2);
+    }
+}
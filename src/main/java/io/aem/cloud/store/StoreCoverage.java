@@ -0,0 +1,75 @@
+package io.aem.cloud.store;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The spans of time a day of the store holds every line of, to the millisecond, both ends included. A tail covers
+ * the span from the first line it saw to the last, a download the day from its start to the last line it read.
+ */
+public class StoreCoverage {
+
+    public static final StoreCoverage NONE = new StoreCoverage(new long[0]);
+
+    /**
+     * Start and end of every span, oldest first. Spans neither overlap nor touch.
+     */
+    private final long[] spans;
+
+    private StoreCoverage(long[] spans) {
+        this.spans = spans;
+    }
+
+    /**
+     * @param spans start and end of each span, in any order, overlapping or not.
+     */
+    static StoreCoverage of(long[][] spans) {
+        final long[][] sorted = spans.clone();
+        Arrays.sort(sorted, Comparator.comparingLong(span -> span[0]));
+        final long[] merged = new long[sorted.length * 2];
+        int length = 0;
+        for (long[] span : sorted) {
+            if (length > 0 && span[0] <= merged[length - 1] + 1) {
+                merged[length - 1] = Math.max(merged[length - 1], span[1]);
+            } else {
+                merged[length++] = span[0];
+                merged[length++] = span[1];
+            }
+        }
+        return new StoreCoverage(Arrays.copyOf(merged, length));
+    }
+
+    public boolean contains(long epochMillis) {
+        for (int i = 0; i < spans.length && spans[i] <= epochMillis; i += 2) {
+            if (epochMillis <= spans[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if some of the time from {@code fromMillis} to {@code toMillis} is covered.
+     */
+    public boolean overlaps(long fromMillis, long toMillis) {
+        for (int i = 0; i < spans.length && spans[i] <= toMillis; i += 2) {
+            if (spans[i + 1] >= fromMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the last millisecond from {@code fromMillis} to {@code toMillis} that isn't covered, -1 if all are.
+     */
+    public long lastMissing(long fromMillis, long toMillis) {
+        long missing = toMillis;
+        for (int i = spans.length - 2; i >= 0 && missing >= fromMillis; i -= 2) {
+            if (spans[i] <= missing && spans[i + 1] >= missing) {
+                missing = spans[i] - 1;
+            }
+        }
+        return missing >= fromMillis ? missing : -1;
+    }
+}
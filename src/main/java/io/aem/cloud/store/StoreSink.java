@@ -0,0 +1,74 @@
+package io.aem.cloud.store;
+
+import io.aem.cloud.model.Target;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Copies every line into the store before passing it on. The store day follows the timestamps of the lines, so
+ * a tail running past midnight starts the next day's segments, the day it leaves covered up to midnight and the
+ * next one from there. Lines a tail started over prints again are already covered and aren't stored twice.
+ */
+public class StoreSink implements LineSink {
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final LogStore store;
+    private final Target target;
+    private final LineSink delegate;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private StoreWriter writer;
+    private long day = -1;
+
+    StoreSink(LogStore store, Target target, LineSink delegate) {
+        this.store = store;
+        this.target = target;
+        this.delegate = delegate;
+        this.parser = new LogParser(LogFormat.ofLogName(target.getLogName()));
+    }
+
+    @Override
+    public void line(byte[] buf, int off, int len) throws IOException {
+        long lineDay = day;
+        if (parser.parse(buf, off, len, record)) {
+            final long timestamp = record.epochMillis();
+            if (timestamp >= 0) {
+                lineDay = timestamp / DAY_MILLIS;
+            }
+        }
+        if (lineDay < 0) {
+            lineDay = System.currentTimeMillis() / DAY_MILLIS;
+        }
+        if (writer == null || lineDay != day) {
+            final boolean midnight = writer != null && lineDay > day;
+            if (midnight) {
+                store.complete(writer);
+            } else if (writer != null) {
+                store.release(writer);
+            }
+            day = lineDay;
+            writer = store.appendDay(target, LocalDate.ofEpochDay(day));
+            if (midnight) {
+                writer.coverFrom(LogStore.startOf(writer.getDay()));
+            }
+        }
+        writer.line(buf, off, len);
+        delegate.line(buf, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void whenWritten(Runnable action) throws IOException {
+        delegate.whenWritten(action);
+    }
+}
@@ -0,0 +1,189 @@
+package io.aem.cloud.store;
+
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogFormat;
+import io.aem.cloud.parser.LogParser;
+import io.aem.cloud.parser.LogRecord;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends the lines of one log and day to the store. Lines are collected into blocks of about
+ * {@value #BLOCK_SIZE} bytes, each written as its own gzip member, and blocks into segments of about
+ * {@value #SEGMENT_SIZE} bytes. A segment gets its {@link SegmentIndex} once it's full or the writer is closed;
+ * a segment left without one by a crash isn't part of the day's coverage and isn't read, its lines are downloaded
+ * again.
+ * <p>
+ * Lines within the time the day already covers are skipped, so a tail started over or a download of the whole day
+ * only adds what's missing. A segment ends where the lines reach covered time, so the segments of a day never
+ * overlap in time. The writer covers the time from the first line it sees to the last, skipped or not.
+ */
+public class StoreWriter implements LineSink, Closeable {
+
+    static final int BLOCK_SIZE = 256 * 1024;
+    static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    @Getter
+    private final File dir;
+    @Getter
+    private final LocalDate day;
+    private final StoreCoverage stored;
+    private final LogParser parser;
+    private final LogRecord record = new LogRecord();
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE + 4096);
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(BLOCK_SIZE / 4);
+
+    private int segment;
+    private FileOutputStream out;
+    private long segmentOffset;
+    private long segmentBytes;
+    private TrigramBloom bloom;
+    private long[] blockTimestamps;
+    private long[] blockOffsets;
+    private int blocks;
+    private long blockTimestamp;
+    private long minTimestamp;
+    private long maxTimestamp;
+    private long lastTimestamp = -1;
+    private long coveredFrom = -1;
+    private long coveredTo = -1;
+    private boolean skipping;
+    private boolean closed;
+
+    StoreWriter(File dir, LocalDate day, LogFormat format, StoreCoverage stored) {
+        this.dir = dir;
+        this.day = day;
+        this.stored = stored;
+        this.parser = new LogParser(format);
+    }
+
+    @Override
+    public synchronized void line(byte[] buf, int off, int len) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (parser.parse(buf, off, len, record)) {
+            final long timestamp = record.epochMillis();
+            if (timestamp >= 0) {
+                lastTimestamp = timestamp;
+                skipping = stored.contains(timestamp);
+                coveredFrom = coveredFrom < 0 ? timestamp : Math.min(coveredFrom, timestamp);
+                coveredTo = Math.max(coveredTo, timestamp);
+            }
+        }
+        if (skipping) {
+            if (out != null) {
+                writeBlock();
+                sealSegment();
+            }
+            return;
+        }
+        if (out == null) {
+            startSegment();
+        }
+        if (block.size() == 0) {
+            blockTimestamp = lastTimestamp;
+        }
+        if (lastTimestamp >= 0) {
+            minTimestamp = minTimestamp < 0 ? lastTimestamp : Math.min(minTimestamp, lastTimestamp);
+            maxTimestamp = Math.max(maxTimestamp, lastTimestamp);
+        }
+        block.write(buf, off, len);
+        block.write('\n');
+        bloom.addLine(buf, off, len);
+        if (block.size() >= BLOCK_SIZE) {
+            writeBlock();
+            if (segmentBytes >= SEGMENT_SIZE) {
+                sealSegment();
+            }
+        }
+    }
+
+    /**
+     * Extends the coverage back to the time, for a writer that saw every line since then before its first one.
+     */
+    synchronized void coverFrom(long epochMillis) {
+        coveredFrom = coveredFrom < 0 ? epochMillis : Math.min(coveredFrom, epochMillis);
+    }
+
+    /**
+     * Extends the coverage up to the time, for a writer that saw every line until then after its last one.
+     */
+    synchronized void coverTo(long epochMillis) {
+        coveredFrom = coveredFrom < 0 ? epochMillis : coveredFrom;
+        coveredTo = Math.max(coveredTo, epochMillis);
+    }
+
+    /**
+     * Blocks are only written once full, so lines reach the disk in compressible chunks.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out == null && coveredFrom >= 0 && stored.lastMissing(coveredFrom, coveredTo) >= 0) {
+            // Every line was stored already, an empty segment still records that the coverage grew.
+            startSegment();
+        }
+        if (out != null) {
+            writeBlock();
+            sealSegment();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create the store directory " + dir + ".");
+        }
+        segment = LogStore.segmentCount(dir) + 1;
+        out = new FileOutputStream(LogStore.segmentFile(dir, segment));
+        segmentOffset = 0;
+        segmentBytes = 0;
+        bloom = new TrigramBloom();
+        blockTimestamps = new long[64];
+        blockOffsets = new long[64];
+        blocks = 0;
+        minTimestamp = -1;
+        maxTimestamp = -1;
+    }
+
+    private void writeBlock() throws IOException {
+        if (block.size() == 0) {
+            return;
+        }
+        compressed.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 64 * 1024)) {
+            block.writeTo(gzip);
+        }
+        blockTimestamps = SegmentIndex.grow(blockTimestamps, blocks);
+        blockOffsets = SegmentIndex.grow(blockOffsets, blocks);
+        blockTimestamps[blocks] = blockTimestamp;
+        blockOffsets[blocks] = segmentOffset;
+        blocks++;
+        compressed.writeTo(out);
+        segmentOffset += compressed.size();
+        segmentBytes += block.size();
+        block.reset();
+    }
+
+    private void sealSegment() throws IOException {
+        out.getFD().sync();
+        out.close();
+        out = null;
+        new SegmentIndex(minTimestamp, maxTimestamp, coveredFrom, coveredTo, blockTimestamps, blockOffsets, blocks,
+                bloom).write(LogStore.indexFile(dir, segment));
+    }
+}
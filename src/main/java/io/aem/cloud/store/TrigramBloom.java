@@ -0,0 +1,73 @@
+package io.aem.cloud.store;
+
+/**
+ * Bloom filter over the byte trigrams of a segment's lines. A literal of three bytes or more can only be in the
+ * segment if all of its trigrams are, so a single miss proves the segment doesn't contain it. Trigrams instead of
+ * words, because filter patterns are substrings and needn't start or end at a word boundary.
+ */
+class TrigramBloom {
+
+    static final int BITS = 1 << 20;
+    private static final int MASK = BITS - 1;
+
+    private final long[] words;
+
+    TrigramBloom() {
+        this(new long[BITS / 64]);
+    }
+
+    TrigramBloom(long[] words) {
+        this.words = words;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    void addLine(byte[] buf, int off, int len) {
+        if (len < 3) {
+            return;
+        }
+        int trigram = ((buf[off] & 0xff) << 8) | (buf[off + 1] & 0xff);
+        for (int i = off + 2, end = off + len; i < end; i++) {
+            trigram = ((trigram << 8) | (buf[i] & 0xff)) & 0xffffff;
+            final int hash = mix(trigram);
+            set(hash);
+            set(hash >>> 11 | hash << 21);
+            set(hash >>> 22 | hash << 10);
+        }
+    }
+
+    /**
+     * @return false if the literal is certainly not in the segment, true if it may be or is too short to tell.
+     */
+    boolean mayContain(byte[] literal) {
+        if (literal.length < 3) {
+            return true;
+        }
+        int trigram = ((literal[0] & 0xff) << 8) | (literal[1] & 0xff);
+        for (int i = 2; i < literal.length; i++) {
+            trigram = ((trigram << 8) | (literal[i] & 0xff)) & 0xffffff;
+            final int hash = mix(trigram);
+            if (!get(hash) || !get(hash >>> 11 | hash << 21) || !get(hash >>> 22 | hash << 10)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void set(int hash) {
+        final int bit = hash & MASK;
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    private boolean get(int hash) {
+        final int bit = hash & MASK;
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+}
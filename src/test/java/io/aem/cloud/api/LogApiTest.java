@@ -0,0 +1,109 @@
+package io.aem.cloud.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.aem.cloud.model.Credentials;
+import io.aem.cloud.model.LogArchive;
+import io.aem.cloud.model.TransportSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogApiTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private volatile byte[] archive;
+    private volatile boolean cutShort;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/program/", this::download);
+        server.createContext("/archive", this::archive);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesTheRestOfABodyCutShort() throws Exception {
+        final LogApi logApi = ApiBuilder.create(Credentials.builder().orgId("org").clientId("client").build(),
+                TokenManager.fixed("token"), baseUrl(), TransportSettings.builder().retries(0).build())
+                .logApi(tempDir.toFile(), "author", "2", "1", "aemerror");
+        final byte[] first = bytes(10_000, 1);
+        archive = first;
+        logApi.downloadLog();
+
+        final byte[] grown = Arrays.copyOf(first, 30_000);
+        System.arraycopy(bytes(20_000, 2), 0, grown, first.length, 20_000);
+        archive = grown;
+        cutShort = true;
+        assertThrows(TransportException.class, logApi::downloadLog);
+
+        // The archive hasn't changed since, its validators must not hide the bytes still missing.
+        cutShort = false;
+        final LogArchive rest = logApi.downloadLog();
+        assertArrayEquals(grown, Files.readAllBytes(rest.getFile().toPath()));
+    }
+
+    private String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        final byte[] body = ("{\"redirect\":\"" + baseUrl() + "/archive?Expires=" + (Long.MAX_VALUE / 1000) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private void archive(HttpExchange exchange) throws IOException {
+        final byte[] data = archive;
+        final String etag = "\"" + data.length + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final int from = range == null ? 0 : Integer.parseInt(range.substring(6, range.indexOf('-')));
+        if (range != null) {
+            exchange.getResponseHeaders().set("Content-Range",
+                    "bytes " + from + "-" + (data.length - 1) + "/" + data.length);
+        }
+        exchange.sendResponseHeaders(range == null ? 200 : 206, data.length - from);
+        final OutputStream body = exchange.getResponseBody();
+        body.write(data, from, cutShort ? (data.length - from) / 2 : data.length - from);
+        body.flush();
+        // Closing a fixed length response early breaks the connection off.
+        exchange.close();
+    }
+
+    private static byte[] bytes(int length, long seed) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
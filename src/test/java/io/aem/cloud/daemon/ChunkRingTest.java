@@ -0,0 +1,161 @@
+package io.aem.cloud.daemon;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkRingTest {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    @Test
+    void publishesACopyOfTheLines() {
+        final ChunkRing ring = new ChunkRing(4);
+        final byte[] data = {'a', '\n', 'b', '\n'};
+
+        ring.publish(data, 2);
+        data[0] = 'x';
+
+        assertEquals(1, ring.head());
+        assertArrayEquals(new byte[]{'a', '\n'}, ring.get(0).getData());
+        assertNull(ring.get(1));
+    }
+
+    @Test
+    void overwritesTheOldestChunksOnWrapAround() {
+        final ChunkRing ring = new ChunkRing(3);
+        assertEquals(4, ring.capacity());
+
+        for (long sequence = 0; sequence < 10; sequence++) {
+            ring.publish(chunk(sequence), 8);
+        }
+
+        assertEquals(10, ring.head());
+        for (long sequence = 0; sequence < 6; sequence++) {
+            assertNull(ring.get(sequence), "chunk " + sequence);
+        }
+        for (long sequence = 6; sequence < 10; sequence++) {
+            assertEquals(sequence, ring.get(sequence).getSequence());
+            assertEquals(sequence, ByteBuffer.wrap(ring.get(sequence).getData()).getLong());
+        }
+        assertNull(ring.get(10));
+    }
+
+    @Test
+    void handsEveryChunkOverInOrderToASubscriberKeepingUp() throws InterruptedException {
+        final int count = 200_000;
+        // Room for every chunk, so none is overwritten before it's read.
+        final ChunkRing ring = new ChunkRing(count);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread subscriber = new Thread(() -> {
+            try {
+                long cursor = 0;
+                while (cursor < count) {
+                    ring.await(cursor, 100);
+                    for (ChunkRing.Chunk chunk; cursor < ring.head(); cursor++) {
+                        chunk = ring.get(cursor);
+                        if (chunk == null || ByteBuffer.wrap(chunk.getData()).getLong() != cursor) {
+                            throw new AssertionError("chunk " + cursor + " missing or wrong");
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        subscriber.start();
+        publish(ring, count);
+        subscriber.join(TIMEOUT_MILLIS);
+
+        assertFalse(subscriber.isAlive(), "timed out");
+        assertNull(failure.get());
+    }
+
+    @Test
+    void skipsAheadBehindAFasterProducer() throws InterruptedException {
+        final int count = 200_000;
+        final ChunkRing ring = new ChunkRing(8);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong read = new AtomicLong();
+        final Thread subscriber = new Thread(() -> {
+            try {
+                long cursor = 0;
+                long last = -1;
+                while (last < count - 1) {
+                    ring.await(cursor, 100);
+                    for (; cursor < ring.head(); cursor++) {
+                        final ChunkRing.Chunk chunk = ring.get(cursor);
+                        if (chunk == null) {
+                            // Overwritten, the oldest chunk still there is at most a lap behind the head.
+                            cursor = Math.max(cursor, ring.head() - ring.capacity());
+                            continue;
+                        }
+                        final long sequence = ByteBuffer.wrap(chunk.getData()).getLong();
+                        if (sequence != cursor || sequence <= last) {
+                            throw new AssertionError("chunk " + sequence + " at " + cursor + " after " + last);
+                        }
+                        last = sequence;
+                        read.incrementAndGet();
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        subscriber.start();
+        publish(ring, count);
+        subscriber.join(TIMEOUT_MILLIS);
+
+        assertFalse(subscriber.isAlive(), "timed out");
+        assertNull(failure.get());
+        assertTrue(read.get() > 0 && read.get() <= count);
+    }
+
+    @Test
+    void wakesAWaitingSubscriber() throws InterruptedException {
+        final ChunkRing ring = new ChunkRing(4);
+        final Thread publisher = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            ring.publish(chunk(0), 8);
+        });
+
+        publisher.start();
+        final long start = System.nanoTime();
+        while (ring.head() == 0 && System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS)) {
+            ring.await(0, TIMEOUT_MILLIS);
+        }
+        publisher.join(TIMEOUT_MILLIS);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < TIMEOUT_MILLIS);
+        assertNotNull(ring.get(0));
+    }
+
+    private static void publish(ChunkRing ring, int count) {
+        for (long sequence = 0; sequence < count; sequence++) {
+            ring.publish(chunk(sequence), 8);
+        }
+    }
+
+    /**
+     * @return the sequence number as the content of a chunk.
+     */
+    private static byte[] chunk(long sequence) {
+        return ByteBuffer.allocate(8).putLong(sequence).array();
+    }
+}
@@ -0,0 +1,96 @@
+package io.aem.cloud.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AhoCorasickTest {
+
+    @Test
+    void findsOverlappingPatterns() {
+        final AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers"));
+
+        // "she" and "he" end on the same byte, "hers" starts inside "she".
+        assertEquals(List.of(1, 0, 3), matches(automaton, "ushers"));
+        assertEquals(List.of(0, 0, 1, 0), matches(automaton, "hehesshe"));
+    }
+
+    @Test
+    void findsAPatternInsideAnother() {
+        final AhoCorasick automaton = new AhoCorasick(List.of("NullPointerException", "Pointer", "Exception"));
+
+        assertEquals(List.of(1, 0, 2), matches(automaton, "java.lang.NullPointerException: null"));
+    }
+
+    @Test
+    void findsWhatANaiveSearchFinds() {
+        final Random random = new Random(12);
+        final List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            patterns.add(randomText(random, 1 + random.nextInt(4)));
+        }
+        final AhoCorasick automaton = new AhoCorasick(patterns);
+
+        for (int line = 0; line < 200; line++) {
+            final String text = randomText(random, random.nextInt(300));
+            final int[] found = new int[patterns.size()];
+            for (int pattern : matches(automaton, text)) {
+                found[pattern]++;
+            }
+            final int[] expected = new int[patterns.size()];
+            for (int pattern = 0; pattern < patterns.size(); pattern++) {
+                for (int at = text.indexOf(patterns.get(pattern)); at >= 0;
+                     at = text.indexOf(patterns.get(pattern), at + 1)) {
+                    expected[pattern]++;
+                }
+            }
+            assertArrayEquals(expected, found, text);
+        }
+    }
+
+    @Test
+    void stopsWhenTheListenerSaysSo() {
+        final AhoCorasick automaton = new AhoCorasick(List.of("a"));
+        final byte[] text = "aaaa".getBytes(StandardCharsets.UTF_8);
+        final List<Integer> found = new ArrayList<>();
+
+        automaton.match(text, 0, text.length, pattern -> found.add(pattern) && found.size() < 2);
+
+        assertEquals(List.of(0, 0), found);
+    }
+
+    @Test
+    void matchesOnlyWithinTheRange() {
+        final AhoCorasick automaton = new AhoCorasick(List.of("ERROR"));
+        final byte[] text = "ERROR INFO ERROR".getBytes(StandardCharsets.UTF_8);
+        final List<Integer> found = new ArrayList<>();
+
+        automaton.match(text, 1, 14, found::add);
+
+        assertEquals(List.of(), found);
+    }
+
+    private static List<Integer> matches(AhoCorasick automaton, String text) {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final List<Integer> found = new ArrayList<>();
+        automaton.match(bytes, 0, bytes.length, found::add);
+        return found;
+    }
+
+    /**
+     * @return text over three letters, so patterns overlap a lot.
+     */
+    private static String randomText(Random random, int length) {
+        final StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
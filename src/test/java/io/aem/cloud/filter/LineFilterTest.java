@@ -0,0 +1,92 @@
+package io.aem.cloud.filter;
+
+import io.aem.cloud.model.FilterSettings;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineFilterTest {
+
+    private static final String DEBUG = "17.10.2026 10:42:00.000 [qtp-1] *DEBUG* [qtp-1] com.foo.Bar debug";
+    private static final String INFO = "17.10.2026 10:42:00.001 [qtp-1] *INFO* [qtp-1] com.foo.Bar info";
+    private static final String WARN = "17.10.2026 10:42:00.002 [qtp-1] *WARN* [qtp-1] com.foobar.Baz warn";
+    private static final String ERROR = "17.10.2026 10:42:00.003 [qtp-1] *ERROR* [qtp-1] org.apache.Oak error";
+    private static final String FRAME = "\tat com.foo.Bar.run(Bar.java:1)";
+
+    @Test
+    void keepsTheLevelsFromTheThresholdOn() {
+        final LineFilter filter = filter(FilterSettings.builder().minLevel("warn"));
+
+        assertEquals(List.of(WARN, ERROR, FRAME), kept(filter, DEBUG, FRAME, INFO, WARN, ERROR, FRAME));
+    }
+
+    @Test
+    void dropsAStackTraceWithItsLine() {
+        final LineFilter filter = filter(FilterSettings.builder().minLevel("ERROR"));
+
+        assertEquals(List.of(ERROR, FRAME), kept(filter, INFO, FRAME, FRAME, ERROR, FRAME, WARN, FRAME));
+    }
+
+    @Test
+    void excludesBeforeIncluding() {
+        final LineFilter filter = filter(FilterSettings.builder().include("com.foo").exclude("warn"));
+
+        assertEquals(List.of(DEBUG, INFO), kept(filter, DEBUG, INFO, WARN, ERROR));
+    }
+
+    @Test
+    void includesByRegex() {
+        final LineFilter filter = filter(FilterSettings.builder().include("/Oak|info$/"));
+
+        assertEquals(List.of(INFO, ERROR), kept(filter, DEBUG, INFO, WARN, ERROR));
+    }
+
+    @Test
+    void keepsTheLoggersOnPackageBoundaries() {
+        final LineFilter filter = filter(FilterSettings.builder().logger("com.foo"));
+
+        assertEquals(List.of(DEBUG, FRAME, INFO), kept(filter, DEBUG, FRAME, INFO, WARN, FRAME, ERROR));
+    }
+
+    @Test
+    void dropsTheExcludedLoggers() {
+        final LineFilter filter = filter(FilterSettings.builder().excludedLogger("com.foo").minLevel("INFO"));
+
+        assertEquals(List.of(WARN, ERROR), kept(filter, DEBUG, INFO, WARN, ERROR));
+    }
+
+    @Test
+    void filtersALogWithoutLevelsLineByLine() {
+        final LineFilter filter = filter(FilterSettings.builder().minLevel("ERROR").include("GET"));
+
+        assertEquals(List.of("1.2.3.4 - - GET /content 200", "1.2.3.4 - - GET /etc 404"),
+                kept(filter, "1.2.3.4 - - GET /content 200", "1.2.3.4 - - POST /bin 200",
+                        "1.2.3.4 - - GET /etc 404"));
+    }
+
+    @Test
+    void rejectsAnUnknownLevel() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FilterRules(FilterSettings.builder().minLevel("FATAL").build()));
+    }
+
+    private static LineFilter filter(FilterSettings.FilterSettingsBuilder settings) {
+        return new LineFilter(new FilterRules(settings.build()));
+    }
+
+    private static List<String> kept(LineFilter filter, String... lines) {
+        final List<String> kept = new ArrayList<>();
+        for (String line : lines) {
+            final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            if (filter.accept(bytes, 0, bytes.length)) {
+                kept.add(line);
+            }
+        }
+        return kept;
+    }
+}
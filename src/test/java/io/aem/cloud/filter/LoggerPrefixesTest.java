@@ -0,0 +1,57 @@
+package io.aem.cloud.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggerPrefixesTest {
+
+    @Test
+    void matchesOnPackageBoundaries() {
+        final LoggerPrefixes prefixes = new LoggerPrefixes(List.of("com.foo"));
+
+        assertTrue(matches(prefixes, "com.foo"));
+        assertTrue(matches(prefixes, "com.foo.Bar"));
+        assertTrue(matches(prefixes, "com.foo.bar.Baz"));
+        assertFalse(matches(prefixes, "com.foobar"));
+        assertFalse(matches(prefixes, "com.foobar.Baz"));
+        assertFalse(matches(prefixes, "com.fo"));
+        assertFalse(matches(prefixes, "com"));
+        assertFalse(matches(prefixes, "org.com.foo"));
+    }
+
+    @Test
+    void matchesTheShorterOfNestedPrefixes() {
+        final LoggerPrefixes prefixes = new LoggerPrefixes(List.of("org.apache.sling.engine", "org.apache"));
+
+        assertTrue(matches(prefixes, "org.apache.jackrabbit.oak.Query"));
+        assertTrue(matches(prefixes, "org.apache.sling.engine.impl.SlingRequestProcessorImpl"));
+        assertFalse(matches(prefixes, "org.apachecommons.Foo"));
+    }
+
+    @Test
+    void matchesALoggerWithinALine() {
+        final LoggerPrefixes prefixes = new LoggerPrefixes(List.of("com.foo"));
+        final byte[] line = "[qtp-1] com.foo.Bar message".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(prefixes.matches(line, 8, "com.foo.Bar".length()));
+        assertFalse(prefixes.matches(line, 8, "com.fo".length()));
+    }
+
+    @Test
+    void isEmptyWithoutPrefixes() {
+        final LoggerPrefixes prefixes = new LoggerPrefixes(List.of());
+
+        assertTrue(prefixes.isEmpty());
+        assertFalse(matches(prefixes, "com.foo"));
+    }
+
+    private static boolean matches(LoggerPrefixes prefixes, String logger) {
+        final byte[] bytes = logger.getBytes(StandardCharsets.UTF_8);
+        return prefixes.matches(bytes, 0, bytes.length);
+    }
+}
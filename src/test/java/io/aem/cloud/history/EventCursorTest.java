@@ -0,0 +1,101 @@
+package io.aem.cloud.history;
+
+import io.aem.cloud.event.Event;
+import io.aem.cloud.output.LineSink;
+import io.aem.cloud.parser.LogFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventCursorTest {
+
+    private static final String HEADER = "17.10.2026 10:42:00.000 [cm-p1-e2-aem-author-0] *ERROR* [qtp-1] com.Foo boom";
+
+    @TempDir
+    Path tempDir;
+
+    private final List<String> out = new ArrayList<>();
+    private final LineSink collect = new LineSink() {
+        @Override
+        public void line(byte[] buf, int off, int len) {
+            out.add(new String(buf, off, len, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void flush() {
+        }
+    };
+
+    @Test
+    void keepsAStackTraceWithItsLine() throws IOException {
+        final String text = HEADER + "\njava.lang.Exception: boom\n\tat com.Foo.bar(Foo.java:1)\n"
+                + HEADER.replace("10:42", "10:43") + "\n";
+        try (EventCursor cursor = cursor(LogFormat.ERROR, text)) {
+            assertTrue(cursor.advance());
+            cursor.emit();
+            assertEquals(3, out.size());
+            final long first = cursor.getTimestamp();
+
+            assertTrue(cursor.advance());
+            assertEquals(60_000, cursor.getTimestamp() - first);
+            assertFalse(cursor.advance());
+        }
+    }
+
+    @Test
+    void readsALogOfUnknownFormatLineByLine() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 3_000; i++) {
+            text.append("plain line ").append(i).append('\n');
+        }
+        try (EventCursor cursor = cursor(null, text.toString())) {
+            int events = 0;
+            while (cursor.advance()) {
+                out.clear();
+                cursor.emit();
+                assertEquals(List.of("plain line " + events), out);
+                events++;
+            }
+            assertEquals(3_000, events);
+        }
+    }
+
+    @Test
+    void cutsAnEventAtTheCap() throws IOException {
+        final StringBuilder text = new StringBuilder(HEADER).append('\n');
+        for (int i = 0; i < 2 * Event.MAX_LINES; i++) {
+            text.append("\tat com.Foo.bar").append(i).append("(Foo.java:1)\n");
+        }
+        try (EventCursor cursor = cursor(LogFormat.ERROR, text.toString())) {
+            assertTrue(cursor.advance());
+            cursor.emit();
+            assertEquals(Event.MAX_LINES, out.size());
+            final long timestamp = cursor.getTimestamp();
+
+            int events = 0;
+            while (cursor.advance()) {
+                assertEquals(timestamp, cursor.getTimestamp());
+                cursor.emit();
+                events++;
+            }
+            assertEquals(Event.MAX_LINES + 1, events);
+            assertEquals(2 * Event.MAX_LINES + 1, out.size());
+        }
+    }
+
+    private EventCursor cursor(LogFormat format, String text) throws IOException {
+        final File file = Files.write(tempDir.resolve("day.log"), text.getBytes(StandardCharsets.UTF_8)).toFile();
+        return new EventCursor(file, format, collect, 0);
+    }
+}
@@ -0,0 +1,108 @@
+package io.aem.cloud.output;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncSinkTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final List<String> out = new ArrayList<>();
+    private final CountDownLatch proceed = new CountDownLatch(1);
+    private final LineSink slow = new LineSink() {
+        @Override
+        public void line(byte[] buf, int off, int len) throws IOException {
+            await(proceed);
+            synchronized (out) {
+                out.add(new String(buf, off, len, StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+    };
+
+    @Test
+    void runsTheActionOnceTheLinesAreWritten() throws Exception {
+        final AsyncSink sink = AsyncSink.start("test", slow, 4, AsyncSink.Overflow.BLOCK);
+        final CountDownLatch written = new CountDownLatch(1);
+        final List<Integer> seen = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            line(sink, "line " + i);
+        }
+        sink.flush();
+        sink.whenWritten(() -> {
+            synchronized (out) {
+                seen.add(out.size());
+            }
+            written.countDown();
+        });
+        assertEquals(1, written.getCount());
+        proceed.countDown();
+
+        assertTrue(written.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(List.of(100), seen);
+        sink.close();
+    }
+
+    @Test
+    void runsTheActionAtOnceWithNothingPending() throws Exception {
+        final AsyncSink sink = AsyncSink.start("test", slow, 4, AsyncSink.Overflow.DROP);
+        final CountDownLatch written = new CountDownLatch(1);
+
+        sink.whenWritten(written::countDown);
+
+        assertEquals(0, written.getCount());
+        proceed.countDown();
+        sink.close();
+    }
+
+    @Test
+    void runsBothActionsOfATeeOnce() throws Exception {
+        final AsyncSink first = AsyncSink.start("first", slow, 4, AsyncSink.Overflow.BLOCK);
+        final LineSink tee = new TeeSink(first, new LastLinesSink(10));
+        final List<Integer> runs = new ArrayList<>();
+
+        line(tee, "line");
+        tee.flush();
+        tee.whenWritten(() -> {
+            synchronized (runs) {
+                runs.add(runs.size());
+            }
+        });
+        synchronized (runs) {
+            assertEquals(List.of(), runs);
+        }
+        proceed.countDown();
+        first.close();
+
+        synchronized (runs) {
+            assertEquals(List.of(0), runs);
+        }
+    }
+
+    private static void line(LineSink sink, String line) throws IOException {
+        final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        sink.line(bytes, 0, bytes.length);
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
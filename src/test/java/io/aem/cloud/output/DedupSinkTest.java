@@ -0,0 +1,110 @@
+package io.aem.cloud.output;
+
+import io.aem.cloud.event.Event;
+import io.aem.cloud.parser.LogFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DedupSinkTest {
+
+    private static final String HEADER = "17.10.2026 10:42:00.000 [cm-p1-e2-aem-author-0] *ERROR* [qtp-1] com.Foo boom";
+
+    private final List<String> out = new ArrayList<>();
+    private final LineSink collect = new LineSink() {
+        @Override
+        public void line(byte[] buf, int off, int len) {
+            out.add(new String(buf, off, len, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void flush() {
+        }
+    };
+
+    @Test
+    void passesALogOfUnknownFormatThrough() throws IOException {
+        final DedupSink sink = new DedupSink(collect, null, 100, 60_000, 5_000);
+
+        for (int i = 0; i < 5_000; i++) {
+            line(sink, "plain line " + i);
+        }
+
+        assertEquals(5_000, out.size());
+        assertEquals("plain line 4999", out.get(4_999));
+        sink.close();
+    }
+
+    @Test
+    void keepsAStackTraceCutByAPoll() throws IOException {
+        final DedupSink sink = new DedupSink(collect, LogFormat.ERROR, 100, 60_000, 5_000);
+
+        line(sink, HEADER);
+        line(sink, "java.lang.IllegalStateException: boom");
+        sink.flush();
+        assertEquals(0, out.size());
+        line(sink, "\tat com.Foo.bar(Foo.java:1)");
+        line(sink, HEADER);
+        sink.flush();
+
+        assertEquals(List.of(HEADER, "java.lang.IllegalStateException: boom", "\tat com.Foo.bar(Foo.java:1)"), out);
+        sink.close();
+        assertEquals(4, out.size());
+    }
+
+    @Test
+    void countsAHeldEventWrittenOnceItIs() throws IOException {
+        final DedupSink sink = new DedupSink(collect, LogFormat.ERROR, 100, 60_000, 5_000);
+        final List<Integer> written = new ArrayList<>();
+
+        line(sink, HEADER);
+        sink.flush();
+        sink.whenWritten(() -> written.add(out.size()));
+        assertEquals(List.of(), written);
+        line(sink, HEADER);
+        sink.flush();
+
+        assertEquals(List.of(1), written);
+        sink.close();
+    }
+
+    @Test
+    void completesAFullEvent() throws IOException {
+        final DedupSink sink = new DedupSink(collect, LogFormat.ERROR, 100, 60_000, 5_000);
+
+        line(sink, HEADER);
+        for (int i = 0; i < 3 * Event.MAX_LINES; i++) {
+            line(sink, "continued " + i);
+        }
+
+        assertEquals(3 * Event.MAX_LINES + 1, out.size());
+        sink.close();
+    }
+
+    @Test
+    void dropsTheRestOfARepeatedFullEvent() throws IOException {
+        final DedupSink sink = new DedupSink(collect, LogFormat.ERROR, 100, 60_000, 5_000);
+        final int frames = Event.MAX_LINES + 500;
+
+        for (int repeat = 0; repeat < 2; repeat++) {
+            line(sink, HEADER);
+            line(sink, "java.lang.IllegalStateException: boom");
+            for (int i = 0; i < frames; i++) {
+                line(sink, "\tat com.Foo.bar" + i + "(Foo.java:" + i + ")");
+            }
+        }
+        sink.close();
+
+        assertEquals(frames + 2, out.size());
+    }
+
+    private static void line(LineSink sink, String line) throws IOException {
+        final byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        sink.line(bytes, 0, bytes.length);
+    }
+}
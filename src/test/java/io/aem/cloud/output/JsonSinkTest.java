@@ -0,0 +1,200 @@
+package io.aem.cloud.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.aem.cloud.parser.LogFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonSinkTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String REPLACEMENT = "�";
+
+    private final List<byte[]> out = new ArrayList<>();
+    private final LineSink collect = new LineSink() {
+        @Override
+        public void line(byte[] buf, int off, int len) {
+            final byte[] copy = new byte[len];
+            System.arraycopy(buf, off, copy, 0, len);
+            out.add(copy);
+        }
+
+        @Override
+        public void flush() {
+        }
+    };
+
+    @Test
+    void writesTheFieldsOfAnErrorLine() throws IOException {
+        final JsonNode json = json(new JsonSink(collect, LogFormat.ERROR, "author"),
+                "29.04.2024 21:50:13.398 [cm-p1-e2-aem-author-0] *WARN* [qtp-45] org.apache.Foo the \"message\"");
+
+        assertEquals(List.of("target", "format", "timestamp", "pod", "level", "thread", "logger", "message"),
+                names(json));
+        assertEquals("author", json.get("target").asText());
+        assertEquals("error", json.get("format").asText());
+        assertEquals("29.04.2024 21:50:13.398", json.get("timestamp").asText());
+        assertEquals("WARN", json.get("level").asText());
+        assertEquals("the \"message\"", json.get("message").asText());
+    }
+
+    @Test
+    void writesTheFieldsOfARequestLine() throws IOException {
+        final JsonSink sink = new JsonSink(collect, LogFormat.REQUEST, null);
+
+        final JsonNode request = json(sink, "29/Apr/2024:23:14:21 +0000 [17] [pod-1] -> GET /a.html HTTP/1.1");
+        assertEquals(List.of("format", "timestamp", "pod", "requestId", "method", "path", "protocol"),
+                names(request));
+        assertEquals("request", request.get("format").asText());
+
+        final JsonNode response = json(sink, "29/Apr/2024:23:14:21 +0000 [17] [pod-1] <- 200 text/html 111ms");
+        assertTrue(response.get("status").isIntegralNumber());
+        assertEquals(200, response.get("status").asInt());
+        assertEquals("text/html", response.get("contentType").asText());
+        assertEquals(111, response.get("durationMs").asInt());
+    }
+
+    @Test
+    void writesTheFieldsOfAnAccessLine() throws IOException {
+        final JsonNode json = json(new JsonSink(collect, LogFormat.ACCESS, null),
+                "10.0.0.1 - admin 30/Apr/2024:17:37:14 +0000 \"GET /p HTTP/1.1\" 404 - \"-\" \"curl/8.0\"");
+
+        assertEquals("access", json.get("format").asText());
+        assertEquals("10.0.0.1", json.get("host").asText());
+        assertEquals("admin", json.get("user").asText());
+        assertEquals(404, json.get("status").asInt());
+        // No size, and no number for it.
+        assertTrue(json.get("size").isTextual());
+        assertEquals("-", json.get("size").asText());
+        assertEquals("curl/8.0", json.get("userAgent").asText());
+    }
+
+    @Test
+    void stripsTheLeadingZerosOfNumbers() throws IOException {
+        final JsonSink sink = new JsonSink(collect, LogFormat.REQUEST, null);
+
+        final JsonNode json = json(sink, "29/Apr/2024:23:14:21 +0000 [0017] <- 000 text/html 0000250ms");
+        assertEquals("{\"format\":\"request\",\"timestamp\":\"29/Apr/2024:23:14:21 +0000\",\"requestId\":17,"
+                + "\"status\":0,\"contentType\":\"text/html\",\"durationMs\":250}", text(out.get(0)));
+        assertEquals(17, json.get("requestId").asInt());
+
+        // Too many digits for a number, kept as text.
+        final JsonNode huge = json(sink, "29/Apr/2024:23:14:21 +0000 [0000000000000000001] <- 200 a 1ms");
+        assertEquals("0000000000000000001", huge.get("requestId").asText());
+    }
+
+    @Test
+    void writesAStackTraceLineAsAMessage() throws IOException {
+        final JsonNode json = json(new JsonSink(collect, LogFormat.ERROR, "publish"),
+                "\tat org.apache.Foo.bar(Foo.java:42)");
+
+        assertEquals(List.of("target", "message"), names(json));
+        assertEquals("\tat org.apache.Foo.bar(Foo.java:42)", json.get("message").asText());
+        assertEquals("{\"target\":\"publish\",\"message\":\"\\tat org.apache.Foo.bar(Foo.java:42)\"}",
+                text(out.get(0)));
+    }
+
+    @Test
+    void writesAnObjectForATruncatedLine() throws IOException {
+        final JsonSink sink = new JsonSink(collect, LogFormat.ERROR, null);
+
+        assertEquals("29.04.2024 21:50", json(sink, "29.04.2024 21:50").get("message").asText());
+        final JsonNode cut = json(sink, "29.04.2024 21:50:13.398 *INFO* [main]");
+        assertEquals("", cut.get("logger").asText());
+        assertEquals("", cut.get("message").asText());
+    }
+
+    @Test
+    void escapesControlCharacters() throws IOException {
+        final JsonNode json = json(new JsonSink(collect, null, null), "a\u0001b\\c\rd\u001fe\u007f");
+
+        assertEquals("a\u0001b\\c\rd\u001fe\u007f", json.get("message").asText());
+        assertEquals("{\"message\":\"a\\u0001b\\\\c\\rd\\u001fe\u007f\"}", text(out.get(0)));
+    }
+
+    @Test
+    void keepsValidUtf8() throws IOException {
+        final String message = "café € 😀 ࠀ ￿ 􏿿";
+
+        final JsonNode json = json(new JsonSink(collect, LogFormat.ERROR, null),
+                "29.04.2024 21:50:13.398 *INFO* [main] com.Foo " + message);
+
+        assertEquals(message, json.get("message").asText());
+    }
+
+    @Test
+    void replacesInvalidUtf8() throws IOException {
+        final JsonSink sink = new JsonSink(collect, null, null);
+        final byte[][] invalid = {
+                {(byte) 0x80},                                 // stray continuation byte
+                {(byte) 0xff},                                 // never in UTF-8
+                {(byte) 0xc0, (byte) 0xaf},                    // overlong '/'
+                {(byte) 0xe0, (byte) 0x80, (byte) 0xaf},       // overlong '/'
+                {(byte) 0xed, (byte) 0xa0, (byte) 0x80},       // surrogate
+                {(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // beyond U+10FFFF
+                {(byte) 0xe2, (byte) 0x82},                    // truncated by the end of the line
+                {(byte) 0xe2, (byte) 0x82, 'x'},               // truncated by ASCII
+        };
+
+        for (byte[] bytes : invalid) {
+            out.clear();
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            line.write('a');
+            line.write(bytes);
+            sink.line(line.toByteArray(), 0, line.size());
+
+            // Every byte that isn't part of a well-formed sequence is replaced on its own.
+            final String ascii = bytes[bytes.length - 1] == 'x' ? "x" : "";
+            assertEquals("a" + REPLACEMENT.repeat(bytes.length - ascii.length()) + ascii,
+                    MAPPER.readTree(out.get(0)).get("message").asText());
+        }
+    }
+
+    @Test
+    void replacesTheInvalidBytesOfAParsedField() throws IOException {
+        final byte[] line = "29.04.2024 21:50:13.398 *INFO* [méin] com.Foo x".getBytes(StandardCharsets.UTF_8);
+        // Cut the é of the thread after its first byte.
+        final int cut = new String(line, StandardCharsets.UTF_8).indexOf('é') + 1;
+        line[cut] = 'i';
+
+        final JsonNode json = json(new JsonSink(collect, LogFormat.ERROR, null), line);
+
+        assertEquals("m" + REPLACEMENT + "iin", json.get("thread").asText());
+    }
+
+    private JsonNode json(LineSink sink, String line) throws IOException {
+        return json(sink, line.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JsonNode json(LineSink sink, byte[] line) throws IOException {
+        out.clear();
+        // The line sits in the middle of a buffer, like in the tailor's.
+        final byte[] buf = new byte[line.length + 4];
+        System.arraycopy(line, 0, buf, 2, line.length);
+        sink.line(buf, 2, line.length);
+        assertEquals(1, out.size());
+        return MAPPER.readTree(out.get(0));
+    }
+
+    private static List<String> names(JsonNode json) {
+        final List<String> names = new ArrayList<>();
+        for (Iterator<String> i = json.fieldNames(); i.hasNext(); ) {
+            names.add(i.next());
+        }
+        return names;
+    }
+
+    private static String text(byte[] json) {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,156 @@
+package io.aem.cloud.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogParserTest {
+
+    private final LogRecord record = new LogRecord();
+
+    @Test
+    void parsesAnErrorLine() {
+        assertTrue(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398 [cm-p1-e2-aem-author-0] *WARN* "
+                + "[qtp123-45 GET /content/a[1].html HTTP/1.1] org.apache.Foo the message [with brackets]"));
+
+        assertEquals(LogFormat.ERROR, record.getFormat());
+        assertEquals("29.04.2024 21:50:13.398", record.text(LogField.TIMESTAMP));
+        assertEquals("cm-p1-e2-aem-author-0", record.text(LogField.POD));
+        assertEquals("WARN", record.text(LogField.LEVEL));
+        assertEquals(3, record.levelRank());
+        assertEquals("qtp123-45 GET /content/a[1].html HTTP/1.1", record.text(LogField.THREAD));
+        assertEquals("org.apache.Foo", record.text(LogField.LOGGER));
+        assertEquals("the message [with brackets]", record.text(LogField.MESSAGE));
+        assertEquals(millis(2024, 4, 29, 21, 50, 13, 398), record.epochMillis());
+    }
+
+    @Test
+    void parsesAnErrorLineWithoutPod() {
+        assertTrue(parse(LogFormat.ERROR, "01.02.2024 03:04:05.006 *ERROR* [main] com.Foo boom"));
+
+        assertFalse(record.has(LogField.POD));
+        assertEquals("main", record.text(LogField.THREAD));
+        assertEquals("boom", record.text(LogField.MESSAGE));
+        // Zero-padded fields of the timestamp.
+        assertEquals(millis(2024, 2, 1, 3, 4, 5, 6), record.epochMillis());
+    }
+
+    @Test
+    void parsesARequestAndItsResponse() {
+        assertTrue(parse(LogFormat.REQUEST, "29/Apr/2024:23:14:21 +0000 [0017] [pod-1] -> GET /content/page.html "
+                + "HTTP/1.1"));
+        assertEquals("0017", record.text(LogField.REQUEST_ID));
+        assertEquals(17, record.number(LogField.REQUEST_ID));
+        assertEquals("GET", record.text(LogField.METHOD));
+        assertEquals("/content/page.html", record.text(LogField.PATH));
+        assertEquals("HTTP/1.1", record.text(LogField.PROTOCOL));
+        assertEquals(millis(2024, 4, 29, 23, 14, 21, 0), record.epochMillis());
+
+        assertTrue(parse(LogFormat.REQUEST, "29/Apr/2024:23:14:21 +0000 [17] [pod-1] <- 200 text/html 0111ms"));
+        assertEquals(200, record.number(LogField.STATUS));
+        assertEquals("text/html", record.text(LogField.CONTENT_TYPE));
+        assertEquals("0111", record.text(LogField.DURATION));
+        assertEquals(111, record.number(LogField.DURATION));
+    }
+
+    @Test
+    void parsesAnAccessLine() {
+        assertTrue(parse(LogFormat.ACCESS, "10.0.0.1 - admin 30/Apr/2024:17:37:14 -0230 \"GET /path?q=1 HTTP/1.1\" "
+                + "404 0001141 \"https://example.com/\" \"Mozilla/5.0 (X11)\""));
+
+        assertEquals("10.0.0.1", record.text(LogField.HOST));
+        assertEquals("admin", record.text(LogField.USER));
+        assertEquals("GET", record.text(LogField.METHOD));
+        assertEquals("/path?q=1", record.text(LogField.PATH));
+        assertEquals(404, record.number(LogField.STATUS));
+        assertEquals(1141, record.number(LogField.SIZE));
+        assertEquals("https://example.com/", record.text(LogField.REFERER));
+        assertEquals("Mozilla/5.0 (X11)", record.text(LogField.USER_AGENT));
+        assertEquals(millis(2024, 4, 30, 17, 37, 14, 0) + (2 * 60 + 30) * 60_000, record.epochMillis());
+    }
+
+    @Test
+    void parsesABracketedAccessTimestampWithoutRequest() {
+        assertTrue(parse(LogFormat.ACCESS, "10.0.0.1 - - [30/Apr/2024:17:37:14 +0000]"));
+
+        assertEquals("-", record.text(LogField.USER));
+        assertFalse(record.has(LogField.METHOD));
+        assertEquals(millis(2024, 4, 30, 17, 37, 14, 0), record.epochMillis());
+    }
+
+    @Test
+    void detectsTheFormatOfEveryLine() {
+        assertTrue(parse(null, "30/Apr/2024:17:37:14 +0000 [1] -> GET / HTTP/1.1"));
+        assertEquals(LogFormat.REQUEST, record.getFormat());
+        assertTrue(parse(LogFormat.ACCESS, "29.04.2024 21:50:13.398 *INFO* [main] com.Foo started"));
+        assertEquals(LogFormat.ERROR, record.getFormat());
+    }
+
+    @Test
+    void rejectsTruncatedLines() {
+        assertFalse(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398"));
+        assertFalse(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398 [pod-1"));
+        assertFalse(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398 [pod-1] *INF"));
+        assertFalse(parse(LogFormat.REQUEST, "29/Apr/2024:23:14:21 +0000 [17"));
+        assertFalse(parse(LogFormat.REQUEST, "29/Apr/2024:23:14:21 +0000 [17] -"));
+        assertFalse(parse(LogFormat.ACCESS, "10.0.0.1 - - 30/Apr/2024:17:37:14 +0000 \"GET /path"));
+        assertFalse(parse(LogFormat.ACCESS, "10.0.0.1 - - 30/Apr/2024:17:37"));
+        assertNull(record.getFormat());
+    }
+
+    @Test
+    void keepsTheFieldsOfALineCutAfterTheThread() {
+        assertFalse(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398 *INFO* [main"));
+
+        assertTrue(parse(LogFormat.ERROR, "29.04.2024 21:50:13.398 *INFO* [main]"));
+        assertEquals("main", record.text(LogField.THREAD));
+        assertEquals("", record.text(LogField.LOGGER));
+        assertEquals("", record.text(LogField.MESSAGE));
+        assertEquals(millis(2024, 4, 29, 21, 50, 13, 398), record.epochMillis());
+    }
+
+    @Test
+    void rejectsAStackTraceLine() {
+        assertFalse(parse(LogFormat.ERROR, "\tat org.apache.Foo.bar(Foo.java:42)"));
+        assertFalse(parse(LogFormat.ERROR, "Caused by: java.lang.IllegalStateException: 29.04.2024"));
+        assertEquals(-1, record.epochMillis());
+    }
+
+    @Test
+    void hasNoTimeForAnInvalidTimestamp() {
+        assertTrue(parse(LogFormat.ERROR, "29.13.2024 21:50:13.398 *INFO* [main] com.Foo month 13"));
+        assertEquals(-1, record.epochMillis());
+        assertTrue(parse(LogFormat.ERROR, "29.0x.2024 21:50:13.398 *INFO* [main] com.Foo not a digit"));
+        assertEquals(-1, record.epochMillis());
+        assertTrue(parse(LogFormat.REQUEST, "29/Foo/2024:23:14:21 +0000 [17] -> GET / HTTP/1.1"));
+        assertEquals(-1, record.epochMillis());
+    }
+
+    @Test
+    void readsOnlyDigitsAsNumbers() {
+        assertTrue(parse(LogFormat.REQUEST, "29/Apr/2024:23:14:21 +0000 [17a] [pod] <- 000 text/html 12.5ms"));
+
+        assertEquals(-1, record.number(LogField.REQUEST_ID));
+        assertEquals(0, record.number(LogField.STATUS));
+        assertEquals(-1, record.number(LogField.DURATION));
+        assertEquals(-1, record.number(LogField.SIZE));
+    }
+
+    private boolean parse(LogFormat expected, String line) {
+        final byte[] bytes = ("xx" + line + "yy").getBytes(StandardCharsets.UTF_8);
+        // The line sits in the middle of a buffer, like in the tailor's.
+        return new LogParser(expected).parse(bytes, 2, bytes.length - 4, record);
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000)
+                .toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,106 @@
+package io.aem.cloud.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpscRingBufferTest {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    @Test
+    void roundsTheCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new SpscRingBuffer<>(5).capacity());
+        assertEquals(8, new SpscRingBuffer<>(8).capacity());
+        assertEquals(16, new SpscRingBuffer<>(9).capacity());
+    }
+
+    @Test
+    void refusesAnItemWhenFull() {
+        final SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+        assertEquals(0, (int) buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    void keepsTheOrderAcrossWrapArounds() {
+        final SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+        int offered = 0;
+        int polled = 0;
+
+        // Three items in, two out, so the positions move around the slots at every lap.
+        for (int round = 0; round < 1_000; round++) {
+            while (buffer.size() < 3) {
+                assertTrue(buffer.offer(offered++));
+            }
+            assertEquals(polled++, (int) buffer.poll());
+            assertEquals(polled++, (int) buffer.poll());
+        }
+        while (buffer.size() > 0) {
+            assertEquals(polled++, (int) buffer.poll());
+        }
+
+        assertEquals(offered, polled);
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void handsEveryItemOverInOrderBetweenTwoThreads() throws InterruptedException {
+        final int count = 1_000_000;
+        final SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(16);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    buffer.put(i);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        final Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    final int item = buffer.take();
+                    if (item != i) {
+                        throw new AssertionError("took " + item + " instead of " + i);
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        consumer.start();
+        producer.start();
+        producer.join(TIMEOUT_MILLIS);
+        consumer.join(TIMEOUT_MILLIS);
+
+        assertFalse(producer.isAlive() || consumer.isAlive(), "timed out");
+        assertNull(failure.get());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void stopsWaitingWhenInterrupted() {
+        final SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(2);
+        Thread.currentThread().interrupt();
+
+        assertThrows(InterruptedException.class, buffer::take);
+        assertFalse(Thread.interrupted());
+    }
+}
@@ -0,0 +1,91 @@
+package io.aem.cloud.processor;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves one log archive the way Cloud Manager does: the download API answers with a signed URL, and that URL
+ * serves the archive with {@code Range} and {@code 416}. The archive can be replaced at any time, every date gets
+ * the same one.
+ */
+final class ArchiveServer implements AutoCloseable {
+
+    private static final String DOWNLOAD = "/api/program/";
+    private static final String ARCHIVE = "/archive";
+
+    private final HttpServer server;
+    private volatile byte[] archive = new byte[0];
+
+    private ArchiveServer(HttpServer server) {
+        this.server = server;
+    }
+
+    static ArchiveServer start() throws IOException {
+        final ArchiveServer archiveServer = new ArchiveServer(
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0));
+        archiveServer.server.createContext(DOWNLOAD, archiveServer::download);
+        archiveServer.server.createContext(ARCHIVE, archiveServer::archive);
+        archiveServer.server.start();
+        return archiveServer;
+    }
+
+    String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    void setArchive(byte[] archive) {
+        this.archive = archive;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void download(HttpExchange exchange) throws IOException {
+        try {
+            final long expires = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600;
+            final byte[] body = ("{\"redirect\":\"" + baseUrl() + ARCHIVE + "?Expires=" + expires + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void archive(HttpExchange exchange) throws IOException {
+        try {
+            final byte[] data = archive;
+            final String range = exchange.getRequestHeaders().getFirst("Range");
+            int from = 0;
+            if (range != null) {
+                final String spec = range.substring("bytes=".length());
+                from = spec.startsWith("-")
+                        ? Math.max(0, data.length - Integer.parseInt(spec.substring(1)))
+                        : Integer.parseInt(spec.substring(0, spec.indexOf('-')));
+                if (from >= data.length) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + data.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + from + "-" + (data.length - 1) + "/" + data.length);
+            }
+            exchange.sendResponseHeaders(range != null ? 206 : 200, data.length - from);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(data, from, data.length - from);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
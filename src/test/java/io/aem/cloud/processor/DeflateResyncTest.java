@@ -0,0 +1,113 @@
+package io.aem.cloud.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DeflateResyncTest {
+
+    private static final int TAIL_BYTES = 512 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void startsAtAMemberOfAMultiMemberArchive() throws IOException {
+        final byte[] text = TestLogs.errorLog(0, 30_000, 1);
+        final File archive = write(TestLogs.tail(TestLogs.gzipMembers(text, 64 * 1024), TAIL_BYTES));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final DeflateResync resync = new DeflateResync(20);
+        final IncrementalGzipInflater inflater = resync.resync(archive, out);
+
+        assertNotNull(inflater, resync.getFallbackReason());
+        assertNull(resync.getFallbackReason());
+        assertEquals(TestLogs.lastLines(text, 20), out.toString(StandardCharsets.UTF_8));
+
+        // The inflater goes on with members appended later.
+        final byte[] more = TestLogs.errorLog(30_000, 500, 2);
+        Files.write(archive.toPath(), TestLogs.gzipMembers(more, 16 * 1024), StandardOpenOption.APPEND);
+        final ByteArrayOutputStream appended = new ByteArrayOutputStream();
+        inflater.inflate(archive, appended);
+        assertEquals(new String(more, StandardCharsets.UTF_8), appended.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void startsAtABlockOfASingleMemberArchive() throws IOException {
+        final byte[] text = TestLogs.errorLog(0, 60_000, 3);
+        // Fully flushed 2000 lines before the end, the block after the flush is 4 KB into the tail.
+        final int flushAt = text.length - TestLogs.lastLines(text, 2_000).length();
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        final int blockOffset = gzipFlushedAt(text, flushAt, archive);
+        final File file = write(TestLogs.tail(archive.toByteArray(), archive.size() - blockOffset + 4 * 1024));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final DeflateResync resync = new DeflateResync(20);
+        final IncrementalGzipInflater inflater = resync.resync(file, out);
+
+        assertNotNull(inflater, resync.getFallbackReason());
+        assertNull(resync.getFallbackReason());
+        assertEquals(TestLogs.lastLines(text, 20), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void givesUpOnAnArchiveWithoutARestartPoint() throws IOException {
+        final byte[] noise = new byte[TAIL_BYTES];
+        new Random(4).nextBytes(noise);
+        final File archive = write(noise);
+
+        final DeflateResync resync = new DeflateResync(20);
+
+        assertNull(resync.resync(archive, new ByteArrayOutputStream()));
+        assertNotNull(resync.getFallbackReason());
+    }
+
+    /**
+     * Writes the text as one gzip member whose deflate stream is fully flushed after {@code flushAt} bytes: the
+     * block after the flush refers to nothing before it, as if the log had been compressed in two parts.
+     *
+     * @return offset of that block in the archive.
+     */
+    private static int gzipFlushedAt(byte[] text, int flushAt, ByteArrayOutputStream archive) {
+        archive.writeBytes(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 255});
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final byte[] buffer = new byte[64 * 1024];
+        deflater.setInput(text, 0, flushAt);
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+            archive.write(buffer, 0, length);
+        } while (length == buffer.length);
+        final int blockOffset = archive.size();
+        deflater.setInput(text, flushAt, text.length - flushAt);
+        deflater.finish();
+        while (!deflater.finished()) {
+            archive.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        final CRC32 crc = new CRC32();
+        crc.update(text);
+        for (int i = 0; i < 8; i++) {
+            archive.write((int) ((i < 4 ? crc.getValue() : text.length) >>> (8 * (i % 4))));
+        }
+        return blockOffset;
+    }
+
+    private File write(byte[] bytes) throws IOException {
+        return Files.write(tempDir.resolve("aemlog.log.gz"), bytes).toFile();
+    }
+}
@@ -0,0 +1,192 @@
+package io.aem.cloud.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalGzipInflaterTest {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    @Test
+    void inflatesAMultiMemberArchiveSplitAnywhere() throws IOException {
+        final byte[] first = TestLogs.errorLog(0, 60, 5);
+        final byte[] second = TestLogs.errorLog(60, 30, 6);
+        final byte[] archive = concat(TestLogs.gzipMembers(first, 2 * 1024), gzipWithHeaderFields(second));
+        final String expected = new String(first, StandardCharsets.UTF_8)
+                + new String(second, StandardCharsets.UTF_8);
+
+        for (int split = 0; split <= archive.length; split++) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (IncrementalGzipInflater inflater = new IncrementalGzipInflater()) {
+                inflater.inflate(archive, 0, split, out);
+                inflater.inflate(archive, split, archive.length - split, out);
+                assertEquals(archive.length, inflater.getInputPosition());
+                assertEquals(expected.length(), inflater.getOutputPosition());
+            }
+            assertEquals(expected, out.toString(StandardCharsets.UTF_8), "split at " + split);
+        }
+    }
+
+    @Test
+    void inflatesAnArchiveFedByteByByte() throws IOException {
+        final byte[] text = TestLogs.errorLog(0, 200, 7);
+        final byte[] archive = concat(gzipWithHeaderFields(text), TestLogs.gzipMembers(text, 4 * 1024));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (IncrementalGzipInflater inflater = new IncrementalGzipInflater()) {
+            for (int i = 0; i < archive.length; i++) {
+                inflater.inflate(archive, i, 1, out);
+            }
+        }
+
+        final String once = new String(text, StandardCharsets.UTF_8);
+        assertEquals(once + once, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void restartsAtTheCurrentMember() throws IOException {
+        final byte[] text = TestLogs.errorLog(0, 300, 8);
+        final byte[] archive = TestLogs.gzipMembers(text, 4 * 1024);
+
+        for (int split = 1; split <= archive.length; split += 97) {
+            final long memberInput;
+            final long memberOutput;
+            try (IncrementalGzipInflater inflater = new IncrementalGzipInflater()) {
+                inflater.inflate(archive, 0, split, new ByteArrayOutputStream());
+                memberInput = inflater.getMemberInputPosition();
+                memberOutput = inflater.getMemberOutputPosition();
+            }
+            assertTrue(memberInput >= 0 && memberInput < split, "member at " + memberInput);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (IncrementalGzipInflater inflater = IncrementalGzipInflater.atMember(memberInput, memberOutput)) {
+                inflater.inflate(archive, (int) memberInput, archive.length - (int) memberInput, out);
+                assertEquals(text.length, inflater.getOutputPosition());
+            }
+            assertEquals(new String(text, (int) memberOutput, text.length - (int) memberOutput,
+                    StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8), "split at " + split);
+        }
+    }
+
+    @Test
+    void startsAtABlockAtAnyBitOffset() throws IOException {
+        final byte[] before = TestLogs.errorLog(0, 100, 9);
+        final byte[] block = TestLogs.errorLog(100, 100, 10);
+        final byte[] after = TestLogs.errorLog(200, 50, 11);
+        // A full flush ends the first part on a byte boundary and forgets its history, the block after it
+        // decodes on its own.
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final byte[] head = deflate(deflater, before, Deflater.FULL_FLUSH);
+        final byte[] body = deflate(deflater, block, Deflater.NO_FLUSH);
+        deflater.end();
+
+        for (int bitOffset = 0; bitOffset < 8; bitOffset++) {
+            // The block moved to start at the given bit, below it the last bits of the previous block.
+            final byte[] shifted = shift(body, bitOffset, 0b1010_1010);
+            final byte[] archive = concat(gzipHeader(0), head, shifted, new byte[8], TestLogs.gzip(after));
+            final int position = gzipHeader(0).length + head.length;
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            try (IncrementalGzipInflater inflater = IncrementalGzipInflater.atBlock(position, bitOffset,
+                    archive[position])) {
+                final int from = bitOffset == 0 ? position : position + 1;
+                final int split = from + (archive.length - from) / 3;
+                inflater.inflate(archive, from, split - from, out);
+                inflater.inflate(archive, split, archive.length - split, out);
+            }
+
+            assertEquals(new String(block, StandardCharsets.UTF_8) + new String(after, StandardCharsets.UTF_8),
+                    out.toString(StandardCharsets.UTF_8), "block at bit " + bitOffset);
+        }
+    }
+
+    /**
+     * @return the text as a gzip member whose header has every optional field.
+     */
+    private static byte[] gzipWithHeaderFields(byte[] text) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final byte[] body = deflate(deflater, text, Deflater.NO_FLUSH);
+        deflater.end();
+        final byte[] extra = {2, 0, 'a', 'b'};
+        final byte[] name = "aemerror.log\0".getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] comment = "tail\0".getBytes(StandardCharsets.ISO_8859_1);
+        final byte[] headerCrc = {0x12, 0x34};
+        return concat(gzipHeader(FEXTRA | FNAME | FCOMMENT | FHCRC), extra, name, comment, headerCrc, body,
+                trailer(text));
+    }
+
+    private static byte[] gzipHeader(int flags) {
+        return new byte[]{0x1f, (byte) 0x8b, 8, (byte) flags, 0, 0, 0, 0, 0, (byte) 255};
+    }
+
+    private static byte[] trailer(byte[] text) {
+        final CRC32 crc = new CRC32();
+        crc.update(text);
+        final byte[] trailer = new byte[8];
+        for (int i = 0; i < 4; i++) {
+            trailer[i] = (byte) (crc.getValue() >>> (8 * i));
+            trailer[4 + i] = (byte) (text.length >>> (8 * i));
+        }
+        return trailer;
+    }
+
+    /**
+     * @param flush {@link Deflater#NO_FLUSH} to finish the stream.
+     */
+    private static byte[] deflate(Deflater deflater, byte[] text, int flush) {
+        deflater.setInput(text);
+        if (flush == Deflater.NO_FLUSH) {
+            deflater.finish();
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        int length;
+        do {
+            length = deflater.deflate(buffer, 0, buffer.length, flush);
+            out.write(buffer, 0, length);
+        } while (length == buffer.length || flush == Deflater.NO_FLUSH && !deflater.finished());
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the bits moved up by {@code bitOffset}, the low bits of the first byte taken from {@code below}.
+     */
+    private static byte[] shift(byte[] bytes, int bitOffset, int below) {
+        if (bitOffset == 0) {
+            return bytes.clone();
+        }
+        final byte[] shifted = new byte[bytes.length + 1];
+        int carry = below & ((1 << bitOffset) - 1);
+        for (int i = 0; i < bytes.length; i++) {
+            final int value = bytes[i] & 0xff;
+            shifted[i] = (byte) (carry | (value << bitOffset));
+            carry = value >>> (8 - bitOffset);
+        }
+        shifted[bytes.length] = (byte) carry;
+        return shifted;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        final byte[] all = Arrays.copyOf(parts[0], length);
+        for (int i = 1, at = parts[0].length; i < parts.length; at += parts[i++].length) {
+            System.arraycopy(parts[i], 0, all, at, parts[i].length);
+        }
+        return all;
+    }
+}
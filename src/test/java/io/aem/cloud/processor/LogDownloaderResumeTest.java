@@ -0,0 +1,187 @@
+package io.aem.cloud.processor;
+
+import io.aem.cloud.DaemonThreads;
+import io.aem.cloud.api.ApiBuilder;
+import io.aem.cloud.api.TokenManager;
+import io.aem.cloud.model.Checkpoint;
+import io.aem.cloud.model.Credentials;
+import io.aem.cloud.model.PollSettings;
+import io.aem.cloud.output.LineSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the downloader and the tailor against a local archive server, stops them and starts them again from the
+ * saved checkpoint. Whatever the way back into the archive, the second run has to print exactly the lines the
+ * first one didn't.
+ */
+class LogDownloaderResumeTest {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @TempDir
+    Path tempDir;
+
+    private ArchiveServer server;
+    private CheckpointStore checkpoints;
+    private int runs;
+    private long windowBytes = 256L * 1024 * 1024;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = ArchiveServer.start();
+        checkpoints = new CheckpointStore(tempDir.resolve("checkpoint.properties").toFile());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void replaysTheMemberOfTheCheckpoint() throws Exception {
+        final byte[] first = TestLogs.errorLog(0, 5_000, 21);
+        final byte[] archive = TestLogs.gzipMembers(first, 64 * 1024);
+        assertEquals(text(first), tail(archive, first.length));
+        assertTrue(checkpoints.load().getMemberOffset() >= 0, "no member in " + checkpoints.load());
+
+        final byte[] second = TestLogs.errorLog(5_000, 3_000, 22);
+        assertEquals(text(second), tail(concat(archive, TestLogs.gzipMembers(second, 64 * 1024)), second.length));
+    }
+
+    @Test
+    void rejoinsAtTheAnchorWithoutAMember() throws Exception {
+        // Big enough for the rejoin to start in the middle of the archive.
+        final byte[] first = TestLogs.errorLog(0, 40_000, 23);
+        final byte[] archive = TestLogs.gzipMembers(first, 64 * 1024);
+        assertEquals(text(first), tail(archive, first.length));
+        final Checkpoint saved = checkpoints.load();
+        assertTrue(saved.getInputOffset() > 512 * 1024, "archive of " + saved.getInputOffset() + " bytes");
+        checkpoints.save(Checkpoint.builder()
+                .archiveDate(saved.getArchiveDate())
+                .memberOffset(-1)
+                .memberOutput(saved.getMemberOutput())
+                .inputOffset(saved.getInputOffset())
+                .emittedOutput(saved.getEmittedOutput())
+                .anchor(saved.getAnchor())
+                .build());
+
+        final byte[] second = TestLogs.errorLog(40_000, 3_000, 24);
+        assertEquals(text(second), tail(concat(archive, TestLogs.gzipMembers(second, 64 * 1024)), second.length));
+    }
+
+    @Test
+    void keepsThePollsBiggerThanTheWindow() throws Exception {
+        // Each run inflates more than twice the window in one go, compaction has to wait for the tailor.
+        windowBytes = 64 * 1024;
+        final byte[] first = TestLogs.errorLog(0, 5_000, 27);
+        final byte[] archive = TestLogs.gzipMembers(first, 256 * 1024);
+        assertEquals(text(first), tail(archive, first.length));
+
+        final byte[] second = TestLogs.errorLog(5_000, 5_000, 28);
+        assertEquals(text(second), tail(concat(archive, TestLogs.gzipMembers(second, 256 * 1024)), second.length));
+    }
+
+    @Test
+    void startsOverWhenTheArchiveGotShorter() throws Exception {
+        final byte[] first = TestLogs.errorLog(0, 5_000, 25);
+        assertEquals(text(first), tail(TestLogs.gzipMembers(first, 64 * 1024), first.length));
+
+        // Another archive under the same date, smaller than what was already read of the first one.
+        final byte[] other = TestLogs.errorLog(0, 200, 26);
+        assertEquals(text(other), tail(TestLogs.gzip(other), other.length));
+    }
+
+    /**
+     * Serves the archive, tails it until {@code expected} bytes were printed and the checkpoint covers the whole
+     * archive, then stops.
+     *
+     * @return what was printed.
+     */
+    private String tail(byte[] archive, long expected) throws Exception {
+        server.setArchive(archive);
+        final File runDir = Files.createDirectory(tempDir.resolve("run" + runs++)).toFile();
+        final LogWindow window = new LogWindow(new File(runDir, "aemlog.log"), windowBytes);
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        final LineSink sink = new LineSink() {
+            @Override
+            public void line(byte[] buf, int off, int len) {
+                synchronized (printed) {
+                    printed.write(buf, off, len);
+                    printed.write('\n');
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+        };
+        final ApiBuilder apiBuilder = ApiBuilder.create(Credentials.builder().orgId("org").clientId("client").build(),
+                TokenManager.fixed("token"), server.baseUrl());
+        final PollSettings pollSettings = PollSettings.builder().minDelayMillis(20).maxDelayMillis(100).build();
+        final Thread tailor = DaemonThreads.create("log-tailor",
+                new LogTailor(runDir, window, Integer.MAX_VALUE, sink));
+        final Thread downloader = DaemonThreads.create("log-downloader",
+                new LogDownloader(apiBuilder.logApi(runDir, "author", "2", "1", "aemerror"), runDir, window, 0,
+                        new PollScheduler(pollSettings), checkpoints));
+        tailor.start();
+        await(() -> tailor.getState() == Thread.State.WAITING);
+        downloader.start();
+        try {
+            await(() -> {
+                synchronized (printed) {
+                    if (printed.size() < expected) {
+                        return false;
+                    }
+                }
+                final Checkpoint checkpoint = checkpoints.load();
+                return checkpoint != null && checkpoint.getInputOffset() == archive.length;
+            });
+        } finally {
+            downloader.interrupt();
+            tailor.interrupt();
+            downloader.join(TIMEOUT_MILLIS);
+            tailor.join(TIMEOUT_MILLIS);
+        }
+        assertNotNull(checkpoints.load());
+        synchronized (printed) {
+            return printed.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out after " + TIMEOUT_MILLIS + " ms.");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        final byte[] both = new byte[first.length + second.length];
+        System.arraycopy(first, 0, both, 0, first.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+}
@@ -0,0 +1,82 @@
+package io.aem.cloud.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogWindowTest {
+
+    private static final int WINDOW = 4 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepsWhatTheTailorHasNotPrinted() throws IOException {
+        try (LogWindow window = new LogWindow(tempDir.resolve("aemlog.log").toFile(), WINDOW)) {
+            final byte[] printed = TestLogs.errorLog(0, 10, 1);
+            final byte[] unread = TestLogs.errorLog(10, 500, 2);
+            assertTrue(unread.length > 2 * WINDOW);
+            try (OutputStream appender = window.appender()) {
+                appender.write(printed);
+                window.setEmitted(printed.length);
+                appender.write(unread);
+            }
+
+            window.compact();
+
+            assertEquals(printed.length, window.getBase());
+            assertEquals(new String(unread, StandardCharsets.UTF_8), read(window, window.getEmitted()));
+        }
+    }
+
+    @Test
+    void dropsAllButTheWindowOncePrinted() throws IOException {
+        try (LogWindow window = new LogWindow(tempDir.resolve("aemlog.log").toFile(), WINDOW)) {
+            final byte[] text = TestLogs.errorLog(0, 500, 3);
+            try (OutputStream appender = window.appender()) {
+                appender.write(text);
+            }
+            window.setEmitted(text.length);
+
+            window.compact();
+
+            assertTrue(window.end() - window.getBase() <= WINDOW, "kept " + (window.end() - window.getBase()));
+            final String kept = read(window, window.getBase());
+            assertTrue(new String(text, StandardCharsets.UTF_8).endsWith(kept));
+            assertTrue(kept.startsWith("17.10.2026"), "not at a line: " + kept);
+        }
+    }
+
+    @Test
+    void keepsEverythingBeforeTheFirstPass() throws IOException {
+        try (LogWindow window = new LogWindow(tempDir.resolve("aemlog.log").toFile(), WINDOW)) {
+            final byte[] text = TestLogs.errorLog(0, 500, 4);
+            try (OutputStream appender = window.appender()) {
+                appender.write(text);
+            }
+            window.setResumeAt(window.getBase());
+
+            window.compact();
+
+            assertEquals(0, window.getBase());
+            assertEquals(new String(text, StandardCharsets.UTF_8), read(window, window.getResumeAt()));
+        }
+    }
+
+    private static String read(LogWindow window, long from) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (window.end() - from));
+        while (buffer.hasRemaining() && window.read(buffer, from + buffer.position()) > 0) {
+            // keep reading until the buffer is full
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package io.aem.cloud.processor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Error log text and gzip archives of it, the way Cloud Manager writes them.
+ */
+final class TestLogs {
+
+    private static final String[] LEVELS = {"INFO", "INFO", "INFO", "WARN", "ERROR", "DEBUG"};
+    private static final String[] LOGGERS = {"org.apache.sling.engine.impl.SlingRequestProcessorImpl",
+            "com.day.cq.dam.core.impl.AssetMoveListener", "org.apache.jackrabbit.oak.plugins.index.IndexUpdate",
+            "com.adobe.granite.workflow.core.WorkflowSessionImpl", "com.example.core.models.TeaserModel"};
+    private static final String[] WORDS = {"request", "page", "asset", "index", "session", "resource", "query",
+            "workflow", "node", "replication", "cache", "timeout", "content", "/content/site/en", "user"};
+
+    private TestLogs() {
+    }
+
+    /**
+     * @return {@code lines} error log lines, each ending with a line break and numbered from {@code first} on.
+     */
+    static byte[] errorLog(int first, int lines, long seed) {
+        final Random random = new Random(seed);
+        final StringBuilder text = new StringBuilder(lines * 120);
+        for (int i = first; i < first + lines; i++) {
+            text.append(String.format("17.10.2026 %02d:%02d:%02d.%03d [qtp%d-%d] *%s* [%s] line %d:",
+                    i / 3_600_000 % 24, i / 60_000 % 60, i / 1000 % 60, i % 1000, random.nextInt(2000),
+                    random.nextInt(300), LEVELS[random.nextInt(LEVELS.length)],
+                    LOGGERS[random.nextInt(LOGGERS.length)], i));
+            for (int word = random.nextInt(12); word >= 0; word--) {
+                text.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+                if (random.nextInt(4) == 0) {
+                    text.append('-').append(random.nextInt(100_000));
+                }
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the text as one gzip member.
+     */
+    static byte[] gzip(byte[] text) {
+        return gzip(text, 0, text.length);
+    }
+
+    /**
+     * @return the text as gzip members of about {@code memberBytes} decompressed bytes each, split after lines.
+     */
+    static byte[] gzipMembers(byte[] text, int memberBytes) {
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        int start = 0;
+        while (start < text.length) {
+            int end = Math.min(text.length, start + memberBytes);
+            while (end < text.length && text[end - 1] != '\n') {
+                end++;
+            }
+            archive.writeBytes(gzip(text, start, end - start));
+            start = end;
+        }
+        return archive.toByteArray();
+    }
+
+    static byte[] tail(byte[] bytes, int length) {
+        return Arrays.copyOfRange(bytes, Math.max(0, bytes.length - length), bytes.length);
+    }
+
+    /**
+     * @return the last {@code count} lines of the text.
+     */
+    static String lastLines(byte[] text, int count) {
+        int start = text.length - 1;
+        for (int seen = 0; start > 0; start--) {
+            if (text[start - 1] == '\n' && ++seen == count) {
+                break;
+            }
+        }
+        return new String(text, start, text.length - start, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] text, int off, int len) {
+        final ByteArrayOutputStream member = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+            gzip.write(text, off, len);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return member.toByteArray();
+    }
+}
@@ -0,0 +1,118 @@
+package io.aem.cloud.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTest {
+
+    @Test
+    void evictsTheLightestKey() {
+        final HeavyHitters hitters = new HeavyHitters(2);
+        offer(hitters, "a", 5);
+        offer(hitters, "b", 3);
+
+        offer(hitters, "c", 1);
+
+        final int[] top = hitters.top(3);
+        assertEquals(2, top.length);
+        assertEquals("a", hitters.key(top[0]));
+        assertEquals(5, hitters.weight(top[0]));
+        assertEquals(0, hitters.error(top[0]));
+        // The new key took over the weight of b as its error.
+        assertEquals("c", hitters.key(top[1]));
+        assertEquals(4, hitters.weight(top[1]));
+        assertEquals(3, hitters.error(top[1]));
+        assertEquals(1, hitters.hits(top[1]));
+        assertEquals(1, hitters.max(top[1]));
+
+        offer(hitters, "b", 2);
+
+        assertEquals("b", hitters.key(hitters.top(2)[0]));
+        assertEquals(6, hitters.weight(hitters.top(2)[0]));
+        assertEquals(4, hitters.error(hitters.top(2)[0]));
+        assertEquals("a", hitters.key(hitters.top(2)[1]));
+    }
+
+    @Test
+    void keepsEveryKeyHeavierThanItsShare() {
+        final Random random = new Random(17);
+        final HeavyHitters hitters = new HeavyHitters(10);
+        long total = 0;
+        long heavy = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+            // One key in eight is the heavy one, the rest spread over a thousand keys.
+            final String key = i % 8 == 0 ? "heavy" : "key" + random.nextInt(1_000);
+            final int weight = 1 + random.nextInt(10);
+            offer(hitters, key, weight);
+            total += weight;
+            heavy += key.equals("heavy") ? weight : 0;
+        }
+
+        assertTrue(heavy > total / 10);
+        final int slot = hitters.top(1)[0];
+        assertEquals("heavy", hitters.key(slot));
+        // Overestimated by at most its error, never underestimated.
+        assertTrue(hitters.weight(slot) >= heavy);
+        assertTrue(hitters.weight(slot) - hitters.error(slot) <= heavy);
+    }
+
+    @Test
+    void decaysAShareOfEveryCount() {
+        final HeavyHitters hitters = new HeavyHitters(2);
+        offer(hitters, "a", 100);
+        offer(hitters, "a", 100);
+        offer(hitters, "a", 100);
+        offer(hitters, "b", 1);
+
+        hitters.decay(4);
+
+        final int[] top = hitters.top(2);
+        assertEquals(225, hitters.weight(top[0]));
+        assertEquals(2, hitters.hits(top[0]));
+        assertEquals(100, hitters.max(top[0]));
+        // Rounded up, so a small count reaches 0.
+        assertEquals(0, hitters.weight(top[1]));
+        assertEquals(0, hitters.hits(top[1]));
+
+        offer(hitters, "c", 1);
+
+        assertEquals("c", hitters.key(hitters.top(2)[1]));
+        assertEquals(0, hitters.error(hitters.top(2)[1]));
+    }
+
+    @Test
+    void decaysTheErrorWithTheWeight() {
+        final HeavyHitters hitters = new HeavyHitters(1);
+        offer(hitters, "a", 40);
+        offer(hitters, "b", 20);
+
+        hitters.decay(2);
+
+        assertEquals(30, hitters.weight(0));
+        assertEquals(20, hitters.error(0));
+    }
+
+    @Test
+    void truncatesLongKeys() {
+        final HeavyHitters hitters = new HeavyHitters(4);
+        final String prefix = "x".repeat(160);
+        offer(hitters, prefix + "a", 1);
+        offer(hitters, prefix + "b", 1);
+
+        assertArrayEquals(new int[]{0}, hitters.top(4));
+        assertEquals(prefix, hitters.key(0));
+        assertEquals(2, hitters.weight(0));
+    }
+
+    private static void offer(HeavyHitters hitters, String key, long weight) {
+        final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        hitters.offer(bytes, 0, bytes.length, weight);
+    }
+}
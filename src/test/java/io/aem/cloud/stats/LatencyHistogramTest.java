@@ -0,0 +1,85 @@
+package io.aem.cloud.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    private static final double[] PERCENTILES = {0, 1, 25, 50, 90, 99, 99.9, 100};
+
+    @Test
+    void hasNoPercentileWhenEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(-1, histogram.percentile(50));
+        histogram.record(7);
+        histogram.clear();
+        assertEquals(0, histogram.count());
+        assertEquals(-1, histogram.percentile(99));
+    }
+
+    @Test
+    void isExactBelowSixteenMilliseconds() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 0; millis < 16; millis++) {
+            histogram.record(millis);
+        }
+
+        assertEquals(0, histogram.percentile(0));
+        assertEquals(7, histogram.percentile(50));
+        assertEquals(15, histogram.percentile(100));
+    }
+
+    @Test
+    void boundsEveryPercentileWithinAnEighth() {
+        final Random random = new Random(19);
+        for (int run = 0; run < 20; run++) {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            final long[] values = new long[1 + random.nextInt(5_000)];
+            for (int i = 0; i < values.length; i++) {
+                // Spread over every power of two up to an hour.
+                values[i] = (long) Math.pow(2, random.nextDouble() * 22);
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+
+            for (double percentile : PERCENTILES) {
+                final long exact = values[Math.max(0, (int) Math.ceil(values.length * percentile / 100) - 1)];
+                final long bound = histogram.percentile(percentile);
+                assertTrue(bound <= exact && exact < bound + Math.max(1, bound / 8),
+                        "p" + percentile + " of " + values.length + ": " + bound + " for " + exact);
+            }
+        }
+    }
+
+    @Test
+    void keepsTheLargestDurations() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.percentile(50));
+        assertTrue(histogram.percentile(100) > Long.MAX_VALUE / 8 * 7);
+    }
+
+    @Test
+    void addsAnotherHistogram() {
+        final LatencyHistogram minute = new LatencyHistogram();
+        final LatencyHistogram window = new LatencyHistogram();
+        minute.record(10);
+        window.record(1_024);
+        window.record(1_024);
+
+        window.add(minute);
+
+        assertEquals(3, window.count());
+        assertEquals(10, window.percentile(33));
+        assertEquals(1_024, window.percentile(34));
+        assertEquals(1_024, window.percentile(100));
+    }
+}
@@ -0,0 +1,101 @@
+package io.aem.cloud.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+
+    @Test
+    void findsTheEntriesOfAClusterWrappingAroundAfterARemoval() {
+        // Room for 4 entries in 8 slots.
+        final LongIntHashMap map = new LongIntHashMap(4);
+        final long first = keyAt(map, 7, 0);
+        final long second = keyAt(map, 7, first + 1);
+        final long third = keyAt(map, 7, second + 1);
+        final long atOne = keyAt(map, 1, 0);
+        // Slots 7, 0 and 1 for the keys of slot 7, then 2 for the key of slot 1.
+        map.put(first, 1);
+        map.put(second, 2);
+        map.put(third, 3);
+        map.put(atOne, 4);
+
+        map.remove(first);
+
+        assertEquals(LongIntHashMap.MISSING, map.get(first));
+        assertEquals(2, map.get(second));
+        assertEquals(3, map.get(third));
+        assertEquals(4, map.get(atOne));
+        assertEquals(3, map.size());
+
+        map.remove(third);
+        map.remove(second);
+
+        assertEquals(4, map.get(atOne));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void keepsAnEntryInItsSlotBetweenTheGapAndItself() {
+        final LongIntHashMap map = new LongIntHashMap(4);
+        final long atSix = keyAt(map, 6, 0);
+        final long atSeven = keyAt(map, 7, 0);
+        final long alsoAtSix = keyAt(map, 6, atSix + 1);
+        final long atZero = keyAt(map, 0, 0);
+        // Slots 6, 7, 0 and 1: the second key of slot 6 and the key of slot 0 wrapped past the end.
+        map.put(atSix, 1);
+        map.put(atSeven, 2);
+        map.put(alsoAtSix, 3);
+        map.put(atZero, 4);
+
+        map.remove(atSeven);
+
+        assertEquals(1, map.get(atSix));
+        assertEquals(3, map.get(alsoAtSix));
+        assertEquals(4, map.get(atZero));
+
+        map.remove(atSix);
+
+        assertEquals(3, map.get(alsoAtSix));
+        assertEquals(4, map.get(atZero));
+    }
+
+    @Test
+    void behavesLikeAMapUnderRandomPutsAndRemovals() {
+        final Random random = new Random(13);
+        final LongIntHashMap map = new LongIntHashMap(6);
+        final Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            // Few distinct keys, so the clusters are long and keep wrapping around.
+            final long key = random.nextInt(12);
+            if (expected.size() < 6 && random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+            for (long k = 0; k < 12; k++) {
+                assertEquals((int) expected.getOrDefault(k, LongIntHashMap.MISSING), map.get(k),
+                        "key " + k + " at " + i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+    }
+
+    /**
+     * @return the first key from {@code from} on whose probe run starts at {@code slot}.
+     */
+    private static long keyAt(LongIntHashMap map, int slot, long from) {
+        long key = from;
+        while (map.index(key) != slot) {
+            key++;
+        }
+        return key;
+    }
+}
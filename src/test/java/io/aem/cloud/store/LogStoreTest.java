@@ -0,0 +1,143 @@
+package io.aem.cloud.store;
+
+import io.aem.cloud.model.Target;
+import io.aem.cloud.model.TimeRange;
+import io.aem.cloud.output.LineSink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogStoreTest {
+
+    private static final Target TARGET = Target.parse("1234:5678:author:aemerror");
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 17);
+    private static final long MIDNIGHT = LogStore.startOf(DAY);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void storesTheLinesATailPrintsAgainOnce() throws IOException {
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            write(store.sink(TARGET, collect(printed)), 0, 1_000);
+        }
+        // Started over, the tail prints the last hundred lines again.
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            write(store.sink(TARGET, collect(printed)), 900, 1_100);
+        }
+
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            assertEquals(lines(0, 1_000) + lines(900, 1_100), printed.toString(StandardCharsets.UTF_8));
+            assertEquals(lines(0, 2_000), read(store, MIDNIGHT, MIDNIGHT + 86_400_000L - 1));
+            final StoreCoverage coverage = store.coverage(TARGET, DAY);
+            assertTrue(coverage.contains(MIDNIGHT) && coverage.contains(MIDNIGHT + 1_999));
+            assertFalse(coverage.contains(MIDNIGHT + 2_000));
+        }
+    }
+
+    @Test
+    void addsOnlyTheMissingLinesOfADownload() throws IOException {
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            write(store.sink(TARGET, collect(new ByteArrayOutputStream())), 5_000, 1_000);
+        }
+
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            final StoreCoverage coverage = store.coverage(TARGET, DAY);
+            assertTrue(coverage.overlaps(MIDNIGHT, MIDNIGHT + 9_999));
+            assertEquals(MIDNIGHT + 9_999, coverage.lastMissing(MIDNIGHT, MIDNIGHT + 9_999));
+            assertEquals(MIDNIGHT + 4_999, coverage.lastMissing(MIDNIGHT, MIDNIGHT + 5_999));
+            assertEquals(-1, coverage.lastMissing(MIDNIGHT + 5_000, MIDNIGHT + 5_999));
+
+            final StoreWriter download = store.downloadDay(TARGET, DAY);
+            write(download, 0, 8_000);
+            store.complete(download);
+        }
+
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            assertEquals(lines(0, 8_000), read(store, MIDNIGHT, MIDNIGHT + 86_400_000L - 1));
+            assertEquals(lines(4_000, 2_000), read(store, MIDNIGHT + 4_000, MIDNIGHT + 5_999));
+            assertEquals(-1, store.coverage(TARGET, DAY).lastMissing(MIDNIGHT, MIDNIGHT + 86_400_000L - 1));
+        }
+    }
+
+    @Test
+    void coversTheDayATailLeavesAtMidnight() throws IOException {
+        final long lastMinute = 86_400_000 - 60_000;
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            final LineSink sink = store.sink(TARGET, collect(new ByteArrayOutputStream()));
+            write(sink, lastMinute, 100);
+            sink.line(nextDay(), 0, nextDay().length);
+        }
+
+        try (LogStore store = LogStore.open(tempDir.toString())) {
+            assertEquals(MIDNIGHT + lastMinute - 1, store.coverage(TARGET, DAY)
+                    .lastMissing(MIDNIGHT, MIDNIGHT + 86_400_000L - 1));
+            final LocalDate next = DAY.plusDays(1);
+            assertEquals(-1, store.coverage(TARGET, next).lastMissing(LogStore.startOf(next),
+                    LogStore.startOf(next) + 2));
+        }
+    }
+
+    private String read(LogStore store, long fromMillis, long toMillis) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final TimeRange range = TimeRange.builder().fromMillis(fromMillis).toMillis(toMillis).build();
+        store.read(TARGET, DAY, range, null, collect(out));
+        // Whole blocks are read, the range is the caller's to apply.
+        final String text = out.toString(StandardCharsets.UTF_8);
+        final int from = text.indexOf(line(fromMillis - MIDNIGHT));
+        final int to = text.indexOf(line(toMillis - MIDNIGHT + 1));
+        return text.substring(Math.max(from, 0), to < 0 ? text.length() : to);
+    }
+
+    private static void write(LineSink sink, long first, int count) throws IOException {
+        for (long i = first; i < first + count; i++) {
+            final byte[] line = line(i).getBytes(StandardCharsets.UTF_8);
+            sink.line(line, 0, line.length - 1);
+        }
+        sink.flush();
+    }
+
+    private static String lines(long first, int count) {
+        final StringBuilder text = new StringBuilder();
+        for (long i = first; i < first + count; i++) {
+            text.append(line(i));
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the line logged the given number of milliseconds after midnight, with its line break.
+     */
+    private static String line(long millis) {
+        return String.format("17.10.2026 %02d:%02d:%02d.%03d [qtp1-1] *INFO* [org.apache.sling] line %d%n",
+                millis / 3_600_000 % 24, millis / 60_000 % 60, millis / 1000 % 60, millis % 1000, millis);
+    }
+
+    private static byte[] nextDay() {
+        return "18.10.2026 00:00:00.002 [qtp1-1] *INFO* [org.apache.sling] next day".getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static LineSink collect(ByteArrayOutputStream out) {
+        return new LineSink() {
+            @Override
+            public void line(byte[] buf, int off, int len) {
+                out.write(buf, off, len);
+                out.write('\n');
+            }
+
+            @Override
+            public void flush() {
+            }
+        };
+    }
+}
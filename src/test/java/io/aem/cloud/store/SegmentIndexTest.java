@@ -0,0 +1,104 @@
+package io.aem.cloud.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsWhatItWrote() throws IOException {
+        final TrigramBloom bloom = new TrigramBloom();
+        final byte[] line = "boom in com.Foo".getBytes(StandardCharsets.UTF_8);
+        bloom.addLine(line, 0, line.length);
+        final File file = tempDir.resolve("segment-000001.idx").toFile();
+
+        // Arrays bigger than the blocks, like the writer's.
+        new SegmentIndex(1_000, 9_000, 500, 9_500, new long[]{1_000, 4_000, 7_000, 0}, new long[]{0, 300, 700, 0}, 3,
+                bloom).write(file);
+        final SegmentIndex read = SegmentIndex.read(file);
+
+        assertNotNull(read);
+        assertEquals(1_000, read.getMinTimestamp());
+        assertEquals(9_000, read.getMaxTimestamp());
+        assertEquals(500, read.getCoveredFrom());
+        assertEquals(9_500, read.getCoveredTo());
+        assertEquals(3, read.getBlocks());
+        assertArrayEquals(new long[]{1_000, 4_000, 7_000}, read.getBlockTimestamps());
+        assertArrayEquals(new long[]{0, 300, 700}, read.getBlockOffsets());
+        assertArrayEquals(bloom.words(), read.getBloom().words());
+        assertTrue(read.getBloom().mayContain("com.Foo".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    void readsAnEmptySegment() throws IOException {
+        final File file = tempDir.resolve("segment-000001.idx").toFile();
+
+        new SegmentIndex(-1, -1, 500, 9_500, new long[64], new long[64], 0, new TrigramBloom()).write(file);
+        final SegmentIndex read = SegmentIndex.read(file);
+
+        assertNotNull(read);
+        assertEquals(0, read.getBlocks());
+        assertEquals(-1, read.getMinTimestamp());
+        assertEquals(500, read.getCoveredFrom());
+    }
+
+    @Test
+    void hasNoIndexForAMissingOrBrokenFile() throws IOException {
+        final File file = tempDir.resolve("segment-000001.idx").toFile();
+        assertNull(SegmentIndex.read(file));
+
+        new SegmentIndex(1_000, 2_000, 1_000, 2_000, new long[]{1_000}, new long[]{0}, 1, new TrigramBloom())
+                .write(file);
+        final byte[] written = Files.readAllBytes(file.toPath());
+
+        // Cut short.
+        try (RandomAccessFile cut = new RandomAccessFile(file, "rw")) {
+            cut.setLength(written.length - 1);
+        }
+        assertNull(SegmentIndex.read(file));
+
+        // An older version.
+        written[7] = 1;
+        Files.write(file.toPath(), written);
+        assertNull(SegmentIndex.read(file));
+
+        // Not an index at all.
+        Files.write(file.toPath(), "segment".getBytes(StandardCharsets.UTF_8));
+        assertNull(SegmentIndex.read(file));
+    }
+
+    @Test
+    void findsTheBlocksOfATimeRange() {
+        final SegmentIndex index = new SegmentIndex(1_000, 9_000, 1_000, 9_000, new long[]{1_000, 4_000, 4_000, 7_000},
+                new long[]{0, 300, 600, 900}, 4, new TrigramBloom());
+
+        assertEquals(0, index.firstBlockFor(0));
+        assertEquals(0, index.firstBlockFor(3_999));
+        // The last of the blocks starting at the time, an earlier one may hold lines of it too.
+        assertEquals(2, index.firstBlockFor(4_000));
+        assertEquals(3, index.firstBlockFor(10_000));
+
+        assertEquals(0, index.endBlockFor(999));
+        assertEquals(1, index.endBlockFor(1_000));
+        assertEquals(3, index.endBlockFor(6_999));
+        assertEquals(4, index.endBlockFor(7_000));
+    }
+}
@@ -0,0 +1,159 @@
+package io.aem.cloud.store;
+
+import io.aem.cloud.parser.LogFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StoreWriterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 17);
+    private static final long MIDNIGHT = LogStore.startOf(DAY);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesBlocksTheIndexFinds() throws IOException {
+        final File dir = tempDir.toFile();
+        // A few blocks' worth.
+        final int count = 3 * StoreWriter.BLOCK_SIZE / line(0).length() + 100;
+        try (StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, StoreCoverage.NONE)) {
+            write(writer, 0, count);
+        }
+
+        assertEquals(1, LogStore.segmentCount(dir));
+        final byte[] segment = Files.readAllBytes(LogStore.segmentFile(dir, 1).toPath());
+        assertEquals(lines(0, count), gunzip(segment, 0));
+        final SegmentIndex index = SegmentIndex.read(LogStore.indexFile(dir, 1));
+        assertNotNull(index);
+        assertEquals(MIDNIGHT, index.getMinTimestamp());
+        assertEquals(MIDNIGHT + count - 1, index.getMaxTimestamp());
+        assertEquals(MIDNIGHT, index.getCoveredFrom());
+        assertEquals(MIDNIGHT + count - 1, index.getCoveredTo());
+        assertEquals(4, index.getBlocks());
+        for (int block = 0; block < index.getBlocks(); block++) {
+            // Every block is a gzip member of its own, starting with the line of its timestamp.
+            final String text = gunzip(segment, (int) index.getBlockOffsets()[block]);
+            assertTrue(text.startsWith(line(index.getBlockTimestamps()[block] - MIDNIGHT)), "block " + block);
+        }
+        assertTrue(index.getBloom().mayContain("line 1234".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(index.getBloom().mayContain("*ERROR*".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void keepsTheLinesOfAStackTraceWithTheirEvent() throws IOException {
+        final File dir = tempDir.toFile();
+        try (StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, StoreCoverage.NONE)) {
+            write(writer, 0, 10);
+            final byte[] trace = "\tat com.Foo.bar(Foo.java:1)".getBytes(StandardCharsets.UTF_8);
+            writer.line(trace, 0, trace.length);
+            write(writer, 10, 10);
+        }
+
+        assertEquals(lines(0, 10) + "\tat com.Foo.bar(Foo.java:1)\n" + lines(10, 10),
+                gunzip(Files.readAllBytes(LogStore.segmentFile(dir, 1).toPath()), 0));
+    }
+
+    @Test
+    void skipsTheStoredLines() throws IOException {
+        final File dir = tempDir.toFile();
+        final StoreCoverage stored = StoreCoverage.of(new long[][]{{MIDNIGHT + 100, MIDNIGHT + 199}});
+        try (StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, stored)) {
+            write(writer, 0, 300);
+        }
+
+        // The segment ended where the lines reached stored time, the next one started after it.
+        assertEquals(2, LogStore.segmentCount(dir));
+        assertEquals(lines(0, 100), gunzip(Files.readAllBytes(LogStore.segmentFile(dir, 1).toPath()), 0));
+        assertEquals(lines(200, 100), gunzip(Files.readAllBytes(LogStore.segmentFile(dir, 2).toPath()), 0));
+        final SegmentIndex first = SegmentIndex.read(LogStore.indexFile(dir, 1));
+        final SegmentIndex second = SegmentIndex.read(LogStore.indexFile(dir, 2));
+        assertEquals(MIDNIGHT + 99, first.getMaxTimestamp());
+        assertEquals(MIDNIGHT + 200, second.getMinTimestamp());
+        // Both cover the time the writer saw every line of.
+        assertEquals(MIDNIGHT, second.getCoveredFrom());
+        assertEquals(MIDNIGHT + 299, second.getCoveredTo());
+    }
+
+    @Test
+    void recordsTheCoverageOfOnlyStoredLines() throws IOException {
+        final File dir = tempDir.toFile();
+        final StoreCoverage stored = StoreCoverage.of(new long[][]{{MIDNIGHT, MIDNIGHT + 999}});
+        try (StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, stored)) {
+            write(writer, 500, 500);
+        }
+        assertEquals(0, LogStore.segmentCount(dir));
+
+        try (StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, stored)) {
+            write(writer, 500, 500);
+            writer.coverTo(MIDNIGHT + 1_999);
+        }
+
+        assertEquals(1, LogStore.segmentCount(dir));
+        final SegmentIndex index = SegmentIndex.read(LogStore.indexFile(dir, 1));
+        assertEquals(0, index.getBlocks());
+        assertEquals(MIDNIGHT + 500, index.getCoveredFrom());
+        assertEquals(MIDNIGHT + 1_999, index.getCoveredTo());
+    }
+
+    @Test
+    void writesNothingOnceClosed() throws IOException {
+        final File dir = tempDir.toFile();
+        final StoreWriter writer = new StoreWriter(dir, DAY, LogFormat.ERROR, StoreCoverage.NONE);
+        write(writer, 0, 10);
+        writer.close();
+
+        write(writer, 10, 10);
+        writer.close();
+
+        assertEquals(1, LogStore.segmentCount(dir));
+        assertEquals(lines(0, 10), gunzip(Files.readAllBytes(LogStore.segmentFile(dir, 1).toPath()), 0));
+    }
+
+    private static void write(StoreWriter writer, long first, int count) throws IOException {
+        for (long i = first; i < first + count; i++) {
+            final byte[] line = line(i).getBytes(StandardCharsets.UTF_8);
+            writer.line(line, 0, line.length - 1);
+        }
+    }
+
+    private static String lines(long first, int count) {
+        final StringBuilder text = new StringBuilder();
+        for (long i = first; i < first + count; i++) {
+            text.append(line(i));
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return the line logged the given number of milliseconds after midnight, with its line break.
+     */
+    private static String line(long millis) {
+        return String.format("17.10.2026 %02d:%02d:%02d.%03d *INFO* [qtp1-1] org.apache.sling line %d\n",
+                millis / 3_600_000 % 24, millis / 60_000 % 60, millis / 1000 % 60, millis % 1000, millis);
+    }
+
+    /**
+     * @return the text of every gzip member from the offset to the end.
+     */
+    private static String gunzip(byte[] bytes, int offset) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes, offset, bytes.length - offset))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.aem.cloud.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramBloomTest {
+
+    @Test
+    void hasNoFalseNegatives() {
+        final Random random = new Random(29);
+        final TrigramBloom bloom = new TrigramBloom();
+        final List<byte[]> lines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final byte[] line = randomLine(random);
+            lines.add(line);
+            bloom.addLine(line, 0, line.length);
+        }
+
+        for (byte[] line : lines) {
+            for (int from = 0; from + 3 <= line.length; from += 1 + random.nextInt(4)) {
+                final int to = from + 3 + random.nextInt(line.length - from - 2);
+                assertTrue(bloom.mayContain(copy(line, from, to)), text(copy(line, from, to)));
+            }
+        }
+    }
+
+    @Test
+    void addsOnlyTheTrigramsOfTheLine() {
+        final TrigramBloom bloom = new TrigramBloom();
+        final byte[] buf = "xxxHello worldyyy".getBytes(StandardCharsets.UTF_8);
+
+        bloom.addLine(buf, 3, 11);
+
+        assertTrue(bloom.mayContain(bytes("Hello world")));
+        assertTrue(bloom.mayContain(bytes("lo w")));
+        assertFalse(bloom.mayContain(bytes("xxH")));
+        assertFalse(bloom.mayContain(bytes("ldy")));
+        // Both words are there, not this sequence of them.
+        assertFalse(bloom.mayContain(bytes("worldHello")));
+    }
+
+    @Test
+    void mayContainALiteralTooShortToTell() {
+        final TrigramBloom bloom = new TrigramBloom();
+        bloom.addLine(bytes("ab"), 0, 2);
+
+        assertTrue(bloom.mayContain(bytes("")));
+        assertTrue(bloom.mayContain(bytes("zz")));
+        assertFalse(bloom.mayContain(bytes("abc")));
+    }
+
+    @Test
+    void rarelyMatchesAMissingLiteral() {
+        final Random random = new Random(31);
+        final TrigramBloom bloom = new TrigramBloom();
+        for (int i = 0; i < 2_000; i++) {
+            final byte[] line = randomLine(random);
+            bloom.addLine(line, 0, line.length);
+        }
+
+        int matches = 0;
+        for (int i = 0; i < 10_000; i++) {
+            // Upper case never appears in the lines.
+            final byte[] literal = new byte[4 + random.nextInt(8)];
+            for (int j = 0; j < literal.length; j++) {
+                literal[j] = (byte) ('A' + random.nextInt(26));
+            }
+            matches += bloom.mayContain(literal) ? 1 : 0;
+        }
+        assertTrue(matches < 100, matches + " false positives");
+    }
+
+    @Test
+    void readsTheSameFromItsWords() {
+        final Random random = new Random(37);
+        final TrigramBloom bloom = new TrigramBloom();
+        final byte[] line = randomLine(random);
+        bloom.addLine(line, 0, line.length);
+
+        final TrigramBloom read = new TrigramBloom(bloom.words().clone());
+
+        for (int i = 0; i < 1_000; i++) {
+            final byte[] literal = i % 2 == 0 ? copy(line, i % 10, i % 10 + 5) : randomLine(random);
+            assertEquals(bloom.mayContain(literal), read.mayContain(literal));
+        }
+    }
+
+    /**
+     * @return a line of lower case words, digits and punctuation, with some UTF-8.
+     */
+    private static byte[] randomLine(Random random) {
+        final StringBuilder line = new StringBuilder();
+        final int words = 3 + random.nextInt(20);
+        for (int i = 0; i < words; i++) {
+            final int length = 1 + random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            line.append(" 0123456789.:/[]*ü€".charAt(random.nextInt(19)));
+        }
+        return bytes(line.toString());
+    }
+
+    private static byte[] copy(byte[] bytes, int from, int to) {
+        final byte[] copy = new byte[to - from];
+        System.arraycopy(bytes, from, copy, 0, copy.length);
+        return copy;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}